@@ -70,6 +70,7 @@ import cgeo.geocaching.settings.SettingsActivity;
 import cgeo.geocaching.sorting.CacheComparator;
 import cgeo.geocaching.sorting.SortActionProvider;
 import cgeo.geocaching.sorting.VisitComparator;
+import cgeo.geocaching.storage.CacheListIndex;
 import cgeo.geocaching.storage.ContentStorage;
 import cgeo.geocaching.storage.ContentStorageActivityHelper;
 import cgeo.geocaching.storage.DataStore;
@@ -78,6 +79,7 @@ import cgeo.geocaching.ui.CacheListAdapter;
 import cgeo.geocaching.ui.FastScrollListener;
 import cgeo.geocaching.ui.TextParam;
 import cgeo.geocaching.ui.WeakReferenceHandler;
+import cgeo.geocaching.ui.WindowedCacheList;
 import cgeo.geocaching.ui.dialog.Dialogs;
 import cgeo.geocaching.ui.dialog.SimpleDialog;
 import cgeo.geocaching.utils.AndroidRxUtils;
@@ -315,6 +317,7 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
                 final Set<Geocache> cachesFromSearchResult = search.getCachesFromSearchResult(LoadFlags.LOAD_CACHE_OR_DB);
 
                 cacheList.addAll(cachesFromSearchResult);
+                adapter.setWindowedList(null);
                 adapter.reFilter();
                 updateTitle();
                 showFooterMoreCaches();
@@ -390,6 +393,7 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
                                 final List<Geocache> cacheList = activity.cacheList;
                                 cacheList.clear();
                                 cacheList.addAll(result);
+                                activity.adapter.setWindowedList(null);
                                 activity.adapter.reFilter();
                             }
                             activity.setAdapterCurrentCoordinates(false);
@@ -719,7 +723,7 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
             setComparator(selectedComparator);
         });
 
-        ListNavigationSelectionActionProvider.initialize(menu.findItem(R.id.menu_cache_list_app_provider), app -> app.invoke(CacheListAppUtils.filterCoords(cacheList), CacheListActivity.this, getFilteredSearch()));
+        ListNavigationSelectionActionProvider.initialize(menu.findItem(R.id.menu_cache_list_app_provider), app -> withFilteredCaches(caches -> app.invoke(CacheListAppUtils.filterCoords(caches), CacheListActivity.this, getFilteredSearch())));
 
         return true;
     }
@@ -748,7 +752,7 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
 
         final boolean isHistory = type == CacheListType.HISTORY;
         final boolean isOffline = type == CacheListType.OFFLINE;
-        final boolean isEmpty = cacheList.isEmpty();
+        final boolean isEmpty = adapter.isEmpty();
         final boolean isConcrete = isConcreteList();
         final boolean isNonDefaultList = isConcrete && listId != StoredList.STANDARD_LIST_ID;
         final List<CacheListApp> listNavigationApps = CacheListApps.getActiveApps();
@@ -816,6 +820,10 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
     }
 
     private boolean containsStoredCaches() {
+        if (adapter.isWindowed()) {
+            // only stored lists are windowed
+            return true;
+        }
         for (final Geocache cache : adapter.getCheckedOrAllCaches()) {
             if (cache.isOffline()) {
                 return true;
@@ -825,6 +833,10 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
     }
 
     private boolean containsPastEvents() {
+        if (adapter.isWindowed()) {
+            // the event dates are not part of the index, the past events are sorted out when deleting
+            return adapter.getWindowedList().containsCheckedOrAllEvents();
+        }
         for (final Geocache cache : adapter.getCheckedOrAllCaches()) {
             if (CalendarUtils.isPastEvent(cache)) {
                 return true;
@@ -834,6 +846,10 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
     }
 
     private boolean containsOfflineLogs() {
+        if (adapter.isWindowed()) {
+            // offline logs are not part of the index, clearing them is harmless if there are none
+            return true;
+        }
         for (final Geocache cache : adapter.getCheckedOrAllCaches()) {
             if (cache.hasLogOffline()) {
                 return true;
@@ -842,6 +858,40 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
         return false;
     }
 
+    /**
+     * Runs the action with the selected caches, or with all caches if none is selected. The caches of a windowed list
+     * are loaded in the background first, as loading thousands of caches would block the UI.
+     */
+    private void withCheckedOrAllCaches(final Action1<List<Geocache>> action) {
+        if (!adapter.isWindowed()) {
+            action.call(adapter.getCheckedOrAllCaches());
+            return;
+        }
+        loadInBackground(adapter.getCheckedOrAllGeocodes(), action);
+    }
+
+    /**
+     * Runs the action with all caches of the (filtered) list, see {@link #withCheckedOrAllCaches(Action1)}.
+     */
+    private void withFilteredCaches(final Action1<List<Geocache>> action) {
+        final WindowedCacheList windowedList = adapter.getWindowedList();
+        if (windowedList == null) {
+            action.call(adapter.getFilteredList());
+            return;
+        }
+        loadInBackground(windowedList.getGeocodes(), action);
+    }
+
+    private void loadInBackground(final List<String> geocodes, final Action1<List<Geocache>> action) {
+        showProgress(true);
+        AndroidRxUtils.andThenOnUi(Schedulers.io(), () -> WindowedCacheList.loadCaches(geocodes), caches -> {
+            showProgress(false);
+            if (!isFinishing()) {
+                action.call(caches);
+            }
+        });
+    }
+
     private void setMenuItemLabel(final Menu menu, final int menuId, @StringRes final int resIdSelection, @StringRes final int resId) {
         final MenuItem menuItem = menu.findItem(menuId);
         if (menuItem == null) {
@@ -871,13 +921,13 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
     }
 
     private void setCacheIconsHelper(final int newCacheIcon) {
-        new SetCacheIconCommand(this, adapter.getCheckedOrAllCaches(), newCacheIcon) {
+        withCheckedOrAllCaches(caches -> new SetCacheIconCommand(this, caches, newCacheIcon) {
             @Override
             protected void onFinished() {
                 adapter.setSelectMode(false);
                 refreshCurrentList(AfterLoadAction.CHECK_IF_EMPTY);
             }
-        }.execute();
+        }.execute());
     }
 
     @Override
@@ -889,10 +939,10 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
             adapter.switchSelectMode();
             invalidateOptionsMenuCompatible();
         } else if (menuItem == R.id.menu_refresh_stored) {
-            refreshStored(adapter.getCheckedOrAllCaches());
+            withCheckedOrAllCaches(this::refreshStored);
             invalidateOptionsMenuCompatible();
         } else if (menuItem == R.id.menu_drop_caches) {
-            deleteCaches(adapter.getCheckedOrAllCaches());
+            withCheckedOrAllCaches(this::deleteCaches);
             invalidateOptionsMenuCompatible();
         } else if (menuItem == R.id.menu_import_pq) {
             importPq();
@@ -919,25 +969,25 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
         } else if (menuItem == R.id.menu_import_web) {
             importWeb();
         } else if (menuItem == R.id.menu_export_gpx) {
-            new GpxExport().export(adapter.getCheckedOrAllCaches(), this);
+            withCheckedOrAllCaches(caches -> new GpxExport().export(caches, this));
         } else if (menuItem == R.id.menu_export_fieldnotes) {
-                new FieldNoteExport().export(adapter.getCheckedOrAllCaches(), this);
+                withCheckedOrAllCaches(caches -> new FieldNoteExport().export(caches, this));
         } else if (menuItem == R.id.menu_export_persnotes) {
-            new PersonalNoteExport().export(adapter.getCheckedOrAllCaches(), this);
+            withCheckedOrAllCaches(caches -> new PersonalNoteExport().export(caches, this));
         } else if (menuItem == R.id.menu_upload_modifiedcoords) {
             final Activity that = this;
-            SimpleDialog.of(this).setTitle(R.string.caches_upload_modifiedcoords).setMessage(R.string.caches_upload_modifiedcoords_warning).confirm((dialog, which) -> new BatchUploadModifiedCoordinates(true).export(adapter.getCheckedOrAllCaches(), that));
+            SimpleDialog.of(this).setTitle(R.string.caches_upload_modifiedcoords).setMessage(R.string.caches_upload_modifiedcoords_warning).confirm((dialog, which) -> withCheckedOrAllCaches(caches -> new BatchUploadModifiedCoordinates(true).export(caches, that)));
         } else if (menuItem == R.id.menu_upload_allcoords) {
             final Activity that2 = this;
-            SimpleDialog.of(this).setTitle(R.string.caches_upload_allcoords_dialogtitle).setMessage(R.string.caches_upload_allcoords_warning).confirm((dialog, which) -> new BatchUploadModifiedCoordinates(false).export(adapter.getCheckedOrAllCaches(), that2));
+            SimpleDialog.of(this).setTitle(R.string.caches_upload_allcoords_dialogtitle).setMessage(R.string.caches_upload_allcoords_warning).confirm((dialog, which) -> withCheckedOrAllCaches(caches -> new BatchUploadModifiedCoordinates(false).export(caches, that2)));
         } else if (menuItem == R.id.menu_remove_from_history) {
             removeFromHistoryCheck();
             invalidateOptionsMenuCompatible();
         } else if (menuItem == R.id.menu_move_to_list) {
-            moveCachesToOtherList(adapter.getCheckedOrAllCaches());
+            withCheckedOrAllCaches(this::moveCachesToOtherList);
             invalidateOptionsMenuCompatible();
         } else if (menuItem == R.id.menu_copy_to_list) {
-            copyCachesToOtherList(adapter.getCheckedOrAllCaches());
+            withCheckedOrAllCaches(this::copyCachesToOtherList);
             invalidateOptionsMenuCompatible();
         } else if (menuItem == R.id.menu_delete_events) {
             deletePastEvents();
@@ -949,7 +999,7 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
             invalidateOptionsMenuCompatible();
         } else if (menuItem == R.id.menu_cache_list_app) {
             if (cacheToShow()) {
-                CacheListApps.getActiveApps().get(0).invoke(CacheListAppUtils.filterCoords(cacheList), this, getFilteredSearch());
+                withFilteredCaches(caches -> CacheListApps.getActiveApps().get(0).invoke(CacheListAppUtils.filterCoords(caches), this, getFilteredSearch()));
             }
         } else if (menuItem == R.id.menu_make_list_unique) {
             new MakeListUniqueCommand(this, listId) {
@@ -979,7 +1029,7 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
         final boolean isNonDefaultList = isConcreteList() && listId != StoredList.STANDARD_LIST_ID;
         // Check local cacheList first, and Datastore only if needed (because of filtered lists)
         // Checking is done in this order for performance reasons
-        if (isNonDefaultList && CollectionUtils.isEmpty(cacheList)
+        if (isNonDefaultList && adapter.isEmpty()
                 && DataStore.getAllStoredCachesCount(CacheType.ALL, listId) == 0) {
             // ask user, if he wants to delete the now empty list
             SimpleDialog.of(this).setTitle(R.string.list_dialog_remove_title).setMessage(R.string.list_dialog_remove_nowempty).setButtons(SimpleDialog.ButtonTextSet.YES_NO).confirm((dialog, whichButton) -> removeListInternal());
@@ -987,7 +1037,7 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
     }
 
     private boolean cacheToShow() {
-        if (search == null || CollectionUtils.isEmpty(cacheList)) {
+        if (search == null || adapter.isEmpty()) {
             showToast(res.getString(R.string.warn_no_cache_coord));
             return false;
         }
@@ -995,24 +1045,28 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
     }
 
     private SearchResult getFilteredSearch() {
-        return new SearchResult(Geocache.getGeocodes(adapter.getFilteredList()));
+        return new SearchResult(adapter.getFilteredGeocodes());
     }
 
     private void deletePastEvents() {
-        final List<Geocache> deletion = new ArrayList<>();
-        for (final Geocache cache : adapter.getCheckedOrAllCaches()) {
-            if (CalendarUtils.isPastEvent(cache)) {
-                deletion.add(cache);
+        withCheckedOrAllCaches(caches -> {
+            final List<Geocache> deletion = new ArrayList<>();
+            for (final Geocache cache : caches) {
+                if (CalendarUtils.isPastEvent(cache)) {
+                    deletion.add(cache);
+                }
             }
-        }
-        deleteCaches(deletion);
+            deleteCaches(deletion);
+        });
     }
 
     private void clearOfflineLogs() {
         //Dialogs.confirmYesNo(this, R.string.caches_clear_offlinelogs, R.string.caches_clear_offlinelogs_message, (dialog, which) -> {
         SimpleDialog.of(this).setTitle(R.string.caches_clear_offlinelogs).setMessage(R.string.caches_clear_offlinelogs_message).setButtons(SimpleDialog.ButtonTextSet.YES_NO).confirm((dialog, which) -> {
-            progress.show(CacheListActivity.this, null, res.getString(R.string.caches_clear_offlinelogs_progress), true, clearOfflineLogsHandler.disposeMessage());
-            clearOfflineLogs(clearOfflineLogsHandler, adapter.getCheckedOrAllCaches());
+            withCheckedOrAllCaches(caches -> {
+                progress.show(CacheListActivity.this, null, res.getString(R.string.caches_clear_offlinelogs_progress), true, clearOfflineLogsHandler.disposeMessage());
+                clearOfflineLogs(clearOfflineLogsHandler, caches);
+            });
         });
     }
 
@@ -1032,7 +1086,8 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
      */
     @Override
     public void showFilterMenu(final View view) {
-        GeocacheFilterActivity.selectFilter(this, currentCacheFilter, adapter.getFilteredList(), !resultIsOfflineAndLimited());
+        // a windowed list would have to load all its caches to provide the list info
+        GeocacheFilterActivity.selectFilter(this, currentCacheFilter, adapter.isWindowed() ? null : adapter.getFilteredList(), !resultIsOfflineAndLimited());
     }
 
     private void setComparator(final CacheComparator comparator) {
@@ -1214,6 +1269,10 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
         prepareFilterBar();
         updateTitle();
         invalidateOptionsMenuCompatible();
+        if (adapter.isWindowed()) {
+            // windowed lists are filtered by the database
+            refreshCurrentList();
+        }
     }
 
     private void applyAdapterFilter() {
@@ -1278,7 +1337,7 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
             return;
         }
 
-        final int listSize = search == null ? cacheList.size() : search.getCount();
+        final int listSize = search == null ? adapter.getCount() : search.getCount();
         final int totalListSize = search == null ? listSize : Math.max(0, search.getTotalCountGC());
 
         final boolean enableMore = !type.isStoredInDatabase && listSize < MAX_LIST_ITEMS && (search == null || (listSize > 0 && listSize < totalListSize));
@@ -1288,7 +1347,7 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
             setView(listFooterLine1, res.getString(R.string.caches_more_caches) + (listSize > 0 ? " (" + res.getString(R.string.caches_more_caches_currently) + ": " + listSize + ")" : ""), new MoreCachesListener());
         } else if (!type.isStoredInDatabase && type != CacheListType.SEARCH_FILTER) {
             setViewGone(listFooterLine2);
-            setView(listFooterLine1, res.getString(CollectionUtils.isEmpty(cacheList) ? R.string.caches_no_cache : R.string.caches_more_caches_no), null);
+            setView(listFooterLine1, res.getString(adapter.isEmpty() ? R.string.caches_no_cache : R.string.caches_more_caches_no), null);
         } else if (resultIsOfflineAndLimited()) {
             final int missingCaches = totalListSize - offlineListLoadLimit;
             if (missingCaches > getOfflineListLimitIncrease()) {
@@ -1473,14 +1532,15 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
     }
 
     private void removeFromHistory() {
-        final List<Geocache> caches = adapter.getCheckedOrAllCaches();
-        final Collection<String> geocodes = new ArrayList<>(caches.size());
-        for (final Geocache cache : caches) {
-            geocodes.add(cache.getGeocode());
-        }
-        DataStore.clearVisitDate(geocodes);
-        DataStore.clearLogsOffline(caches);
-        refreshCurrentList();
+        withCheckedOrAllCaches(caches -> {
+            final Collection<String> geocodes = new ArrayList<>(caches.size());
+            for (final Geocache cache : caches) {
+                geocodes.add(cache.getGeocode());
+            }
+            DataStore.clearVisitDate(geocodes);
+            DataStore.clearLogsOffline(caches);
+            refreshCurrentList();
+        });
     }
 
     private void importWeb() {
@@ -1727,7 +1787,7 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
     private void removeList() {
         // if there are no caches on this list, don't bother the user with questions.
         // there is no harm in deleting the list, he could recreate it easily
-        if (CollectionUtils.isEmpty(cacheList)) {
+        if (adapter.isEmpty()) {
             removeListInternal();
             return;
         }
@@ -2064,8 +2124,15 @@ public class CacheListActivity extends AbstractListActivity implements FilteredA
         // then we have 2 sets of caches in memory. This can lead to OOM for huge cache lists.
         if (searchIn != null) {
             cacheList.clear();
-            final Set<Geocache> cachesFromSearchResult = searchIn.getCachesFromSearchResult(LoadFlags.LOAD_CACHE_OR_DB);
-            cacheList.addAll(cachesFromSearchResult);
+            final CacheListIndex index = arg0 instanceof OfflineGeocacheListLoader && currentFilter == null ? ((OfflineGeocacheListLoader) arg0).getCacheListIndex() : null;
+            if (index != null) {
+                // huge stored list: keep only its index in memory and load the caches page by page when they are shown
+                adapter.setWindowedList(new WindowedCacheList(index));
+            } else {
+                final Set<Geocache> cachesFromSearchResult = searchIn.getCachesFromSearchResult(LoadFlags.LOAD_CACHE_OR_DB);
+                cacheList.addAll(cachesFromSearchResult);
+                adapter.setWindowedList(null);
+            }
             search = searchIn;
             updateAdapter();
             updateTitle();
@@ -1,9 +1,12 @@
 package cgeo.geocaching;
 
+import cgeo.geocaching.connector.ConnectorFactory;
 import cgeo.geocaching.network.Cookies;
 import cgeo.geocaching.settings.Settings;
 import cgeo.geocaching.storage.DataStore;
 import cgeo.geocaching.ui.notifications.NotificationChannels;
+import cgeo.geocaching.utils.BitmapCache;
+import cgeo.geocaching.utils.InitializationBarrier;
 import cgeo.geocaching.utils.Log;
 import cgeo.geocaching.utils.OOMDumpingUncaughtExceptionHandler;
 
@@ -22,10 +25,18 @@ import androidx.annotation.NonNull;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
 public class CgeoApplication extends Application {
 
     private static CgeoApplication instance;
 
+    /** opens the database and prepares what the first screens need, off the main thread */
+    private static final InitializationBarrier STARTUP = new InitializationBarrier("Startup")
+        .addPhase("database", () -> DataStore.init(false))
+        .addPhase("lists", DataStore::getLists)
+        .addPhase("connectors", ConnectorFactory::getConnectors);
+
     public CgeoApplication() {
         setInstance(this);
     }
@@ -38,6 +49,14 @@ public class CgeoApplication extends Application {
         return instance;
     }
 
+    /**
+     * Waits for the startup initialization, which opens or upgrades the database, loads the lists and registers the
+     * connectors. Must not be called on the main thread.
+     */
+    public static void awaitStartup() {
+        STARTUP.await();
+    }
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -57,8 +76,8 @@ public class CgeoApplication extends Application {
         // initialize cgeo notification channels
         NotificationChannels.createNotificationChannels(this);
 
-        // ensure initialization of lists
-        DataStore.getLists();
+        // a large database with a pending upgrade must not delay the first frame
+        STARTUP.start(Schedulers.io());
 
         // Restore cookies
         Cookies.restoreCookies();
@@ -111,6 +130,7 @@ public class CgeoApplication extends Application {
         if (level >= TRIM_MEMORY_MODERATE) {
             Log.i("Cleaning applications cache to trim memory");
             DataStore.removeAllFromCache();
+            BitmapCache.get().clear();
         }
     }
 
@@ -84,6 +84,7 @@ import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
 import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.functions.Consumer;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.apache.commons.lang3.StringUtils;
 
 public class MainActivity extends AbstractActionBarActivity {
@@ -279,12 +280,6 @@ public class MainActivity extends AbstractActionBarActivity {
 
         backupUtils = new BackupUtils(this, savedInstanceState == null ? null : savedInstanceState.getBundle(STATE_BACKUPUTILS));
 
-        //check database
-        final String errorMsg = DataStore.initAndCheck(false);
-        if (errorMsg != null) {
-            DebugUtils.askUserToReportProblem(this, "Fatal DB error: " + errorMsg);
-        }
-
         // Disable the up navigation for this activity
         final ActionBar actionBar = getSupportActionBar();
         if (actionBar != null) {
@@ -675,8 +670,20 @@ public class MainActivity extends AbstractActionBarActivity {
 
         updateCacheCounter();
 
-        checkRestore();
-        DataStore.cleanIfNeeded(this);
+        // the database is opened in the background during startup
+        AndroidRxUtils.andThenOnUi(Schedulers.io(), () -> {
+            CgeoApplication.awaitStartup();
+            return DataStore.initAndCheck(false);
+        }, errorMsg -> {
+            if (isFinishing()) {
+                return;
+            }
+            if (errorMsg != null) {
+                DebugUtils.askUserToReportProblem(this, "Fatal DB error: " + errorMsg);
+            }
+            checkRestore();
+            DataStore.cleanIfNeeded(this);
+        });
     }
 
     protected void selectGlobalTypeFilter() {
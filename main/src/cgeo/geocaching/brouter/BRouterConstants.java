@@ -10,6 +10,13 @@ public class BRouterConstants {
 
     public static final String BROUTER_TILE_FILEEXTENSION = ".rd5";
 
+    /** result bundle of the internal routing service: track points as int[] of microdegrees (lat0, lon0, lat1, lon1, ...) */
+    public static final String BROUTER_RESULT_POINTS_E6 = "pointsE6";
+    /** result bundle of the internal routing service: error message */
+    public static final String BROUTER_RESULT_ERROR = "error";
+    /** result bundle of the internal routing service: int[] of track lengths in meters from the first to each other position, -1 if unreachable */
+    public static final String BROUTER_RESULT_DISTANCES = "distances";
+
     private BRouterConstants() {
         // utility class
     }
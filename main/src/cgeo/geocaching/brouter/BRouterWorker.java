@@ -19,12 +19,82 @@ public class BRouterWorker {
     public List<OsmNodeNamed> nogoList;
 
     public String getTrackFromParams(final Bundle params) {
+        final RoutingEngine cr = calculateRoute(params);
+
+        if (cr.getErrorMessage() != null) {
+            return cr.getErrorMessage();
+        }
+
+        final String format = params.getString("trackFormat");
+        final boolean writeKml = "kml".equals(format);
+
+        final OsmTrack track = cr.getFoundTrack();
+        return track == null ? null : writeKml ? track.formatAsKml() : track.formatAsGpx();
+    }
+
+    /**
+     * calculates a route like {@link #getTrackFromParams(Bundle)}, but returns the track points in binary form
+     * (see {@link BRouterConstants#BROUTER_RESULT_POINTS_E6}) instead of a formatted track
+     */
+    public Bundle getTrackPointsFromParams(final Bundle params) {
+        final RoutingEngine cr = calculateRoute(params);
+        final Bundle result = new Bundle();
+
+        if (cr.getErrorMessage() != null) {
+            result.putString(BRouterConstants.BROUTER_RESULT_ERROR, cr.getErrorMessage());
+            return result;
+        }
+
+        final OsmTrack track = cr.getFoundTrack();
+        if (track != null) {
+            result.putIntArray(BRouterConstants.BROUTER_RESULT_POINTS_E6, track.getPointsE6());
+        }
+        return result;
+    }
+
+    /**
+     * calculates the track lengths from the first position to each of the other positions in one single search
+     * (see {@link BRouterConstants#BROUTER_RESULT_DISTANCES})
+     */
+    public Bundle getDistancesFromParams(final Bundle params) {
+        final RoutingEngine cr = createRoutingEngine(params);
+        cr.doRunOneToMany(getMaxRunningTime(params));
+        final Bundle result = new Bundle();
+
+        if (cr.getErrorMessage() != null) {
+            result.putString(BRouterConstants.BROUTER_RESULT_ERROR, cr.getErrorMessage());
+            return result;
+        }
+
+        result.putIntArray(BRouterConstants.BROUTER_RESULT_DISTANCES, cr.getTargetDistances());
+        return result;
+    }
+
+    private RoutingEngine calculateRoute(final Bundle params) {
+        final RoutingEngine cr = createRoutingEngine(params);
+        cr.doRun(getMaxRunningTime(params));
+
+        // store new reference track if any
+        // (can exist for timed-out search)
+        if (cr.getFoundRawTrack() != null) {
+            try {
+                cr.getFoundRawTrack().writeBinary(rawTrackPath);
+            } catch (Exception ignored) {
+            }
+        }
+        return cr;
+    }
+
+    private static long getMaxRunningTime(final Bundle params) {
         long maxRunningTime = 60000;
         final String sMaxRunningTime = params.getString("maxRunningTime");
         if (sMaxRunningTime != null) {
             maxRunningTime = Integer.parseInt(sMaxRunningTime) * 1000;
         }
+        return maxRunningTime;
+    }
 
+    private RoutingEngine createRoutingEngine(final Bundle params) {
         final RoutingContext rc = new RoutingContext();
         rc.rawTrackPath = rawTrackPath;
         rc.profileFilename = profileFilename;
@@ -48,27 +118,7 @@ public class BRouterWorker {
 
         waypoints = readPositions(params);
 
-        final RoutingEngine cr = new RoutingEngine(waypoints, rc);
-        cr.doRun(maxRunningTime);
-
-        // store new reference track if any
-        // (can exist for timed-out search)
-        if (cr.getFoundRawTrack() != null) {
-            try {
-                cr.getFoundRawTrack().writeBinary(rawTrackPath);
-            } catch (Exception ignored) {
-            }
-        }
-
-        if (cr.getErrorMessage() != null) {
-            return cr.getErrorMessage();
-        }
-
-        final String format = params.getString("trackFormat");
-        final boolean writeKml = "kml".equals(format);
-
-        final OsmTrack track = cr.getFoundTrack();
-        return track == null ? null : writeKml ? track.formatAsKml() : track.formatAsGpx();
+        return new RoutingEngine(waypoints, rc);
     }
 
     private List<OsmNodeNamed> readPositions(final Bundle params) {
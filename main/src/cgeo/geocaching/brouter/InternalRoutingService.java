@@ -9,6 +9,8 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.os.IBinder;
 
+import androidx.annotation.Nullable;
+
 import java.io.File;
 import java.util.ArrayList;
 
@@ -19,28 +21,69 @@ public class InternalRoutingService extends Service {
     private final IInternalRoutingService.Stub myBRouterServiceStub = new IInternalRoutingService.Stub() {
         @Override
         public String getTrackFromParams(final Bundle params) {
-            final BRouterWorker worker = new BRouterWorker();
-
-            worker.profileFilename = params.getString("profile");
-            if (StringUtils.isBlank(worker.profileFilename)) {
+            final BRouterWorker worker = createWorker(params);
+            if (worker == null) {
                 return ""; // cannot calculate a route without a profile
             }
 
-            final String mode = params.getString("v");
-            worker.rawTrackPath = getApplicationContext().getFilesDir().getAbsolutePath() + "/routing/";
-            FileUtils.mkdirs(new File(worker.rawTrackPath));
-            worker.rawTrackPath += mode + "_rawtrack.dat";
-
-            worker.nogoList = new ArrayList<>();
-
             try {
                 return worker.getTrackFromParams(params);
             } catch (IllegalArgumentException iae) {
                 return iae.getMessage();
             }
         }
+
+        @Override
+        public Bundle getTrackPointsFromParams(final Bundle params) {
+            final BRouterWorker worker = createWorker(params);
+            if (worker == null) {
+                return new Bundle(); // cannot calculate a route without a profile
+            }
+
+            try {
+                return worker.getTrackPointsFromParams(params);
+            } catch (IllegalArgumentException iae) {
+                final Bundle result = new Bundle();
+                result.putString(BRouterConstants.BROUTER_RESULT_ERROR, iae.getMessage());
+                return result;
+            }
+        }
+
+        @Override
+        public Bundle getDistancesFromParams(final Bundle params) {
+            final BRouterWorker worker = createWorker(params);
+            if (worker == null) {
+                return new Bundle(); // cannot calculate a route without a profile
+            }
+
+            try {
+                return worker.getDistancesFromParams(params);
+            } catch (IllegalArgumentException iae) {
+                final Bundle result = new Bundle();
+                result.putString(BRouterConstants.BROUTER_RESULT_ERROR, iae.getMessage());
+                return result;
+            }
+        }
     };
 
+    @Nullable
+    private BRouterWorker createWorker(final Bundle params) {
+        final BRouterWorker worker = new BRouterWorker();
+
+        worker.profileFilename = params.getString("profile");
+        if (StringUtils.isBlank(worker.profileFilename)) {
+            return null;
+        }
+
+        final String mode = params.getString("v");
+        worker.rawTrackPath = getApplicationContext().getFilesDir().getAbsolutePath() + "/routing/";
+        FileUtils.mkdirs(new File(worker.rawTrackPath));
+        worker.rawTrackPath += mode + "_rawtrack.dat";
+
+        worker.nogoList = new ArrayList<>();
+        return worker;
+    }
+
     @Override
     public IBinder onBind(final Intent arg0) {
         Log.d(getClass().getSimpleName() + "onBind()");
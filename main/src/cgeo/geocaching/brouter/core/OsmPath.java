@@ -23,6 +23,10 @@ abstract class OsmPath implements OsmLinkHolder {
      * The cost of that path (a modified distance)
      */
     public int cost = 0;
+    /**
+     * The length of that path in meters, along the way geometry
+     */
+    public int distance = 0;
     // the elevation assumed for that path can have a value
     // if the corresponding node has not
     public short selev;
@@ -97,6 +101,7 @@ abstract class OsmPath implements OsmLinkHolder {
         this.sourceNode = origin.targetNode;
         this.targetNode = link.getTarget(sourceNode);
         this.cost = origin.cost;
+        this.distance = origin.distance;
         this.lastClassifier = origin.lastClassifier;
         this.lastInitialCost = origin.lastInitialCost;
         this.bitfield = origin.bitfield;
@@ -232,6 +237,7 @@ abstract class OsmPath implements OsmLinkHolder {
                 } else {
                     // we just start here, reset everything
                     cost = 0;
+                    distance = 0;
                     resetState();
                     lon0 = -1; // reset turncost-pipe
                     lat0 = -1;
@@ -260,6 +266,7 @@ abstract class OsmPath implements OsmLinkHolder {
                 message.linkdist += dist;
             }
             linkdisttotal += dist;
+            distance += dist;
 
             // apply a start-direction if appropriate (by faking the origin position)
             if (isStartpoint) {
@@ -339,6 +339,20 @@ public final class OsmTrack {
         bw.close();
     }
 
+    /**
+     * returns the track points as packed array of microdegrees: lat0, lon0, lat1, lon1, ...
+     * (compact alternative to formatAsGpx() for in-process consumers)
+     */
+    public int[] getPointsE6() {
+        final int[] points = new int[nodes.size() * 2];
+        int i = 0;
+        for (OsmPathElement n : nodes) {
+            points[i++] = n.getILat() - 90000000;
+            points[i++] = n.getILon() - 180000000;
+        }
+        return points;
+    }
+
     public String formatAsGpx() {
         try {
             final StringWriter sw = new StringWriter(8192);
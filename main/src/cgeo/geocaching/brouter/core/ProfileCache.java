@@ -79,6 +79,7 @@ public final class ProfileCache {
 
         meta.readMetaData();
 
+        // parsing also compiles the expressions, so cached contexts are reused in compiled form
         rc.expctxWay.parseFile(fi.uri, "global");
         rc.expctxNode.parseFile(fi.uri, "global");
 
@@ -12,7 +12,9 @@ import cgeo.geocaching.utils.Log;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class RoutingEngine extends Thread {
     public double airDistanceCostFactor;
@@ -36,6 +38,14 @@ public class RoutingEngine extends Thread {
     private long startTime;
     private long maxRunningTime;
 
+    // one-to-many search: target indices by the node ids of their matched way segment, found tracks by target index
+    private Map<Long, List<Integer>> targetsByNodeId = null;
+    private OsmTrack[] foundTargetTracks = null;
+    private int openTargetCount;
+    // one-to-many search: cheapest path cut at the crosspoint by open target, and the lowest cost of these paths
+    private OsmPath[] targetPaths = null;
+    private int minTargetPathCost;
+
     private final boolean directWeaving = !Boolean.getBoolean("disableDirectWeaving");
 
     public RoutingEngine(final List<OsmNodeNamed> waypoints, final RoutingContext rc) {
@@ -110,24 +120,183 @@ public class RoutingEngine extends Thread {
             logException(e);
             logThrowable(e);
         } finally {
-            if (hasInfo() && routingContext.expctxWay != null) {
-                logInfo("expression cache stats=" + routingContext.expctxWay.cacheStats());
+            finishRun();
+        }
+    }
+
+    /**
+     * One-to-many search: calculates the tracks from the first waypoint to each of the other waypoints
+     * by expanding a single search frontier from the first waypoint until all others are settled
+     * (or the reachable network is exhausted), instead of running a separate search per target.
+     *
+     * Results are available via {@link #getFoundTargetTracks()} and {@link #getTargetDistances()}.
+     */
+    public void doRunOneToMany(final long maxRunningTime) {
+        try {
+            routingContext.cleanNogolist(waypoints);
+
+            startTime = System.currentTimeMillis();
+            final long startTime0 = startTime;
+            this.maxRunningTime = maxRunningTime;
+
+            matchedWaypoints = new ArrayList<MatchedWaypoint>();
+            for (OsmNodeNamed wp : waypoints) {
+                final MatchedWaypoint mwp = new MatchedWaypoint();
+                mwp.waypoint = wp;
+                mwp.name = wp.name;
+                matchedWaypoints.add(mwp);
             }
+            resetCache(false);
+            nodesCache.matchWaypointsToNodes(matchedWaypoints, 250., islandNodePairs, false);
 
-            ProfileCache.releaseProfile(routingContext);
+            final MatchedWaypoint startWp = matchedWaypoints.get(0);
+            if (startWp.crosspoint == null) {
+                throw new IllegalArgumentException(startWp.name + "-position not mapped in existing datafile");
+            }
 
-            if (nodesCache != null) {
-                if (hasInfo() && nodesCache != null) {
-                    logInfo("NodesCache status before close=" + nodesCache.formatStatus());
+            foundTargetTracks = new OsmTrack[matchedWaypoints.size() - 1];
+            targetsByNodeId = new HashMap<Long, List<Integer>>();
+            targetPaths = new OsmPath[foundTargetTracks.length];
+            minTargetPathCost = Integer.MAX_VALUE;
+            openTargetCount = 0;
+            for (int i = 0; i < foundTargetTracks.length; i++) {
+                final MatchedWaypoint target = matchedWaypoints.get(i + 1);
+                if (target.crosspoint == null) {
+                    continue; // not mapped to any way, unreachable
+                }
+                if (isSameSegment(startWp, target)) {
+                    // the search only settles targets on segments other than the start segment
+                    final OsmTrack track = new OsmTrack();
+                    track.distance = startWp.crosspoint.calcDistance(target.crosspoint);
+                    foundTargetTracks[i] = track;
+                    continue;
                 }
-                nodesCache.close();
-                nodesCache = null;
+                addTarget(target.node1.getIdFromPos(), i);
+                addTarget(target.node2.getIdFromPos(), i);
+                openTargetCount++;
             }
-            openSet.clear();
-            finished = true; // this signals termination to outside
+
+            if (openTargetCount > 0) {
+                airDistanceCostFactor = 0.; // plain dijkstra, there is no single destination to direct the search to
+                findTrack("one-to-many", startWp, null, null, null, false);
+            }
+            logInfo("one-to-many: targets=" + foundTargetTracks.length + " unsettled=" + openTargetCount + " execution time = " + (System.currentTimeMillis() - startTime0) / 1000. + " seconds");
+        } catch (IllegalArgumentException e) {
+            logException(e);
+        } catch (Exception e) {
+            logException(e);
+            logThrowable(e);
+        } catch (Error e) {
+            cleanOnOOM();
+            logException(e);
+            logThrowable(e);
+        } finally {
+            targetsByNodeId = null;
+            targetPaths = null;
+            finishRun();
         }
     }
 
+    private void finishRun() {
+        if (hasInfo() && routingContext.expctxWay != null) {
+            logInfo("expression cache stats=" + routingContext.expctxWay.cacheStats());
+        }
+
+        ProfileCache.releaseProfile(routingContext);
+
+        if (nodesCache != null) {
+            if (hasInfo() && nodesCache != null) {
+                logInfo("NodesCache status before close=" + nodesCache.formatStatus());
+            }
+            nodesCache.close();
+            nodesCache = null;
+        }
+        openSet.clear();
+        finished = true; // this signals termination to outside
+    }
+
+    private static boolean isSameSegment(final MatchedWaypoint wp1, final MatchedWaypoint wp2) {
+        final long id1 = wp1.node1.getIdFromPos();
+        final long id2 = wp1.node2.getIdFromPos();
+        final long otherId1 = wp2.node1.getIdFromPos();
+        final long otherId2 = wp2.node2.getIdFromPos();
+        return (id1 == otherId1 && id2 == otherId2) || (id1 == otherId2 && id2 == otherId1);
+    }
+
+    private void addTarget(final long nodeId, final int targetIdx) {
+        List<Integer> targets = targetsByNodeId.get(nodeId);
+        if (targets == null) {
+            targets = new ArrayList<Integer>(1);
+            targetsByNodeId.put(nodeId, targets);
+        }
+        targets.add(targetIdx);
+    }
+
+    /**
+     * one-to-many search: the link from the current to the next node is the matched way segment of targets. Like the final
+     * link of a single target search, the paths to these targets end at the crosspoint of the target instead of the next
+     * node. They are kept aside until {@link #settleTargets(int)} as the search continues over the full link.
+     */
+    private void addTargetPaths(final OsmLinkHolder firstLinkHolder, final OsmLink link, final long currentNodeId, final long nextNodeId, final OsmTrack refTrack) {
+        final List<Integer> targets = targetsByNodeId.get(currentNodeId);
+        if (targets == null) {
+            return;
+        }
+        for (int targetIdx : targets) {
+            if (foundTargetTracks[targetIdx] != null) {
+                continue;
+            }
+            final MatchedWaypoint target = matchedWaypoints.get(targetIdx + 1);
+            final long id1 = target.node1.getIdFromPos();
+            final long id2 = target.node2.getIdFromPos();
+            if (!((currentNodeId == id1 && nextNodeId == id2) || (currentNodeId == id2 && nextNodeId == id1))) {
+                continue;
+            }
+            final OsmNodeNamed targetPos = new OsmNodeNamed(target.crosspoint);
+            for (OsmLinkHolder linkHolder = firstLinkHolder; linkHolder != null; linkHolder = linkHolder.getNextForLink()) {
+                final OsmPath testPath;
+                try {
+                    targetPos.radius = 1.5; // same as for the final link of a single target search
+                    routingContext.setWaypoint(targetPos, true);
+                    testPath = routingContext.createPath((OsmPath) linkHolder, link, refTrack, false);
+                } finally {
+                    routingContext.unsetWaypoint();
+                }
+                if (testPath.cost >= 0 && (targetPaths[targetIdx] == null || testPath.cost < targetPaths[targetIdx].cost)) {
+                    targetPaths[targetIdx] = testPath;
+                    minTargetPathCost = Math.min(minTargetPathCost, testPath.cost);
+                }
+            }
+        }
+    }
+
+    /**
+     * one-to-many search: settle all open targets whose path costs no more than the given cost. As the search expands the
+     * paths in the order of their cost, no cheaper path to these targets can follow.
+     *
+     * @return true if all targets are settled
+     */
+    private boolean settleTargets(final int maxCost) {
+        int nextMinCost = Integer.MAX_VALUE;
+        for (int targetIdx = 0; targetIdx < targetPaths.length; targetIdx++) {
+            final OsmPath targetPath = targetPaths[targetIdx];
+            if (targetPath == null) {
+                continue;
+            }
+            if (targetPath.cost <= maxCost) {
+                final OsmTrack track = compileTrack(targetPath);
+                track.distance = targetPath.distance; // up to the crosspoint, along the way geometry
+                foundTargetTracks[targetIdx] = track;
+                targetPaths[targetIdx] = null;
+                openTargetCount--;
+            } else if (targetPath.cost < nextMinCost) {
+                nextMinCost = targetPath.cost;
+            }
+        }
+        minTargetPathCost = nextMinCost;
+        return openTargetCount == 0;
+    }
+
     private void logException(final Throwable t) {
         errorMessage = t instanceof IllegalArgumentException ? t.getMessage() : t.toString();
         logInfo("Error (linksProcessed=" + linksProcessed + " open paths: " + openSet.getSize() + "): " + errorMessage);
@@ -549,6 +718,11 @@ public class RoutingEngine extends Thread {
                     continue;
                 }
 
+                if (targetsByNodeId != null && path.cost >= minTargetPathCost && settleTargets(path.cost)) {
+                    logInfo("all targets settled at cost " + path.cost + " nodesVisited = " + nodesVisited);
+                    return null;
+                }
+
                 if (directWeaving && nodesCache.hasHollowLinkTargets(path.getTargetNode())) {
                     if (!memoryPanicMode && !nodesCache.nodesMap.isInMemoryBounds(openSet.getSize(), false)) {
                         final int nodesBefore = nodesCache.nodesMap.nodesCreated;
@@ -754,6 +928,9 @@ public class RoutingEngine extends Thread {
                     if ((currentNodeId == endNodeId1 || currentNodeId == endNodeId2) && (targetNodeId == endNodeId1 || targetNodeId == endNodeId2)) {
                         isFinalLink = true;
                     }
+                    if (targetsByNodeId != null) {
+                        addTargetPaths(firstLinkHolder, link, currentNodeId, targetNodeId, refTrack);
+                    }
 
                     for (OsmLinkHolder linkHolder = firstLinkHolder; linkHolder != null; linkHolder = linkHolder.getNextForLink()) {
                         final OsmPath otherPath = (OsmPath) linkHolder;
@@ -773,9 +950,9 @@ public class RoutingEngine extends Thread {
                         }
                     }
                     if (bestPath != null) {
-                        final boolean trafficSim = endPos == null;
+                        final boolean trafficSim = endPos == null && targetsByNodeId == null;
 
-                        bestPath.airdistance = trafficSim ? keepPathAirdistance : (isFinalLink ? 0 : nextNode.calcDistance(endPos));
+                        bestPath.airdistance = trafficSim ? keepPathAirdistance : (isFinalLink || endPos == null ? 0 : nextNode.calcDistance(endPos));
 
                         final boolean inRadius = boundary == null || boundary.isInBoundary(nextNode, bestPath.cost);
 
@@ -806,7 +983,12 @@ public class RoutingEngine extends Thread {
             }
         }
 
-        if (nodesVisited < MAXNODES_ISLAND_CHECK && islandNodePairs.getFreezeCount() < 5) {
+        if (targetsByNodeId != null) {
+            // search space exhausted, no other paths can beat the ones found
+            settleTargets(Integer.MAX_VALUE);
+        }
+
+        if (targetsByNodeId == null && nodesVisited < MAXNODES_ISLAND_CHECK && islandNodePairs.getFreezeCount() < 5) {
             throw new RoutingIslandException();
         }
 
@@ -945,6 +1127,27 @@ public class RoutingEngine extends Thread {
         return foundTrack;
     }
 
+    /**
+     * one-to-many search: found tracks by target index (waypoint index - 1), null for unreachable targets
+     */
+    public OsmTrack[] getFoundTargetTracks() {
+        return foundTargetTracks;
+    }
+
+    /**
+     * one-to-many search: track length in meters by target index (waypoint index - 1), -1 for unreachable targets
+     */
+    public int[] getTargetDistances() {
+        if (foundTargetTracks == null) {
+            return null;
+        }
+        final int[] distances = new int[foundTargetTracks.length];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = foundTargetTracks[i] == null ? -1 : foundTargetTracks[i].distance;
+        }
+        return distances;
+    }
+
     public OsmTrack getFoundRawTrack() {
         return foundRawTrack;
     }
@@ -1,5 +1,8 @@
 package cgeo.geocaching.brouter.expressions;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.StringTokenizer;
 
 final class BExpression {
@@ -25,6 +28,9 @@ final class BExpression {
     private static final int VARIABLE_EXP = 34;
     private static final int FOREIGN_VARIABLE_EXP = 35;
 
+    // minimum number of chained switches on the same lookup name to compile into a jump table
+    private static final int MIN_TABLE_SWITCH_CASES = 3;
+
     private int typ;
     private BExpression op1;
     private BExpression op2;
@@ -247,6 +253,231 @@ final class BExpression {
         }
     }
 
+    /**
+     * constant folding: replace subexpressions not depending on tag values or way/node variables by their value.
+     * Variables of the read-only (global) context are constant once the profile is parsed.
+     */
+    BExpression fold(final BExpressionContext ctx) {
+        switch (typ) {
+            case NUMBER_EXP:
+            case LOOKUP_EXP:
+            case FOREIGN_VARIABLE_EXP:
+                return this;
+            case VARIABLE_EXP:
+                return variableIdx < ctx.getMinWriteIdx() ? number(ctx.getVariableValue(variableIdx)) : this;
+            case SWITCH_EXP:
+                final BExpression condition = op1.fold(ctx);
+                if (condition.typ == NUMBER_EXP) {
+                    return condition.numberValue != 0.f ? op2.fold(ctx) : op3.fold(ctx);
+                }
+                return copy(condition, op2.fold(ctx), op3.fold(ctx));
+            case AND_EXP:
+            case OR_EXP:
+                final BExpression first = op1.fold(ctx);
+                if (first.typ == NUMBER_EXP && (first.numberValue != 0.f) == (typ == OR_EXP)) {
+                    return number(typ == OR_EXP ? 1.f : 0.f); // short circuit
+                }
+                return foldOperands(ctx, first, op2.fold(ctx));
+            case ASSIGN_EXP:
+                return copy(op1.fold(ctx), null, null);
+            default:
+                return foldOperands(ctx, op1.fold(ctx), op2 == null ? null : op2.fold(ctx));
+        }
+    }
+
+    private BExpression foldOperands(final BExpressionContext ctx, final BExpression fop1, final BExpression fop2) {
+        final BExpression folded = copy(fop1, fop2, null);
+        if (fop1.typ == NUMBER_EXP && (fop2 == null || fop2.typ == NUMBER_EXP)) {
+            return number(folded.evaluate(ctx)); // only constant operands, does not access the context
+        }
+        return folded;
+    }
+
+    private BExpression copy(final BExpression fop1, final BExpression fop2, final BExpression fop3) {
+        final BExpression exp = new BExpression();
+        exp.typ = typ;
+        exp.op1 = fop1;
+        exp.op2 = fop2;
+        exp.op3 = fop3;
+        exp.numberValue = numberValue;
+        exp.variableIdx = variableIdx;
+        exp.lookupNameIdx = lookupNameIdx;
+        exp.lookupValueIdxArray = lookupValueIdxArray;
+        return exp;
+    }
+
+    private static BExpression number(final float value) {
+        final BExpression exp = new BExpression();
+        exp.typ = NUMBER_EXP;
+        exp.numberValue = value;
+        return exp;
+    }
+
+    /**
+     * emit instructions which calculate the value of this expression into the given register
+     * (registers above the given one may be used for intermediate results)
+     */
+    void compile(final BExpressionProgram.Builder program, final int register) {
+        switch (typ) {
+            case OR_EXP:
+            case AND_EXP:
+                op1.compileBoolean(program, register);
+                final int shortCircuit = program.emit(typ == OR_EXP ? BExpressionProgram.JUMP_IF_NOT_ZERO : BExpressionProgram.JUMP_IF_ZERO, register, -1, 0);
+                op2.compileBoolean(program, register);
+                program.setJumpTarget(shortCircuit);
+                break;
+            case SWITCH_EXP:
+                if (getLookupSwitchChainLength() >= MIN_TABLE_SWITCH_CASES) {
+                    compileTableSwitch(program, register);
+                    break;
+                }
+                final int toElse;
+                if (op1.typ == LOOKUP_EXP) {
+                    toElse = program.emit(BExpressionProgram.JUMP_UNLESS_MATCH, op1.lookupNameIdx, -1, program.addLookupValues(op1.lookupValueIdxArray));
+                } else if (op1.typ == VARIABLE_EXP) {
+                    toElse = program.emit(BExpressionProgram.JUMP_IF_VARIABLE_ZERO, op1.variableIdx, -1, 0);
+                } else {
+                    op1.compile(program, register);
+                    toElse = program.emit(BExpressionProgram.JUMP_IF_ZERO, register, -1, 0);
+                }
+                op2.compile(program, register);
+                final int toEnd = program.emit(BExpressionProgram.JUMP, 0, -1, 0);
+                program.setJumpTarget(toElse);
+                op3.compile(program, register);
+                program.setJumpTarget(toEnd);
+                break;
+            case ASSIGN_EXP:
+                op1.compile(program, register);
+                program.emit(BExpressionProgram.ASSIGN, variableIdx, register, 0);
+                break;
+            case LOOKUP_EXP:
+                program.emit(BExpressionProgram.LOOKUP, register, lookupNameIdx, program.addLookupValues(lookupValueIdxArray));
+                break;
+            case NUMBER_EXP:
+                program.emit(BExpressionProgram.CONST, register, program.addConstant(numberValue), 0);
+                break;
+            case VARIABLE_EXP:
+                program.emit(BExpressionProgram.VARIABLE, register, variableIdx, 0);
+                break;
+            case FOREIGN_VARIABLE_EXP:
+                program.emit(BExpressionProgram.FOREIGN_VARIABLE, register, variableIdx, 0);
+                break;
+            case NOT_EXP:
+                op1.compile(program, register);
+                program.emit(BExpressionProgram.NOT, register, register, 0);
+                break;
+            default:
+                op1.compile(program, register);
+                op2.compile(program, register + 1);
+                program.emit(binaryOpCode(), register, register, register + 1);
+                break;
+        }
+    }
+
+    /**
+     * compile this expression normalized to 0 or 1
+     */
+    private void compileBoolean(final BExpressionProgram.Builder program, final int register) {
+        compile(program, register);
+        if (!isBoolean()) {
+            program.emit(BExpressionProgram.BOOL, register, register, 0);
+        }
+    }
+
+    /**
+     * @return true if this expression always evaluates to 0 or 1
+     */
+    private boolean isBoolean() {
+        switch (typ) {
+            case OR_EXP:
+            case AND_EXP:
+            case NOT_EXP:
+            case XOR_EXP:
+            case EQUAL_EXP:
+            case GREATER_EXP:
+            case LESSER_EXP:
+            case LOOKUP_EXP:
+                return true;
+            case NUMBER_EXP:
+                return numberValue == 0.f || numberValue == 1.f;
+            case SWITCH_EXP:
+                return op2.isBoolean() && op3.isBoolean();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return number of switches chained via their else-branch which all check the same lookup name
+     */
+    private int getLookupSwitchChainLength() {
+        int length = 0;
+        for (BExpression e = this; e.typ == SWITCH_EXP && e.op1.typ == LOOKUP_EXP && e.op1.lookupNameIdx == op1.lookupNameIdx; e = e.op3) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * compile a chain of switches on the same lookup name into one jump by lookup value
+     */
+    private void compileTableSwitch(final BExpressionProgram.Builder program, final int register) {
+        final int nameIdx = op1.lookupNameIdx;
+        final int[] table = new int[program.getLookupValueCount(nameIdx)];
+        Arrays.fill(table, -1);
+        final int toDefault = program.emit(BExpressionProgram.TABLE_SWITCH, nameIdx, -1, program.addTable(table));
+
+        final List<Integer> toEnd = new ArrayList<>();
+        BExpression e = this;
+        for (; e.typ == SWITCH_EXP && e.op1.typ == LOOKUP_EXP && e.op1.lookupNameIdx == nameIdx; e = e.op3) {
+            final int casePos = program.getPosition();
+            for (int valueIdx : e.op1.lookupValueIdxArray) {
+                if (valueIdx < table.length && table[valueIdx] < 0) { // first match wins
+                    table[valueIdx] = casePos;
+                }
+            }
+            e.op2.compile(program, register);
+            toEnd.add(program.emit(BExpressionProgram.JUMP, 0, -1, 0));
+        }
+
+        final int defaultPos = program.getPosition();
+        program.setJumpTarget(toDefault);
+        e.compile(program, register);
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] < 0) {
+                table[i] = defaultPos;
+            }
+        }
+        for (int jump : toEnd) {
+            program.setJumpTarget(jump);
+        }
+    }
+
+    private int binaryOpCode() {
+        switch (typ) {
+            case XOR_EXP:
+                return BExpressionProgram.XOR;
+            case ADD_EXP:
+                return BExpressionProgram.ADD;
+            case SUB_EXP:
+                return BExpressionProgram.SUB;
+            case MULTIPLY_EXP:
+                return BExpressionProgram.MULTIPLY;
+            case MAX_EXP:
+                return BExpressionProgram.MAX;
+            case MIN_EXP:
+                return BExpressionProgram.MIN;
+            case EQUAL_EXP:
+                return BExpressionProgram.EQUAL;
+            case GREATER_EXP:
+                return BExpressionProgram.GREATER;
+            case LESSER_EXP:
+                return BExpressionProgram.LESSER;
+            default:
+                throw new IllegalArgumentException("unknown op-code: " + typ);
+        }
+    }
+
     private float max(final float v1, final float v2) {
         return v1 > v2 ? v1 : v2;
     }
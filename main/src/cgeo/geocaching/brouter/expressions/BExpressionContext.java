@@ -29,6 +29,7 @@ import java.util.TreeMap;
 public abstract class BExpressionContext implements IByteArrayUnifier {
     private static final String CONTEXT_TAG = "---context:";
     private static final String MODEL_TAG = "---model:";
+    private static final boolean compileExpressions = !Boolean.getBoolean("disableExpressionCompiler");
     public boolean useKinematicModel;
     public BExpressionMetaData meta;
     private String context;
@@ -53,6 +54,8 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
     private final VarWrapper probeVarSet = new VarWrapper();
     private LruMap resultVarCache;
     private List<BExpression> expressionList;
+    // compiled form of expressionList, null to use the interpreter
+    private BExpressionProgram program;
     private int minWriteIdx;
     // build-in variable indexes for fast access
     private int[] buildInVariableIdx;
@@ -292,6 +295,10 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
     }
 
     private void evaluate() {
+        if (program != null) {
+            program.execute(this);
+            return;
+        }
         final int n = expressionList.size();
         for (int expidx = 0; expidx < n; expidx++) {
             expressionList.get(expidx).evaluate(this);
@@ -635,6 +642,7 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
             throw new IllegalArgumentException("profile " + uri + " does not exist");
         }
         try {
+            program = null;
             if (readOnlyContext != null) {
                 linenr = 1;
                 final String realContext = context;
@@ -664,6 +672,9 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
             for (int i = 0; i < minWriteIdx; i++) {
                 variableData[i] = readOnlyData[i];
             }
+
+            // the read-only variables are known now, so they can be folded into the compiled expressions
+            setCompiled(compileExpressions);
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("ParseException at line " + linenr + ": " + e.getMessage());
         } catch (Exception e) {
@@ -691,6 +702,13 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
     }
 
 
+    /**
+     * switch between compiled expressions and the interpreter (e.g. for testing)
+     */
+    void setCompiled(final boolean compiled) {
+        program = compiled ? BExpressionProgram.compile(this, expressionList) : null;
+    }
+
     public float getVariableValue(final String name, final float defaultValue) {
         final Integer num = variableNumbers.get(name);
         return num == null ? defaultValue : getVariableValue(num.intValue());
@@ -726,6 +744,18 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
         return 0.0f;
     }
 
+    int getLookupValueCount(final int nameIdx) {
+        return lookupValues.get(nameIdx).length;
+    }
+
+    int[] getLookupData() {
+        return lookupData;
+    }
+
+    float[] getVariableData() {
+        return variableData;
+    }
+
     public int getLookupNameIdx(final String name) {
         final Integer num = lookupNumbers.get(name);
         return num == null ? -1 : num.intValue();
@@ -0,0 +1,246 @@
+package cgeo.geocaching.brouter.expressions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiled form of the expressions of a profile context: a flat, register based instruction array.
+ *
+ * Each instruction consists of 4 ints: op-code, target (register or variable), operand 1, operand 2.
+ * Subexpressions only depending on constants or read-only (global) variables are folded at compile time,
+ * so for most profiles just the tag dependent part of the expressions is left to execute. Switches on lookups
+ * jump directly on the lookup match, and chains of switches on the same lookup name use a jump table.
+ */
+final class BExpressionProgram {
+    static final int CONST = 0;
+    static final int VARIABLE = 1;
+    static final int FOREIGN_VARIABLE = 2;
+    static final int LOOKUP = 3;
+    static final int ASSIGN = 4;
+    static final int NOT = 5;
+    static final int BOOL = 6;
+    static final int XOR = 7;
+    static final int ADD = 8;
+    static final int SUB = 9;
+    static final int MULTIPLY = 10;
+    static final int MAX = 11;
+    static final int MIN = 12;
+    static final int EQUAL = 13;
+    static final int GREATER = 14;
+    static final int LESSER = 15;
+    static final int JUMP = 16;
+    static final int JUMP_IF_ZERO = 17;
+    static final int JUMP_IF_NOT_ZERO = 18;
+    static final int JUMP_UNLESS_MATCH = 19;
+    static final int TABLE_SWITCH = 20;
+    static final int JUMP_IF_VARIABLE_ZERO = 21;
+
+    private static final int INSTRUCTION_SIZE = 4;
+
+    private final int[] code;
+    private final float[] constants;
+    private final int[][] lookupValues;
+    private final int[][] tables;
+    private final float[] registers;
+
+    private BExpressionProgram(final Builder builder) {
+        code = Arrays.copyOf(builder.code, builder.size);
+        constants = new float[builder.constants.size()];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = builder.constants.get(i);
+        }
+        lookupValues = builder.lookupValues.toArray(new int[builder.lookupValues.size()][]);
+        tables = builder.tables.toArray(new int[builder.tables.size()][]);
+        registers = new float[builder.maxRegister + 1];
+    }
+
+    static BExpressionProgram compile(final BExpressionContext ctx, final List<BExpression> expressions) {
+        final Builder builder = new Builder(ctx);
+        for (BExpression exp : expressions) {
+            exp.fold(ctx).compile(builder, 0);
+        }
+        return new BExpressionProgram(builder);
+    }
+
+    int getInstructionCount() {
+        return code.length / INSTRUCTION_SIZE;
+    }
+
+    void execute(final BExpressionContext ctx) {
+        final int[] c = code;
+        final float[] r = registers;
+        final float[] vars = ctx.getVariableData();
+        final int[] lookupData = ctx.getLookupData();
+        final int end = c.length;
+        int pc = 0;
+        while (pc < end) {
+            final int target = c[pc + 1];
+            final int op1 = c[pc + 2];
+            final int op2 = c[pc + 3];
+            switch (c[pc]) {
+                case CONST:
+                    r[target] = constants[op1];
+                    break;
+                case VARIABLE:
+                    r[target] = vars[op1];
+                    break;
+                case FOREIGN_VARIABLE:
+                    r[target] = ctx.getForeignVariableValue(op1);
+                    break;
+                case LOOKUP:
+                    r[target] = matches(lookupData[op1], lookupValues[op2]) ? 1.f : 0.f;
+                    break;
+                case ASSIGN:
+                    vars[target] = r[op1];
+                    break;
+                case NOT:
+                    r[target] = r[op1] == 0.f ? 1.f : 0.f;
+                    break;
+                case BOOL:
+                    r[target] = r[op1] != 0.f ? 1.f : 0.f;
+                    break;
+                case XOR:
+                    r[target] = (r[op1] != 0.f) ^ (r[op2] != 0.f) ? 1.f : 0.f;
+                    break;
+                case ADD:
+                    r[target] = r[op1] + r[op2];
+                    break;
+                case SUB:
+                    r[target] = r[op1] - r[op2];
+                    break;
+                case MULTIPLY:
+                    r[target] = r[op1] * r[op2];
+                    break;
+                case MAX:
+                    r[target] = r[op1] > r[op2] ? r[op1] : r[op2];
+                    break;
+                case MIN:
+                    r[target] = r[op1] < r[op2] ? r[op1] : r[op2];
+                    break;
+                case EQUAL:
+                    r[target] = r[op1] == r[op2] ? 1.f : 0.f;
+                    break;
+                case GREATER:
+                    r[target] = r[op1] > r[op2] ? 1.f : 0.f;
+                    break;
+                case LESSER:
+                    r[target] = r[op1] < r[op2] ? 1.f : 0.f;
+                    break;
+                case JUMP:
+                    pc = op1;
+                    continue;
+                case JUMP_IF_ZERO:
+                    if (r[target] == 0.f) {
+                        pc = op1;
+                        continue;
+                    }
+                    break;
+                case JUMP_IF_NOT_ZERO:
+                    if (r[target] != 0.f) {
+                        pc = op1;
+                        continue;
+                    }
+                    break;
+                case JUMP_UNLESS_MATCH:
+                    if (!matches(lookupData[target], lookupValues[op2])) {
+                        pc = op1;
+                        continue;
+                    }
+                    break;
+                case JUMP_IF_VARIABLE_ZERO:
+                    if (vars[target] == 0.f) {
+                        pc = op1;
+                        continue;
+                    }
+                    break;
+                case TABLE_SWITCH:
+                    final int valueIdx = lookupData[target];
+                    final int[] table = tables[op2];
+                    pc = valueIdx < table.length ? table[valueIdx] : op1;
+                    continue;
+                default:
+                    throw new IllegalArgumentException("unknown op-code: " + c[pc]);
+            }
+            pc += INSTRUCTION_SIZE;
+        }
+    }
+
+    private static boolean matches(final int valueIdx, final int[] values) {
+        for (int value : values) {
+            if (value == valueIdx) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static final class Builder {
+        private int[] code = new int[256];
+        private int size = 0;
+        private final List<Float> constants = new ArrayList<Float>();
+        private final List<int[]> lookupValues = new ArrayList<int[]>();
+        private final List<int[]> tables = new ArrayList<int[]>();
+        private int maxRegister = 0;
+        private final BExpressionContext ctx;
+
+        Builder(final BExpressionContext ctx) {
+            this.ctx = ctx;
+        }
+
+        /**
+         * @return position of the emitted instruction (to set a jump target later)
+         */
+        int emit(final int opCode, final int target, final int op1, final int op2) {
+            if (size + INSTRUCTION_SIZE > code.length) {
+                code = Arrays.copyOf(code, 2 * code.length);
+            }
+            final int pos = size;
+            code[size++] = opCode;
+            code[size++] = target;
+            code[size++] = op1;
+            code[size++] = op2;
+            if (opCode < ASSIGN || (opCode >= NOT && opCode <= LESSER)) {
+                maxRegister = Math.max(maxRegister, opCode >= XOR ? op2 : target);
+            }
+            return pos;
+        }
+
+        int getPosition() {
+            return size;
+        }
+
+        /**
+         * let the jump instruction at the given position continue after the last emitted instruction
+         */
+        void setJumpTarget(final int jumpPos) {
+            code[jumpPos + 2] = size;
+        }
+
+        int addConstant(final float value) {
+            final int idx = constants.indexOf(value);
+            if (idx >= 0) {
+                return idx;
+            }
+            constants.add(value);
+            return constants.size() - 1;
+        }
+
+        int addLookupValues(final int[] values) {
+            lookupValues.add(values);
+            return lookupValues.size() - 1;
+        }
+
+        /**
+         * add a jump table (code positions by lookup value index), which may still be filled after adding it
+         */
+        int addTable(final int[] table) {
+            tables.add(table);
+            return tables.size() - 1;
+        }
+
+        int getLookupValueCount(final int nameIdx) {
+            return ctx.getLookupValueCount(nameIdx);
+        }
+    }
+}
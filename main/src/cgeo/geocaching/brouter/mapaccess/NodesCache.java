@@ -272,6 +272,13 @@ public final class NodesCache implements Closeable {
     }
 
     public void matchWaypointsToNodes(final List<MatchedWaypoint> unmatchedWaypoints, final double maxDistance, final OsmNodePairSet islandNodePairs) {
+        matchWaypointsToNodes(unmatchedWaypoints, maxDistance, islandNodePairs, true);
+    }
+
+    /**
+     * @param requireAll if false, waypoints not mapped to a way are left with crosspoint == null instead of failing
+     */
+    public void matchWaypointsToNodes(final List<MatchedWaypoint> unmatchedWaypoints, final double maxDistance, final OsmNodePairSet islandNodePairs, final boolean requireAll) {
         waypointMatcher = new WaypointMatcherImpl(unmatchedWaypoints, 250., islandNodePairs);
         for (MatchedWaypoint mwp : unmatchedWaypoints) {
             preloadPosition(mwp.waypoint);
@@ -281,7 +288,7 @@ public final class NodesCache implements Closeable {
             throw new IllegalArgumentException("datafile " + firstFileAccessName + " not found");
         }
         for (MatchedWaypoint mwp : unmatchedWaypoints) {
-            if (mwp.crosspoint == null) {
+            if (requireAll && mwp.crosspoint == null) {
                 throw new IllegalArgumentException(mwp.name + "-position not mapped in existing datafile");
             }
         }
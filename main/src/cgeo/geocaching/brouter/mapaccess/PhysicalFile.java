@@ -20,6 +20,12 @@ import java.io.IOException;
 import org.apache.commons.io.IOUtils;
 
 public final class PhysicalFile implements Closeable {
+    /**
+     * tile files are memory-mapped: index and micro cache blocks are read over and over again (e.g. after the
+     * nodes cache dropped decoded data), the mapping lets the OS page cache serve them without a read syscall each
+     */
+    private static final boolean mapFiles = !Boolean.getBoolean("disableMappedTileAccess");
+
     public long creationTime;
     public int divisor = 80;
     private FileByteReader fbr = null;
@@ -31,7 +37,7 @@ public final class PhysicalFile implements Closeable {
     public PhysicalFile(final String fileName, final FileInputStream fis, final DataBuffers dataBuffers, final int lookupVersion) throws Exception {
         this.fileName = fileName;
         final byte[] iobuffer = dataBuffers.iobuffer;
-        fbr = new FileByteReader(fis);
+        fbr = new FileByteReader(fis, mapFiles);
         fbr.readFully(0, 200, iobuffer);
         fileIndexCrc = Crc32Utils.crc(iobuffer, 0, 200);
         ByteDataReader dis = new ByteDataReader(iobuffer);
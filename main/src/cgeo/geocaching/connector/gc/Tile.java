@@ -1,20 +1,31 @@
 package cgeo.geocaching.connector.gc;
 
+import cgeo.geocaching.SearchResult;
+import cgeo.geocaching.connector.ConnectorFactory;
+import cgeo.geocaching.enumerations.CacheType;
+import cgeo.geocaching.enumerations.StatusCode;
 import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.location.Viewport;
 import cgeo.geocaching.models.ICoordinates;
 import cgeo.geocaching.network.Network;
 import cgeo.geocaching.network.Parameters;
-import cgeo.geocaching.utils.LeastRecentlyUsedSet;
+import cgeo.geocaching.settings.Settings;
+import cgeo.geocaching.utils.LeastRecentlyUsedMap;
+import cgeo.geocaching.utils.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 import okhttp3.Response;
 
 /**
@@ -250,7 +261,7 @@ public class Tile {
      * max 2x2 tiles
      *
      */
-    protected static Set<Tile> getTilesForViewport(final Viewport viewport) {
+    public static Set<Tile> getTilesForViewport(final Viewport viewport) {
         return getTilesForViewport(viewport, 2, ZOOMLEVEL_MIN);
     }
 
@@ -285,18 +296,97 @@ public class Tile {
         return tiles;
     }
 
-    public static class TileCache extends LeastRecentlyUsedSet<Tile> {
+    /**
+     * Live map search results by tile. Results expire after {@link #TTL_MILLIS} or when the cache type setting
+     * changes, and tiles are dropped when one of their caches is removed from the {@link cgeo.geocaching.storage.CacheCache}.
+     */
+    public static class TileCache {
+
+        private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+        private final LeastRecentlyUsedMap<Tile, TileResult> results = new LeastRecentlyUsedMap.LruCache<>(64);
+
+        private static final class TileResult {
+            private final SearchResult searchResult;
+            private final CacheType cacheType;
+            private final long expires;
+
+            TileResult(final SearchResult searchResult, final CacheType cacheType) {
+                this.searchResult = searchResult;
+                this.cacheType = cacheType;
+                this.expires = System.currentTimeMillis() + TTL_MILLIS;
+            }
+
+            boolean isValid() {
+                return cacheType == Settings.getCacheType() && System.currentTimeMillis() < expires;
+            }
+        }
 
-        public TileCache() {
-            super(64);
+        public synchronized void clear() {
+            results.clear();
         }
 
-        public void removeFromTileCache(@NonNull final ICoordinates point) {
-            for (final Tile tile : new ArrayList<>(this)) {
+        public synchronized void removeFromTileCache(@NonNull final ICoordinates point) {
+            for (final Tile tile : new ArrayList<>(results.keySet())) {
                 if (tile.containsPoint(point)) {
-                    remove(tile);
+                    results.remove(tile);
+                }
+            }
+        }
+
+        @Nullable
+        private synchronized SearchResult get(@NonNull final Tile tile) {
+            final TileResult result = results.get(tile);
+            if (result == null) {
+                return null;
+            }
+            if (!result.isValid()) {
+                results.remove(tile);
+                return null;
+            }
+            return result.searchResult;
+        }
+
+        private synchronized void put(@NonNull final Tile tile, @NonNull final SearchResult searchResult, final CacheType cacheType) {
+            results.put(tile, new TileResult(searchResult, cacheType));
+        }
+
+        /**
+         * Search all active connectors for the tiles covering the given viewport. Only tiles without a valid cached
+         * result are searched, in parallel. The result has the error of a failed tile search, if there is any.
+         */
+        @NonNull
+        public SearchResult searchByViewport(@NonNull final Viewport viewport) {
+            final SearchResult searchResult = new SearchResult();
+            final List<Tile> missing = new ArrayList<>();
+            for (final Tile tile : getTilesForViewport(viewport)) {
+                final SearchResult tileResult = get(tile);
+                if (tileResult != null) {
+                    searchResult.addSearchResult(tileResult);
+                } else {
+                    missing.add(tile);
                 }
             }
+            Log.d("Tile.searchByViewport: " + missing.size() + " tiles to search for " + viewport);
+            if (missing.isEmpty()) {
+                return searchResult;
+            }
+
+            final CacheType cacheType = Settings.getCacheType();
+            return Observable.fromIterable(missing).flatMapSingle(tile -> Single.fromCallable(() -> {
+                final SearchResult tileResult = ConnectorFactory.searchByViewport(tile.getViewport());
+                if (tileResult.getError() == StatusCode.NO_ERROR) {
+                    put(tile, tileResult, cacheType);
+                }
+                return tileResult;
+            }).subscribeOn(Schedulers.io())).reduce(searchResult, (result, tileResult) -> {
+                result.addSearchResult(tileResult);
+                // report a failed tile, so the caller can search again later
+                if (result.getError() == StatusCode.NO_ERROR) {
+                    result.setError(tileResult.getError());
+                }
+                return result;
+            }).blockingGet();
         }
     }
 }
@@ -0,0 +1,311 @@
+package cgeo.geocaching.files;
+
+import cgeo.geocaching.enumerations.LoadFlags.RemoveFlag;
+import cgeo.geocaching.log.LogEntry;
+import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.storage.DataStore;
+import cgeo.geocaching.utils.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes caches parsed during a file import to the database in batches.
+ *
+ * Parsed caches are collected in a pending batch, which is handed over to a background writer thread via a bounded
+ * queue as soon as it is full. The writer stores every batch in one single transaction. Caches of the pending batch can
+ * still be modified in memory (e.g. to add child waypoints) before they are written. Caches of batches handed over
+ * already must be read back from the database, after waiting for their batch with {@link #awaitWritten(String)}.
+ *
+ * All methods except the writer thread itself must be called from the same (parser) thread.
+ */
+class CacheImportWriter {
+
+    /** number of caches written in one transaction */
+    static final int BATCH_SIZE = 100;
+    /** number of full batches which may wait for the writer before the parser gets blocked */
+    private static final int QUEUE_CAPACITY = 2;
+
+    private static final Batch END_OF_IMPORT = new Batch(-1);
+
+    private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writerThread;
+
+    private Batch pending = new Batch(0);
+    /** batches handed over to the writer and maybe not written yet, in the order of submission */
+    private final ArrayDeque<Batch> submitted = new ArrayDeque<>();
+    /** number of batches handed over to the writer, only accessed by the parser thread */
+    private int submittedBatches = 0;
+    /** number of batches completely written, guarded by this */
+    private int writtenBatches = 0;
+    private volatile RuntimeException writerException = null;
+
+    private long waitMillis = 0;
+    private volatile long writeMillis = 0;
+    private volatile int writtenCaches = 0;
+
+    private static final class Batch {
+        final int number;
+        final Map<String, Geocache> caches = new LinkedHashMap<>();
+        final Map<String, List<LogEntry>> logs = new HashMap<>();
+        /** geocodes and names of the caches, collected on submission as the writer may change the caches */
+        final Set<String> keys = new HashSet<>();
+
+        Batch(final int number) {
+            this.number = number;
+        }
+    }
+
+    CacheImportWriter() {
+        writerThread = new Thread(this::writeBatches, "CacheImportWriter");
+        writerThread.start();
+    }
+
+    /**
+     * Add a parsed cache and its logs to the pending batch. The batch is handed over to the writer when it is full.
+     */
+    void add(@NonNull final Geocache cache, @NonNull final List<LogEntry> logs) {
+        final String geocode = cache.getGeocode();
+        if (pending.caches.containsKey(geocode)) {
+            // duplicate in the same file: write the first one, the second one gets merged with it by the database layer
+            submitPending();
+        }
+        pending.caches.put(geocode, cache);
+        if (!logs.isEmpty()) {
+            pending.logs.put(geocode, logs);
+        }
+        if (pending.caches.size() >= BATCH_SIZE) {
+            submitPending();
+        }
+    }
+
+    /**
+     * Mark a cache (e.g. the parent of a waypoint, which is neither part of the pending batch nor already written) to be
+     * written with the pending batch.
+     */
+    void addModified(@NonNull final Geocache cache) {
+        if (!pending.caches.containsKey(cache.getGeocode())) {
+            add(cache, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Find a cache in the pending (not yet written) batch by geocode or by name.
+     */
+    @Nullable
+    Geocache findPending(@NonNull final String geocodeOrName) {
+        final Geocache cache = pending.caches.get(geocodeOrName);
+        if (cache != null) {
+            return cache;
+        }
+        for (final Geocache pendingCache : pending.caches.values()) {
+            if (geocodeOrName.equals(pendingCache.getName())) {
+                return pendingCache;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait until a cache handed over to the writer is written, if it is part of a batch not written yet.
+     * Necessary before a cache of this import is read back from the database. Caches of other batches and the pending
+     * batch are not affected.
+     */
+    void awaitWritten(@NonNull final String geocodeOrName) {
+        removeWrittenBatches();
+        int lastBatch = -1;
+        for (final Batch batch : submitted) {
+            if (batch.keys.contains(geocodeOrName)) {
+                lastBatch = batch.number;
+            }
+        }
+        if (lastBatch >= 0) {
+            awaitBatches(lastBatch + 1);
+            removeWrittenBatches();
+        }
+    }
+
+    /**
+     * Hand over the pending batch and wait until everything submitted so far is written to the database.
+     */
+    void flush() {
+        submitPending();
+        awaitBatches(submittedBatches);
+    }
+
+    /**
+     * Write all remaining caches and stop the writer thread. The writer thread is stopped also if writing fails or the
+     * calling thread is interrupted, dropping the batches not written yet.
+     */
+    void finish() {
+        boolean stopped = false;
+        try {
+            flush();
+            putToQueue(END_OF_IMPORT);
+            writerThread.join();
+            stopped = true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!stopped) {
+                writerThread.interrupt();
+            }
+        }
+        checkWriterException();
+        if (!stopped) {
+            throw new IllegalStateException("Interrupted while waiting for import writer");
+        }
+        // transfer the bulk of new data from the write-ahead log into the database file
+        DataStore.checkpointDatabase();
+    }
+
+    /**
+     * Stop the writer thread after a failed import, dropping the batches not written yet. A batch being written is
+     * completed or rolled back. Unlike {@link #finish()} this never throws, so the failure of the import is kept.
+     *
+     * @return the failure of the writer, {@code null} if writing did not fail
+     */
+    @Nullable
+    RuntimeException abort() {
+        writerThread.interrupt();
+        try {
+            writerThread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return writerException;
+    }
+
+    long getWaitMillis() {
+        return waitMillis;
+    }
+
+    long getWriteMillis() {
+        return writeMillis;
+    }
+
+    int getSubmittedBatches() {
+        return submittedBatches;
+    }
+
+    int getWrittenCaches() {
+        return writtenCaches;
+    }
+
+    private void submitPending() {
+        if (pending.caches.isEmpty()) {
+            return;
+        }
+        checkWriterException();
+        final long start = System.currentTimeMillis();
+        for (final Geocache cache : pending.caches.values()) {
+            pending.keys.add(cache.getGeocode());
+            if (cache.getName() != null) {
+                pending.keys.add(cache.getName());
+            }
+        }
+        putToQueue(pending);
+        waitMillis += System.currentTimeMillis() - start;
+        submitted.addLast(pending);
+        submittedBatches++;
+        pending = new Batch(submittedBatches);
+    }
+
+    /**
+     * Wait until the given number of batches is written.
+     */
+    private void awaitBatches(final int count) {
+        final long start = System.currentTimeMillis();
+        synchronized (this) {
+            while (writtenBatches < count && writerThread.isAlive()) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        waitMillis += System.currentTimeMillis() - start;
+        checkWriterException();
+    }
+
+    private void removeWrittenBatches() {
+        final int written;
+        synchronized (this) {
+            written = writtenBatches;
+        }
+        while (!submitted.isEmpty() && submitted.peekFirst().number < written) {
+            submitted.removeFirst();
+        }
+    }
+
+    private void putToQueue(final Batch batch) {
+        try {
+            queue.put(batch);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for import writer", e);
+        }
+    }
+
+    private void checkWriterException() {
+        if (writerException != null) {
+            throw writerException;
+        }
+    }
+
+    private void writeBatches() {
+        while (true) {
+            final Batch batch;
+            try {
+                batch = queue.take();
+            } catch (final InterruptedException e) {
+                Log.i("CacheImportWriter: stopped, " + queue.size() + " batches not written");
+                return;
+            }
+            if (batch == END_OF_IMPORT) {
+                return;
+            }
+            try {
+                if (writerException == null) {
+                    write(batch);
+                }
+            } catch (final RuntimeException e) {
+                Log.e("CacheImportWriter: failed to write batch", e);
+                writerException = e;
+            } finally {
+                synchronized (this) {
+                    writtenBatches++;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private void write(final Batch batch) {
+        final long start = System.currentTimeMillis();
+        final Collection<Geocache> caches = batch.caches.values();
+        DataStore.saveCachesWithLogs(caches, batch.logs);
+
+        // avoid the cachecache using lots of memory for caches which the user did not actually look at
+        final Set<String> geocodes = new HashSet<>(batch.caches.keySet());
+        DataStore.removeCaches(geocodes, EnumSet.of(RemoveFlag.CACHE));
+
+        writtenCaches += caches.size();
+        writeMillis += System.currentTimeMillis() - start;
+    }
+}
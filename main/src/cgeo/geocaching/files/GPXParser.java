@@ -15,8 +15,6 @@ import cgeo.geocaching.enumerations.CacheSize;
 import cgeo.geocaching.enumerations.CacheType;
 import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.enumerations.LoadFlags.LoadFlag;
-import cgeo.geocaching.enumerations.LoadFlags.RemoveFlag;
-import cgeo.geocaching.enumerations.LoadFlags.SaveFlag;
 import cgeo.geocaching.enumerations.WaypointType;
 import cgeo.geocaching.list.StoredList;
 import cgeo.geocaching.location.Geopoint;
@@ -27,6 +25,7 @@ import cgeo.geocaching.models.Trackable;
 import cgeo.geocaching.models.Waypoint;
 import cgeo.geocaching.models.WaypointUserNoteCombiner;
 import cgeo.geocaching.storage.DataStore;
+import cgeo.geocaching.utils.ContextLogger;
 import cgeo.geocaching.utils.DisposableHandler;
 import cgeo.geocaching.utils.HtmlUtils;
 import cgeo.geocaching.utils.Log;
@@ -141,6 +140,14 @@ abstract class GPXParser extends FileParser {
      */
     private final Set<String> result = new HashSet<>(100);
     private ProgressInputStream progressStream;
+    /**
+     * Writes the parsed caches in batches. Only valid during {@link #parse(InputStream, DisposableHandler)}.
+     */
+    private CacheImportWriter writer;
+    /**
+     * Time spent for loading parent caches of waypoints from the database.
+     */
+    private long parentLoadMillis;
     /**
      * URL contained in the header of the GPX file. Used to guess where the file is coming from.
      */
@@ -274,13 +281,9 @@ abstract class GPXParser extends FileParser {
                     // modify cache depending on the use case/connector
                     afterParsing(cache);
 
-                    // finally store the cache in the database
+                    // finally store the cache in the database (in batches)
                     result.add(geocode);
-                    DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
-                    DataStore.saveLogs(cache.getGeocode(), logs, false);
-
-                    // avoid the cachecache using lots of memory for caches which the user did not actually look at
-                    DataStore.removeCache(geocode, EnumSet.of(RemoveFlag.CACHE));
+                    writer.add(cache, logs);
                     showProgressMessage(progressHandler, progressStream.getProgress());
                 } else if (StringUtils.isNotBlank(cache.getName())
                     && (StringUtils.containsIgnoreCase(type, "waypoint") || terraChildWaypoint)) {
@@ -337,7 +340,8 @@ abstract class GPXParser extends FileParser {
                         newPoints.add(waypoint);
                         Waypoint.mergeWayPoints(newPoints, mergedWayPoints, true);
                         cacheForWaypoint.setWaypoints(newPoints, false);
-                        DataStore.saveCache(cacheForWaypoint, EnumSet.of(SaveFlag.DB));
+                        // parent is written with the next batch, so further waypoints of it are merged in memory
+                        writer.addModified(cacheForWaypoint);
                         showProgressMessage(progressHandler, progressStream.getProgress());
                     }
                 }
@@ -415,13 +419,31 @@ abstract class GPXParser extends FileParser {
             registerExtensions(waypoint);
         }
 
-        try {
-            progressStream = new ProgressInputStream(stream);
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(progressStream, StandardCharsets.UTF_8));
-            Xml.parse(new InvalidXMLCharacterFilterReader(reader), root.getContentHandler());
+        try (ContextLogger cLog = new ContextLogger(Log.LogLevel.DEBUG, "GPXParser.parse(GPX %s)", version)) {
+            writer = new CacheImportWriter();
+            parentLoadMillis = 0;
+            try {
+                progressStream = new ProgressInputStream(stream);
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(progressStream, StandardCharsets.UTF_8));
+                Xml.parse(new InvalidXMLCharacterFilterReader(reader), root.getContentHandler());
+                cLog.add("parsed");
+            } catch (final IOException | SAXException | RuntimeException e) {
+                // report the cause of the failed parse, not a follow-up failure of the writer
+                final RuntimeException writerException = writer.abort();
+                if (writerException != null && writerException != e) {
+                    e.addSuppressed(writerException);
+                }
+                throw e;
+            }
+            writer.finish();
+            cLog.add("written");
+            cLog.add("caches:%d,batches:%d,dbWrite:%dms,dbParentLoad:%dms,waitForWriter:%dms",
+                    writer.getWrittenCaches(), writer.getSubmittedBatches(), writer.getWriteMillis(), parentLoadMillis, writer.getWaitMillis());
             return DataStore.loadCaches(result, EnumSet.of(LoadFlag.DB_MINIMAL));
         } catch (final SAXException e) {
             throw new ParserException("Cannot parse .gpx file as GPX " + version + ": could not parse XML", e);
+        } finally {
+            writer = null;
         }
     }
 
@@ -1022,6 +1044,14 @@ abstract class GPXParser extends FileParser {
         if (StringUtils.isBlank(parentCacheCode)) {
             return null;
         }
+        // parent caches not yet written can be found in memory
+        final Geocache pendingCache = writer.findPending(parentCacheCode);
+        if (pendingCache != null) {
+            return pendingCache;
+        }
+        // otherwise it is read from the database, after the writer has written it if it was parsed before
+        writer.awaitWritten(parentCacheCode);
+        final long start = System.currentTimeMillis();
         // first match by geocode only
         Geocache cacheForWaypoint = DataStore.loadCache(parentCacheCode, LoadFlags.LOAD_CACHE_OR_DB);
         if (cacheForWaypoint == null) {
@@ -1031,6 +1061,7 @@ abstract class GPXParser extends FileParser {
                 cacheForWaypoint = DataStore.loadCache(geocode, LoadFlags.LOAD_CACHE_OR_DB);
             }
         }
+        parentLoadMillis += System.currentTimeMillis() - start;
         return cacheForWaypoint;
     }
 
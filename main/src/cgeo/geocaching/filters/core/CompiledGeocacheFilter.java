@@ -0,0 +1,266 @@
+package cgeo.geocaching.filters.core;
+
+import cgeo.geocaching.models.Geocache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A filter tree prepared for evaluating it on many caches, e.g. on all caches of a list or of the map.
+ * <p>
+ * Nested AND and OR filters are flattened and their children are evaluated by increasing estimated cost, so that
+ * checks of simple cache fields like type or status run before scans of descriptions or logs. Children which don't
+ * filter anything are evaluated last in AND filters, as they can hardly exclude a cache, and first in OR filters,
+ * as they include nearly every cache. Inconclusive results never stop the evaluation, so the result is the same
+ * for every order of the children.
+ * <p>
+ * Results are passed as primitive tri-state values instead of boxed {@link Boolean}s. The compiled filter evaluates
+ * the filters of the tree, which must not be changed afterwards.
+ */
+final class CompiledGeocacheFilter {
+
+    static final int FALSE = 0;
+    static final int TRUE = 1;
+    static final int INCONCLUSIVE = 2;
+
+    /** checks fields of the cache */
+    private static final int COST_FIELD = 1;
+    /** matches short texts or small collections */
+    private static final int COST_TEXT = 4;
+    /** might load data of the cache from the database */
+    private static final int COST_LOOKUP = 16;
+    /** scans long texts or logs, which might have to be loaded from the database */
+    private static final int COST_SCAN = 64;
+
+    private static final Node ALWAYS_TRUE = new And(Collections.emptyList());
+
+    @NonNull private final Node root;
+
+    private CompiledGeocacheFilter(@NonNull final Node root) {
+        this.root = root;
+    }
+
+    @NonNull
+    static CompiledGeocacheFilter compile(@Nullable final IGeocacheFilter tree) {
+        return new CompiledGeocacheFilter(tree == null ? ALWAYS_TRUE : compileNode(tree));
+    }
+
+    /**
+     * Evaluates the filter for the given cache.
+     *
+     * @return {@link #TRUE}, {@link #FALSE} or {@link #INCONCLUSIVE}
+     */
+    int test(final Geocache cache) {
+        return root.test(cache);
+    }
+
+    /** the filters of the tree in the order they are evaluated, for tests */
+    @NonNull
+    List<IGeocacheFilter> getEvaluationOrder() {
+        final List<IGeocacheFilter> filters = new ArrayList<>();
+        root.collectFilters(filters);
+        return filters;
+    }
+
+    @NonNull
+    private static Node compileNode(@NonNull final IGeocacheFilter filter) {
+        if (filter instanceof NotGeocacheFilter) {
+            return new Not(compileLogical(filter.getChildren(), true));
+        }
+        if (filter instanceof AndGeocacheFilter) {
+            return compileLogical(filter.getChildren(), true);
+        }
+        if (filter instanceof OrGeocacheFilter) {
+            return filter.getChildren().isEmpty() ? ALWAYS_TRUE : compileLogical(filter.getChildren(), false);
+        }
+        return new Leaf(filter, estimateCost(filter.getType()), filter.isFiltering());
+    }
+
+    @NonNull
+    private static Node compileLogical(@NonNull final List<IGeocacheFilter> filters, final boolean isAnd) {
+        final List<Node> children = new ArrayList<>();
+        for (final IGeocacheFilter filter : filters) {
+            final Node child = compileNode(filter);
+            // AND(a, AND(b, c)) equals AND(a, b, c), the same holds for OR
+            if (isAnd ? child instanceof And : child instanceof Or) {
+                children.addAll(Arrays.asList(((Logical) child).children));
+            } else {
+                children.add(child);
+            }
+        }
+        if (children.size() == 1) {
+            return children.get(0);
+        }
+        // stable sort, children of same cost keep the order given by the user
+        Collections.sort(children, (c1, c2) -> {
+            if (c1.filtering != c2.filtering) {
+                return c1.filtering == isAnd ? -1 : 1;
+            }
+            return Integer.compare(c1.cost, c2.cost);
+        });
+        return isAnd ? new And(children) : new Or(children);
+    }
+
+    private static int estimateCost(@Nullable final GeocacheFilterType type) {
+        if (type == null) {
+            return COST_TEXT;
+        }
+        switch (type) {
+            case TYPE:
+            case SIZE:
+            case DIFFICULTY:
+            case TERRAIN:
+            case FAVORITES:
+            case HIDDEN:
+            case STORED_SINCE:
+                return COST_FIELD;
+            case STATUS:
+            case OFFLINE_LOG:
+            case LOGS_COUNT:
+            case LAST_FOUND:
+                return COST_LOOKUP;
+            case DESCRIPTION:
+            case LOCATION:
+            case LOG_ENTRY:
+                return COST_SCAN;
+            default:
+                return COST_TEXT;
+        }
+    }
+
+    private abstract static class Node {
+        final int cost;
+        final boolean filtering;
+
+        Node(final int cost, final boolean filtering) {
+            this.cost = cost;
+            this.filtering = filtering;
+        }
+
+        abstract int test(Geocache cache);
+
+        abstract void collectFilters(List<IGeocacheFilter> filters);
+    }
+
+    private static final class Leaf extends Node {
+        @NonNull private final IGeocacheFilter filter;
+
+        Leaf(@NonNull final IGeocacheFilter filter, final int cost, final boolean filtering) {
+            super(cost, filtering);
+            this.filter = filter;
+        }
+
+        @Override
+        int test(final Geocache cache) {
+            final Boolean result = filter.filter(cache);
+            return result == null ? INCONCLUSIVE : (result ? TRUE : FALSE);
+        }
+
+        @Override
+        void collectFilters(final List<IGeocacheFilter> filters) {
+            filters.add(filter);
+        }
+    }
+
+    private abstract static class Logical extends Node {
+        @NonNull final Node[] children;
+
+        Logical(@NonNull final List<Node> children) {
+            super(sumCosts(children), anyFiltering(children));
+            this.children = children.toArray(new Node[0]);
+        }
+
+        @Override
+        void collectFilters(final List<IGeocacheFilter> filters) {
+            for (final Node child : children) {
+                child.collectFilters(filters);
+            }
+        }
+
+        private static int sumCosts(final List<Node> nodes) {
+            int cost = 0;
+            for (final Node node : nodes) {
+                cost += node.cost;
+            }
+            return cost;
+        }
+
+        private static boolean anyFiltering(final List<Node> nodes) {
+            for (final Node node : nodes) {
+                if (node.filtering) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class And extends Logical {
+
+        And(@NonNull final List<Node> children) {
+            super(children);
+        }
+
+        @Override
+        int test(final Geocache cache) {
+            int result = TRUE;
+            for (final Node child : children) {
+                final int childResult = child.test(cache);
+                if (childResult == FALSE) {
+                    return FALSE;
+                }
+                if (childResult == INCONCLUSIVE) {
+                    result = INCONCLUSIVE;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Or extends Logical {
+
+        Or(@NonNull final List<Node> children) {
+            super(children);
+        }
+
+        @Override
+        int test(final Geocache cache) {
+            int result = FALSE;
+            for (final Node child : children) {
+                final int childResult = child.test(cache);
+                if (childResult == TRUE) {
+                    return TRUE;
+                }
+                if (childResult == INCONCLUSIVE) {
+                    result = INCONCLUSIVE;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Not extends Node {
+        @NonNull private final Node child;
+
+        Not(@NonNull final Node child) {
+            super(child.cost, child.filtering);
+            this.child = child;
+        }
+
+        @Override
+        int test(final Geocache cache) {
+            final int result = child.test(cache);
+            return result == INCONCLUSIVE ? INCONCLUSIVE : (result == TRUE ? FALSE : TRUE);
+        }
+
+        @Override
+        void collectFilters(final List<IGeocacheFilter> filters) {
+            child.collectFilters(filters);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package cgeo.geocaching.filters.core;
 
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.storage.DataStore.FullTextColumn;
 
 public  class DescriptionGeocacheFilter extends StringGeocacheFilter {
 
@@ -13,4 +14,8 @@ public  class DescriptionGeocacheFilter extends StringGeocacheFilter {
         return "description";
     }
 
+    protected FullTextColumn getFullTextColumn() {
+        return FullTextColumn.CACHE_DESCRIPTION;
+    }
+
 }
@@ -47,6 +47,13 @@ public class GeocacheFilter {
     private final boolean openInAdvancedMode;
     private final boolean includeInconclusive;
 
+    /** the tree compiled on first use, see {@link #getCompiledTree()} */
+    private volatile CompiledGeocacheFilter compiledTree;
+
+    /** the filter last loaded from settings together with its config, see {@link #loadFromSettings()} */
+    private static String settingsFilterConfig;
+    private static GeocacheFilter settingsFilter;
+
     public static class Storage {
 
         private static final SortedMap<String, GeocacheFilter> storedFilters = new TreeMap<>(TextUtils.COLLATOR::compare);
@@ -136,9 +143,20 @@ public class GeocacheFilter {
         }
     }
 
+    /**
+     * Gets the filter stored in settings. The filter is parsed only when its config changed, so the returned instance
+     * is shared and must not be changed.
+     */
     @NonNull
     public static GeocacheFilter loadFromSettings() {
-        return GeocacheFilter.createFromConfig(Settings.getCacheFilterConfig());
+        final String filterConfig = Settings.getCacheFilterConfig();
+        synchronized (GeocacheFilter.class) {
+            if (settingsFilter == null || !StringUtils.equals(filterConfig, settingsFilterConfig)) {
+                settingsFilter = GeocacheFilter.createFromConfig(filterConfig);
+                settingsFilterConfig = filterConfig;
+            }
+            return settingsFilter;
+        }
     }
 
     public void storeToSettings() {
@@ -201,19 +219,40 @@ public class GeocacheFilter {
         return toConfig();
     }
 
+    /**
+     * Gets the tree compiled for evaluation. The tree is compiled on first use and must not be changed afterwards.
+     */
+    @NonNull
+    private CompiledGeocacheFilter getCompiledTree() {
+        CompiledGeocacheFilter compiled = compiledTree;
+        if (compiled == null) {
+            compiled = CompiledGeocacheFilter.compile(tree);
+            compiledTree = compiled;
+        }
+        return compiled;
+    }
+
     public boolean filter(final Geocache cache) {
         if (tree == null) {
             return true;
         }
-        final Boolean result = tree.filter(cache);
-        return result == null ? this.includeInconclusive : result;
+        return filter(getCompiledTree(), cache);
+    }
+
+    private boolean filter(@NonNull final CompiledGeocacheFilter compiled, final Geocache cache) {
+        final int result = compiled.test(cache);
+        return result == CompiledGeocacheFilter.INCONCLUSIVE ? this.includeInconclusive : result == CompiledGeocacheFilter.TRUE;
     }
 
     public void filterList(final Collection<Geocache> list) {
+        if (tree == null) {
+            return;
+        }
 
+        final CompiledGeocacheFilter compiled = getCompiledTree();
         final List<Geocache> itemsToKeep = new ArrayList<>();
         for (final Geocache item : list) {
-            if (filter(item)) {
+            if (filter(compiled, item)) {
                 itemsToKeep.add(item);
             }
         }
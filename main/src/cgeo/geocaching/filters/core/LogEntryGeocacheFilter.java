@@ -2,11 +2,13 @@ package cgeo.geocaching.filters.core;
 
 import cgeo.geocaching.log.LogEntry;
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.storage.DataStore.FullTextColumn;
 import cgeo.geocaching.storage.SqlBuilder;
 import cgeo.geocaching.utils.expressions.ExpressionConfig;
 
 import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.lang3.BooleanUtils;
@@ -46,6 +48,21 @@ public class LogEntryGeocacheFilter extends BaseGeocacheFilter {
         this.logTextFilter.setTextValue(logText);
     }
 
+    public boolean isLogTextWordSearch() {
+        return logTextFilter.getFilterType() == StringFilter.StringFilterType.CONTAINS_WORDS;
+    }
+
+    public boolean supportsLogTextWordSearch() {
+        return FullTextColumn.isAvailable();
+    }
+
+    /**
+     * search log texts for words (using the full text index) instead of a plain substring
+     */
+    public void setLogTextWordSearch(final boolean wordSearch) {
+        this.logTextFilter.setFilterType(wordSearch ? StringFilter.StringFilterType.CONTAINS_WORDS : StringFilter.StringFilterType.CONTAINS);
+    }
+
     @Nullable
     @Override
     public Boolean filter(final Geocache cache) {
@@ -80,15 +97,24 @@ public class LogEntryGeocacheFilter extends BaseGeocacheFilter {
         if (inverse) {
             sb.append("NOT ");
         }
+        final List<String> args = new ArrayList<>();
         sb.append("EXISTS( SELECT " + tid + ".geocode FROM cg_logs " + tid + " WHERE " + sqlBuilder.getMainTableId() + ".geocode = " + tid + ".geocode");
         if (foundByFilter.isFilled()) {
-            sb.append(" AND " + foundByFilter.getRawLikeSqlExpression("author"));
+            sb.append(" AND ").append(getSqlExpression(foundByFilter, tid, "author", FullTextColumn.LOG_AUTHOR, args));
         }
         if (logTextFilter.isFilled()) {
-            sb.append(" AND " + logTextFilter.getRawLikeSqlExpression("log"));
+            sb.append(" AND ").append(getSqlExpression(logTextFilter, tid, "log", FullTextColumn.LOG_TEXT, args));
         }
         sb.append(")");
-        sqlBuilder.addWhere(sb.toString());
+        sqlBuilder.addWhere(sb.toString(), args);
+    }
+
+    private static String getSqlExpression(final StringFilter filter, final String tableId, final String column, final FullTextColumn fullTextColumn, final List<String> args) {
+        if (filter.usesFullTextIndex(fullTextColumn)) {
+            args.add(filter.getFullTextMatchQuery(fullTextColumn));
+            return fullTextColumn.getMatchWhere(tableId + "._id");
+        }
+        return filter.getRawLikeSqlExpression(tableId + "." + column);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package cgeo.geocaching.filters.core;
 
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.storage.DataStore.FullTextColumn;
 
 public  class PersonalNoteGeocacheFilter extends StringGeocacheFilter {
 
@@ -12,4 +13,8 @@ public  class PersonalNoteGeocacheFilter extends StringGeocacheFilter {
         return "personal_note";
     }
 
+    protected FullTextColumn getFullTextColumn() {
+        return FullTextColumn.CACHE_PERSONAL_NOTE;
+    }
+
 }
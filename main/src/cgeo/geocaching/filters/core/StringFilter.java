@@ -1,13 +1,17 @@
 package cgeo.geocaching.filters.core;
 
 import cgeo.geocaching.R;
+import cgeo.geocaching.storage.DataStore.FullTextColumn;
 import cgeo.geocaching.storage.SqlBuilder;
 import cgeo.geocaching.utils.LocalizationUtils;
 import cgeo.geocaching.utils.TextUtils;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.StringRes;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -24,7 +28,9 @@ public class StringFilter {
         CONTAINS(R.string.cache_filter_stringfilter_type_contains),
         STARTS_WITH(R.string.cache_filter_stringfilter_type_starts_with),
         ENDS_WITH(R.string.cache_filter_stringfilter_type_ends_with),
-        PATTERN(R.string.cache_filter_stringfilter_type_pattern);
+        PATTERN(R.string.cache_filter_stringfilter_type_pattern),
+        /** every search word is the start of a word of the value (case and diacritics insensitive), uses the full text index */
+        CONTAINS_WORDS(R.string.cache_filter_stringfilter_type_contains_words);
 
         private final int resId;
 
@@ -114,6 +120,8 @@ public class StringFilter {
                 return matchGcValue.endsWith(matchTextValue);
             case PATTERN:
                 return Pattern.compile(matchTextValue.replace('?', '.').replaceAll("\\*", ".*")).matcher(matchGcValue).matches();
+            case CONTAINS_WORDS:
+                return containsWords(value, getWords(this.textValue));
             default:
                 //can never happen
                 return true;
@@ -121,7 +129,17 @@ public class StringFilter {
     }
 
     public void addToSql(final SqlBuilder sqlBuilder, final String columnExpression) {
-        if (!isFilled()) {
+        addToSql(sqlBuilder, columnExpression, null, null);
+    }
+
+    /**
+     * @param fullTextColumn full text index column for the value, null if there is none
+     * @param idColumnExpression expression for the id column of the table which is covered by the full text index
+     */
+    public void addToSql(final SqlBuilder sqlBuilder, final String columnExpression, @Nullable final FullTextColumn fullTextColumn, @Nullable final String idColumnExpression) {
+        if (usesFullTextIndex(fullTextColumn)) {
+            sqlBuilder.addWhere(fullTextColumn.getMatchWhere(idColumnExpression), getFullTextMatchQuery(fullTextColumn));
+        } else if (!isFilled()) {
             sqlBuilder.addWhereTrue();
         } else {
             switch (filterType) {
@@ -158,10 +176,36 @@ public class StringFilter {
         }
     }
 
+    /**
+     * whether the SQL expression for this filter can be expressed using the given full text index column
+     * (see {@link #getFullTextMatchQuery(FullTextColumn)})
+     */
+    public boolean usesFullTextIndex(@Nullable final FullTextColumn fullTextColumn) {
+        return fullTextColumn != null && FullTextColumn.isAvailable() && filterType == StringFilterType.CONTAINS_WORDS && !getWords(this.textValue).isEmpty();
+    }
+
+    /**
+     * @return the query parameter for {@link FullTextColumn#getMatchWhere(String)}
+     */
+    @NonNull
+    public String getFullTextMatchQuery(@NonNull final FullTextColumn fullTextColumn) {
+        return fullTextColumn.getMatchQuery(getWords(this.textValue));
+    }
+
     public String getRawLikeSqlExpression(final String columnExpression) {
         final StringBuilder sb = new StringBuilder();
 
-        if (!StringUtils.isBlank(this.textValue)) {
+        if (filterType == StringFilterType.CONTAINS_WORDS) {
+            // no full text index available (word search is only offered with the index, but may be part of a stored filter):
+            // LIKE can only check that the words are contained somewhere. SQLite can't strip diacritics from the column,
+            // so the words are searched as entered instead of normalized
+            for (final String word : splitWords(StringUtils.lowerCase(this.textValue))) {
+                if (sb.length() > 0) {
+                    sb.append(" AND ");
+                }
+                sb.append("LOWER(").append(columnExpression).append(")").append(SqlBuilder.createLikeExpression("%" + SqlBuilder.escape(word, true) + "%"));
+            }
+        } else if (!StringUtils.isBlank(this.textValue)) {
             String matchTextValue = SqlBuilder.escape(this.matchCase ? this.textValue : StringUtils.lowerCase(this.textValue), true);
             if (!this.matchCase) {
                 sb.append("LOWER(");
@@ -191,6 +235,54 @@ public class StringFilter {
         return sb.toString();
     }
 
+    /**
+     * splits a text into lower case words without diacritics, consisting of letters and digits only
+     * (mimics the unicode61 tokenizer of the full text index)
+     */
+    @NonNull
+    static List<String> getWords(@Nullable final String text) {
+        return splitWords(StringUtils.lowerCase(StringUtils.stripAccents(text)));
+    }
+
+    /**
+     * splits a text into words consisting of letters and digits only
+     */
+    @NonNull
+    private static List<String> splitWords(@Nullable final String normalized) {
+        if (StringUtils.isBlank(normalized)) {
+            return Collections.emptyList();
+        }
+        final List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            final boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static boolean containsWords(@Nullable final String value, @NonNull final List<String> searchWords) {
+        final List<String> valueWords = getWords(value);
+        for (final String searchWord : searchWords) {
+            boolean found = false;
+            for (final String valueWord : valueWords) {
+                if (valueWord.startsWith(searchWord)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected String getUserDisplayableConfig() {
         switch (this.filterType) {
             case IS_PRESENT:
@@ -1,10 +1,12 @@
 package cgeo.geocaching.filters.core;
 
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.storage.DataStore.FullTextColumn;
 import cgeo.geocaching.storage.SqlBuilder;
 import cgeo.geocaching.utils.expressions.ExpressionConfig;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 
 public abstract class StringGeocacheFilter extends BaseGeocacheFilter {
@@ -17,6 +19,18 @@ public abstract class StringGeocacheFilter extends BaseGeocacheFilter {
         return null;
     }
 
+    /**
+     * full text index column for the value, enables {@link StringFilter.StringFilterType#CONTAINS_WORDS} for this filter
+     */
+    @Nullable
+    protected FullTextColumn getFullTextColumn() {
+        return null;
+    }
+
+    public boolean supportsWordSearch() {
+        return getFullTextColumn() != null && FullTextColumn.isAvailable();
+    }
+
     @NonNull
     public StringFilter getStringFilter() {
         return stringFilter;
@@ -55,7 +69,7 @@ public abstract class StringGeocacheFilter extends BaseGeocacheFilter {
     public void addToSql(final SqlBuilder sqlBuilder) {
         final String colName = getSqlColumnName();
         if (colName != null) {
-            stringFilter.addToSql(sqlBuilder, sqlBuilder.getMainTableId() + "." + colName);
+            stringFilter.addToSql(sqlBuilder, sqlBuilder.getMainTableId() + "." + colName, getFullTextColumn(), sqlBuilder.getMainTableId() + "._id");
         } else {
             sqlBuilder.addWhereTrue();
         }
@@ -10,14 +10,18 @@ import static cgeo.geocaching.ui.ViewUtils.dpToPixel;
 import android.util.Pair;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.LinearLayout;
 
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
 public class LogEntryFilterViewHolder extends BaseFilterViewHolder<LogEntryGeocacheFilter> {
 
     private ButtonToggleGroup inverseFoundBy;
     private EditText foundByText;
     private EditText logText;
+    private CheckBox logTextWords;
 
 
     @Override
@@ -42,9 +46,18 @@ public class LogEntryFilterViewHolder extends BaseFilterViewHolder<LogEntryGeoca
         final Pair<View, EditText> logTextField = ViewUtils.createTextField(getActivity(), null, TextParam.id(R.string.cache_filter_log_entry_logtext), null, -1, 1, 1);
         logText = logTextField.second;
         llp = new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-        llp.setMargins(0, dpToPixel(0), 0, dpToPixel(20));
+        llp.setMargins(0, dpToPixel(0), 0, dpToPixel(5));
         ll.addView(logTextField.first, llp);
 
+        final ImmutablePair<View, CheckBox> logTextWordsItem = ViewUtils.createCheckboxItem(getActivity(), ll, TextParam.id(R.string.cache_filter_log_entry_logtext_words), null,
+            TextParam.id(R.string.cache_filter_stringfilter_contains_words_info));
+        logTextWords = logTextWordsItem.right;
+        llp = new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        llp.setMargins(0, dpToPixel(0), 0, dpToPixel(20));
+        ll.addView(logTextWordsItem.left, llp);
+        // word search needs the full text index
+        logTextWordsItem.left.setVisibility(createFilter().supportsLogTextWordSearch() ? View.VISIBLE : View.GONE);
+
         return ll;
     }
 
@@ -52,6 +65,7 @@ public class LogEntryFilterViewHolder extends BaseFilterViewHolder<LogEntryGeoca
     public void setViewFromFilter(final LogEntryGeocacheFilter filter) {
         foundByText.setText(filter.getFoundByUser());
         logText.setText(filter.getLogText());
+        logTextWords.setChecked(filter.isLogTextWordSearch());
         inverseFoundBy.setCheckedButtonByIndex(filter.isInverse() ? 1 : 0, true);
     }
 
@@ -60,6 +74,7 @@ public class LogEntryFilterViewHolder extends BaseFilterViewHolder<LogEntryGeoca
         final LogEntryGeocacheFilter filter = createFilter();
         filter.setFoundByUser(foundByText.getText().toString());
         filter.setLogText(logText.getText().toString());
+        filter.setLogTextWordSearch(logTextWords.isChecked());
         filter.setInverse(inverseFoundBy.getCheckedButtonIndex() == 1);
         return filter;
     }
@@ -16,7 +16,9 @@ import static android.view.View.VISIBLE;
 
 import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 
 public class StringFilterViewHolder<F extends StringGeocacheFilter> extends BaseFilterViewHolder<F> {
@@ -49,13 +51,18 @@ public class StringFilterViewHolder<F extends StringGeocacheFilter> extends Base
 
         this.binding = CacheFilterGenericStringBinding.bind(view);
         selectSpinner.setTextView(this.binding.select);
+        final List<StringFilter.StringFilterType> filterTypes = new ArrayList<>(Arrays.asList(StringFilter.StringFilterType.values()));
+        if (!createFilter().supportsWordSearch()) {
+            filterTypes.remove(StringFilter.StringFilterType.CONTAINS_WORDS);
+        }
         selectSpinner
-            .setValues(Arrays.asList(StringFilter.StringFilterType.values()))
+            .setValues(filterTypes)
             .setDisplayMapper(StringFilter.StringFilterType::toUserDisplayableString)
             .setChangeListener(sft -> {
                 final boolean textEnabled = sft != StringFilter.StringFilterType.IS_NOT_PRESENT && sft != StringFilter.StringFilterType.IS_PRESENT;
                 binding.searchtext.setVisibility(textEnabled ? VISIBLE : GONE);
-                binding.matchCase.setVisibility(textEnabled ? VISIBLE : GONE);
+                // word search is always case insensitive
+                binding.matchCase.setVisibility(textEnabled && sft != StringFilter.StringFilterType.CONTAINS_WORDS ? VISIBLE : GONE);
             }, true)
             .set(StringFilter.getDefaultFilterType());
         this.binding.itemInfo.setOnClickListener(d -> SimpleDialog.of(getActivity()).setMessage(R.string.cache_filter_stringfilter_info).show());
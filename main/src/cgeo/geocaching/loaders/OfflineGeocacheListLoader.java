@@ -6,11 +6,15 @@ import cgeo.geocaching.filters.core.GeocacheFilter;
 import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.settings.Settings;
 import cgeo.geocaching.sorting.CacheComparator;
+import cgeo.geocaching.storage.CacheListIndex;
 import cgeo.geocaching.storage.DataStore;
+import cgeo.geocaching.ui.WindowedCacheList;
 
 import android.app.Activity;
 import android.os.Bundle;
 
+import androidx.annotation.Nullable;
+
 public class OfflineGeocacheListLoader extends AbstractSearchLoader {
 
     private final int listId;
@@ -20,6 +24,7 @@ public class OfflineGeocacheListLoader extends AbstractSearchLoader {
     private final CacheComparator sort;
     private final boolean sortInverse;
     private final int limit;
+    @Nullable private volatile CacheListIndex cacheListIndex = null;
 
     public OfflineGeocacheListLoader(final Activity activity, final Geopoint searchCenter, final int listId, final GeocacheFilter filter, final CacheComparator sort, final boolean sortInverse, final int limit) {
         super(activity);
@@ -33,7 +38,21 @@ public class OfflineGeocacheListLoader extends AbstractSearchLoader {
 
     @Override
     public SearchResult runSearch() {
-        return DataStore.getBatchOfStoredCaches(searchCenter, Settings.getCacheType(), listId, filter, sort, sortInverse, limit);
+        if (limit > 0) {
+            cacheListIndex = null;
+            return DataStore.getBatchOfStoredCaches(searchCenter, Settings.getCacheType(), listId, filter, sort, sortInverse, limit);
+        }
+        final CacheListIndex index = DataStore.loadStoredCacheListIndex(searchCenter, Settings.getCacheType(), listId, filter, sort, sortInverse);
+        cacheListIndex = index.size() > WindowedCacheList.MIN_WINDOWED_SIZE ? index : null;
+        return new SearchResult(index.getGeocodes(), DataStore.getAllStoredCachesCount(Settings.getCacheType(), listId));
+    }
+
+    /**
+     * @return the ordered index of the last search result, if the list is large enough to be shown windowed
+     */
+    @Nullable
+    public CacheListIndex getCacheListIndex() {
+        return cacheListIndex;
     }
 
     /**
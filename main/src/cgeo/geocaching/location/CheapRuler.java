@@ -0,0 +1,72 @@
+package cgeo.geocaching.location;
+
+import cgeo.geocaching.brouter.util.CheapRulerHelper;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Fast approximation of the distances from one origin to many points, used to sort and display distances in lists.
+ * <p>
+ * The latitude and longitude differences are scaled by the WGS84 lengths of a degree at their mean latitude,
+ * interpolated in the table of {@link CheapRulerHelper}. Up to {@link #EXACT_DISTANCE_THRESHOLD_KM} and 75 degrees of
+ * latitude the result differs from the geodesic distance by less than 0.2%. Points farther away and points near the
+ * poles, where the approximation breaks down, fall back to {@link Geopoint#distanceTo(ICoordinates)}.
+ * Use the geodesic directly where precision matters, e.g. for projections.
+ */
+public final class CheapRuler {
+
+    static final float EXACT_DISTANCE_THRESHOLD_KM = 300;
+    private static final int EXACT_LATITUDE_THRESHOLD_E6 = 75_000_000;
+
+    private static final int LATITUDE_OFFSET_E6 = 90_000_000;
+    /** distance between the latitudes of the scales in the table of {@link CheapRulerHelper} */
+    private static final int SCALE_STEP_E6 = 100_000;
+    private static final int MAX_SCALE_INDEX = 2 * LATITUDE_OFFSET_E6 / SCALE_STEP_E6 - 2;
+    private static final int FULL_CIRCLE_E6 = 360_000_000;
+    private static final int HALF_CIRCLE_E6 = 180_000_000;
+
+    @NonNull private final Geopoint origin;
+    private final int originLatitudeE6;
+    private final int originLongitudeE6;
+
+    public CheapRuler(@NonNull final Geopoint origin) {
+        this.origin = origin;
+        this.originLatitudeE6 = origin.getLatitudeE6();
+        this.originLongitudeE6 = origin.getLongitudeE6();
+    }
+
+    /**
+     * Calculates the approximate distance to the given point in km.
+     */
+    public float distanceTo(@NonNull final Geopoint point) {
+        return distanceTo(point.getLatitudeE6(), point.getLongitudeE6());
+    }
+
+    /**
+     * Calculates the approximate distance to the given point in km.
+     */
+    public float distanceTo(final int latitudeE6, final int longitudeE6) {
+        if (Math.abs(latitudeE6) > EXACT_LATITUDE_THRESHOLD_E6 || Math.abs(originLatitudeE6) > EXACT_LATITUDE_THRESHOLD_E6) {
+            return origin.distanceTo(Geopoint.forE6(latitudeE6, longitudeE6));
+        }
+        // the scales of the table are for the middle of each step
+        final int scaleLatitudeE6 = ((latitudeE6 + originLatitudeE6) >> 1) + LATITUDE_OFFSET_E6 - SCALE_STEP_E6 / 2;
+        final int index = Math.max(0, Math.min(scaleLatitudeE6 / SCALE_STEP_E6, MAX_SCALE_INDEX));
+        final double fraction = Math.max(0.0, Math.min((double) (scaleLatitudeE6 - index * SCALE_STEP_E6) / SCALE_STEP_E6, 1.0));
+        final double[] lowerScales = CheapRulerHelper.getLonLatToMeterScales(index * SCALE_STEP_E6);
+        final double[] upperScales = CheapRulerHelper.getLonLatToMeterScales((index + 1) * SCALE_STEP_E6);
+        final double longitudeScale = lowerScales[0] + (upperScales[0] - lowerScales[0]) * fraction;
+        final double latitudeScale = lowerScales[1] + (upperScales[1] - lowerScales[1]) * fraction;
+
+        int longitudeDiffE6 = longitudeE6 - originLongitudeE6;
+        if (longitudeDiffE6 > HALF_CIRCLE_E6) {
+            longitudeDiffE6 -= FULL_CIRCLE_E6;
+        } else if (longitudeDiffE6 < -HALF_CIRCLE_E6) {
+            longitudeDiffE6 += FULL_CIRCLE_E6;
+        }
+        final double dx = longitudeDiffE6 * longitudeScale;
+        final double dy = (latitudeE6 - originLatitudeE6) * latitudeScale;
+        final float distance = (float) (Math.sqrt(dx * dx + dy * dy) / CheapRulerHelper.KILOMETERS_TO_METERS);
+        return distance <= EXACT_DISTANCE_THRESHOLD_KM ? distance : origin.distanceTo(Geopoint.forE6(latitudeE6, longitudeE6));
+    }
+}
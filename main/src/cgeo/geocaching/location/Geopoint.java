@@ -57,12 +57,22 @@ public final class Geopoint implements ICoordinates, Parcelable {
      * @param lonE6 longitude in microdegrees
      * @param dummy ignored parameter
      */
-    @SuppressWarnings("unused")
     private Geopoint(final int latE6, final int lonE6, final Object dummy) {
         latitudeE6 = latE6;
         longitudeE6 = lonE6;
     }
 
+    /**
+     * Creates new Geopoint with given latitude and longitude in microdegrees.
+     *
+     * @param latE6 latitude in microdegrees
+     * @param lonE6 longitude in microdegrees
+     */
+    @NonNull
+    public static Geopoint forE6(final int latE6, final int lonE6) {
+        return new Geopoint(latE6, lonE6, null);
+    }
+
     /**
      * Creates new Geopoint with latitude and longitude parsed from string.
      *
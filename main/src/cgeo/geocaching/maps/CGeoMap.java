@@ -16,6 +16,7 @@ import cgeo.geocaching.enumerations.CacheType;
 import cgeo.geocaching.enumerations.CoordinatesType;
 import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.enumerations.LoadFlags.RemoveFlag;
+import cgeo.geocaching.enumerations.StatusCode;
 import cgeo.geocaching.enumerations.WaypointType;
 import cgeo.geocaching.list.StoredList;
 import cgeo.geocaching.location.Geopoint;
@@ -67,7 +68,6 @@ import cgeo.geocaching.utils.HistoryTrackUtils;
 import cgeo.geocaching.utils.LeastRecentlyUsedSet;
 import cgeo.geocaching.utils.Log;
 import cgeo.geocaching.utils.MapMarkerUtils;
-import static cgeo.geocaching.location.Viewport.containingGCliveCaches;
 
 import android.app.ProgressDialog;
 import android.content.Context;
@@ -111,6 +111,7 @@ import java.util.concurrent.TimeUnit;
 import com.google.android.gms.maps.model.LatLng;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.disposables.SerialDisposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -168,18 +169,15 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
      * Last search result used for displaying header
      */
     private SearchResult lastSearchResult = null;
-    private Viewport lastViewport = null;
     // map status data
     private static boolean followMyLocation = true;
     // threads
-    private Disposable loadTimer;
+    private Disposable loadTrigger;
     private LoadDetails loadDetailsThread = null;
-    /**
-     * Time of last {@link LoadRunnable} run
-     */
-    private volatile long loadThreadRun = 0L;
     //Interthread communication flag
     private volatile boolean downloaded = false;
+    /** pending retry of a failed live download */
+    private final SerialDisposable liveRetry = new SerialDisposable();
 
     /**
      * Count of caches currently visible
@@ -196,7 +194,7 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
     // views
     private CheckBox myLocSwitch = null;
     // other things
-    private boolean markersInvalidated = false; // previous state for loadTimer
+    private volatile boolean markersInvalidated = false; // previous state for loadTrigger
     private boolean centered = false; // if map is already centered
     private boolean alreadyCentered = false; // -""- for setting my location
     private static final Set<String> dirtyCaches = new HashSet<>();
@@ -205,6 +203,10 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
      * if live map is enabled, this is the minimum zoom level, independent of the stored setting
      */
     private static final int MIN_LIVEMAP_ZOOM = 12;
+    /**
+     * delay before a failed or incomplete live download is retried
+     */
+    private static final long LIVE_RETRY_DELAY_SECONDS = 15;
     // Thread pooling
     private static final BlockingQueue<Runnable> displayQueue = new ArrayBlockingQueue<>(1);
     private static final ThreadPoolExecutor displayExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, displayQueue, new ThreadPoolExecutor.DiscardOldestPolicy());
@@ -470,6 +472,7 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
         mapView.setBuiltInZoomControls(true);
         mapView.displayZoomControls(true);
         mapView.setOnDragListener(new MapDragListener(this));
+        mapView.setOnMoveListener(this::requestLoad);
 
         // initialize overlays
         mapView.clearOverlays();
@@ -665,7 +668,7 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
                 @Override
                 public void executeAfter() {
                     mapView.onResume();
-                    resumeDisposables.addAll(geoDirUpdate.start(GeoDirHandler.UPDATE_GEODIR), startTimer());
+                    resumeDisposables.addAll(geoDirUpdate.start(GeoDirHandler.UPDATE_GEODIR), startLoadTrigger());
                 }
             });
 
@@ -696,7 +699,9 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
     @Override
     public void onPause() {
         resumeDisposables.clear();
+        liveRetry.set(null);
         savePrefs();
+        DataStore.flushTrailpoints();
 
         mapView.destroyDrawingCache();
 
@@ -793,8 +798,8 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
             if (mapOptions.mapMode == MapMode.LIVE) {
                 Settings.setLiveMap(mapOptions.isLiveEnabled);
             }
-            markersInvalidated = true;
             lastSearchResult = null;
+            invalidateMarkers();
             mapOptions.searchResult = null;
             ActivityMixin.invalidateOptionsMenu(activity);
             if (mapOptions.mapMode != MapMode.SINGLE) {
@@ -830,8 +835,8 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
 
     @Override
     public void onMapSettingsPopupFinished(final boolean circlesSwitched) {
-        markersInvalidated = true;
         Tile.cache.clear();
+        invalidateMarkers();
         overlayPositionAndScale.repaintRequired();
         if (circlesSwitched) {
             mapView.setCircles(Settings.isShowCircles());
@@ -860,7 +865,7 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
 
     private void compactIconModeChanged(final int newValue) {
         Settings.setCompactIconMode(newValue);
-        markersInvalidated = true;
+        invalidateMarkers();
         mapView.repaintRequired(overlayPositionAndScale instanceof GeneralOverlay ? ((GeneralOverlay) overlayPositionAndScale) : null);
     }
 
@@ -1154,28 +1159,45 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
     }
 
     /**
-     * Starts the load timer.
+     * Starts loading caches whenever the map is moved or its markers are invalidated.
      */
 
-    private Disposable startTimer() {
+    private Disposable startLoadTrigger() {
         if (mapOptions.coords != null && mapOptions.mapMode != MapMode.LIVE) {
             // display just one point
             displayPoint(mapOptions.coords);
-            loadTimer = new CompositeDisposable();
+            loadTrigger = new CompositeDisposable();
         } else {
-            loadTimer = Schedulers.newThread().schedulePeriodicallyDirect(new LoadTimerAction(this), 0, 250, TimeUnit.MILLISECONDS);
+            final MapLoadTrigger trigger = new MapLoadTrigger(new MapChangedAction(this));
+            loadTrigger = trigger;
+            trigger.request();
+        }
+        return loadTrigger;
+    }
+
+    /**
+     * request a (debounced) check for caches to load
+     */
+    private void requestLoad() {
+        final Disposable trigger = loadTrigger;
+        if (trigger instanceof MapLoadTrigger) {
+            ((MapLoadTrigger) trigger).request();
         }
-        return loadTimer;
     }
 
-    private static final class LoadTimerAction implements Runnable {
+    private void invalidateMarkers() {
+        markersInvalidated = true;
+        requestLoad();
+    }
+
+    private static final class MapChangedAction implements Runnable {
 
         @NonNull
         private final WeakReference<CGeoMap> mapRef;
         private int previousZoom = -100;
         private Viewport previousViewport;
 
-        LoadTimerAction(@NonNull final CGeoMap map) {
+        MapChangedAction(@NonNull final CGeoMap map) {
             this.mapRef = new WeakReference<>(map);
         }
 
@@ -1185,40 +1207,30 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
             if (map == null) {
                 return;
             }
-            try {
-                // get current viewport
-                final Viewport viewportNow = map.mapView.getViewport();
-                if (viewportNow == null) {
-                    return;
-                }
-                // Since zoomNow is used only for local comparison purposes,
-                // it is ok to use the Google Maps compatible zoom level of OSM Maps
-                final int zoomNow = map.mapView.getMapZoomLevel();
-
-                // check if map moved or zoomed
-                //TODO Portree Use Rectangle inside with bigger search window. That will stop reloading on every move
-                final boolean moved = map.markersInvalidated || (map.mapOptions.isLiveEnabled && !map.downloaded) || previousViewport == null || zoomNow != previousZoom ||
-                    (mapMoved(previousViewport, viewportNow) && (map.cachesCnt <= 0 || CollectionUtils.isEmpty(map.caches) || !previousViewport.includes(viewportNow)));
-
-                // update title on any change
-                if (moved || !viewportNow.equals(previousViewport)) {
-                    map.updateMapTitle();
-                }
+            // get current viewport
+            final Viewport viewportNow = map.mapView.getViewport();
+            if (viewportNow == null) {
+                return;
+            }
+            // Since zoomNow is used only for local comparison purposes,
+            // it is ok to use the Google Maps compatible zoom level of OSM Maps
+            final int zoomNow = map.mapView.getMapZoomLevel();
 
-                // save new values
-                if (moved) {
-                    map.markersInvalidated = false;
+            // check if map moved or zoomed
+            final boolean moved = map.markersInvalidated || (map.mapOptions.isLiveEnabled && !map.downloaded) || previousViewport == null || zoomNow != previousZoom ||
+                (mapMoved(previousViewport, viewportNow) && (map.cachesCnt <= 0 || CollectionUtils.isEmpty(map.caches) || !previousViewport.includes(viewportNow)));
 
-                    final long currentTime = System.currentTimeMillis();
+            // update title on any change
+            if (moved || !viewportNow.equals(previousViewport)) {
+                map.updateMapTitle();
+            }
 
-                    if ((currentTime - map.loadThreadRun) > 1000) {
-                        previousViewport = viewportNow;
-                        previousZoom = zoomNow;
-                        loadExecutor.execute(new LoadRunnable(map));
-                    }
-                }
-            } catch (final Exception e) {
-                Log.w("CGeoMap.startLoadtimer.start", e);
+            // save new values
+            if (moved) {
+                map.markersInvalidated = false;
+                previousViewport = viewportNow;
+                previousZoom = zoomNow;
+                loadExecutor.execute(new LoadRunnable(map));
             }
         }
     }
@@ -1227,7 +1239,7 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
      * get if map is loading something
      */
     private boolean isLoading() {
-        return !loadTimer.isDisposed() &&
+        return !loadTrigger.isDisposed() &&
             (loadExecutor.getActiveCount() > 0 ||
                 downloadExecutor.getActiveCount() > 0 ||
                 displayExecutor.getActiveCount() > 0);
@@ -1253,7 +1265,6 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
     private void doLoadRun() {
         try {
             showProgressHandler.sendEmptyMessage(SHOW_PROGRESS);
-            loadThreadRun = System.currentTimeMillis();
 
             final SearchResult searchResult;
             final MapMode mapMode = mapOptions.mapMode;
@@ -1292,21 +1303,18 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
                 if (mapOptions.isLiveEnabled || mapMode == MapMode.LIVE || mapMode == MapMode.COORDS) {
                     //All visible waypoints
                     final CacheType type = Settings.getCacheType();
-                    final boolean excludeMine = Settings.isExcludeMyCaches();
-                    final boolean excludeFound = Settings.isExcludeFound();
-                    final boolean excludeDisabled = Settings.isExcludeDisabledCaches();
-                    final boolean excludeArchived = Settings.isExcludeArchivedCaches();
-                    final boolean excludeOfflineLogs = Settings.isExcludeOfflineLog();
-                    final Set<Waypoint> waypointsInViewport = DataStore.loadWaypoints(mapView.getViewport(), excludeMine, excludeFound, excludeDisabled, excludeArchived, excludeOfflineLogs, type);
+                    final Settings.Snapshot settings = Settings.getSnapshot();
+                    final Set<Waypoint> waypointsInViewport = DataStore.loadWaypoints(mapView.getViewport(), settings.excludeMine, settings.excludeFound, settings.excludeDisabled, settings.excludeArchived, settings.excludeOfflineLog, type);
                     MapUtils.filter(waypointsInViewport, true);
                     waypoints.addAll(waypointsInViewport);
                 } else {
                     //All visible waypoints from the viewed caches
+                    final Set<Waypoint> cachesWaypoints = new HashSet<>();
                     for (final Geocache c : caches.getAsList()) {
-                        final Set<Waypoint> filteredWaypoints = new HashSet<>(c.getWaypoints());
-                        MapUtils.filter(filteredWaypoints, false);
-                        waypoints.addAll(filteredWaypoints);
+                        cachesWaypoints.addAll(c.getWaypoints());
                     }
+                    MapUtils.filter(cachesWaypoints, false);
+                    waypoints.addAll(cachesWaypoints);
                 }
             }
 
@@ -1341,13 +1349,14 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
     }
 
     private void doDownloadRun() {
+        boolean complete = false;
         try {
             showProgressHandler.sendEmptyMessage(SHOW_PROGRESS); // show progress
 
-            final boolean useLastSearchResult = null != lastSearchResult && null != lastViewport && lastViewport.includes(mapView.getViewport());
-            final Viewport newViewport = mapView.getViewport().resize(3.0);
-            final SearchResult searchResult = useLastSearchResult ? lastSearchResult : ConnectorFactory.searchByViewport(newViewport);
+            // only tiles not searched recently are requested from the connectors
+            final SearchResult searchResult = Tile.cache.searchByViewport(mapView.getViewport());
             downloaded = true;
+            complete = searchResult.getError() == StatusCode.NO_ERROR;
 
             final Set<Geocache> result = searchResult.getCachesFromSearchResult(LoadFlags.LOAD_CACHE_OR_DB);
             MapUtils.filter(result);
@@ -1363,22 +1372,30 @@ public class CGeoMap extends AbstractMap implements ViewFactory, OnCacheTapListe
             caches.addAll(result);
 
             lastSearchResult = searchResult;
-            if (null == lastViewport || !useLastSearchResult || (!caches.isEmpty() && lastSearchResult.getCount() > 400)) {
-                lastViewport = containingGCliveCaches(caches.getAsList());
-                if (Settings.isDebug() && overlayPositionAndScale instanceof GooglePositionAndHistory) {
-                    ((GooglePositionAndHistory) overlayPositionAndScale).drawViewport(lastViewport);
-                }
-            }
-            Log.d("searchByViewport: cached=" + useLastSearchResult + ", results=" + lastSearchResult.getCount() + ", viewport=" + lastViewport);
+            Log.d("searchByViewport: results=" + lastSearchResult.getCount());
 
             //render
             displayExecutor.execute(new DisplayRunnable(this));
 
         } finally {
+            if (complete) {
+                liveRetry.set(null);
+            } else {
+                retryDownload();
+            }
             showProgressHandler.sendEmptyMessage(HIDE_PROGRESS); // hide progress
         }
     }
 
+    /**
+     * Load again after a delay, as the map is not moved to trigger it. Only the tiles which failed are downloaded again.
+     */
+    private void retryDownload() {
+        downloaded = false;
+        Log.d("CGeoMap: live download failed or incomplete, retrying in " + LIVE_RETRY_DELAY_SECONDS + "s");
+        liveRetry.set(Schedulers.computation().scheduleDirect(this::requestLoad, LIVE_RETRY_DELAY_SECONDS, TimeUnit.SECONDS));
+    }
+
     /**
      * Thread to Display (down)loaded caches. Started by {@link LoadRunnable} and {@link DownloadRunnable}
      */
@@ -0,0 +1,64 @@
+package cgeo.geocaching.maps;
+
+import cgeo.geocaching.utils.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+
+/**
+ * Runs a map load action after the map has been moved or zoomed, or its content has been invalidated.
+ *
+ * Requests are debounced, so a load only starts once the map has been at rest for a moment. Requests arriving while
+ * the action is running are coalesced into a single further run. Nothing is scheduled while no requests arrive.
+ */
+public class MapLoadTrigger implements Disposable {
+
+    public static final long DEFAULT_DELAY_MILLIS = 250;
+
+    /** requests may come from the UI thread and from background threads */
+    private final Subject<Boolean> requests = PublishSubject.<Boolean>create().toSerialized();
+    private final Disposable subscription;
+
+    public MapLoadTrigger(@NonNull final Runnable action) {
+        this(action, DEFAULT_DELAY_MILLIS, Schedulers.computation(), Schedulers.io());
+    }
+
+    MapLoadTrigger(@NonNull final Runnable action, final long delayMillis, @NonNull final Scheduler timerScheduler, @NonNull final Scheduler actionScheduler) {
+        subscription = requests
+                .debounce(delayMillis, TimeUnit.MILLISECONDS, timerScheduler)
+                .toFlowable(BackpressureStrategy.LATEST)
+                .observeOn(actionScheduler, false, 1)
+                .subscribe(ignored -> {
+                    try {
+                        action.run();
+                    } catch (final Exception e) {
+                        Log.w("MapLoadTrigger: load failed", e);
+                    }
+                });
+    }
+
+    /**
+     * Request the action to run once the map is at rest.
+     */
+    public void request() {
+        requests.onNext(Boolean.TRUE);
+    }
+
+    @Override
+    public void dispose() {
+        subscription.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return subscription.isDisposed();
+    }
+}
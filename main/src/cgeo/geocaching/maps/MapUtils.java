@@ -13,6 +13,7 @@ import cgeo.geocaching.settings.Settings;
 import cgeo.geocaching.storage.DataStore;
 import cgeo.geocaching.storage.extension.OneTimeDialogs;
 import cgeo.geocaching.ui.dialog.Dialogs;
+import cgeo.geocaching.utils.functions.Func1;
 
 import android.app.Activity;
 import android.text.Html;
@@ -26,9 +27,12 @@ import androidx.annotation.NonNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.commons.lang3.StringUtils;
+
 public class MapUtils {
 
     private MapUtils() {
@@ -37,25 +41,47 @@ public class MapUtils {
 
     // filter waypoints from owned caches or certain wp types if requested.
     public static void filter(final Set<Waypoint> waypoints, final boolean checkCacheFilters) {
-        final boolean excludeMine = checkCacheFilters && Settings.isExcludeMyCaches();
-        final boolean excludeFound = checkCacheFilters && Settings.isExcludeFound();
-        final boolean excludeDisabled = checkCacheFilters && Settings.isExcludeDisabledCaches();
-        final boolean excludeArchived = checkCacheFilters && Settings.isExcludeArchivedCaches();
-        final boolean excludeOfflineLog = checkCacheFilters && Settings.isExcludeOfflineLog();
+        filter(waypoints, checkCacheFilters, geocodes -> DataStore.loadCaches(geocodes, LoadFlags.LOAD_CACHE_OR_DB));
+    }
+
+    /**
+     * Filters the waypoints, loading their caches with the given loader. The loader is called once for all caches,
+     * and every cache is checked once for all of its waypoints.
+     */
+    static void filter(final Set<Waypoint> waypoints, final boolean checkCacheFilters, @NonNull final Func1<Set<String>, Collection<Geocache>> cacheLoader) {
+        final Settings.Snapshot settings = Settings.getSnapshot();
+        final boolean excludeMine = checkCacheFilters && settings.excludeMine;
+        final boolean excludeFound = checkCacheFilters && settings.excludeFound;
+        final boolean excludeDisabled = checkCacheFilters && settings.excludeDisabled;
+        final boolean excludeArchived = checkCacheFilters && settings.excludeArchived;
+        final boolean excludeOfflineLog = checkCacheFilters && settings.excludeOfflineLog;
         final CacheType filterCacheType = checkCacheFilters ? null : (Settings.getCacheType() == null ? CacheType.ALL : Settings.getCacheType());
 
         final GeocacheFilter filter = GeocacheFilter.loadFromSettings();
 
-        final boolean excludeWpOriginal = Settings.isExcludeWpOriginal();
-        final boolean excludeWpParking = Settings.isExcludeWpParking();
-        final boolean excludeWpVisited = Settings.isExcludeWpVisited();
+        final boolean excludeWpOriginal = settings.excludeWpOriginal;
+        final boolean excludeWpParking = settings.excludeWpParking;
+        final boolean excludeWpVisited = settings.excludeWpVisited;
+
+        final Set<String> geocodes = new HashSet<>();
+        for (final Waypoint wp : waypoints) {
+            if (StringUtils.isNotBlank(wp.getGeocode())) {
+                geocodes.add(wp.getGeocode());
+            }
+        }
+        final Set<String> passingGeocodes = new HashSet<>();
+        if (!geocodes.isEmpty()) {
+            for (final Geocache cache : cacheLoader.call(geocodes)) {
+                if (filterCache(cache, excludeMine, excludeFound, excludeDisabled, excludeArchived, excludeOfflineLog, filterCacheType) && filter.filter(cache)) {
+                    passingGeocodes.add(cache.getGeocode());
+                }
+            }
+        }
 
         final List<Waypoint> removeList = new ArrayList<>();
         for (final Waypoint wp : waypoints) {
-            final Geocache cache = DataStore.loadCache(wp.getGeocode(), LoadFlags.LOAD_CACHE_OR_DB);
             final WaypointType wpt = wp.getWaypointType();
-            if (!filterCache(cache, excludeMine, excludeFound, excludeDisabled, excludeArchived, excludeOfflineLog, filterCacheType) ||
-                !filter.filter(cache) ||
+            if (!passingGeocodes.contains(wp.getGeocode()) ||
                 (excludeWpOriginal && wpt == WaypointType.ORIGINAL) ||
                 (excludeWpParking && wpt == WaypointType.PARKING) ||
                 (excludeWpVisited && wp.isVisited())) {
@@ -72,11 +98,12 @@ public class MapUtils {
         filter.filterList(caches);
 
 
-        final boolean excludeMine = Settings.isExcludeMyCaches();
-        final boolean excludeFound = Settings.isExcludeFound();
-        final boolean excludeDisabled = Settings.isExcludeDisabledCaches();
-        final boolean excludeArchived = Settings.isExcludeArchivedCaches();
-        final boolean excludeOfflineLog = Settings.isExcludeOfflineLog();
+        final Settings.Snapshot settings = Settings.getSnapshot();
+        final boolean excludeMine = settings.excludeMine;
+        final boolean excludeFound = settings.excludeFound;
+        final boolean excludeDisabled = settings.excludeDisabled;
+        final boolean excludeArchived = settings.excludeArchived;
+        final boolean excludeOfflineLog = settings.excludeOfflineLog;
 
         final CacheType filterCacheType = Settings.getCacheType() == null ? CacheType.ALL : Settings.getCacheType();
 
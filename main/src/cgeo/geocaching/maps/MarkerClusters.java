@@ -0,0 +1,269 @@
+package cgeo.geocaching.maps;
+
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.utils.functions.Func1;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Zoom dependent clustering of map markers, shared by the map implementations.
+ *
+ * Items are assigned to square screen cells of {@code 2^cellBits} pixels on the web mercator projection (see
+ * {@link WorldCoordinates}) with 256 pixel tiles (as used by both mapsforge and google maps). A cell of one zoom level covers exactly four cells of the next
+ * level, so the grids of all zoom levels below the cluster zoom form a quad tree. The clusters of all those levels are
+ * kept up to date incrementally: adding, moving or removing an item touches one cell per zoom level, so showing the
+ * clusters after a zoom change or a reload with mostly the same items needs no recomputation. Items without valid
+ * coordinates are ignored.
+ *
+ * @param <T> item type, must implement equals/hashCode
+ */
+public class MarkerClusters<T> {
+
+    /** cells of 64 pixels, about the size of a cache marker with some space around */
+    public static final int DEFAULT_CELL_BITS = 6;
+
+    private static final int WORLD_BITS = WorldCoordinates.WORLD_BITS;
+    private static final int TILE_BITS = 8;
+
+    private final int clusterZoom;
+    private final int cellBits;
+    private final Func1<T, Geopoint> coordinates;
+    /** packed world coordinates by item */
+    private final Map<T, Long> positions = new HashMap<>();
+    /** clusters by packed cell, one map for each zoom level below the cluster zoom */
+    private final List<Map<Long, Cluster<T>>> levels;
+
+    /**
+     * @param clusterZoom items are clustered on zoom levels below this one, 0 disables clustering
+     * @param cellBits    cells are {@code 2^cellBits} pixels wide
+     * @param coordinates coordinates of an item, may return {@code null}
+     */
+    public MarkerClusters(final int clusterZoom, final int cellBits, @NonNull final Func1<T, Geopoint> coordinates) {
+        if (clusterZoom < 0 || clusterZoom > WORLD_BITS - TILE_BITS + cellBits || cellBits < 0 || cellBits > TILE_BITS) {
+            throw new IllegalArgumentException("invalid cluster zoom " + clusterZoom + " or cell bits " + cellBits);
+        }
+        this.clusterZoom = clusterZoom;
+        this.cellBits = cellBits;
+        this.coordinates = coordinates;
+        levels = new ArrayList<>(clusterZoom);
+        for (int zoom = 0; zoom < clusterZoom; zoom++) {
+            levels.add(new HashMap<>());
+        }
+    }
+
+    public int getClusterZoom() {
+        return clusterZoom;
+    }
+
+    /**
+     * @return {@code true} if markers are shown as clusters at the given zoom level
+     */
+    public boolean isClustered(final int zoom) {
+        return zoom >= 0 && zoom < clusterZoom;
+    }
+
+    public synchronized int size() {
+        return positions.size();
+    }
+
+    /**
+     * Add an item or update its position.
+     *
+     * @return {@code true} if the clusters have changed
+     */
+    public synchronized boolean add(@NonNull final T item) {
+        final Geopoint coords = coordinates.call(item);
+        if (coords == null || !coords.isValid()) {
+            return remove(item);
+        }
+        final long position = toWorld(coords);
+        final Long oldPosition = positions.put(item, position);
+        if (oldPosition != null) {
+            if (oldPosition == position) {
+                return false;
+            }
+            changeLevels(item, oldPosition, false);
+        }
+        changeLevels(item, position, true);
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the item was part of the clusters
+     */
+    public synchronized boolean remove(@NonNull final T item) {
+        final Long position = positions.remove(item);
+        if (position == null) {
+            return false;
+        }
+        changeLevels(item, position, false);
+        return true;
+    }
+
+    /**
+     * Make the given items the content of the clusters, only changed items are updated.
+     *
+     * @return {@code true} if the clusters have changed
+     */
+    public synchronized boolean update(@NonNull final Collection<? extends T> items) {
+        boolean changed = false;
+        final Set<T> itemSet = items instanceof Set ? null : new HashSet<>(items);
+        final Iterator<Map.Entry<T, Long>> it = positions.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<T, Long> entry = it.next();
+            if (itemSet != null ? !itemSet.contains(entry.getKey()) : !items.contains(entry.getKey())) {
+                it.remove();
+                changeLevels(entry.getKey(), entry.getValue(), false);
+                changed = true;
+            }
+        }
+        for (final T item : items) {
+            changed |= add(item);
+        }
+        return changed;
+    }
+
+    public synchronized void clear() {
+        positions.clear();
+        for (final Map<Long, Cluster<T>> level : levels) {
+            level.clear();
+        }
+    }
+
+    /**
+     * @return the clusters of the given (clustered) zoom level
+     */
+    @NonNull
+    public synchronized List<Cluster<T>> getClusters(final int zoom) {
+        if (!isClustered(zoom)) {
+            throw new IllegalArgumentException("zoom level " + zoom + " is not clustered");
+        }
+        return new ArrayList<>(levels.get(zoom).values());
+    }
+
+    private void changeLevels(@NonNull final T item, final long position, final boolean add) {
+        final int x = getX(position);
+        final int y = getY(position);
+        for (int zoom = 0; zoom < clusterZoom; zoom++) {
+            final int shift = getShift(zoom);
+            final long cell = pack(x >> shift, y >> shift);
+            final Map<Long, Cluster<T>> level = levels.get(zoom);
+            Cluster<T> cluster = level.get(cell);
+            if (add) {
+                if (cluster == null) {
+                    cluster = new Cluster<>(zoom, x >> shift, y >> shift);
+                    level.put(cell, cluster);
+                }
+                cluster.add(item, x, y);
+            } else if (cluster != null && cluster.remove(item, x, y) && cluster.items.isEmpty()) {
+                level.remove(cell);
+            }
+        }
+    }
+
+    /**
+     * number of bits to shift world coordinates to get the cell on the given zoom level
+     */
+    private int getShift(final int zoom) {
+        return WORLD_BITS - TILE_BITS - zoom + cellBits;
+    }
+
+    private static long pack(final int x, final int y) {
+        return ((long) x << 32) | y;
+    }
+
+    private static int getX(final long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int getY(final long packed) {
+        return (int) packed;
+    }
+
+    private static long toWorld(@NonNull final Geopoint coords) {
+        return pack(WorldCoordinates.toWorldX(coords.getLongitude()), WorldCoordinates.toWorldY(coords.getLatitude()));
+    }
+
+    /**
+     * Items of one cell of a zoom level.
+     */
+    public static final class Cluster<T> {
+        private final int zoom;
+        private final int cellX;
+        private final int cellY;
+        private final Set<T> items = new LinkedHashSet<>();
+        private long sumX;
+        private long sumY;
+
+        Cluster(final int zoom, final int cellX, final int cellY) {
+            this.zoom = zoom;
+            this.cellX = cellX;
+            this.cellY = cellY;
+        }
+
+        void add(final T item, final int x, final int y) {
+            if (items.add(item)) {
+                sumX += x;
+                sumY += y;
+            }
+        }
+
+        boolean remove(final T item, final int x, final int y) {
+            if (items.remove(item)) {
+                sumX -= x;
+                sumY -= y;
+                return true;
+            }
+            return false;
+        }
+
+        public int getZoom() {
+            return zoom;
+        }
+
+        public int getCount() {
+            return items.size();
+        }
+
+        /**
+         * @return the single item of this cluster, {@code null} if there is more than one
+         */
+        @Nullable
+        public T getSingleItem() {
+            return items.size() == 1 ? items.iterator().next() : null;
+        }
+
+        @NonNull
+        public Collection<T> getItems() {
+            return Collections.unmodifiableSet(items);
+        }
+
+        /**
+         * @return the center of gravity of the items
+         */
+        @NonNull
+        public Geopoint getCenter() {
+            return new Geopoint(WorldCoordinates.toLatitude((double) sumY / items.size()), WorldCoordinates.toLongitude((double) sumX / items.size()));
+        }
+
+        /**
+         * @return identifier of this cluster's cell and size, which changes whenever the cluster would be drawn differently
+         */
+        @NonNull
+        public String getId() {
+            return "cluster:" + zoom + ":" + cellX + ":" + cellY + ":" + items.size();
+        }
+    }
+}
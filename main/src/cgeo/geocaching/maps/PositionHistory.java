@@ -8,48 +8,75 @@ import cgeo.geocaching.storage.DataStore;
 import android.location.Location;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TimeZone;
 
 import io.reactivex.rxjava3.schedulers.Schedulers;
 
 /**
  * Map trail history
+ *
+ * The positions and their altitudes are kept in a ring buffer of primitive arrays, together with their projected
+ * {@link WorldCoordinates} and whether they are connected to their predecessor by a line. Positions are addressed by an absolute index which
+ * keeps increasing, so renderers can cache data derived from the positions between {@link #getFirstIndex()} and
+ * {@link #getEndIndex()}.
+ *
+ * Changes are synchronized on this object. Readers need to hold its lock while reading several positions.
  */
-public class PositionHistory {
+public class PositionHistory implements TrailGeometry.Positions {
 
     /**
      * minimum distance between two recorded points of the trail
      */
     private static final double MINIMUM_DISTANCE_METERS = 10.0;
 
+    /**
+     * maximum distance (in meters) up to which two points in the trail get connected by a drawn line
+     */
+    private static final float LINE_MAXIMUM_DISTANCE_METERS = 10000;
+
+    private static final int INITIAL_CAPACITY = 256;
+
     /**
      * maximum number of positions to remember
      */
-    private static final int MAX_POSITIONS = Settings.getMaximumMapTrailLength();
+    private final int maxPositions = Math.max(2, Settings.getMaximumMapTrailLength());
 
-    private ArrayList<TrailHistoryElement> history = new ArrayList<>();
+    private int[] latitudesE6 = new int[0];
+    private int[] longitudesE6 = new int[0];
+    private int[] worldX = new int[0];
+    private int[] worldY = new int[0];
+    private float[] altitudes = new float[0];
+    private long[] timestamps = new long[0];
+    private final BitSet connected = new BitSet();
+
+    /** slot of the oldest position */
+    private int startSlot = 0;
+    private int firstIndex = 0;
+    private int endIndex = 0;
 
     // load data from permanent storage
     public PositionHistory() {
-        history = DataStore.loadTrailHistory();
+        setHistory(DataStore.loadTrailHistory());
     }
 
-    // save current coords to permanent storage
+    // save current coords to permanent storage, buffered by the data store
     private void saveToStorage(final Location coordinates) {
-        Schedulers.io().scheduleDirect(() -> DataStore.saveTrailpoint(coordinates));
+        DataStore.saveTrailpoint(coordinates);
     }
 
     // clear position history (in memory and on permanent storage)
-    public void reset() {
-        Schedulers.io().scheduleDirect(() -> {
-            DataStore.clearTrailHistory();
-            history.clear();
-        });
+    public synchronized void reset() {
+        firstIndex = endIndex;
+        Schedulers.io().scheduleDirect(DataStore::clearTrailHistory);
     }
 
     /**
      * Adds the current position to the trail history to be able to show the trail on the map.
      */
-    public void rememberTrailPosition(final Location coordinates) {
+    public synchronized void rememberTrailPosition(final Location coordinates) {
         if (coordinates.getAccuracy() >= 50f) {
             return;
         }
@@ -59,35 +86,168 @@ public class PositionHistory {
         if (GeoData.isArtificialLocationProvider(coordinates.getProvider())) {
             return;
         }
-        if (history.isEmpty()) {
-            saveToStorage(coordinates);
-            history.add(new TrailHistoryElement(coordinates));
+        if (size() > 0 && distanceToLast(coordinates) <= MINIMUM_DISTANCE_METERS) {
             return;
         }
 
-        final TrailHistoryElement historyRecent = history.get(history.size() - 1);
-        if (historyRecent.distanceTo(coordinates) <= MINIMUM_DISTANCE_METERS) {
-            return;
+        saveToStorage(coordinates);
+        final long t = System.currentTimeMillis();
+        add(coordinates.getLatitude(), coordinates.getLongitude(), coordinates.getAltitude(), t - TimeZone.getDefault().getOffset(t));
+    }
+
+    /**
+     * @return distance in meters between the most recent position and the given one
+     */
+    public synchronized float distanceToLast(final Location coordinates) {
+        return distanceToLast(coordinates.getLatitude(), coordinates.getLongitude());
+    }
+
+    /**
+     * @return {@code true} if the given position is close enough to the most recent one to be connected by a line
+     */
+    public synchronized boolean isConnectedToLast(final Location coordinates) {
+        return size() > 0 && distanceToLast(coordinates) < LINE_MAXIMUM_DISTANCE_METERS;
+    }
+
+    private void add(final double latitude, final double longitude, final double altitude, final long timestamp) {
+        final boolean isConnected = size() > 0 && distanceToLast(latitude, longitude) < LINE_MAXIMUM_DISTANCE_METERS;
+        if (size() == maxPositions) {
+            // avoid running out of memory
+            startSlot = (startSlot + 1) % latitudesE6.length;
+            firstIndex++;
+        } else if (size() == latitudesE6.length) {
+            grow();
         }
+        final int slot = getSlot(endIndex);
+        latitudesE6[slot] = (int) Math.round(latitude * 1e6);
+        longitudesE6[slot] = (int) Math.round(longitude * 1e6);
+        worldX[slot] = WorldCoordinates.toWorldX(longitude);
+        worldY[slot] = WorldCoordinates.toWorldY(latitude);
+        altitudes[slot] = (float) altitude;
+        timestamps[slot] = timestamp;
+        connected.set(slot, isConnected);
+        endIndex++;
+    }
 
-        saveToStorage(coordinates);
-        history.add(new TrailHistoryElement(coordinates));
+    private float distanceToLast(final double latitude, final double longitude) {
+        final float[] result = new float[1];
+        final int last = endIndex - 1;
+        Location.distanceBetween(getLatitudeE6(last) / 1e6, getLongitudeE6(last) / 1e6, latitude, longitude, result);
+        return result[0];
+    }
+
+    private void grow() {
+        final int size = size();
+        final int capacity = Math.min(maxPositions, Math.max(INITIAL_CAPACITY, 2 * latitudesE6.length));
+        latitudesE6 = unwrap(latitudesE6, capacity);
+        longitudesE6 = unwrap(longitudesE6, capacity);
+        worldX = unwrap(worldX, capacity);
+        worldY = unwrap(worldY, capacity);
+        final float[] newAltitudes = new float[capacity];
+        final long[] newTimestamps = new long[capacity];
+        final BitSet newConnected = new BitSet(capacity);
+        for (int i = 0; i < size; i++) {
+            final int slot = (startSlot + i) % timestamps.length;
+            newAltitudes[i] = altitudes[slot];
+            newTimestamps[i] = timestamps[slot];
+            newConnected.set(i, connected.get(slot));
+        }
+        altitudes = newAltitudes;
+        timestamps = newTimestamps;
+        connected.clear();
+        connected.or(newConnected);
+        startSlot = 0;
+    }
 
-        // avoid running out of memory
-        final int itemsToRemove = getHistory().size() - MAX_POSITIONS;
-        if (itemsToRemove > 0) {
-            for (int i = 0; i < itemsToRemove; i++) {
-                getHistory().remove(0);
+    /**
+     * copy the positions of a ring buffer array in order to the start of a new array
+     */
+    private int[] unwrap(final int[] array, final int capacity) {
+        final int[] result = Arrays.copyOf(array, capacity);
+        if (startSlot > 0) {
+            final int size = size();
+            for (int i = 0; i < size; i++) {
+                result[i] = array[(startSlot + i) % array.length];
             }
         }
+        return result;
+    }
+
+    private int getSlot(final int index) {
+        return (startSlot + index - firstIndex) % latitudesE6.length;
+    }
+
+    public synchronized int size() {
+        return endIndex - firstIndex;
     }
 
-    public ArrayList<TrailHistoryElement> getHistory() {
+    /**
+     * @return index of the oldest position
+     */
+    @Override
+    public synchronized int getFirstIndex() {
+        return firstIndex;
+    }
+
+    /**
+     * @return index following the most recent position
+     */
+    @Override
+    public synchronized int getEndIndex() {
+        return endIndex;
+    }
+
+    public synchronized int getLatitudeE6(final int index) {
+        return latitudesE6[getSlot(index)];
+    }
+
+    public synchronized int getLongitudeE6(final int index) {
+        return longitudesE6[getSlot(index)];
+    }
+
+    /**
+     * @return altitude in meters, 0 if unknown
+     */
+    public synchronized float getAltitude(final int index) {
+        return altitudes[getSlot(index)];
+    }
+
+    public synchronized long getTimestamp(final int index) {
+        return timestamps[getSlot(index)];
+    }
+
+    @Override
+    public synchronized int getWorldX(final int index) {
+        return worldX[getSlot(index)];
+    }
+
+    @Override
+    public synchronized int getWorldY(final int index) {
+        return worldY[getSlot(index)];
+    }
+
+    /**
+     * @return {@code true} if the position is close enough to its predecessor to be connected by a line
+     */
+    @Override
+    public synchronized boolean isConnected(final int index) {
+        return index > firstIndex && connected.get(getSlot(index));
+    }
+
+    public synchronized ArrayList<TrailHistoryElement> getHistory() {
+        final ArrayList<TrailHistoryElement> history = new ArrayList<>(size());
+        for (int index = firstIndex; index < endIndex; index++) {
+            history.add(new TrailHistoryElement(getLatitudeE6(index) / 1e6, getLongitudeE6(index) / 1e6, getAltitude(index), getTimestamp(index)));
+        }
         return history;
     }
 
-    public void setHistory(final ArrayList<TrailHistoryElement> history) {
-        this.history = history;
+    public synchronized void setHistory(final List<TrailHistoryElement> history) {
+        firstIndex = endIndex;
+        for (int i = Math.max(0, history.size() - maxPositions); i < history.size(); i++) {
+            final TrailHistoryElement element = history.get(i);
+            add(element.getLatitude(), element.getLongitude(), element.getAltitude(), element.getTimestamp());
+        }
     }
 
 }
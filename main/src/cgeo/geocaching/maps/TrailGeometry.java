@@ -0,0 +1,237 @@
+package cgeo.geocaching.maps;
+
+import cgeo.geocaching.utils.LeastRecentlyUsedMap;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Zoom dependent geometry of the map trail, shared by the map implementations.
+ *
+ * The trail is simplified with the Douglas-Peucker algorithm using a tolerance of about one pixel on the current
+ * map size. Simplification is done incrementally in chunks of {@link #CHUNK_SIZE} positions and the result is cached
+ * for the most recently used map sizes, so drawing the trail only touches new positions. The positions not yet
+ * covered by a chunk are drawn as they are. Lines are never simplified across a gap in the trail.
+ */
+public class TrailGeometry {
+
+    /**
+     * positions of a trail, addressed by an increasing absolute index
+     *
+     * Implementations are locked while the trail is traversed.
+     */
+    public interface Positions {
+        int getFirstIndex();
+
+        int getEndIndex();
+
+        int getWorldX(int index);
+
+        int getWorldY(int index);
+
+        /**
+         * @return {@code true} if the position is connected to its predecessor by a line
+         */
+        boolean isConnected(int index);
+    }
+
+    public interface TrailVisitor {
+        /**
+         * @param index   absolute index of the position
+         * @param newLine {@code true} if a new line starts at the position, {@code false} if the current line continues to it
+         */
+        void visit(int index, boolean newLine);
+    }
+
+    /** maximum deviation of the simplified trail in pixels */
+    private static final double TOLERANCE_PIXELS = 1.0;
+    static final int CHUNK_SIZE = 64;
+    private static final int CACHED_MAP_SIZES = 4;
+
+    private final Positions positions;
+    /** guarded by the lock of {@link #positions} */
+    private final Map<Long, Simplification> simplifications = new LeastRecentlyUsedMap.LruCache<>(CACHED_MAP_SIZES);
+
+    public TrailGeometry(@NonNull final Positions positions) {
+        this.positions = positions;
+    }
+
+    /**
+     * Visit the simplified trail for the given map size (in pixels).
+     */
+    public void traverse(final long mapSize, @NonNull final TrailVisitor visitor) {
+        traverse(mapSize, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Visit the simplified trail for the given map size (in pixels), skipping lines outside of the given rectangle
+     * (in {@link WorldCoordinates}).
+     */
+    public void traverse(final long mapSize, final int minX, final int minY, final int maxX, final int maxY, @NonNull final TrailVisitor visitor) {
+        synchronized (positions) {
+            final int first = positions.getFirstIndex();
+            final int end = positions.getEndIndex();
+            if (end - first < 2) {
+                return;
+            }
+            final Simplification simplification = getSimplification(mapSize, first, end);
+
+            final int from = simplification.findFirstKept(first);
+            int previous = first;
+            boolean lineOpen = false;
+            for (int k = from; k < simplification.keptEnd; k++) {
+                final int index = simplification.kept[k];
+                if (index == first) {
+                    continue;
+                }
+                lineOpen = visitSegment(previous, index, lineOpen, minX, minY, maxX, maxY, visitor);
+                previous = index;
+            }
+            for (int index = Math.max(first + 1, simplification.simplifiedEnd); index < end; index++) {
+                lineOpen = visitSegment(previous, index, lineOpen, minX, minY, maxX, maxY, visitor);
+                previous = index;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the segment was visited and the line is open at {@code index}
+     */
+    private boolean visitSegment(final int previous, final int index, final boolean lineOpen, final int minX, final int minY, final int maxX, final int maxY, final TrailVisitor visitor) {
+        if (!positions.isConnected(index)) {
+            return false;
+        }
+        final int x1 = positions.getWorldX(previous);
+        final int y1 = positions.getWorldY(previous);
+        final int x2 = positions.getWorldX(index);
+        final int y2 = positions.getWorldY(index);
+        if (Math.max(x1, x2) < minX || Math.min(x1, x2) > maxX || Math.max(y1, y2) < minY || Math.min(y1, y2) > maxY) {
+            return false;
+        }
+        if (!lineOpen) {
+            visitor.visit(previous, true);
+        }
+        visitor.visit(index, false);
+        return true;
+    }
+
+    private Simplification getSimplification(final long mapSize, final int first, final int end) {
+        Simplification simplification = simplifications.get(mapSize);
+        if (simplification == null) {
+            final double tolerance = TOLERANCE_PIXELS * WorldCoordinates.WORLD_SIZE / mapSize;
+            simplification = new Simplification(tolerance * tolerance, first);
+            simplifications.put(mapSize, simplification);
+        }
+        simplification.update(positions, first, end);
+        return simplification;
+    }
+
+    /**
+     * Kept positions of the trail simplified for one map size
+     */
+    private static final class Simplification {
+        private final double squaredTolerance;
+        /** absolute indexes of the kept positions, valid from {@link #keptStart} to {@link #keptEnd} */
+        private int[] kept = new int[CHUNK_SIZE];
+        private int keptStart = 0;
+        private int keptEnd = 0;
+        /** positions before this index are simplified */
+        private int simplifiedEnd;
+
+        Simplification(final double squaredTolerance, final int first) {
+            this.squaredTolerance = squaredTolerance;
+            this.simplifiedEnd = first;
+        }
+
+        void update(final Positions positions, final int first, final int end) {
+            // forget positions removed from the trail
+            keptStart = findFirstKept(first);
+            if (simplifiedEnd < first) {
+                simplifiedEnd = first;
+            }
+            while (end - simplifiedEnd > CHUNK_SIZE) {
+                simplifyChunk(positions, simplifiedEnd, simplifiedEnd + CHUNK_SIZE);
+                simplifiedEnd += CHUNK_SIZE;
+            }
+        }
+
+        /**
+         * @return position in {@link #kept} of the first kept index not lower than {@code index}
+         */
+        int findFirstKept(final int index) {
+            int low = keptStart;
+            int high = keptEnd;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (kept[mid] < index) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void simplifyChunk(final Positions positions, final int from, final int to) {
+            int runStart = from;
+            for (int index = from + 1; index <= to; index++) {
+                if (index == to || !positions.isConnected(index)) {
+                    keep(runStart);
+                    if (index - 1 > runStart) {
+                        simplify(positions, runStart, index - 1);
+                        keep(index - 1);
+                    }
+                    runStart = index;
+                }
+            }
+        }
+
+        /**
+         * keep the positions between {@code start} and {@code end} (both exclusive) deviating more than the tolerance
+         */
+        private void simplify(final Positions positions, final int start, final int end) {
+            final double x1 = positions.getWorldX(start);
+            final double y1 = positions.getWorldY(start);
+            final double dx = positions.getWorldX(end) - x1;
+            final double dy = positions.getWorldY(end) - y1;
+            final double squaredLength = dx * dx + dy * dy;
+            double maxDistance = squaredTolerance;
+            int farthest = -1;
+            for (int index = start + 1; index < end; index++) {
+                final double px = positions.getWorldX(index) - x1;
+                final double py = positions.getWorldY(index) - y1;
+                final double distance;
+                if (squaredLength == 0) {
+                    distance = px * px + py * py;
+                } else {
+                    final double cross = px * dy - py * dx;
+                    distance = cross * cross / squaredLength;
+                }
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = index;
+                }
+            }
+            if (farthest >= 0) {
+                simplify(positions, start, farthest);
+                keep(farthest);
+                simplify(positions, farthest, end);
+            }
+        }
+
+        private void keep(final int index) {
+            if (keptEnd == kept.length) {
+                if (keptStart > kept.length / 2) {
+                    System.arraycopy(kept, keptStart, kept, 0, keptEnd - keptStart);
+                } else {
+                    kept = Arrays.copyOfRange(kept, keptStart, 2 * kept.length);
+                }
+                keptEnd -= keptStart;
+                keptStart = 0;
+            }
+            kept[keptEnd++] = index;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package cgeo.geocaching.maps;
+
+/**
+ * Fixed point web mercator coordinates covering the whole world with {@code 2^30} units per axis (about 4cm at the
+ * equator). Pixel coordinates on a map of any zoom level are obtained by scaling, so projected points can be kept
+ * independent of the zoom level.
+ */
+public final class WorldCoordinates {
+
+    public static final int WORLD_BITS = 30;
+    public static final long WORLD_SIZE = 1L << WORLD_BITS;
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private WorldCoordinates() {
+        // utility class
+    }
+
+    public static int toWorldX(final double longitude) {
+        return clip((longitude + 180.0) / 360.0);
+    }
+
+    public static int toWorldY(final double latitude) {
+        final double sinLat = Math.sin(Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude))));
+        return clip(0.5 - Math.log((1 + sinLat) / (1 - sinLat)) / (4 * Math.PI));
+    }
+
+    public static double toLongitude(final double worldX) {
+        return worldX / WORLD_SIZE * 360.0 - 180.0;
+    }
+
+    public static double toLatitude(final double worldY) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * worldY / WORLD_SIZE))));
+    }
+
+    private static int clip(final double relative) {
+        return (int) Math.max(0, Math.min(WORLD_SIZE - 1, (long) (relative * WORLD_SIZE)));
+    }
+}
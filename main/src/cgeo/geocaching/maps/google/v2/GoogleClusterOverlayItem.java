@@ -0,0 +1,50 @@
+package cgeo.geocaching.maps.google.v2;
+
+import cgeo.geocaching.CgeoApplication;
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.maps.CacheMarker;
+import cgeo.geocaching.maps.MarkerClusters;
+import cgeo.geocaching.utils.MapMarkerUtils;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+/**
+ * Count bubble for a cluster of caches
+ */
+public class GoogleClusterOverlayItem implements MapObjectOptionsFactory {
+    private final LatLng position;
+    private final int zoom;
+    private final CacheMarker marker;
+    private final BitmapDescriptorCache bitmapDescriptorCache;
+
+    public GoogleClusterOverlayItem(final MarkerClusters.Cluster<?> cluster, final BitmapDescriptorCache bitmapDescriptorCache) {
+        final Geopoint center = cluster.getCenter();
+        this.position = new LatLng(center.getLatitude(), center.getLongitude());
+        this.zoom = cluster.getZoom();
+        this.marker = MapMarkerUtils.getClusterMarker(CgeoApplication.getInstance().getResources(), cluster.getCount());
+        this.bitmapDescriptorCache = bitmapDescriptorCache;
+    }
+
+    public LatLng getPosition() {
+        return position;
+    }
+
+    public int getZoom() {
+        return zoom;
+    }
+
+    public CacheMarker getMarker() {
+        return marker;
+    }
+
+    @Override
+    public MapObjectOptions[] getMapObjectOptions(final boolean showCircles) {
+        final MarkerOptions options = new MarkerOptions()
+                .icon(bitmapDescriptorCache.fromCacheMarker(marker))
+                .position(position)
+                .anchor(0.5f, 0.5f)
+                .zIndex(GoogleCachesList.ZINDEX_GEOCACHE);
+        return new MapObjectOptions[]{MapObjectOptions.from(options)};
+    }
+}
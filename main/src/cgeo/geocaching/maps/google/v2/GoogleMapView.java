@@ -9,6 +9,7 @@ import cgeo.geocaching.location.Viewport;
 import cgeo.geocaching.maps.CGeoMap;
 import cgeo.geocaching.maps.DistanceDrawer;
 import cgeo.geocaching.maps.MapProviderFactory;
+import cgeo.geocaching.maps.MarkerClusters;
 import cgeo.geocaching.maps.ScaleDrawer;
 import cgeo.geocaching.maps.interfaces.GeneralOverlay;
 import cgeo.geocaching.maps.interfaces.GeoPointImpl;
@@ -19,6 +20,7 @@ import cgeo.geocaching.maps.interfaces.MapSource;
 import cgeo.geocaching.maps.interfaces.MapViewImpl;
 import cgeo.geocaching.maps.interfaces.OnCacheTapListener;
 import cgeo.geocaching.maps.interfaces.OnMapDragListener;
+import cgeo.geocaching.maps.interfaces.OnMapMoveListener;
 import cgeo.geocaching.maps.interfaces.PositionAndHistory;
 import cgeo.geocaching.maps.mapsforge.AbstractMapsforgeMapSource;
 import cgeo.geocaching.models.Geocache;
@@ -40,11 +42,17 @@ import android.view.MotionEvent;
 import android.view.View;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.MapView;
 import com.google.android.gms.maps.OnMapReadyCallback;
@@ -55,6 +63,7 @@ import com.google.android.gms.maps.model.VisibleRegion;
 public class GoogleMapView extends MapView implements MapViewImpl<GoogleCacheOverlayItem>, OnMapReadyCallback {
 
     private OnMapDragListener onDragListener;
+    private OnMapMoveListener onMoveListener;
     private final GoogleMapController mapController = new GoogleMapController();
     private GoogleMap googleMap;
     private MapReadyCallback mapReadyCallback;
@@ -67,6 +76,18 @@ public class GoogleMapView extends MapView implements MapViewImpl<GoogleCacheOve
     private GestureDetector gestureDetector;
     private Collection<GoogleCacheOverlayItem> cacheItems;
 
+    /** cache items of the last clustered redraw by geocode */
+    private final Map<String, GoogleCacheOverlayItem> clusterItems = new HashMap<>();
+    private final MarkerClusters<String> clusters = new MarkerClusters<>(Settings.getMapClusterZoom(), MarkerClusters.DEFAULT_CELL_BITS, geocode -> {
+        final GoogleCacheOverlayItem item = clusterItems.get(geocode);
+        return item != null ? item.getCoord().getCoords() : null;
+    });
+    private final BitmapDescriptorCache clusterBitmapCache = new BitmapDescriptorCache();
+    /** items shown with their own marker by the last redraw */
+    private volatile Collection<GoogleCacheOverlayItem> visibleItems;
+    private volatile Collection<GoogleClusterOverlayItem> visibleClusters = Collections.emptyList();
+    private int lastRedrawZoom = -1;
+
     private OnCacheTapListener onCacheTapListener;
     private boolean showCircles = false;
     private boolean canDisableAutoRotate = false;
@@ -183,7 +204,14 @@ public class GoogleMapView extends MapView implements MapViewImpl<GoogleCacheOve
         if (newVisibleRegion != null) {
             visibleRegion = newVisibleRegion;
         }
+        final int zoom = getMapZoomLevel();
+        if (zoom != lastRedrawZoom && (clusters.isClustered(zoom) || clusters.isClustered(lastRedrawZoom))) {
+            updateItems(null);
+        }
         invalidate(); // force redraw to draw scale
+        if (onMoveListener != null) {
+            onMoveListener.onMove();
+        }
     }
 
     private void initialize(final Context context) {
@@ -333,6 +361,11 @@ public class GoogleMapView extends MapView implements MapViewImpl<GoogleCacheOve
         this.onDragListener = onDragListener;
     }
 
+    @Override
+    public void setOnMoveListener(final OnMapMoveListener onMoveListener) {
+        this.onMoveListener = onMoveListener;
+    }
+
     @Override
     public boolean dispatchTouchEvent(final MotionEvent ev) {
         // onTouchEvent is not working for Google's MapView
@@ -399,6 +432,12 @@ public class GoogleMapView extends MapView implements MapViewImpl<GoogleCacheOve
             // is map already initialized?
             if (googleMap != null) {
                 final Point p = new Point((int) e.getX(), (int) e.getY());
+                final GoogleClusterOverlayItem cluster = tappedCluster(p);
+                if (cluster != null) {
+                    // zoom in far enough to split the cluster, but not beyond the cluster zoom
+                    googleMap.animateCamera(CameraUpdateFactory.newLatLngZoom(cluster.getPosition(), Math.min(cluster.getZoom() + 2, clusters.getClusterZoom())));
+                    return false;
+                }
                 final LatLng latLng = googleMap.getProjection().fromScreenLocation(p);
                 if (latLng != null && onCacheTapListener != null) {
                     final GoogleCacheOverlayItem closest = closest(new Geopoint(latLng.latitude, latLng.longitude));
@@ -461,14 +500,15 @@ public class GoogleMapView extends MapView implements MapViewImpl<GoogleCacheOve
     }
 
     public GoogleCacheOverlayItem closest(final Geopoint geopoint) {
-        if (cacheItems == null) {
+        final Collection<GoogleCacheOverlayItem> items = visibleItems;
+        if (items == null) {
             return null;
         }
-        final int size = cacheItems.size();
+        final int size = items.size();
         if (size == 0) {
             return null;
         }
-        final Iterator<GoogleCacheOverlayItem> it = cacheItems.iterator();
+        final Iterator<GoogleCacheOverlayItem> it = items.iterator();
         GoogleCacheOverlayItem closest = it.next();
         float closestDist = closest.getCoord().getCoords().distanceTo(geopoint);
         while (it.hasNext()) {
@@ -496,10 +536,68 @@ public class GoogleMapView extends MapView implements MapViewImpl<GoogleCacheOve
 
 
     public void redraw() {
+        try {
+            lock.lock();
+            redrawLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void redrawLocked() {
         if (cachesList == null || cacheItems == null) {
             return;
         }
-        cachesList.redraw(cacheItems, showCircles);
+        final int zoom = getMapZoomLevel();
+        lastRedrawZoom = zoom;
+        if (!clusters.isClustered(zoom)) {
+            visibleItems = cacheItems;
+            visibleClusters = Collections.emptyList();
+            cachesList.redraw(cacheItems, showCircles);
+            return;
+        }
+
+        // caches alone in their cell are shown as usual, all others as count bubble
+        final List<GoogleCacheOverlayItem> items = new ArrayList<>();
+        clusterItems.clear();
+        for (final GoogleCacheOverlayItem item : cacheItems) {
+            if (item.getCoord() instanceof Geocache) {
+                clusterItems.put(((Geocache) item.getCoord()).getGeocode(), item);
+            } else {
+                items.add(item);
+            }
+        }
+        clusters.update(clusterItems.keySet());
+        final List<GoogleClusterOverlayItem> clusterOverlayItems = new ArrayList<>();
+        for (final MarkerClusters.Cluster<String> cluster : clusters.getClusters(zoom)) {
+            final String geocode = cluster.getSingleItem();
+            if (geocode != null) {
+                items.add(clusterItems.get(geocode));
+            } else {
+                clusterOverlayItems.add(new GoogleClusterOverlayItem(cluster, clusterBitmapCache));
+            }
+        }
+        visibleItems = items;
+        visibleClusters = clusterOverlayItems;
+
+        final List<MapObjectOptionsFactory> factories = new ArrayList<>(items.size() + clusterOverlayItems.size());
+        factories.addAll(items);
+        factories.addAll(clusterOverlayItems);
+        cachesList.redraw(factories, showCircles);
+    }
+
+    /**
+     * @return the cluster bubble drawn at the given screen position, if any
+     */
+    private GoogleClusterOverlayItem tappedCluster(final Point p) {
+        for (final GoogleClusterOverlayItem cluster : visibleClusters) {
+            final Point clusterPoint = googleMap.getProjection().toScreenLocation(cluster.getPosition());
+            final Drawable d = cluster.getMarker().getDrawable();
+            if (Math.abs(p.x - clusterPoint.x) < d.getIntrinsicWidth() / 2 && Math.abs(p.y - clusterPoint.y) < d.getIntrinsicHeight() / 2) {
+                return cluster;
+            }
+        }
+        return null;
     }
 
 
@@ -5,6 +5,7 @@ import cgeo.geocaching.R;
 import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.location.Viewport;
 import cgeo.geocaching.maps.PositionHistory;
+import cgeo.geocaching.maps.TrailGeometry;
 import cgeo.geocaching.maps.interfaces.PositionAndHistory;
 import cgeo.geocaching.maps.routing.Routing;
 import cgeo.geocaching.models.IndividualRoute;
@@ -12,6 +13,7 @@ import cgeo.geocaching.models.Route;
 import cgeo.geocaching.models.TrailHistoryElement;
 import cgeo.geocaching.settings.Settings;
 import cgeo.geocaching.utils.AngleUtils;
+import cgeo.geocaching.utils.DisplayUtils;
 import cgeo.geocaching.utils.MapLineUtils;
 import static cgeo.geocaching.settings.Settings.MAPROTATION_AUTO;
 import static cgeo.geocaching.settings.Settings.MAPROTATION_MANUAL;
@@ -43,21 +45,15 @@ public class GooglePositionAndHistory implements PositionAndHistory, Route.Updat
     public static final float ZINDEX_POSITION_ACCURACY_CIRCLE = 3;
     public static final float ZINDEX_HISTORY = 2;
 
-    /**
-     * maximum distance (in meters) up to which two points in the trail get connected by a drawn line
-     */
-    private static final float LINE_MAXIMUM_DISTANCE_METERS = 10000;
-
     private Location coordinates;
     private float heading;
     private final PositionHistory history = new PositionHistory();
+    private final TrailGeometry trail = new TrailGeometry(history);
 
     // settings for map auto rotation
     private Location lastBearingCoordinates = null;
     private int mapRotation = MAPROTATION_MANUAL;
 
-    private static final int MAX_HISTORY_POINTS = 230; // TODO add alpha, make changeable in constructor?
-
     private WeakReference<GoogleMap> mapRef = null;
     private final GoogleMapObjects positionObjs;
     private final GoogleMapObjects historyObjs;
@@ -264,42 +260,46 @@ public class GooglePositionAndHistory implements PositionAndHistory, Route.Updat
             return;
         }
         historyObjs.removeAll();
-        if (Settings.isMapTrail()) {
-            final ArrayList<TrailHistoryElement> paintHistory = new ArrayList<>(getHistory());
-            final int size = paintHistory.size();
-            if (size < 2) {
-                return;
-            }
+        final GoogleMap map = mapRef.get();
+        if (Settings.isMapTrail() && null != map) {
+            // simplify for the next integral zoom level to stay within the tolerance while zooming in
+            final int zoom = Math.max(0, (int) Math.ceil(map.getCameraPosition().zoom));
+            final long mapSize = (long) (256 * DisplayUtils.getDisplayDensity()) << zoom;
+
+            final List<List<LatLng>> lines = new ArrayList<>();
+            trail.traverse(mapSize, (index, newLine) -> {
+                if (newLine) {
+                    lines.add(new ArrayList<>());
+                }
+                lines.get(lines.size() - 1).add(new LatLng(history.getLatitudeE6(index) / 1e6, history.getLongitudeE6(index) / 1e6));
+            });
+
             // always add current position to drawn history to have a closed connection, even if it's not yet recorded
-            paintHistory.add(new TrailHistoryElement(coordinates));
-
-            Location prev = paintHistory.get(0).getLocation();
-            int current = 1;
-            while (current < size) {
-                final List<LatLng> points = new ArrayList<>(MAX_HISTORY_POINTS);
-                points.add(new LatLng(prev.getLatitude(), prev.getLongitude()));
-
-                boolean paint = false;
-                while (!paint && current < size) {
-                    final Location now = paintHistory.get(current).getLocation();
-                    current++;
-                    if (now.distanceTo(prev) < LINE_MAXIMUM_DISTANCE_METERS) {
-                        points.add(new LatLng(now.getLatitude(), now.getLongitude()));
+            synchronized (history) {
+                if (history.isConnectedToLast(coordinates)) {
+                    final int last = history.getEndIndex() - 1;
+                    final LatLng lastPosition = new LatLng(history.getLatitudeE6(last) / 1e6, history.getLongitudeE6(last) / 1e6);
+                    final List<LatLng> currentLine = lines.isEmpty() ? null : lines.get(lines.size() - 1);
+                    if (currentLine != null && currentLine.get(currentLine.size() - 1).equals(lastPosition)) {
+                        currentLine.add(new LatLng(coordinates.getLatitude(), coordinates.getLongitude()));
                     } else {
-                        paint = true;
+                        final List<LatLng> line = new ArrayList<>();
+                        line.add(lastPosition);
+                        line.add(new LatLng(coordinates.getLatitude(), coordinates.getLongitude()));
+                        lines.add(line);
                     }
-                    prev = now;
-                }
-                if (points.size() > 1) {
-                    // history line
-                    historyObjs.addPolyline(new PolylineOptions()
-                            .addAll(points)
-                            .color(MapLineUtils.getTrailColor())
-                            .width(MapLineUtils.getHistoryLineWidth())
-                            .zIndex(ZINDEX_HISTORY)
-                    );
                 }
             }
+
+            for (final List<LatLng> points : lines) {
+                // history line
+                historyObjs.addPolyline(new PolylineOptions()
+                        .addAll(points)
+                        .color(MapLineUtils.getTrailColor())
+                        .width(MapLineUtils.getHistoryLineWidth())
+                        .zIndex(ZINDEX_HISTORY)
+                );
+            }
         }
     }
 
@@ -67,6 +67,8 @@ public interface MapViewImpl<T extends CachesOverlayItemImpl> {
 
     void setOnDragListener(OnMapDragListener onDragListener);
 
+    void setOnMoveListener(OnMapMoveListener onMoveListener);
+
     /**
      * Indicates if overlay text or line colours should be dark (normal case)
      * or light (inverted case)
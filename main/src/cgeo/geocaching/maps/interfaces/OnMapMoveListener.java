@@ -0,0 +1,10 @@
+package cgeo.geocaching.maps.interfaces;
+
+/**
+ * Notifies the parent class when the visible part of a MapView has changed (moved, zoomed or rotated)
+ */
+public interface OnMapMoveListener {
+
+    void onMove();
+
+}
@@ -810,6 +810,7 @@ public class NewMap extends AbstractActionBarActivity implements Observer, Filte
         Log.d("NewMap: onPause");
 
         savePrefs();
+        DataStore.flushTrailpoints();
 
         pauseTileLayer();
         mapView.getModel().mapViewPosition.removeObserver(this);
@@ -1703,6 +1704,9 @@ public class NewMap extends AbstractActionBarActivity implements Observer, Filte
         if (!newViewport.equals(lastViewport)) {
             lastViewport = newViewport;
             checkCompactIconMode(NO_OVERLAY_ID, 0);
+            if (caches != null) {
+                caches.onMapMoved();
+            }
         }
     }
 
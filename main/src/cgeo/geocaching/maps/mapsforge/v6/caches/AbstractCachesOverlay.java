@@ -5,6 +5,7 @@ import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.location.Viewport;
 import cgeo.geocaching.location.WaypointDistanceInfo;
+import cgeo.geocaching.maps.MarkerClusters;
 import cgeo.geocaching.maps.mapsforge.v6.MapHandlers;
 import cgeo.geocaching.maps.mapsforge.v6.NewMap;
 import cgeo.geocaching.maps.mapsforge.v6.TapHandler;
@@ -16,10 +17,13 @@ import cgeo.geocaching.utils.Log;
 import cgeo.geocaching.utils.MapMarkerUtils;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.mapsforge.core.graphics.Bitmap;
@@ -28,6 +32,7 @@ import org.mapsforge.map.android.graphics.AndroidGraphicFactory;
 import org.mapsforge.map.layer.Layer;
 import org.mapsforge.map.layer.LayerManager;
 import org.mapsforge.map.layer.Layers;
+import org.mapsforge.map.model.MapViewPosition;
 
 public abstract class AbstractCachesOverlay {
 
@@ -42,6 +47,16 @@ public abstract class AbstractCachesOverlay {
     private boolean showCircles;
     private final WeakReference<NewMap> mapRef;
 
+    /** caches of the last clustered update by geocode */
+    private final Map<String, Geocache> clusterCaches = new HashMap<>();
+    private final MarkerClusters<String> clusters = new MarkerClusters<>(Settings.getMapClusterZoom(), MarkerClusters.DEFAULT_CELL_BITS, geocode -> {
+        final Geocache cache = clusterCaches.get(geocode);
+        return cache != null ? cache.getCoords() : null;
+    });
+    /** geocodes of the caches currently hidden in cluster bubbles */
+    private final Set<String> clusteredGeocodes = new HashSet<>();
+    private volatile int lastUpdateZoom = -1;
+
     public AbstractCachesOverlay(final NewMap map, final int overlayId, final Set<GeoEntry> geoEntries, final CachesBundle bundle, final Layer anchorLayer, final MapHandlers mapHandlers) {
         this.overlayId = overlayId;
         this.geoEntries = geoEntries;
@@ -81,7 +96,9 @@ public abstract class AbstractCachesOverlay {
     }
 
     int getCachesCount() {
-        return layerList.getCacheCount();
+        synchronized (clusteredGeocodes) {
+            return layerList.getCacheCount() + clusteredGeocodes.size();
+        }
     }
 
     @SuppressWarnings("unused")
@@ -96,6 +113,7 @@ public abstract class AbstractCachesOverlay {
     public void invalidate() {
         invalidated = true;
         showCircles = Settings.isShowCircles();
+        requestLoad();
     }
 
     public void invalidate(final Collection<String> invalidGeocodes) {
@@ -116,6 +134,14 @@ public abstract class AbstractCachesOverlay {
         invalidated = false;
     }
 
+    /**
+     * Called when the map has been moved or zoomed or the overlay has been invalidated. Overlays loading their content
+     * depending on the viewport schedule a (debounced) load here.
+     */
+    protected void requestLoad() {
+        // nothing to load by default
+    }
+
     void switchCircles() {
         synchronized (this.bundleRef.get().getMapView()) {
             showCircles = Settings.isShowCircles();
@@ -141,6 +167,9 @@ public abstract class AbstractCachesOverlay {
 
         final Collection<String> removeCodes = getGeocodes();
         final Collection<String> newCodes = new HashSet<>();
+        final Set<String> newClusteredGeocodes = new HashSet<>();
+        final int zoom = getMapZoomLevel();
+        lastUpdateZoom = zoom;
 
         if (!cachesToDisplay.isEmpty()) {
             final NewMap map = mapRef.get();
@@ -154,24 +183,32 @@ public abstract class AbstractCachesOverlay {
                 return;
             }
 
-            for (final Geocache cache : cachesToDisplay) {
+            if (clusters.isClustered(zoom)) {
+                updateClusters(cachesToDisplay, zoom, removeCodes, newCodes, newClusteredGeocodes, newCompactIconMode);
+            } else {
+                releaseClusteredGeocodes(newClusteredGeocodes);
+                for (final Geocache cache : cachesToDisplay) {
 
-                if (cache == null) {
-                    continue;
-                }
+                    if (cache == null) {
+                        continue;
+                    }
 
-                if (cache.getCoords() == null || !cache.getCoords().isValid()) {
-                    continue;
-                }
-                if (removeCodes.contains(cache.getGeocode())) {
-                    removeCodes.remove(cache.getGeocode());
-                } else if (addItem(cache, newCompactIconMode)) {
-                    newCodes.add(cache.getGeocode());
+                    if (cache.getCoords() == null || !cache.getCoords().isValid()) {
+                        continue;
+                    }
+                    if (removeCodes.contains(cache.getGeocode())) {
+                        removeCodes.remove(cache.getGeocode());
+                    } else if (addItem(cache, newCompactIconMode)) {
+                        newCodes.add(cache.getGeocode());
+                    }
                 }
             }
         }
 
         syncLayers(removeCodes, newCodes);
+        // after syncing, as removing the single layer of a cache now clustered releases its geo entry
+        releaseClusteredGeocodes(newClusteredGeocodes);
+        claimClusteredGeocodes(newClusteredGeocodes);
 
         final CachesBundle bundle = bundleRef.get();
         if (bundle != null) {
@@ -181,6 +218,99 @@ public abstract class AbstractCachesOverlay {
         repaint();
     }
 
+    /**
+     * @return {@code true} if the clusters shown by the last update do not match the current zoom level anymore
+     */
+    protected boolean isClusteringOutdated() {
+        final int zoom = getMapZoomLevel();
+        return zoom != lastUpdateZoom && (clusters.isClustered(zoom) || clusters.isClustered(lastUpdateZoom));
+    }
+
+    /**
+     * Show the caches of each multi-cache cell of the zoom level as one cluster bubble, caches alone in their cell as
+     * usual. Caches shown by another overlay are left out.
+     */
+    private void updateClusters(final Set<Geocache> cachesToDisplay, final int zoom, final Collection<String> removeCodes, final Collection<String> newCodes, final Set<String> newClusteredGeocodes, final boolean isDotMode) {
+        clusterCaches.clear();
+        for (final Geocache cache : cachesToDisplay) {
+            if (cache == null || cache.getCoords() == null || !cache.getCoords().isValid() || isShownByOtherOverlay(cache.getGeocode())) {
+                continue;
+            }
+            clusterCaches.put(cache.getGeocode(), cache);
+        }
+        clusters.update(clusterCaches.keySet());
+        final List<MarkerClusters.Cluster<String>> zoomClusters = clusters.getClusters(zoom);
+
+        final List<Geocache> singleCaches = new ArrayList<>();
+        for (final MarkerClusters.Cluster<String> cluster : zoomClusters) {
+            final String geocode = cluster.getSingleItem();
+            if (geocode != null) {
+                singleCaches.add(clusterCaches.get(geocode));
+            } else {
+                newClusteredGeocodes.addAll(cluster.getItems());
+            }
+        }
+        // caches leaving a cluster must be released before they can be shown on their own
+        releaseClusteredGeocodes(newClusteredGeocodes);
+
+        final CachesBundle bundle = bundleRef.get();
+        final MapViewPosition mapViewPosition = bundle == null ? null : bundle.getMapView().getModel().mapViewPosition;
+        for (final MarkerClusters.Cluster<String> cluster : zoomClusters) {
+            if (cluster.getSingleItem() != null || mapViewPosition == null) {
+                continue;
+            }
+            final String code = cluster.getId();
+            if (removeCodes.contains(code)) {
+                removeCodes.remove(code);
+            } else {
+                layerList.add(getClusterItem(cluster, this.mapHandlers.getTapHandler(), mapViewPosition, clusters.getClusterZoom()));
+                newCodes.add(code);
+            }
+        }
+        for (final Geocache cache : singleCaches) {
+            if (removeCodes.contains(cache.getGeocode())) {
+                removeCodes.remove(cache.getGeocode());
+            } else if (addItem(cache, isDotMode)) {
+                newCodes.add(cache.getGeocode());
+            }
+        }
+    }
+
+    private boolean isShownByOtherOverlay(final String geocode) {
+        synchronized (clusteredGeocodes) {
+            if (clusteredGeocodes.contains(geocode)) {
+                return false;
+            }
+        }
+        return layerList.getItem(geocode) == null && geoEntries.contains(new GeoEntry(geocode, overlayId));
+    }
+
+    /**
+     * give up the geo entries of clustered caches which are not clustered any longer
+     */
+    private void releaseClusteredGeocodes(final Set<String> stillClustered) {
+        synchronized (clusteredGeocodes) {
+            for (final String geocode : clusteredGeocodes) {
+                if (!stillClustered.contains(geocode)) {
+                    geoEntries.remove(new GeoEntry(geocode, overlayId));
+                }
+            }
+            clusteredGeocodes.retainAll(stillClustered);
+        }
+    }
+
+    /**
+     * take the geo entries of clustered caches, so that other overlays don't show them on their own
+     */
+    private void claimClusteredGeocodes(final Set<String> geocodes) {
+        synchronized (clusteredGeocodes) {
+            for (final String geocode : geocodes) {
+                geoEntries.add(new GeoEntry(geocode, overlayId));
+            }
+            clusteredGeocodes.addAll(geocodes);
+        }
+    }
+
     protected final boolean addItem(final Geocache cache, final boolean isDotMode) {
         final GeoEntry entry = new GeoEntry(cache.getGeocode(), overlayId);
         if (geoEntries.add(entry)) {
@@ -238,7 +368,11 @@ public abstract class AbstractCachesOverlay {
     }
 
     protected Collection<String> getCacheGeocodes() {
-        return layerList.getCacheGeocodes();
+        final Collection<String> geocodes = layerList.getCacheGeocodes();
+        synchronized (clusteredGeocodes) {
+            geocodes.addAll(clusteredGeocodes);
+        }
+        return geocodes;
     }
 
     protected Viewport getViewport() {
@@ -295,6 +429,7 @@ public abstract class AbstractCachesOverlay {
         }
 
         layerList.clear();
+        releaseClusteredGeocodes(new HashSet<>());
 
         Log.d(String.format(Locale.ENGLISH, "Layers for id %d cleared, remaining geoEntries: %d", overlayId, geoEntries.size()));
     }
@@ -379,6 +514,14 @@ public abstract class AbstractCachesOverlay {
         return new GeoitemLayer(cache.getGeoitemRef(), cache.applyDistanceRule(), tapHandler, new LatLong(target.getLatitude(), target.getLongitude()), marker, 0, -marker.getHeight() / 2);
     }
 
+    private static GeoitemLayer getClusterItem(final MarkerClusters.Cluster<String> cluster, final TapHandler tapHandler, final MapViewPosition mapViewPosition, final int clusterZoom) {
+        final Geopoint center = cluster.getCenter();
+        final Bitmap marker = AndroidGraphicFactory.convertToBitmap(MapMarkerUtils.getClusterMarker(CgeoApplication.getInstance().getResources(), cluster.getCount()).getDrawable());
+        // zoom in far enough to split the cluster, but not beyond the cluster zoom
+        final byte targetZoom = (byte) Math.min(cluster.getZoom() + 2, clusterZoom);
+        return new ClusterLayer(cluster.getId(), cluster.getCount(), targetZoom, tapHandler, mapViewPosition, new LatLong(center.getLatitude(), center.getLongitude()), marker);
+    }
+
     private static GeoitemLayer getWaypointItem(final Waypoint waypoint, final TapHandler tapHandler, final boolean isDotMode) {
         final Geopoint target = waypoint.getCoords();
         if (target != null && target.isValid()) {
@@ -250,6 +250,21 @@ public class CachesBundle {
         }
     }
 
+    /**
+     * Lets the cache layers load the caches for a changed viewport
+     */
+    public void onMapMoved() {
+        if (baseOverlay != null) {
+            baseOverlay.requestLoad();
+        }
+        if (storedOverlay != null) {
+            storedOverlay.requestLoad();
+        }
+        if (liveOverlay != null) {
+            liveOverlay.requestLoad();
+        }
+    }
+
     /**
      * Forces redraw of all cache layers (e.g. for icon change)
      */
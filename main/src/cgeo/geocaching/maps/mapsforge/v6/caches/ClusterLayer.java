@@ -0,0 +1,39 @@
+package cgeo.geocaching.maps.mapsforge.v6.caches;
+
+import cgeo.geocaching.maps.mapsforge.v6.TapHandler;
+
+import org.mapsforge.core.graphics.Bitmap;
+import org.mapsforge.core.model.LatLong;
+import org.mapsforge.core.model.MapPosition;
+import org.mapsforge.core.model.Point;
+import org.mapsforge.map.model.MapViewPosition;
+
+/**
+ * Count bubble for a cluster of caches. Tapping it zooms the map in on the cluster instead of selecting items.
+ */
+public class ClusterLayer extends GeoitemLayer {
+
+    private final MapViewPosition mapViewPosition;
+    private final byte targetZoom;
+
+    public ClusterLayer(final String clusterId, final int count, final byte targetZoom, final TapHandler tapHandler, final MapViewPosition mapViewPosition, final LatLong latLong, final Bitmap bitmap) {
+        super(new GeoitemRef(clusterId, null, null, -1, String.valueOf(count), 0), false, tapHandler, latLong, bitmap, 0, 0);
+        this.mapViewPosition = mapViewPosition;
+        this.targetZoom = targetZoom;
+    }
+
+    @Override
+    public boolean onTap(final LatLong tapLatLong, final Point layerXY, final Point tapXY) {
+        if (isHit(layerXY, tapXY)) {
+            mapViewPosition.setMapPosition(new MapPosition(getLatLong(), (byte) Math.max(targetZoom, mapViewPosition.getZoomLevel() + 1)));
+            // consume the tap, the layers below must not select items of the zoomed in cluster
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onLongPress(final LatLong tapLatLong, final Point layerXY, final Point tapXY) {
+        return false;
+    }
+}
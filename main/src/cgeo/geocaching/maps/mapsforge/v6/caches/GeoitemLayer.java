@@ -104,7 +104,7 @@ public class GeoitemLayer extends Marker {
         return super.onLongPress(tapLatLong, layerXY, tapXY);
     }
 
-    private boolean isHit(final Point layerXY, final Point tapXY) {
+    protected boolean isHit(final Point layerXY, final Point tapXY) {
         final Rectangle rect = new Rectangle(layerXY.x + getHorizontalOffset() - halfXSpan, layerXY.y + getVerticalOffset() - halfYSpan, layerXY.x + getHorizontalOffset() + halfXSpan, layerXY.y + getVerticalOffset() + halfYSpan);
 
         return rect.intersectsCircle(tapXY.x, tapXY.y, tapSpanRadius);
@@ -1,110 +1,77 @@
 package cgeo.geocaching.maps.mapsforge.v6.caches;
 
 import cgeo.geocaching.SearchResult;
-import cgeo.geocaching.connector.ConnectorFactory;
+import cgeo.geocaching.connector.gc.Tile;
 import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.enumerations.LoadFlags.RemoveFlag;
 import cgeo.geocaching.location.Viewport;
+import cgeo.geocaching.maps.MapLoadTrigger;
 import cgeo.geocaching.maps.MapUtils;
 import cgeo.geocaching.maps.mapsforge.v6.MapHandlers;
 import cgeo.geocaching.maps.mapsforge.v6.NewMap;
 import cgeo.geocaching.models.Geocache;
 import cgeo.geocaching.storage.DataStore;
 import cgeo.geocaching.utils.Log;
-import static cgeo.geocaching.location.Viewport.containingGCliveCaches;
 
-import androidx.annotation.NonNull;
-
-import java.lang.ref.WeakReference;
 import java.util.EnumSet;
 import java.util.Locale;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
-import io.reactivex.rxjava3.disposables.Disposable;
-import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.mapsforge.map.layer.Layer;
 
 public class LiveCachesOverlay extends AbstractCachesOverlay {
 
-    private final Disposable timer;
-    private boolean downloading = false;
+    private final MapLoadTrigger loadTrigger = new MapLoadTrigger(this::onMapChanged);
+    private volatile boolean downloading = false;
 
-    private SearchResult lastSearchResult = null;
-    private Viewport lastViewport = null;
+    private int previousZoom = -100;
+    private Viewport previousViewport;
 
     public LiveCachesOverlay(final NewMap map, final int overlayId, final Set<GeoEntry> geoEntries, final CachesBundle bundle, final Layer anchorLayer, final MapHandlers mapHandlers) {
         super(map, overlayId, geoEntries, bundle, anchorLayer, mapHandlers);
-
-        this.timer = startTimer();
+        loadTrigger.request();
     }
 
-    private Disposable startTimer() {
-        return Schedulers.newThread().schedulePeriodicallyDirect(new LoadTimerAction(this), 0, 250, TimeUnit.MILLISECONDS);
+    @Override
+    protected void requestLoad() {
+        loadTrigger.request();
     }
 
-    private static final class LoadTimerAction implements Runnable {
-
-        @NonNull
-        private final WeakReference<LiveCachesOverlay> overlayRef;
-        private int previousZoom = -100;
-        private Viewport previousCycleViewport; //viewport on last timer cycle
-        private Viewport previousMoveViewport; //viewport on last move
-        private long lastMovedTimestamp = -1;
-
-        LoadTimerAction(@NonNull final LiveCachesOverlay overlay) {
-            this.overlayRef = new WeakReference<>(overlay);
+    private void onMapChanged() {
+        // get current viewport
+        final Viewport viewportNow = getViewport();
+        if (viewportNow == null) {
+            return;
         }
+        // Since zoomNow is used only for local comparison purposes,
+        // it is ok to use the Google Maps compatible zoom level of OSM Maps
+        final int zoomNow = getMapZoomLevel();
 
-        @Override
-        public void run() {
-            final LiveCachesOverlay overlay = overlayRef.get();
-            if (overlay == null || overlay.isDownloading()) {
-                return;
-            }
+        // check if map moved or zoomed
+        final boolean moved = isInvalidated() || previousViewport == null || zoomNow != previousZoom ||
+                mapMoved(previousViewport, viewportNow);
+
+        if (moved) {
+            downloading = true;
             try {
-                // get current viewport
-                final Viewport viewportNow = overlay.getViewport();
-                // Since zoomNow is used only for local comparison purposes,
-                // it is ok to use the Google Maps compatible zoom level of OSM Maps
-                final int zoomNow = overlay.getMapZoomLevel();
-
-                // check if map moved or zoomed
-                //TODO Portree Use Rectangle inside with bigger search window. That will stop reloading on every move
-                final boolean moved = overlay.isInvalidated() || previousCycleViewport == null || zoomNow != previousZoom ||
-                        previousMoveViewport == null || mapMoved(previousMoveViewport, viewportNow);
-
-                // save new values
-                if (moved) {
-                    final long currentTime = System.currentTimeMillis();
-
-                    if (1000 < (currentTime - lastMovedTimestamp)) {
-                        overlay.downloading = true;
-                        previousZoom = zoomNow;
-                        overlay.download();
-                        previousMoveViewport = viewportNow;
-                        lastMovedTimestamp = System.currentTimeMillis();
-                    }
-                } else if (!previousCycleViewport.equals(viewportNow)) {
-                    overlay.updateTitle();
-                }
-                previousCycleViewport = viewportNow;
-            } catch (final Exception e) {
-                Log.w("LiveCachesOverlay.startLoadtimer.start", e);
+                previousZoom = zoomNow;
+                previousViewport = viewportNow;
+                download(viewportNow);
             } finally {
-                overlay.refreshed();
-                overlay.downloading = false;
+                refreshed();
+                downloading = false;
             }
+        } else if (!previousViewport.equals(viewportNow)) {
+            updateTitle();
         }
     }
 
-    private void download() {
+    private void download(final Viewport viewport) {
         try {
             showProgress();
 
-            final boolean useLastSearchResult = null != lastSearchResult && null != lastViewport && lastViewport.includes(getViewport());
-            final Viewport newViewport = getViewport().resize(3.0);
-            final SearchResult searchResult = useLastSearchResult ? lastSearchResult : ConnectorFactory.searchByViewport(newViewport);
+            // only tiles not searched recently are requested from the connectors
+            final SearchResult searchResult = Tile.cache.searchByViewport(viewport);
 
             final Set<Geocache> result = searchResult.getCachesFromSearchResult(LoadFlags.LOAD_CACHE_OR_DB);
             MapUtils.filter(result);
@@ -119,12 +86,6 @@ public class LiveCachesOverlay extends AbstractCachesOverlay {
             //render
             update(result);
 
-            lastSearchResult = searchResult;
-            if (null == lastViewport || !useLastSearchResult || (!result.isEmpty() && lastSearchResult.getCount() > 400)) {
-                lastViewport = containingGCliveCaches(result);
-            }
-            Log.d("searchByViewport: cached=" + useLastSearchResult + ", results=" + lastSearchResult.getCount() + ", viewport=" + lastViewport);
-
         } finally {
             hideProgress();
         }
@@ -132,7 +93,7 @@ public class LiveCachesOverlay extends AbstractCachesOverlay {
 
     @Override
     public void onDestroy() {
-        timer.dispose();
+        loadTrigger.dispose();
 
         super.onDestroy();
     }
@@ -36,17 +36,17 @@ public class WaypointsOverlay extends AbstractCachesOverlay {
         final Set<Geocache> baseCaches = DataStore.loadCaches(baseGeoCodes, LoadFlags.LOAD_WAYPOINTS);
 
         for (final Geocache cache : baseCaches) {
-            final Set<Waypoint> filteredWaypoints = new HashSet<>(cache.getWaypoints());
-            MapUtils.filter(filteredWaypoints, checkOwnership);
-            waypoints.addAll(filteredWaypoints);
+            waypoints.addAll(cache.getWaypoints());
         }
+        MapUtils.filter(waypoints, checkOwnership);
 
         if (showStored) {
-            final boolean excludeMine = Settings.isExcludeMyCaches();
-            final boolean excludeFound = Settings.isExcludeFound();
-            final boolean excludeDisabled = Settings.isExcludeDisabledCaches();
-            final boolean excludeArchived = Settings.isExcludeArchivedCaches();
-            final boolean excludeOfflineLog = Settings.isExcludeOfflineLog();
+            final Settings.Snapshot settings = Settings.getSnapshot();
+            final boolean excludeMine = settings.excludeMine;
+            final boolean excludeFound = settings.excludeFound;
+            final boolean excludeDisabled = settings.excludeDisabled;
+            final boolean excludeArchived = settings.excludeArchived;
+            final boolean excludeOfflineLog = settings.excludeOfflineLog;
             final CacheType type = Settings.getCacheType();
 
             final Set<Waypoint> waypointsInViewport = DataStore.loadWaypoints(getViewport(), excludeMine, excludeFound, excludeDisabled, excludeArchived, excludeOfflineLog, type);
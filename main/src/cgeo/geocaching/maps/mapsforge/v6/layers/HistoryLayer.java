@@ -1,6 +1,8 @@
 package cgeo.geocaching.maps.mapsforge.v6.layers;
 
 import cgeo.geocaching.maps.PositionHistory;
+import cgeo.geocaching.maps.TrailGeometry;
+import cgeo.geocaching.maps.WorldCoordinates;
 import cgeo.geocaching.models.TrailHistoryElement;
 import cgeo.geocaching.settings.Settings;
 import cgeo.geocaching.utils.MapLineUtils;
@@ -21,12 +23,8 @@ import org.mapsforge.map.layer.Layer;
 
 public class HistoryLayer extends Layer {
 
-    /**
-     * maximum distance (in meters) up to which two points in the trail get connected by a drawn line
-     */
-    private static final float LINE_MAXIMUM_DISTANCE_METERS = 10000;
-
     private final PositionHistory positionHistory = new PositionHistory();
+    private final TrailGeometry trail = new TrailGeometry(positionHistory);
     private Location coordinates;
     private Paint historyLine;
 
@@ -58,38 +56,36 @@ public class HistoryLayer extends Layer {
         positionHistory.rememberTrailPosition(coordinates);
 
         if (Settings.isMapTrail()) {
-            final ArrayList<TrailHistoryElement> paintHistory = new ArrayList<>(getHistory());
-            // always add current position to drawn history to have a closed connection, even if it's not yet recorded
-            paintHistory.add(new TrailHistoryElement(coordinates));
-            final int size = paintHistory.size();
-            if (size < 2) {
-                return;
-            }
-
             final long mapSize = MercatorProjection.getMapSize(zoomLevel, this.displayModel.getTileSize());
+            final double scale = (double) mapSize / WorldCoordinates.WORLD_SIZE;
+            final int margin = (int) Math.ceil(MapLineUtils.getHistoryLineWidth() / scale);
 
-            Location prev = paintHistory.get(0).getLocation();
             final Path path = AndroidGraphicFactory.INSTANCE.createPath();
-            int current = 1;
-            while (current < size) {
-                path.moveTo((float) (MercatorProjection.longitudeToPixelX(prev.getLongitude(), mapSize) - topLeftPoint.x), (float) (MercatorProjection.latitudeToPixelY(prev.getLatitude(), mapSize) - topLeftPoint.y));
-
-                boolean paint = false;
-                while (!paint && current < size) {
-                    final Location now = paintHistory.get(current).getLocation();
-                    current++;
-                    if (now.distanceTo(prev) < LINE_MAXIMUM_DISTANCE_METERS) {
-                        path.lineTo((float) (MercatorProjection.longitudeToPixelX(now.getLongitude(), mapSize) - topLeftPoint.x), (float) (MercatorProjection.latitudeToPixelY(now.getLatitude(), mapSize) - topLeftPoint.y));
-                    } else {
-                        paint = true;
-                    }
-                    prev = now;
-                }
-                if (!path.isEmpty()) {
-                    canvas.drawPath(path, historyLine);
-                    path.clear();
+            trail.traverse(mapSize,
+                    WorldCoordinates.toWorldX(boundingBox.minLongitude) - margin, WorldCoordinates.toWorldY(boundingBox.maxLatitude) - margin,
+                    WorldCoordinates.toWorldX(boundingBox.maxLongitude) + margin, WorldCoordinates.toWorldY(boundingBox.minLatitude) + margin,
+                    (index, newLine) -> {
+                        final float x = (float) (positionHistory.getWorldX(index) * scale - topLeftPoint.x);
+                        final float y = (float) (positionHistory.getWorldY(index) * scale - topLeftPoint.y);
+                        if (newLine) {
+                            path.moveTo(x, y);
+                        } else {
+                            path.lineTo(x, y);
+                        }
+                    });
+
+            // always connect the current position to the drawn history, even if it's not yet recorded
+            synchronized (positionHistory) {
+                if (positionHistory.isConnectedToLast(coordinates)) {
+                    final int last = positionHistory.getEndIndex() - 1;
+                    path.moveTo((float) (positionHistory.getWorldX(last) * scale - topLeftPoint.x), (float) (positionHistory.getWorldY(last) * scale - topLeftPoint.y));
+                    path.lineTo((float) (MercatorProjection.longitudeToPixelX(coordinates.getLongitude(), mapSize) - topLeftPoint.x), (float) (MercatorProjection.latitudeToPixelY(coordinates.getLatitude(), mapSize) - topLeftPoint.y));
                 }
             }
+
+            if (!path.isEmpty()) {
+                canvas.drawPath(path, historyLine);
+            }
         }
     }
 
@@ -41,4 +41,24 @@ class AbstractServiceConnection implements ServiceConnection {
         return null;
     }
 
+    /**
+     * binary alternative to {@link #getTrackFromParams(Bundle)}, only supported by the internal routing service
+     *
+     * @return result bundle (see IInternalRoutingService), or null if not supported or not available
+     */
+    @Nullable
+    public Bundle getTrackPointsFromParams(final Bundle params) {
+        return null;
+    }
+
+    /**
+     * one-to-many distance calculation, only supported by the internal routing service
+     *
+     * @return result bundle (see IInternalRoutingService), or null if not supported or not available
+     */
+    @Nullable
+    public Bundle getDistancesFromParams(final Bundle params) {
+        return null;
+    }
+
 }
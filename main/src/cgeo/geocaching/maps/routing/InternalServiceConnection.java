@@ -34,4 +34,30 @@ public class InternalServiceConnection extends AbstractServiceConnection {
         }
     }
 
+    @Override
+    public Bundle getTrackPointsFromParams(final Bundle params) {
+        if (!isConnected()) {
+            return null;
+        }
+
+        try {
+            return ((IInternalRoutingService) routingService).getTrackPointsFromParams(params);
+        } catch (final RemoteException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Bundle getDistancesFromParams(final Bundle params) {
+        if (!isConnected()) {
+            return null;
+        }
+
+        try {
+            return ((IInternalRoutingService) routingService).getDistancesFromParams(params);
+        } catch (final RemoteException e) {
+            return null;
+        }
+    }
+
 }
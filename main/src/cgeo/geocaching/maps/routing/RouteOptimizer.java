@@ -0,0 +1,272 @@
+package cgeo.geocaching.maps.routing;
+
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.utils.functions.Func1;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds a short visiting order for the points of an individual route (open path with a fixed start point).
+ *
+ * The order is constructed by nearest neighbour search and then improved by 2-opt and Or-opt moves until no further
+ * improvement is found or the time budget is used up. Costs are taken from a pluggable {@link CostMatrix}, which is
+ * expected to be symmetric.
+ */
+public final class RouteOptimizer {
+
+    /** maximum length of a segment moved by an Or-opt move */
+    private static final int OR_OPT_MAX_SEGMENT = 3;
+    /** ignore improvements smaller than this to avoid endless loops due to rounding */
+    private static final float EPSILON = 1e-6f;
+
+    /** cost of traveling between two points, referenced by their index */
+    public interface CostMatrix {
+        int size();
+
+        float getCost(int from, int to);
+    }
+
+    private final CostMatrix costs;
+    private final long timeBudgetMillis;
+
+    public RouteOptimizer(@NonNull final CostMatrix costs, final long timeBudgetMillis) {
+        this.costs = costs;
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * straight line distances between the given points
+     */
+    @NonNull
+    public static CostMatrix straightLine(@NonNull final List<Geopoint> points) {
+        final int size = points.size();
+        final float[][] distances = new float[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                distances[i][j] = points.get(i).distanceTo(points.get(j));
+                distances[j][i] = distances[i][j];
+            }
+        }
+        return fromArray(distances);
+    }
+
+    /**
+     * routed distances between the given points (see {@link Routing#getDistanceMatrix(Geopoint[])}), falling back to
+     * straight line distances for unroutable pairs or if routing is not available
+     * <br>
+     * Heavy task, do not call on the UI thread!
+     */
+    @NonNull
+    public static CostMatrix routed(@NonNull final List<Geopoint> points) {
+        final int size = points.size();
+        final float[][] routed = Routing.getDistanceMatrix(points.toArray(new Geopoint[size]));
+        if (routed == null) {
+            return straightLine(points);
+        }
+        final float[][] distances = new float[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                // routed distances may differ by direction (one-way streets), but the optimizer needs symmetric costs
+                final float there = Float.isNaN(routed[i][j]) ? points.get(i).distanceTo(points.get(j)) : routed[i][j];
+                final float back = Float.isNaN(routed[j][i]) ? points.get(j).distanceTo(points.get(i)) : routed[j][i];
+                distances[i][j] = (there + back) / 2;
+                distances[j][i] = distances[i][j];
+            }
+        }
+        return fromArray(distances);
+    }
+
+    @NonNull
+    static CostMatrix fromArray(@NonNull final float[][] distances) {
+        return new CostMatrix() {
+            @Override
+            public int size() {
+                return distances.length;
+            }
+
+            @Override
+            public float getCost(final int from, final int to) {
+                return distances[from][to];
+            }
+        };
+    }
+
+    /**
+     * Reorders the items to a short visiting order, keeping the first item as start. Items without a point are moved
+     * to the end, keeping their order.
+     *
+     * @param pointOf point of an item, {@code null} if the item has none
+     * @param costs creates the cost matrix for the points of the items having one
+     * @return the reordered items, {@code null} if the first item has no point, as there is no start to optimize from
+     */
+    @Nullable
+    public static <T> List<T> optimizeItems(@NonNull final List<T> items, @NonNull final Func1<T, Geopoint> pointOf,
+                                            @NonNull final Func1<List<Geopoint>, CostMatrix> costs, final long timeBudgetMillis) {
+        if (items.isEmpty()) {
+            return new ArrayList<>(items);
+        }
+        if (pointOf.call(items.get(0)) == null) {
+            return null;
+        }
+        final List<T> routable = new ArrayList<>(items.size());
+        final List<T> unroutable = new ArrayList<>();
+        final List<Geopoint> points = new ArrayList<>(items.size());
+        for (T item : items) {
+            final Geopoint point = pointOf.call(item);
+            if (point != null) {
+                routable.add(item);
+                points.add(point);
+            } else {
+                unroutable.add(item);
+            }
+        }
+        final int[] order = new RouteOptimizer(costs.call(points), timeBudgetMillis).optimize();
+        final List<T> sorted = new ArrayList<>(items.size());
+        for (int index : order) {
+            sorted.add(routable.get(index));
+        }
+        sorted.addAll(unroutable);
+        return sorted;
+    }
+
+    /**
+     * @return the optimized visiting order as permutation of the point indices, starting with point 0
+     */
+    @NonNull
+    public int[] optimize() {
+        final long endTime = System.currentTimeMillis() + timeBudgetMillis;
+        final int[] order = nearestNeighbour();
+        boolean improved = true;
+        while (improved && System.currentTimeMillis() < endTime) {
+            improved = improveTwoOpt(order, endTime);
+            improved |= improveOrOpt(order, endTime);
+        }
+        return order;
+    }
+
+    /**
+     * total cost of visiting the points in the given order
+     */
+    public float getCost(@NonNull final int[] order) {
+        float total = 0;
+        for (int i = 1; i < order.length; i++) {
+            total += costs.getCost(order[i - 1], order[i]);
+        }
+        return total;
+    }
+
+    @NonNull
+    int[] nearestNeighbour() {
+        final int size = costs.size();
+        final int[] order = new int[size];
+        final boolean[] visited = new boolean[size];
+        if (size == 0) {
+            return order;
+        }
+        visited[0] = true;
+        for (int pos = 1; pos < size; pos++) {
+            final int last = order[pos - 1];
+            int best = -1;
+            float bestCost = Float.MAX_VALUE;
+            for (int candidate = 1; candidate < size; candidate++) {
+                if (!visited[candidate] && (best < 0 || costs.getCost(last, candidate) < bestCost)) {
+                    best = candidate;
+                    bestCost = costs.getCost(last, candidate);
+                }
+            }
+            order[pos] = best;
+            visited[best] = true;
+        }
+        return order;
+    }
+
+    /**
+     * reverse sub paths order[i..j] as long as this shortens the path
+     */
+    private boolean improveTwoOpt(final int[] order, final long endTime) {
+        final int n = order.length;
+        boolean improved = false;
+        for (int i = 1; i < n - 1 && System.currentTimeMillis() < endTime; i++) {
+            for (int j = i + 1; j < n; j++) {
+                final int prev = order[i - 1];
+                final float removed = costs.getCost(prev, order[i]) + (j + 1 < n ? costs.getCost(order[j], order[j + 1]) : 0);
+                final float added = costs.getCost(prev, order[j]) + (j + 1 < n ? costs.getCost(order[i], order[j + 1]) : 0);
+                if (added < removed - EPSILON) {
+                    reverse(order, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * move segments of up to {@link #OR_OPT_MAX_SEGMENT} points (in either direction) to a better position
+     */
+    private boolean improveOrOpt(final int[] order, final long endTime) {
+        final int n = order.length;
+        boolean improved = false;
+        for (int length = 1; length <= OR_OPT_MAX_SEGMENT; length++) {
+            for (int i = 1; i + length <= n && System.currentTimeMillis() < endTime; i++) {
+                final int last = i + length - 1;
+                final int first = order[i];
+                final int end = order[last];
+                final int prev = order[i - 1];
+                final boolean hasNext = last + 1 < n;
+                final float removeGain = costs.getCost(prev, first) + (hasNext ? costs.getCost(end, order[last + 1]) - costs.getCost(prev, order[last + 1]) : 0);
+
+                // insert between order[k] and order[k + 1] (or after the last point)
+                for (int k = 0; k < n; k++) {
+                    if (k >= i - 1 && k <= last) {
+                        continue;
+                    }
+                    final boolean hasFollower = k + 1 < n;
+                    final float base = hasFollower ? costs.getCost(order[k], order[k + 1]) : 0;
+                    final float forward = costs.getCost(order[k], first) + (hasFollower ? costs.getCost(end, order[k + 1]) : 0) - base;
+                    final float backward = costs.getCost(order[k], end) + (hasFollower ? costs.getCost(first, order[k + 1]) : 0) - base;
+                    final boolean reversed = backward < forward;
+                    if (Math.min(forward, backward) < removeGain - EPSILON) {
+                        moveSegment(order, i, last, k, reversed);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static void reverse(final int[] order, final int from, final int to) {
+        for (int i = from, j = to; i < j; i++, j--) {
+            final int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+    }
+
+    /**
+     * move order[from..to] behind order[after]
+     */
+    private static void moveSegment(final int[] order, final int from, final int to, final int after, final boolean reversed) {
+        final int length = to - from + 1;
+        final int[] segment = new int[length];
+        for (int i = 0; i < length; i++) {
+            segment[i] = order[reversed ? to - i : from + i];
+        }
+        final int insertPos;
+        if (after < from) {
+            // shift order[after + 1 .. from - 1] back
+            System.arraycopy(order, after + 1, order, after + 1 + length, from - after - 1);
+            insertPos = after + 1;
+        } else {
+            // shift order[to + 1 .. after] to the front
+            System.arraycopy(order, to + 1, order, from, after - to);
+            insertPos = after - length + 1;
+        }
+        System.arraycopy(segment, 0, order, insertPos, length);
+    }
+}
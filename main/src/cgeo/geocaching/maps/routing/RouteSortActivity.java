@@ -5,6 +5,7 @@ import cgeo.geocaching.R;
 import cgeo.geocaching.activity.AbstractActionBarActivity;
 import cgeo.geocaching.enumerations.CacheListType;
 import cgeo.geocaching.enumerations.LoadFlags;
+import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.location.GeopointFormatter;
 import cgeo.geocaching.models.Geocache;
 import cgeo.geocaching.models.IWaypoint;
@@ -32,6 +33,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import com.google.android.material.button.MaterialButton;
 import com.mobeta.android.dslv.DragSortController;
@@ -41,6 +44,8 @@ import io.reactivex.rxjava3.schedulers.Schedulers;
 
 public class RouteSortActivity extends AbstractActionBarActivity {
 
+    private static final long OPTIMIZE_TIME_BUDGET_MILLIS = 1000;
+
     private ArrayAdapter<RouteItem> routeItemAdapter;
     private ArrayList<RouteItem> routeItems;
     private DragSortListView listView;
@@ -63,6 +68,7 @@ public class RouteSortActivity extends AbstractActionBarActivity {
         super.onCreate(savedInstanceState);
         setTheme();
         setTitle(getString(R.string.map_sort_individual_route));
+        Routing.connect();
 
         routeItems = DataStore.loadIndividualRoute();
         listView = new DragSortListView(this, null);
@@ -148,15 +154,46 @@ public class RouteSortActivity extends AbstractActionBarActivity {
         routeItems.remove(position);
         routeItemAdapter.notifyDataSetChanged();
         changed = true;
+        invalidateOptionsMenu();
         return true;
     }
 
+    /**
+     * reorder the route items to a short visiting order, keeping the first item as start
+     */
+    private void optimizeRoute() {
+        final ArrayList<RouteItem> items = new ArrayList<>(routeItems);
+        AndroidRxUtils.andThenOnUi(Schedulers.io(), () -> {
+            final List<RouteItem> sorted = RouteOptimizer.optimizeItems(items, RouteItem::getPoint, RouteOptimizer::routed, OPTIMIZE_TIME_BUDGET_MILLIS);
+            // rx does not allow null results
+            return sorted == null ? Collections.<RouteItem>emptyList() : sorted;
+        }, sorted -> {
+            if (sorted.isEmpty()) {
+                Toast.makeText(this, R.string.optimize_route_no_start, Toast.LENGTH_SHORT).show();
+                return;
+            }
+            routeItems.clear();
+            routeItems.addAll(sorted);
+            routeItemAdapter.notifyDataSetChanged();
+            changed = true;
+            invalidateOptionsMenu();
+            Toast.makeText(this, R.string.optimized_route, Toast.LENGTH_SHORT).show();
+        });
+    }
+
     @Override
     public boolean onCreateOptionsMenu(final Menu menu) {
         getMenuInflater().inflate(R.menu.menu_ok_cancel, menu);
+        getMenuInflater().inflate(R.menu.route_sort_options, menu);
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(final Menu menu) {
+        menu.findItem(R.id.menu_optimize_route).setVisible(routeItems.size() > 2);
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     @Override
     public boolean onOptionsItemSelected(final MenuItem item) {
         if (item.getItemId() == R.id.menu_item_save) {
@@ -167,6 +204,9 @@ public class RouteSortActivity extends AbstractActionBarActivity {
                 finish();
             });
             return true;
+        } else if (item.getItemId() == R.id.menu_optimize_route) {
+            optimizeRoute();
+            return true;
         } else if (item.getItemId() == R.id.menu_item_cancel) {
             finish();
             return true;
@@ -177,6 +217,12 @@ public class RouteSortActivity extends AbstractActionBarActivity {
         return false;
     }
 
+    @Override
+    protected void onDestroy() {
+        Routing.disconnect();
+        super.onDestroy();
+    }
+
     @Override
     public void onBackPressed() {
         if (changed) {
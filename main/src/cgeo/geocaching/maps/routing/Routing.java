@@ -3,6 +3,7 @@ package cgeo.geocaching.maps.routing;
 import cgeo.geocaching.CgeoApplication;
 import cgeo.geocaching.R;
 import cgeo.geocaching.activity.ActivityMixin;
+import cgeo.geocaching.brouter.BRouterConstants;
 import cgeo.geocaching.downloader.DownloadConfirmationActivity;
 import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.settings.Settings;
@@ -20,6 +21,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
@@ -191,6 +193,92 @@ public final class Routing {
         return ensureTrack(track, start, destination);
     }
 
+    /**
+     * Calculate the routed distances from an origin to a number of targets in one single search.
+     * Only supported by the internal routing service.
+     *
+     * @param origin the starting point
+     * @param targets the targets
+     * @return distances in kilometers by target (Float.NaN if a target is not reachable or too far away for routing),
+     * or null if routed distances are not available
+     */
+    @Nullable
+    public static float[] getDistances(@NonNull final Geopoint origin, @NonNull final Geopoint[] targets) {
+        if (routingServiceConnection == null || Settings.getRoutingMode() == RoutingMode.STRAIGHT) {
+            return null;
+        }
+
+        final float[] result = new float[targets.length];
+        Arrays.fill(result, Float.NaN);
+
+        // a single far away target would let the search expand over a huge area, so skip targets beyond the threshold
+        final int maxThresholdKm = Settings.getBrouterThreshold();
+        final int[] requested = new int[targets.length];
+        int count = 0;
+        for (int i = 0; i < targets.length; i++) {
+            final float targetDistance = origin.distanceTo(targets[i]);
+            if (targetDistance < MIN_ROUTING_DISTANCE_KILOMETERS) {
+                result[i] = targetDistance;
+            } else if (targetDistance <= maxThresholdKm) {
+                requested[count++] = i;
+            }
+        }
+        if (count == 0) {
+            return result;
+        }
+
+        final double[] lats = new double[count + 1];
+        final double[] lons = new double[count + 1];
+        lats[0] = origin.getLatitude();
+        lons[0] = origin.getLongitude();
+        for (int j = 0; j < count; j++) {
+            lats[j + 1] = targets[requested[j]].getLatitude();
+            lons[j + 1] = targets[requested[j]].getLongitude();
+        }
+
+        final Bundle distances = routingServiceConnection.getDistancesFromParams(createRoutingParams(lats, lons));
+        if (distances == null) {
+            return null;
+        }
+        final String error = distances.getString(BRouterConstants.BROUTER_RESULT_ERROR);
+        if (error != null) {
+            handleRoutingError(error);
+            return null;
+        }
+        final int[] meters = distances.getIntArray(BRouterConstants.BROUTER_RESULT_DISTANCES);
+        if (meters == null || meters.length != count) {
+            Log.i("brouter returned no data");
+            return null;
+        }
+
+        for (int j = 0; j < count; j++) {
+            if (meters[j] >= 0) {
+                result[requested[j]] = meters[j] / 1000f;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calculate the routed distances between all given points, using one search per point.
+     *
+     * @return distance matrix in kilometers (see {@link #getDistances(Geopoint, Geopoint[])}), or null if routed
+     * distances are not available
+     */
+    @Nullable
+    public static float[][] getDistanceMatrix(@NonNull final Geopoint[] points) {
+        final float[][] matrix = new float[points.length][];
+        for (int i = 0; i < points.length; i++) {
+            final float[] row = getDistances(points[i], points);
+            if (row == null) {
+                return null;
+            }
+            row[i] = 0f;
+            matrix[i] = row;
+        }
+        return matrix;
+    }
+
     @NonNull
     private static Geopoint[] ensureTrack(@Nullable final Geopoint[] routingPoints, final Geopoint start, final Geopoint destination) {
         return routingPoints != null ? routingPoints : defaultTrack(start, destination);
@@ -203,24 +291,51 @@ public final class Routing {
 
     @Nullable
     private static Geopoint[] calculateRouting(final Geopoint start, final Geopoint dest) {
-        final Bundle params = new Bundle();
+        final Bundle params = createRoutingParams(new double[]{start.getLatitude(), dest.getLatitude()}, new double[]{start.getLongitude(), dest.getLongitude()});
         params.putString("trackFormat", "gpx");
-        params.putDoubleArray("lats", new double[]{start.getLatitude(), dest.getLatitude()});
-        params.putDoubleArray("lons", new double[]{start.getLongitude(), dest.getLongitude()});
-        params.putString("v", Settings.getRoutingMode().parameterValue);
-        params.putString("profile", Settings.getRoutingProfile()); // profile filename, used only by internal routing engine
 
-        final String gpx = routingServiceConnection == null ? null : routingServiceConnection.getTrackFromParams(params);
+        if (routingServiceConnection == null) {
+            Log.i("brouter returned no data");
+            return null;
+        }
+
+        // internal routing service can hand over the track points directly
+        final Bundle trackPoints = routingServiceConnection.getTrackPointsFromParams(params);
+        if (trackPoints != null) {
+            return parseTrackPoints(trackPoints, dest);
+        }
+
+        final String gpx = routingServiceConnection.getTrackFromParams(params);
 
         if (gpx == null) {
             Log.i("brouter returned no data");
             return null;
         }
 
+        // other error
+        if (!gpx.startsWith("<?xml")) {
+            handleRoutingError(gpx);
+            return null;
+        }
+
+        return parseGpxTrack(gpx, dest);
+    }
+
+    @NonNull
+    private static Bundle createRoutingParams(final double[] lats, final double[] lons) {
+        final Bundle params = new Bundle();
+        params.putDoubleArray("lats", lats);
+        params.putDoubleArray("lons", lons);
+        params.putString("v", Settings.getRoutingMode().parameterValue);
+        params.putString("profile", Settings.getRoutingProfile()); // profile filename, used only by internal routing engine
+        return params;
+    }
+
+    private static void handleRoutingError(@NonNull final String message) {
         // missing routing data?
-        if (gpx.startsWith("datafile ") && gpx.endsWith(" not found")) {
+        if (message.startsWith("datafile ") && message.endsWith(" not found")) {
             synchronized (requestedTileFiles) {
-                String filename = gpx.substring(9);
+                String filename = message.substring(9);
                 final int pos = filename.indexOf(" ");
                 if (pos != -1) {
                     filename = filename.substring(0, pos);
@@ -249,13 +364,33 @@ public final class Routing {
             }
         }
 
-        // other error
-        if (!gpx.startsWith("<?xml")) {
-            Log.w("brouter returned an error message: " + gpx);
+        Log.w("brouter returned an error message: " + message);
+    }
+
+    @Nullable
+    private static Geopoint[] parseTrackPoints(@NonNull final Bundle trackPoints, final Geopoint destination) {
+        final String error = trackPoints.getString(BRouterConstants.BROUTER_RESULT_ERROR);
+        if (error != null) {
+            handleRoutingError(error);
             return null;
         }
 
-        return parseGpxTrack(gpx, dest);
+        final int[] pointsE6 = trackPoints.getIntArray(BRouterConstants.BROUTER_RESULT_POINTS_E6);
+        if (pointsE6 == null) {
+            Log.i("brouter returned no data");
+            return null;
+        }
+
+        final int count = pointsE6.length / 2;
+        final Geopoint[] result = new Geopoint[destination != null ? count + 1 : count];
+        for (int i = 0; i < count; i++) {
+            result[i] = Geopoint.forE6(pointsE6[2 * i], pointsE6[2 * i + 1]);
+        }
+        // artificial straight line from track to target
+        if (destination != null) {
+            result[count] = destination;
+        }
+        return result;
     }
 
     @Nullable
@@ -4,8 +4,10 @@ import cgeo.geocaching.CgeoApplication;
 import cgeo.geocaching.R;
 import cgeo.geocaching.connector.ConnectorFactory;
 import cgeo.geocaching.storage.ContentStorage;
+import cgeo.geocaching.storage.ImageStore;
 import cgeo.geocaching.storage.LocalStorage;
 import cgeo.geocaching.utils.AndroidRxUtils;
+import cgeo.geocaching.utils.BitmapCache;
 import cgeo.geocaching.utils.DisplayUtils;
 import cgeo.geocaching.utils.DisposableHandler;
 import cgeo.geocaching.utils.FileUtils;
@@ -71,6 +73,11 @@ public class HtmlImage implements Html.ImageGetter {
     };
     public static final String SHARED = "shared";
 
+    /**
+     * Maximum number of images saved in parallel for one instance in {@code onlySave} mode
+     */
+    private static final int MAX_PARALLEL_PREFETCHES = 4;
+
     @NonNull private final String geocode;
     /**
      * on error: return large error image, if {@code true}, otherwise empty 1x1 image
@@ -90,7 +97,7 @@ public class HtmlImage implements Html.ImageGetter {
     // .cache() is not yet available on Completable instances as of RxJava 2.0.0, so we have to go back
     // to the observable world to achieve the caching.
     private final PublishProcessor<Completable> loading = PublishProcessor.create();
-    private final Completable waitForEnd = Completable.merge(loading).cache();
+    private final Completable waitForEnd = Completable.merge(loading.onBackpressureBuffer(), MAX_PARALLEL_PREFETCHES).cache();
     private final CompositeDisposable disposable = new CompositeDisposable(waitForEnd.subscribe());
 
     /**
@@ -98,9 +105,9 @@ public class HtmlImage implements Html.ImageGetter {
      * There are the three possible use cases:
      * <ul>
      * <li>If onlySave is true, {@link #getDrawable(String)} will return <tt>null</tt> immediately and will queue the
-     * image retrieval and saving in the loading subject. Downloads will start in parallel when the blocking
-     * {@link #waitForEndCompletable(DisposableHandler)} method is called, and they can be
-     * cancelled through the given handler.</li>
+     * image retrieval and saving in the loading subject. Images are streamed to disk without being decoded, with a
+     * bounded number of downloads in parallel. The blocking {@link #waitForEndCompletable(DisposableHandler)} method
+     * waits for all of them, and they can be cancelled through the given handler.</li>
      * <li>If <tt>onlySave</tt> is <tt>false</tt> and the instance is called through {@link #fetchDrawable(String)},
      * then an observable for the given URL will be returned. This observable will emit the local copy of the image if
      * it is present regardless of its freshness, then if needed an updated fresher copy after retrieving it from the
@@ -165,12 +172,12 @@ public class HtmlImage implements Html.ImageGetter {
         if (cache.containsKey(url)) {
             return cache.get(url);
         }
-        final Observable<BitmapDrawable> drawable = fetchDrawable(url);
         if (onlySave) {
-            loading.onNext(drawable.ignoreElements());
+            loading.onNext(prefetch(url));
             cache.put(url, null);
             return null;
         }
+        final Observable<BitmapDrawable> drawable = fetchDrawable(url);
 
         BitmapDrawable result = null;
         final TextView textView = viewRef.get();
@@ -219,7 +226,7 @@ public class HtmlImage implements Html.ImageGetter {
             }).subscribeOn(AndroidRxUtils.computationScheduler);
         }
 
-        final boolean shared = url.contains("/images/icons/icon_");
+        final boolean shared = isShared(url);
         final String pseudoGeocode = shared ? SHARED : geocode;
 
         return Observable.create(new ObservableOnSubscribe<BitmapDrawable>() {
@@ -254,10 +261,7 @@ public class HtmlImage implements Html.ImageGetter {
             private void downloadAndSave(final ObservableEmitter<BitmapDrawable> emitter, final Disposable disposable) {
                 final File file = LocalStorage.getGeocacheDataFile(pseudoGeocode, url, true, true);
                 if (url.startsWith("data:image/")) {
-                    if (url.contains(";base64,")) {
-                        ImageUtils.decodeBase64ToFile(StringUtils.substringAfter(url, ";base64,"), file);
-                    } else {
-                        Log.e("HtmlImage.fetchDrawableUncached: unable to decode non-base64 inline image");
+                    if (!saveInlineImage(url, file)) {
                         emitter.onComplete();
                         return;
                     }
@@ -286,6 +290,49 @@ public class HtmlImage implements Html.ImageGetter {
         });
     }
 
+    /**
+     * Save an image for offline use without decoding it. An existing copy which is fresh enough is kept, otherwise the
+     * image is refreshed through a conditional request and streamed to disk.
+     */
+    private Completable prefetch(final String url) {
+        // images which are local already or which are never displayed don't need to be saved
+        if (StringUtils.isBlank(url) || ImageUtils.containsPattern(url, BLOCKED) || FileUtils.isFileUrl(url) || UriUtils.isContentUri(Uri.parse(url))) {
+            return Completable.complete();
+        }
+        final boolean shared = isShared(url);
+        final String pseudoGeocode = shared ? SHARED : geocode;
+        return Completable.fromAction(() -> {
+            if (disposable.isDisposed()) {
+                return;
+            }
+            final File file = LocalStorage.getGeocacheDataFile(pseudoGeocode, url, true, true);
+            if (ImageStore.get().resolve(file).isFile() && isFreshEnough(shared, file.lastModified())) {
+                return;
+            }
+            if (url.startsWith("data:image/")) {
+                saveInlineImage(url, file);
+            } else {
+                downloadOrRefreshCopy(url, file);
+            }
+        }).subscribeOn(AndroidRxUtils.networkScheduler)
+                .doOnError(throwable -> Log.w("HtmlImage.prefetch: cannot save " + url, throwable))
+                .onErrorComplete();
+    }
+
+    private static boolean isShared(final String url) {
+        return url.contains("/images/icons/icon_");
+    }
+
+    private static boolean saveInlineImage(final String url, final File file) {
+        if (!url.contains(";base64,")) {
+            Log.e("HtmlImage.saveInlineImage: unable to decode non-base64 inline image");
+            return false;
+        }
+        ImageUtils.decodeBase64ToFile(StringUtils.substringAfter(url, ";base64,"), file);
+        ImageStore.get().store(file);
+        return true;
+    }
+
     protected ImmutablePair<BitmapDrawable, Boolean> scaleImage(final ImmutablePair<Bitmap, Boolean> loadResult) {
         final Bitmap bitmap = loadResult.left;
         return ImmutablePair.of(bitmap != null ? ImageUtils.scaleBitmapToFitDisplay(bitmap) : null, loadResult.right);
@@ -311,9 +358,16 @@ public class HtmlImage implements Html.ImageGetter {
 
         if (absoluteURL != null) {
             try {
+                final ImageStore imageStore = ImageStore.get();
+                // without the stored content the reference must not be used to send a conditional request
+                if (imageStore.isDangling(file)) {
+                    FileUtils.deleteIgnoringFailure(file);
+                }
                 final Response httpResponse = Network.getRequest(absoluteURL, null, file).blockingGet();
                 if (httpResponse.isSuccessful()) {
-                    FileUtils.saveEntityToFile(httpResponse, file);
+                    if (FileUtils.saveEntityToFile(httpResponse, file)) {
+                        imageStore.store(file);
+                    }
                 } else if (httpResponse.code() == 304) {
                     if (!file.setLastModified(System.currentTimeMillis())) {
                         makeFreshCopy(file);
@@ -407,26 +461,55 @@ public class HtmlImage implements Html.ImageGetter {
      */
     @NonNull
     private ImmutablePair<Bitmap, Boolean> loadCachedImage(final File file, final boolean forceKeep) {
-        if (file.isFile()) {
-            return loadCachedImage(Uri.fromFile(file), forceKeep, file.lastModified());
+        // the file is either a reference to the image store or, if it was saved by an earlier version, the image itself
+        final File content = ImageStore.get().resolve(file);
+        if (!content.isFile()) {
+            return ImmutablePair.of((Bitmap) null, false);
         }
-        return ImmutablePair.of((Bitmap) null, false);
+        final boolean freshEnough = isFreshEnough(forceKeep, file.lastModified());
+        if (freshEnough && onlySave) {
+            return ImmutablePair.of((Bitmap) null, true);
+        }
+        final String version = content.equals(file) ? String.valueOf(content.lastModified()) : content.getName();
+        final Bitmap cached = BitmapCache.get().get(content.getPath(), maxWidth, maxHeight, version);
+        if (cached != null) {
+            return ImmutablePair.of(cached, freshEnough);
+        }
+        final Bitmap image = decodeImage(Uri.fromFile(content));
+        if (image == null) {
+            return ImmutablePair.of((Bitmap) null, false);
+        }
+        // cache the image already scaled to the display, so that it does not get scaled again for every view
+        final Bitmap scaled = ImageUtils.scaleBitmapToFitDisplay(image).getBitmap();
+        if (!onlySave) {
+            BitmapCache.get().put(content.getPath(), maxWidth, maxHeight, version, scaled);
+        }
+        return ImmutablePair.of(scaled, freshEnough);
     }
 
     @NonNull
     private ImmutablePair<Bitmap, Boolean> loadCachedImage(final Uri uri, final boolean forceKeep, final long lastModified) {
+        final boolean freshEnough = isFreshEnough(forceKeep, lastModified);
+        if (freshEnough && onlySave) {
+            return ImmutablePair.of((Bitmap) null, true);
+        }
+        final Bitmap image = decodeImage(uri);
+        return ImmutablePair.of(image, image != null && freshEnough);
+    }
 
-    // An image is considered fresh enough if the image exists and one of those conditions is true:
+    private boolean isFreshEnough(final boolean forceKeep, final long lastModified) {
+        // An image is considered fresh enough if the image exists and one of those conditions is true:
         //  - forceKeep is true and the image has not been modified in the last 24 hours, to avoid reloading shared images;
         //    with every refreshed cache;
         //  - forceKeep is true and userInitiatedRefresh is false, as shared images are unlikely to change at all;
         //  - userInitiatedRefresh is false and the image has not been modified in the last 24 hours.
         final boolean recentlyModified = lastModified > 0 && lastModified > (System.currentTimeMillis() - (24 * 60 * 60 * 1000));
-        final boolean freshEnough = (forceKeep && (recentlyModified || !userInitiatedRefresh)) ||
+        return (forceKeep && (recentlyModified || !userInitiatedRefresh)) ||
                 (recentlyModified && !userInitiatedRefresh);
-        if (freshEnough && onlySave) {
-            return ImmutablePair.of((Bitmap) null, true);
-        }
+    }
+
+    @Nullable
+    private Bitmap decodeImage(final Uri uri) {
         final BitmapFactory.Options bfOptions = new BitmapFactory.Options();
         bfOptions.inTempStorage = new byte[16 * 1024];
         bfOptions.inPreferredConfig = Bitmap.Config.RGB_565;
@@ -434,14 +517,13 @@ public class HtmlImage implements Html.ImageGetter {
         final InputStream imageStream = ContentStorage.get().openForRead(uri);
         if (imageStream == null) {
             Log.i("Cannot open file from " + uri + ", maybe it doesnt exist");
-            return ImmutablePair.of((Bitmap) null, false);
+            return null;
         }
         final Bitmap image = BitmapFactory.decodeStream(imageStream, null, bfOptions);
         if (image == null) {
             Log.e("Cannot decode bitmap from " + uri);
-            return ImmutablePair.of((Bitmap) null, false);
         }
-        return ImmutablePair.of(image, freshEnough);
+        return image;
     }
 
     private void setSampleSize(final Uri uri, final BitmapFactory.Options bfOptions) {
@@ -59,6 +59,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -162,8 +164,125 @@ public class Settings {
             .getDefaultSharedPreferences(CgeoApplication.getInstance().getBaseContext());
     static {
         migrateSettings();
+        // the migration might have read some settings already
+        Snapshot.invalidate();
         Log.setDebug(getBoolean(R.string.pref_debug, false));
+        if (sharedPrefs != null) {
+            sharedPrefs.registerOnSharedPreferenceChangeListener(Snapshot.INVALIDATOR);
+        }
+    }
+
+    /**
+     * Immutable copy of the settings read in hot paths, e.g. for every cache, waypoint or map marker. Reading a field
+     * avoids resolving the preference key and looking it up in the shared preferences.
+     * <p>
+     * The snapshot is invalidated whenever one of its preferences changes and rebuilt on the next access. Get it once
+     * through {@link #getSnapshot()} before looping over many items.
+     */
+    public static final class Snapshot {
+
+        /**
+         * invalidates the snapshot on changes made outside of this class, e.g. by the preference screens. It must be
+         * strongly referenced, as the shared preferences only keep a weak reference to their listeners.
+         */
+        private static final SharedPreferences.OnSharedPreferenceChangeListener INVALIDATOR = (preferences, key) -> invalidate(key);
+
+        private static final AtomicLong GENERATION = new AtomicLong();
+        private static final AtomicReference<Snapshot> CURRENT = new AtomicReference<>();
+
+        private final long generation;
+
+        public final boolean excludeMine;
+        public final boolean excludeFound;
+        public final boolean excludeDisabled;
+        public final boolean excludeArchived;
+        public final boolean excludeOfflineLog;
+        public final boolean excludeWpOriginal;
+        public final boolean excludeWpParking;
+        public final boolean excludeWpVisited;
+        public final boolean bigSmileysOnMap;
+        public final boolean globalWpExtractionDisabled;
+        public final boolean showCircles;
+        public final int wayPointsThreshold;
+
+        /**
+         * preference keys of the snapshot, resolved once on the first use of the snapshot
+         */
+        private static final class Keys {
+            static final String EXCLUDE_MINE = getKey(R.string.pref_excludemine);
+            static final String EXCLUDE_FOUND = getKey(R.string.pref_excludefound);
+            static final String EXCLUDE_DISABLED = getKey(R.string.pref_excludedisabled);
+            static final String EXCLUDE_ARCHIVED = getKey(R.string.pref_excludearchived);
+            static final String EXCLUDE_OFFLINE_LOG = getKey(R.string.pref_excludeofflinelog);
+            static final String EXCLUDE_WP_ORIGINAL = getKey(R.string.pref_excludeWpOriginal);
+            static final String EXCLUDE_WP_PARKING = getKey(R.string.pref_excludeWpParking);
+            static final String EXCLUDE_WP_VISITED = getKey(R.string.pref_excludeWpVisited);
+            static final String BIG_SMILEYS_ON_MAP = getKey(R.string.pref_bigSmileysOnMap);
+            static final String GLOBAL_WP_EXTRACTION_DISABLE = getKey(R.string.pref_global_wp_extraction_disable);
+            static final String SHOW_CIRCLES = getKey(R.string.pref_showCircles);
+            static final String SHOW_WAYPOINTS_THRESHOLD = getKey(R.string.pref_showwaypointsthreshold);
+            static final int WAYPOINTS_THRESHOLD_DEFAULT = getKeyInt(R.integer.waypoint_threshold_default);
+
+            static final Set<String> ALL = new HashSet<>(Arrays.asList(EXCLUDE_MINE, EXCLUDE_FOUND, EXCLUDE_DISABLED, EXCLUDE_ARCHIVED,
+                    EXCLUDE_OFFLINE_LOG, EXCLUDE_WP_ORIGINAL, EXCLUDE_WP_PARKING, EXCLUDE_WP_VISITED, BIG_SMILEYS_ON_MAP,
+                    GLOBAL_WP_EXTRACTION_DISABLE, SHOW_CIRCLES, SHOW_WAYPOINTS_THRESHOLD));
+
+            private Keys() {
+                // holder of constants
+            }
+        }
+
+        private Snapshot(final long generation) {
+            this.generation = generation;
+            excludeMine = getBooleanDirect(Keys.EXCLUDE_MINE, false);
+            excludeFound = getBooleanDirect(Keys.EXCLUDE_FOUND, false);
+            excludeDisabled = getBooleanDirect(Keys.EXCLUDE_DISABLED, false);
+            excludeArchived = getBooleanDirect(Keys.EXCLUDE_ARCHIVED, excludeDisabled);
+            excludeOfflineLog = getBooleanDirect(Keys.EXCLUDE_OFFLINE_LOG, false);
+            excludeWpOriginal = getBooleanDirect(Keys.EXCLUDE_WP_ORIGINAL, false);
+            excludeWpParking = getBooleanDirect(Keys.EXCLUDE_WP_PARKING, false);
+            excludeWpVisited = getBooleanDirect(Keys.EXCLUDE_WP_VISITED, false);
+            bigSmileysOnMap = getBooleanDirect(Keys.BIG_SMILEYS_ON_MAP, false);
+            globalWpExtractionDisabled = getBooleanDirect(Keys.GLOBAL_WP_EXTRACTION_DISABLE, false);
+            showCircles = getBooleanDirect(Keys.SHOW_CIRCLES, false);
+            wayPointsThreshold = sharedPrefs == null ? Keys.WAYPOINTS_THRESHOLD_DEFAULT : sharedPrefs.getInt(Keys.SHOW_WAYPOINTS_THRESHOLD, Keys.WAYPOINTS_THRESHOLD_DEFAULT);
+        }
+
+        private static void invalidate() {
+            GENERATION.incrementAndGet();
+        }
+
+        /**
+         * invalidates the snapshot if the changed preference is part of it
+         *
+         * @param key changed preference, {@code null} if all preferences were removed
+         */
+        private static void invalidate(@Nullable final String key) {
+            if (key == null || Keys.ALL.contains(key)) {
+                invalidate();
+            }
+        }
+
+        @NonNull
+        private static Snapshot get() {
+            final Snapshot current = CURRENT.get();
+            final long generation = GENERATION.get();
+            if (current != null && current.generation == generation) {
+                return current;
+            }
+            // a snapshot built while a preference changes carries the old generation and gets replaced on the next access
+            final Snapshot snapshot = new Snapshot(generation);
+            CURRENT.compareAndSet(current, snapshot);
+            return snapshot;
+        }
+    }
 
+    /**
+     * Get the current snapshot of the settings used in hot paths.
+     */
+    @NonNull
+    public static Snapshot getSnapshot() {
+        return Snapshot.get();
     }
 
     /**
@@ -395,7 +514,11 @@ public class Settings {
     }
 
     private static boolean getBoolean(final int prefKeyId, final boolean defaultValue) {
-        return sharedPrefs == null ? defaultValue : sharedPrefs.getBoolean(getKey(prefKeyId), defaultValue);
+        return getBooleanDirect(getKey(prefKeyId), defaultValue);
+    }
+
+    private static boolean getBooleanDirect(final String prefKey, final boolean defaultValue) {
+        return sharedPrefs == null ? defaultValue : sharedPrefs.getBoolean(prefKey, defaultValue);
     }
 
     private static float getFloat(final int prefKeyId, final float defaultValue) {
@@ -413,6 +536,7 @@ public class Settings {
         final SharedPreferences.Editor edit = sharedPrefs.edit();
         edit.putString(prefKey, value);
         edit.apply();
+        Snapshot.invalidate(prefKey);
     }
 
     private static void putStringList(final int prefKeyId, final Iterable<?> elements) {
@@ -423,36 +547,44 @@ public class Settings {
         if (sharedPrefs == null) {
             return;
         }
+        final String prefKey = getKey(prefKeyId);
         final SharedPreferences.Editor edit = sharedPrefs.edit();
-        edit.putBoolean(getKey(prefKeyId), value);
+        edit.putBoolean(prefKey, value);
         edit.apply();
+        Snapshot.invalidate(prefKey);
     }
 
     private static void putInt(final int prefKeyId, final int value) {
         if (sharedPrefs == null) {
             return;
         }
+        final String prefKey = getKey(prefKeyId);
         final SharedPreferences.Editor edit = sharedPrefs.edit();
-        edit.putInt(getKey(prefKeyId), value);
+        edit.putInt(prefKey, value);
         edit.apply();
+        Snapshot.invalidate(prefKey);
     }
 
     private static void putLong(final int prefKeyId, final long value) {
         if (sharedPrefs == null) {
             return;
         }
+        final String prefKey = getKey(prefKeyId);
         final SharedPreferences.Editor edit = sharedPrefs.edit();
-        edit.putLong(getKey(prefKeyId), value);
+        edit.putLong(prefKey, value);
         edit.apply();
+        Snapshot.invalidate(prefKey);
     }
 
     private static void putFloat(final int prefKeyId, final float value) {
         if (sharedPrefs == null) {
             return;
         }
+        final String prefKey = getKey(prefKeyId);
         final SharedPreferences.Editor edit = sharedPrefs.edit();
-        edit.putFloat(getKey(prefKeyId), value);
+        edit.putFloat(prefKey, value);
         edit.apply();
+        Snapshot.invalidate(prefKey);
     }
 
     private static void remove(final int prefKeyId) {
@@ -466,6 +598,7 @@ public class Settings {
         final SharedPreferences.Editor edit = sharedPrefs.edit();
         edit.remove(key);
         edit.apply();
+        Snapshot.invalidate(key);
     }
 
     private static boolean contains(final int prefKeyId) {
@@ -749,36 +882,36 @@ public class Settings {
     }
 
     public static boolean isExcludeMyCaches() {
-        return getBoolean(R.string.pref_excludemine, false);
+        return getSnapshot().excludeMine;
     }
 
     public static boolean isExcludeFound() {
-        return getBoolean(R.string.pref_excludefound, false);
+        return getSnapshot().excludeFound;
     }
 
     public static boolean isExcludeOfflineLog() {
-        return getBoolean(R.string.pref_excludeofflinelog, false);
+        return getSnapshot().excludeOfflineLog;
     }
 
 
     public static boolean isExcludeDisabledCaches() {
-        return getBoolean(R.string.pref_excludedisabled, false);
+        return getSnapshot().excludeDisabled;
     }
 
     public static boolean isExcludeArchivedCaches() {
-        return getBoolean(R.string.pref_excludearchived, isExcludeDisabledCaches());
+        return getSnapshot().excludeArchived;
     }
 
     public static boolean isExcludeWpOriginal() {
-        return getBoolean(R.string.pref_excludeWpOriginal, false);
+        return getSnapshot().excludeWpOriginal;
     }
 
     public static boolean isExcludeWpParking() {
-        return getBoolean(R.string.pref_excludeWpParking, false);
+        return getSnapshot().excludeWpParking;
     }
 
     public static boolean isExcludeWpVisited() {
-        return getBoolean(R.string.pref_excludeWpVisited, false);
+        return getSnapshot().excludeWpVisited;
     }
 
     public static boolean isHideTrack() {
@@ -897,6 +1030,13 @@ public class Settings {
         return getInt(R.string.pref_maptrail_length, getKeyInt(R.integer.historytrack_length_default));
     }
 
+    /**
+     * @return caches are shown as clusters on zoom levels below this one, 0 if clustering is disabled
+     */
+    public static int getMapClusterZoom() {
+        return getInt(R.string.pref_map_cluster_zoom, getKeyInt(R.integer.map_cluster_zoom_default));
+    }
+
     public static boolean showListsInCacheList() {
         return getBoolean(R.string.pref_showListsInCacheList, true);
     }
@@ -1191,7 +1331,7 @@ public class Settings {
      * The threshold for the showing of child waypoints
      */
     public static int getWayPointsThreshold() {
-        return getInt(R.string.pref_showwaypointsthreshold, getKeyInt(R.integer.waypoint_threshold_default));
+        return getSnapshot().wayPointsThreshold;
     }
 
     /**
@@ -1245,7 +1385,7 @@ public class Settings {
     }
 
     public static boolean isBigSmileysEnabled() {
-        return getBoolean(R.string.pref_bigSmileysOnMap, false);
+        return getSnapshot().bigSmileysOnMap;
     }
 
     /**
@@ -1350,7 +1490,7 @@ public class Settings {
     }
 
     public static boolean isGlobalWpExtractionDisabled() {
-        return getBoolean(R.string.pref_global_wp_extraction_disable, false);
+        return getSnapshot().globalWpExtractionDisabled;
     }
 
     public static int getLastDetailsPage() {
@@ -1519,7 +1659,7 @@ public class Settings {
     }
 
     public static boolean isShowCircles() {
-        return getBoolean(R.string.pref_showCircles, false);
+        return getSnapshot().showCircles;
     }
 
     public static void setSupersizeDistance(final int supersizeDistance) {
@@ -1898,4 +2038,12 @@ public class Settings {
         return getInt(R.string.pref_list_initial_load_limit, 0);
     }
 
+    /**
+     * @return number of pages in the write-ahead log of the database after which it is automatically checkpointed,
+     * 0 for checkpoints after bulk changes and on close only. No UI, meant for tuning only.
+     */
+    public static int getDbWalAutoCheckpoint() {
+        return getInt(R.string.pref_db_wal_autocheckpoint, 1000);
+    }
+
 }
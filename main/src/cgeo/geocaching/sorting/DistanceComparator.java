@@ -1,5 +1,6 @@
 package cgeo.geocaching.sorting;
 
+import cgeo.geocaching.location.CheapRuler;
 import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.location.Units;
 import cgeo.geocaching.models.Geocache;
@@ -8,7 +9,9 @@ import cgeo.geocaching.storage.SqlBuilder;
 
 import androidx.annotation.NonNull;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -26,13 +29,47 @@ public class DistanceComparator extends AbstractCacheComparator {
     protected void beforeSort(final List<Geocache> list) {
         super.beforeSort(list);
         // calculate all distances only once to avoid costly re-calculation of the same distance during sorting
+        final CheapRuler ruler = new CheapRuler(coords);
         for (final Geocache cache : list) {
-            if (cache.getCoords() != null) {
-                cache.setDistance(coords.distanceTo(cache.getCoords()));
+            final Geopoint cacheCoords = cache.getCoords();
+            if (cacheCoords != null) {
+                cache.setDistance(ruler.distanceTo(cacheCoords));
             }
         }
     }
 
+    /**
+     * Sorts by distance without comparing boxed distances: the (distance, position) pairs are packed into longs and
+     * sorted as primitives. Caches without coordinates are sorted as the farthest ones, in their previous order.
+     */
+    @Override
+    public void sort(final List<Geocache> list, final boolean inverse) {
+        final CheapRuler ruler = new CheapRuler(coords);
+        final Geocache[] caches = list.toArray(new Geocache[0]);
+        final long[] keys = new long[caches.length];
+        for (int i = 0; i < caches.length; i++) {
+            final Geopoint cacheCoords = caches[i].getCoords();
+            final float distance;
+            if (cacheCoords != null) {
+                distance = ruler.distanceTo(cacheCoords);
+                caches[i].setDistance(distance);
+            } else {
+                distance = Float.POSITIVE_INFINITY;
+            }
+            // non-negative floats keep their order as int bits. The position is reversed for an inverse sort, so that
+            // caches at the same distance keep their order once the result is reversed.
+            keys[i] = ((long) Float.floatToIntBits(distance) << 32) | (inverse ? caches.length - 1 - i : i);
+        }
+        Arrays.sort(keys);
+
+        final ListIterator<Geocache> iterator = list.listIterator();
+        for (int i = 0; i < keys.length; i++) {
+            final int position = (int) keys[inverse ? keys.length - 1 - i : i];
+            iterator.next();
+            iterator.set(caches[inverse ? caches.length - 1 - position : position]);
+        }
+    }
+
     public static void updateGlobalGps(final Geopoint gpsPosition) {
         if (gpsPosition != null) {
             DISTANCE_TO_GLOBAL_GPS.coords = gpsPosition;
@@ -2,6 +2,7 @@ package cgeo.geocaching.storage;
 
 import cgeo.geocaching.connector.gc.Tile;
 import cgeo.geocaching.enumerations.CacheType;
+import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.location.Viewport;
 import cgeo.geocaching.models.Geocache;
 import cgeo.geocaching.storage.DataStore.StorageLocation;
@@ -10,28 +11,86 @@ import cgeo.geocaching.utils.LeastRecentlyUsedMap.RemoveHandler;
 import cgeo.geocaching.utils.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * Cache for Caches. Every cache is stored in memory while c:geo is active to
  * speed up the app and to minimize network requests - which are slow.
+ *
+ * Caches are additionally indexed by a spatial grid on their coordinates at the time they are put into the cache,
+ * so viewport queries only have to look at the caches of the grid cells overlapping the viewport. Viewport queries
+ * only need a read lock and do not block each other.
  */
 public class CacheCache {
 
-    private static final int MAX_CACHED_CACHES = 1000;
+    /** estimated average memory used by a fully loaded cache (description, logs, waypoints) */
+    private static final long ESTIMATED_BYTES_PER_CACHE = 20 * 1024;
+    private static final int MIN_CACHED_CACHES = 500;
+    private static final int MAX_CACHED_CACHES = 5000;
+    /** edge length of a grid cell of the spatial index: 0.05 degrees, ~5 km */
+    private static final int CELL_SIZE_E6 = 50000;
+
     private final LeastRecentlyUsedMap<String, Geocache> cachesCache;
+    /** spatial index: caches by grid cell */
+    private final Map<Long, Map<String, Geocache>> grid = new HashMap<>();
+    /** grid cell each indexed cache has been put into */
+    private final Map<String, Long> cellByGeocode = new HashMap<>();
+    /** write lock is also needed for reading single caches, as the LRU map reorders entries on access */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     public CacheCache() {
-        cachesCache = new LeastRecentlyUsedMap.LruCache<>(MAX_CACHED_CACHES);
+        this(getCapacityForMemoryBudget(Runtime.getRuntime().maxMemory() / 16));
+    }
+
+    public CacheCache(final int maxCachedCaches) {
+        cachesCache = new LeastRecentlyUsedMap.LruCache<String, Geocache>(maxCachedCaches) {
+            private static final long serialVersionUID = 1826449785433157239L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Geocache> eldest) {
+                final boolean remove = super.removeEldestEntry(eldest);
+                if (remove) {
+                    // eviction does not go through remove(), so the remove handler is not called
+                    removeFromIndex(eldest.getKey());
+                }
+                return remove;
+            }
+        };
         cachesCache.setRemoveHandler(new CacheRemoveHandler());
     }
 
-    public synchronized void removeAllFromCache() {
-        cachesCache.clear();
+    /**
+     * @param memoryBudget memory (in bytes) which may be used by the cached caches
+     * @return the number of caches to keep in memory
+     */
+    static int getCapacityForMemoryBudget(final long memoryBudget) {
+        return (int) Math.max(MIN_CACHED_CACHES, Math.min(MAX_CACHED_CACHES, memoryBudget / ESTIMATED_BYTES_PER_CACHE));
+    }
+
+    public int getMaxCachedCaches() {
+        return cachesCache.getMaxEntries();
+    }
+
+    public void removeAllFromCache() {
+        final Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            cachesCache.clear();
+            grid.clear();
+            cellByGeocode.clear();
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
@@ -42,8 +101,12 @@ public class CacheCache {
         if (StringUtils.isBlank(geocode)) {
             throw new IllegalArgumentException("geocode must not be empty");
         }
-        synchronized (this) {
+        final Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
             cachesCache.remove(geocode);
+        } finally {
+            writeLock.unlock();
         }
     }
 
@@ -61,9 +124,15 @@ public class CacheCache {
         if (StringUtils.isBlank(cache.getGeocode())) {
             throw new IllegalArgumentException("geocode must not be empty");
         }
-        synchronized (this) {
+        final Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
             cache.addStorageLocation(StorageLocation.CACHE);
+            // index first, the put may evict the eldest entry and remove it from the index
+            addToIndex(cache);
             cachesCache.put(cache.getGeocode(), cache);
+        } finally {
+            writeLock.unlock();
         }
     }
 
@@ -76,37 +145,117 @@ public class CacheCache {
         if (StringUtils.isBlank(geocode)) {
             throw new IllegalArgumentException("geocode must not be empty");
         }
-        synchronized (this) {
+        final Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
             return cachesCache.get(geocode);
+        } finally {
+            writeLock.unlock();
         }
     }
 
-    public synchronized Set<String> getInViewport(final Viewport viewport, final CacheType cacheType) {
+    public Set<String> getInViewport(final Viewport viewport, final CacheType cacheType) {
         final Set<String> geocodes = new HashSet<>();
-        for (final Geocache cache : cachesCache.values()) {
-            if (cache.getCoords() == null) {
-                // FIXME: this kludge must be removed, it is only present to help us debug the cases where
-                // caches contain null coordinates.
-                Log.w("CacheCache.getInViewport: got cache with null coordinates: " + cache.getGeocode());
-                continue;
+        final int minLatCell = getCell(viewport.bottomLeft.getLatitudeE6());
+        final int maxLatCell = getCell(viewport.topRight.getLatitudeE6());
+        final int minLonCell = getCell(viewport.bottomLeft.getLongitudeE6());
+        final int maxLonCell = getCell(viewport.topRight.getLongitudeE6());
+        final long cellCount = (long) (maxLatCell - minLatCell + 1) * (maxLonCell - minLonCell + 1);
+
+        final Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            if (cellCount >= grid.size()) {
+                // large viewport: cheaper to check all occupied cells
+                for (final Map<String, Geocache> cell : grid.values()) {
+                    addInViewport(cell, viewport, cacheType, geocodes);
+                }
+            } else {
+                for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                    for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                        addInViewport(grid.get(getCellKey(latCell, lonCell)), viewport, cacheType, geocodes);
+                    }
+                }
             }
+        } finally {
+            readLock.unlock();
+        }
+        return geocodes;
+    }
+
+    private static void addInViewport(@Nullable final Map<String, Geocache> cell, final Viewport viewport, final CacheType cacheType, final Set<String> geocodes) {
+        if (cell == null) {
+            return;
+        }
+        for (final Geocache cache : cell.values()) {
             if (cacheType.contains(cache) && viewport.contains(cache)) {
                 geocodes.add(cache.getGeocode());
             }
         }
-        return geocodes;
+    }
+
+    /**
+     * (re-)index a cache by its current coordinates. Caches without coordinates are not indexed.
+     */
+    private void addToIndex(final Geocache cache) {
+        final String geocode = cache.getGeocode();
+        removeFromIndex(geocode);
+        final Geopoint coords = cache.getCoords();
+        if (coords == null) {
+            // FIXME: this kludge must be removed, it is only present to help us debug the cases where
+            // caches contain null coordinates.
+            Log.w("CacheCache.putCacheInCache: got cache with null coordinates: " + geocode);
+            return;
+        }
+        final long key = getCellKey(getCell(coords.getLatitudeE6()), getCell(coords.getLongitudeE6()));
+        Map<String, Geocache> cell = grid.get(key);
+        if (cell == null) {
+            cell = new HashMap<>();
+            grid.put(key, cell);
+        }
+        cell.put(geocode, cache);
+        cellByGeocode.put(geocode, key);
+    }
+
+    private void removeFromIndex(final String geocode) {
+        final Long key = cellByGeocode.remove(geocode);
+        if (key == null) {
+            return;
+        }
+        final Map<String, Geocache> cell = grid.get(key);
+        if (cell != null) {
+            cell.remove(geocode);
+            if (cell.isEmpty()) {
+                grid.remove(key);
+            }
+        }
+    }
+
+    private static int getCell(final int coordE6) {
+        return (coordE6 < 0 ? coordE6 - CELL_SIZE_E6 + 1 : coordE6) / CELL_SIZE_E6; // round towards negative infinity
+    }
+
+    private static long getCellKey(final int latCell, final int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
     }
 
     @Override
     @NonNull
-    public synchronized String toString() {
-        return StringUtils.join(cachesCache.keySet(), ' ');
+    public String toString() {
+        final Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return StringUtils.join(cachesCache.keySet(), ' ');
+        } finally {
+            readLock.unlock();
+        }
     }
 
-    private static class CacheRemoveHandler implements RemoveHandler<Geocache> {
+    private class CacheRemoveHandler implements RemoveHandler<Geocache> {
 
         @Override
         public void onRemove(final Geocache removed) {
+            removeFromIndex(removed.getGeocode());
             // FIXME: as above, we sometimes get caches with null coordinates, that may then provoke
             // a NullPointerException down the invocation chain.
             if (removed.getCoords() != null) {
@@ -0,0 +1,123 @@
+package cgeo.geocaching.storage;
+
+import cgeo.geocaching.enumerations.CacheType;
+import cgeo.geocaching.location.Geopoint;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lightweight projection of an ordered list of stored caches.
+ *
+ * Only the few columns needed to size, sort and page through a cache list are kept in parallel primitive arrays
+ * (see {@link DataStore#loadStoredCacheListIndex}), the full caches are loaded on demand by the list using this index.
+ */
+public final class CacheListIndex {
+
+    public static final int FLAG_FOUND = 1;
+    public static final int FLAG_DNF = 2;
+    public static final int FLAG_DISABLED = 4;
+    public static final int FLAG_ARCHIVED = 8;
+
+    /** marker for caches without coordinates */
+    private static final int NO_COORDS = Integer.MIN_VALUE;
+
+    private final String[] geocodes;
+    private final String[] names;
+    private final CacheType[] types;
+    private final int[] latitudesE6;
+    private final int[] longitudesE6;
+    private final float[] difficulties;
+    private final float[] terrains;
+    private final byte[] flags;
+    private int size = 0;
+
+    CacheListIndex(final int capacity) {
+        geocodes = new String[capacity];
+        names = new String[capacity];
+        types = new CacheType[capacity];
+        latitudesE6 = new int[capacity];
+        longitudesE6 = new int[capacity];
+        difficulties = new float[capacity];
+        terrains = new float[capacity];
+        flags = new byte[capacity];
+    }
+
+    void add(@NonNull final String geocode, final String name, final CacheType type, @Nullable final Geopoint coords, final float difficulty, final float terrain, final int flags) {
+        geocodes[size] = geocode;
+        names[size] = name;
+        types[size] = type;
+        latitudesE6[size] = coords == null ? NO_COORDS : coords.getLatitudeE6();
+        longitudesE6[size] = coords == null ? NO_COORDS : coords.getLongitudeE6();
+        difficulties[size] = difficulty;
+        terrains[size] = terrain;
+        this.flags[size] = (byte) flags;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @NonNull
+    public String getGeocode(final int index) {
+        return geocodes[index];
+    }
+
+    public String getName(final int index) {
+        return names[index];
+    }
+
+    public CacheType getType(final int index) {
+        return types[index];
+    }
+
+    public boolean hasCoords(final int index) {
+        return latitudesE6[index] != NO_COORDS;
+    }
+
+    public int getLatitudeE6(final int index) {
+        return latitudesE6[index];
+    }
+
+    public int getLongitudeE6(final int index) {
+        return longitudesE6[index];
+    }
+
+    @Nullable
+    public Geopoint getCoords(final int index) {
+        return hasCoords(index) ? Geopoint.forE6(latitudesE6[index], longitudesE6[index]) : null;
+    }
+
+    public float getDifficulty(final int index) {
+        return difficulties[index];
+    }
+
+    public float getTerrain(final int index) {
+        return terrains[index];
+    }
+
+    public boolean hasFlag(final int index, final int flag) {
+        return (flags[index] & flag) != 0;
+    }
+
+    /**
+     * @return the index of the cache with the given geocode (ignoring case), -1 if it is not part of the list
+     */
+    public int indexOf(@Nullable final String geocode) {
+        for (int i = 0; i < size; i++) {
+            if (geocodes[i].equalsIgnoreCase(geocode)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @NonNull
+    public List<String> getGeocodes() {
+        return Arrays.asList(geocodes).subList(0, size);
+    }
+}
@@ -81,6 +81,8 @@ import androidx.annotation.StringRes;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -101,13 +103,16 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.core.SingleOnSubscribe;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -117,6 +122,7 @@ public class DataStore {
 
     public static final String DB_FILE_NAME = "data";
     public static final String DB_FILE_NAME_BACKUP = "cgeo.sqlite";
+    public static final String DB_FILE_NAME_BACKUP_COMPRESSED = DB_FILE_NAME_BACKUP + ".gz";
     public static final String DB_FILE_CORRUPTED_EXTENSION = ".corrupted";
 
     public enum DBRestoreResult {
@@ -218,8 +224,17 @@ public class DataStore {
      * holds the column indexes of the cache table to avoid lookups
      */
     private static final CacheCache cacheCache = new CacheCache();
+    /** Maximum number of geocodes queried at once when loading caches, keeps the generated IN clauses at a sane length */
+    private static final int LOAD_CACHES_BATCH_SIZE = 500;
     private static volatile SQLiteDatabase database = null;
-    private static final int dbVersion = 95;
+    /** buffers the trail points recorded by the map, see {@link #saveTrailpoint(Location)} */
+    private static final TrailPointWriter trailPointWriter = new TrailPointWriter(DataStore::saveTrailpoints);
+    /** index for the search suggestions of caches, built on first use, see {@link #getSuggestionIndex()} */
+    private static volatile SearchSuggestionIndex suggestionIndex = null;
+    /** write transactions begun and total time spent waiting for the write lock, see {@link #beginTransaction(ContextLogger)} */
+    private static final AtomicLong transactionCount = new AtomicLong();
+    private static final AtomicLong transactionLockWaitNanos = new AtomicLong();
+    private static final int dbVersion = 97;
     public static final int customListIdOffset = 10;
 
     /**
@@ -250,7 +265,9 @@ public class DataStore {
         92, // add emoji id to cg_caches
         93,  // add emoji id to cg_lists
         94,  // add scale to offline log images
-        95   // add table to store custom filters
+        95,  // add table to store custom filters
+        96,  // add R*Tree spatial index for caches and waypoints
+        97   // add full text index for cache descriptions, personal notes and logs
     ));
 
     @NonNull private static final String dbTableCaches = "cg_caches";
@@ -272,6 +289,10 @@ public class DataStore {
     @NonNull private static final String dbTableExtension = "cg_extension";
     @NonNull private static final String dbTableFilters = "cg_filters";
     @NonNull private static final String dbTableSequences = "sqlite_sequence";
+    @NonNull private static final String dbTableCachesSpatial = "cg_caches_spatial";
+    @NonNull private static final String dbTableWaypointsSpatial = "cg_waypoints_spatial";
+    @NonNull private static final String dbTableCachesFullText = "cg_caches_fts";
+    @NonNull private static final String dbTableLogsFullText = "cg_logs_fts";
     @NonNull private static final String dbCreateCaches = ""
             + "CREATE TABLE IF NOT EXISTS " + dbTableCaches + " ("
             + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
@@ -502,6 +523,98 @@ public class DataStore {
         + "treeconfig TEXT"
         + "); ";
 
+    /**
+     * R*Tree virtual tables mirroring the coordinates of caches and waypoints (rowid of the R*Tree = _id of the source table).
+     * They are kept in sync by triggers, so every write to the source tables (e.g. storeIntoDatabase, saveWaypointInternal,
+     * removeCaches) automatically updates the index.
+     */
+    private static final String dbCreateSpatialTemplate
+        = "CREATE VIRTUAL TABLE IF NOT EXISTS %1$s USING rtree (id, minLatitude, maxLatitude, minLongitude, maxLongitude)";
+    private static final String[] dbCreateSpatialTriggerTemplates = {
+        "CREATE TRIGGER IF NOT EXISTS %1$s_insert AFTER INSERT ON %2$s WHEN NEW.latitude IS NOT NULL AND NEW.longitude IS NOT NULL BEGIN"
+            + " INSERT OR REPLACE INTO %1$s VALUES (NEW._id, NEW.latitude, NEW.latitude, NEW.longitude, NEW.longitude); END",
+        "CREATE TRIGGER IF NOT EXISTS %1$s_update AFTER UPDATE OF _id, latitude, longitude ON %2$s BEGIN"
+            + " DELETE FROM %1$s WHERE id = OLD._id;"
+            + " INSERT OR REPLACE INTO %1$s SELECT NEW._id, NEW.latitude, NEW.latitude, NEW.longitude, NEW.longitude WHERE NEW.latitude IS NOT NULL AND NEW.longitude IS NOT NULL; END",
+        "CREATE TRIGGER IF NOT EXISTS %1$s_delete AFTER DELETE ON %2$s BEGIN"
+            + " DELETE FROM %1$s WHERE id = OLD._id; END"
+    };
+
+    /** whether the R*Tree spatial index could be created (SQLite may be compiled without R*Tree support) */
+    private static volatile boolean spatialIndexAvailable = false;
+
+    /**
+     * FTS4 tables indexing the large text columns of caches and logs (docid of the FTS table = _id of the source table).
+     * They are external content tables (the text itself is only stored in the source table) and kept in sync by triggers.
+     * The old content has to be removed from the index before it is changed in the source table. Updates only touch the
+     * index if one of the indexed texts really changed, as saving a cache always writes all its columns.
+     */
+    private static final String dbCreateFullTextTemplate
+        = "CREATE VIRTUAL TABLE IF NOT EXISTS %1$s USING fts4(content=\"%2$s\", %3$s, tokenize=unicode61)";
+    private static final String[] dbCreateFullTextTriggerTemplates = {
+        "CREATE TRIGGER IF NOT EXISTS %1$s_before_update BEFORE UPDATE OF %3$s ON %2$s WHEN %5$s BEGIN"
+            + " DELETE FROM %1$s WHERE docid = OLD._id; END",
+        "CREATE TRIGGER IF NOT EXISTS %1$s_before_delete BEFORE DELETE ON %2$s BEGIN"
+            + " DELETE FROM %1$s WHERE docid = OLD._id; END",
+        "CREATE TRIGGER IF NOT EXISTS %1$s_after_update AFTER UPDATE OF %3$s ON %2$s WHEN %5$s BEGIN"
+            + " INSERT INTO %1$s (docid, %3$s) VALUES (NEW._id, %4$s); END",
+        "CREATE TRIGGER IF NOT EXISTS %1$s_after_insert AFTER INSERT ON %2$s BEGIN"
+            + " INSERT INTO %1$s (docid, %3$s) VALUES (NEW._id, %4$s); END"
+    };
+    private static final String[] dbFullTextColumnsCaches = { "description", "shortdesc", "personal_note" };
+    private static final String[] dbFullTextColumnsLogs = { "log", "author" };
+
+    /** whether the full text index could be created (SQLite may be compiled without FTS4 or unicode61 support) */
+    private static volatile boolean fullTextIndexAvailable = false;
+
+    /**
+     * Text columns of caches and logs covered by the full text index. A query for a column matches all rows containing
+     * tokens starting with each of the given words (case and diacritics insensitive).
+     */
+    public enum FullTextColumn {
+        CACHE_DESCRIPTION(dbTableCachesFullText, "description"),
+        CACHE_SHORTDESC(dbTableCachesFullText, "shortdesc"),
+        CACHE_PERSONAL_NOTE(dbTableCachesFullText, "personal_note"),
+        LOG_TEXT(dbTableLogsFullText, "log"),
+        LOG_AUTHOR(dbTableLogsFullText, "author");
+
+        private final String table;
+        private final String column;
+
+        FullTextColumn(final String table, final String column) {
+            this.table = table;
+            this.column = column;
+        }
+
+        public static boolean isAvailable() {
+            return fullTextIndexAvailable;
+        }
+
+        /**
+         * @param idColumnExpression expression for the _id column of the source table (cg_caches resp. cg_logs)
+         * @return SQL condition with one parameter, which has to be filled with {@link #getMatchQuery(Collection)}
+         */
+        @NonNull
+        public String getMatchWhere(@NonNull final String idColumnExpression) {
+            return idColumnExpression + " IN (SELECT docid FROM " + table + " WHERE " + table + " MATCH ?)";
+        }
+
+        /**
+         * @param words lower case words consisting of letters and digits only (so they can't be mistaken for query operators)
+         */
+        @NonNull
+        public String getMatchQuery(@NonNull final Collection<String> words) {
+            final StringBuilder sb = new StringBuilder();
+            for (final String word : words) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(column).append(':').append(word).append('*');
+            }
+            return sb.toString();
+        }
+    }
+
     // reminder to myself: when adding a new CREATE TABLE statement:
     // make sure to add it to both onUpgrade() and onCreate()
 
@@ -517,6 +630,73 @@ public class DataStore {
 
     }
 
+    /**
+     * @return journal mode and the time spent waiting for the write lock so far, for diagnostic purposes
+     */
+    @NonNull
+    public static String getLockWaitInfo() {
+        init();
+        final long count = transactionCount.get();
+        final long waitMillis = TimeUnit.NANOSECONDS.toMillis(transactionLockWaitNanos.get());
+        return (database != null && database.isWriteAheadLoggingEnabled() ? "WAL" : "rollback journal")
+            + ", write transactions: " + count + ", lock wait: " + waitMillis + "ms"
+            + (count > 0 ? " (avg " + String.format(Locale.US, "%.2f", (double) waitMillis / count) + "ms)" : "");
+    }
+
+    /**
+     * Begins a write transaction, measuring the time waited for other writers to finish their transactions. With write-ahead
+     * logging readers run on their own connections and neither wait for writers nor block them, so this is the remaining
+     * lock contention of the database.
+     *
+     * @param cLog optional logger to add the time waited to
+     */
+    private static void beginTransaction(@Nullable final ContextLogger cLog) {
+        final long start = System.nanoTime();
+        database.beginTransaction();
+        final long waited = System.nanoTime() - start;
+        transactionCount.incrementAndGet();
+        transactionLockWaitNanos.addAndGet(waited);
+        if (cLog != null) {
+            cLog.add("lockWait:%dms", TimeUnit.NANOSECONDS.toMillis(waited));
+        }
+    }
+
+    private static void beginTransaction() {
+        beginTransaction(null);
+    }
+
+    /**
+     * Transfers the content of the write-ahead log into the database file, without blocking readers or writers.
+     * Called after bulk changes, in addition to the automatic checkpoints configured by {@link Settings#getDbWalAutoCheckpoint()}.
+     */
+    public static void checkpointDatabase() {
+        init();
+        if (!database.isWriteAheadLoggingEnabled()) {
+            return;
+        }
+        try (ContextLogger cLog = new ContextLogger(Log.LogLevel.DEBUG, "DataStore.checkpointDatabase()");
+             Cursor cursor = database.rawQuery("PRAGMA wal_checkpoint(PASSIVE)", null)) {
+            if (cursor.moveToFirst()) {
+                // busy flag, pages in log, pages checkpointed
+                cLog.add("busy:%d, log:%d, checkpointed:%d", cursor.getInt(0), cursor.getInt(1), cursor.getInt(2));
+            }
+        } catch (final Exception e) {
+            Log.w("DataStore.checkpointDatabase: checkpoint failed", e);
+        }
+    }
+
+    /**
+     * Remove the write-ahead log and its index of a closed database, they must not be applied to a replaced database file.
+     */
+    private static void deleteWalFiles(@NonNull final File dbFile) {
+        for (final String suffix : new String[] { "-wal", "-shm" }) {
+            final File file = new File(dbFile.getPath() + suffix);
+            if (file.exists() && !FileUtils.delete(file)) {
+                Log.w("DataStore: could not delete " + file);
+            }
+        }
+    }
+
     public static boolean versionsAreCompatible(final SQLiteDatabase databaseToCheck, final int oldVersion, final int newVersion) {
         if (newVersion < oldVersion) {
             final Set<Integer> downgradeableVersions = DBDowngradeableVersions.load(databaseToCheck);
@@ -837,20 +1017,52 @@ public class DataStore {
 
         cacheCache.removeAllFromCache();
         PreparedStatement.clearPreparedStatements();
+        suggestionIndex = null;
         database.close();
         database = null;
     }
 
+    /**
+     * Writes a compressed backup of the database while it stays open, see {@link DatabaseBackup}.
+     * The database is only closed during the backup if the SQLite version can't write an online snapshot.
+     */
     public static Uri backupDatabaseInternal(final Folder backupDir) {
+        trailPointWriter.flush();
 
-        closeDb();
-        final Uri uri = ContentStorage.get().copy(Uri.fromFile(databasePath()), backupDir, FileNameCreator.forName(DB_FILE_NAME_BACKUP), false);
-        init();
-
-        if (uri == null) {
+        final Uri uri = ContentStorage.get().create(backupDir, DB_FILE_NAME_BACKUP_COMPRESSED);
+        final OutputStream out = uri == null ? null : ContentStorage.get().openForWrite(uri);
+        if (out == null) {
             Log.e("Database could not be copied to " + backupDir.toUserDisplayableString());
             return null;
         }
+        final File snapshot = ContentStorage.get().createTempFile();
+        boolean success = false;
+        try (ContextLogger cLog = new ContextLogger("DataStore.backupDatabaseInternal")) {
+            if (snapshot != null && DatabaseBackup.writeSnapshot(databasePath(), snapshot)) {
+                cLog.add("snapshot: %d bytes", snapshot.length());
+                DatabaseBackup.compress(snapshot, out);
+            } else {
+                closeDb();
+                try {
+                    DatabaseBackup.compress(databasePath(), out);
+                } finally {
+                    init();
+                }
+            }
+            success = true;
+        } catch (final IOException e) {
+            Log.e("Database could not be copied to " + backupDir.toUserDisplayableString(), e);
+        } finally {
+            IOUtils.closeQuietly(out);
+            if (snapshot != null) {
+                FileUtils.deleteIgnoringFailure(snapshot);
+            }
+        }
+
+        if (!success) {
+            ContentStorage.get().delete(uri);
+            return null;
+        }
         Log.i("Database was copied to " + backupDir.toUserDisplayableString());
         return uri;
     }
@@ -870,6 +1082,7 @@ public class DataStore {
 
             final File source = databasePath();
             final File target = databaseAlternatePath();
+            deleteWalFiles(target);
             if (!FileUtils.copy(source, target)) {
                 Log.e("Database could not be moved to " + target);
                 init();
@@ -878,6 +1091,7 @@ public class DataStore {
             if (!FileUtils.delete(source)) {
                 Log.e("Original database could not be deleted during move");
             }
+            deleteWalFiles(source);
             Settings.setDbOnSDCard(!Settings.isDbOnSDCard());
             Log.i("Database was moved to " + target);
 
@@ -908,16 +1122,30 @@ public class DataStore {
     public static String restoreDatabaseInternal(final Context context, final Uri databaseUri) {
 
         final File tmpFile = ContentStorage.get().writeUriToTempFile(databaseUri, "backup_db.tmp");
+        File backupFile = tmpFile;
         DBRestoreResult result = DBRestoreResult.RESTORE_FAILED_GENERAL;
+        if (tmpFile == null) {
+            Log.e("Could not copy database backup " + databaseUri + " to a temporary file");
+            return context.getString(result.res);
+        }
         try {
-            final SQLiteDatabase backup = SQLiteDatabase.openDatabase(tmpFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+            if (DatabaseBackup.isCompressed(tmpFile)) {
+                backupFile = ContentStorage.get().createTempFile();
+                if (backupFile == null) {
+                    Log.e("Could not create temporary file to decompress database backup " + tmpFile.getPath());
+                    return context.getString(result.res);
+                }
+                DatabaseBackup.decompress(tmpFile, backupFile);
+            }
+            final SQLiteDatabase backup = SQLiteDatabase.openDatabase(backupFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
             final int backupDbVersion = backup.getVersion();
             final int expectedDbVersion = DataStore.getExpectedDBVersion();
             if (!DataStore.versionsAreCompatible(backup, backupDbVersion, expectedDbVersion)) {
                 return String.format(context.getString(R.string.init_restore_version_error), expectedDbVersion, backupDbVersion);
             }
             closeDb();
-            result = FileUtils.copy(tmpFile, databasePath()) ? DBRestoreResult.RESTORE_SUCCESSFUL : DBRestoreResult.RESTORE_FAILED_GENERAL;
+            deleteWalFiles(databasePath());
+            result = FileUtils.copy(backupFile, databasePath()) ? DBRestoreResult.RESTORE_SUCCESSFUL : DBRestoreResult.RESTORE_FAILED_GENERAL;
             init();
             if (newlyCreatedDatabase) {
                 result = DBRestoreResult.RESTORE_FAILED_DBRECREATED;
@@ -928,10 +1156,13 @@ public class DataStore {
             } else {
                 Log.e("Could not restore database from " + tmpFile.getPath());
             }
-        } catch (SQLiteException e) {
+        } catch (SQLiteException | IOException e) {
             Log.e("error while restoring database: ", e);
         } finally {
             tmpFile.delete();
+            if (backupFile != null && backupFile != tmpFile) {
+                backupFile.delete();
+            }
         }
         return context.getString(result.res);
     }
@@ -965,6 +1196,12 @@ public class DataStore {
             super(context, databasePath().getPath(), null, dbVersion);
         }
 
+        @Override
+        public void onConfigure(final SQLiteDatabase db) {
+            // readers get connections of their own and are not blocked by write transactions
+            db.enableWriteAheadLogging();
+        }
+
         @Override
         public void onCreate(final SQLiteDatabase db) {
             newlyCreatedDatabase = true;
@@ -988,6 +1225,8 @@ public class DataStore {
             db.execSQL(dbCreateFilters);
 
             createIndices(db, dbVersion);
+            createSpatialIndex(db);
+            createFullTextIndex(db);
         }
 
         private static void createIndices(final SQLiteDatabase db, final int currentVersion) {
@@ -1020,6 +1259,79 @@ public class DataStore {
             }
         }
 
+        /**
+         * Creates (if necessary) and fills the R*Tree spatial index tables for caches and waypoints.
+         * Failure is not fatal, viewport queries then fall back to the plain latitude/longitude indices.
+         */
+        private static void createSpatialIndex(final SQLiteDatabase db) {
+            try {
+                createSpatialIndex(db, dbTableCachesSpatial, dbTableCaches);
+                createSpatialIndex(db, dbTableWaypointsSpatial, dbTableWaypoints);
+            } catch (final SQLException e) {
+                Log.w("[DB] Failed to create spatial index, viewport queries will not use it", e);
+                // don't leave a partially created (and thus possibly outdated) index behind
+                db.execSQL("DROP TABLE IF EXISTS " + dbTableCachesSpatial);
+                db.execSQL("DROP TABLE IF EXISTS " + dbTableWaypointsSpatial);
+            }
+        }
+
+        private static void createSpatialIndex(final SQLiteDatabase db, final String spatialTable, final String sourceTable) {
+            db.execSQL(String.format(dbCreateSpatialTemplate, spatialTable));
+            for (final String trigger : dbCreateSpatialTriggerTemplates) {
+                db.execSQL(String.format(trigger, spatialTable, sourceTable));
+            }
+            // rebuild index content, source table may have been modified by a version without triggers
+            db.execSQL("DELETE FROM " + spatialTable);
+            db.execSQL("INSERT INTO " + spatialTable + " SELECT _id, latitude, latitude, longitude, longitude FROM " + sourceTable
+                    + " WHERE latitude IS NOT NULL AND longitude IS NOT NULL");
+        }
+
+        /**
+         * Creates (if necessary) and fills the full text index tables for caches and logs.
+         * Failure is not fatal, text filters then fall back to LIKE expressions.
+         */
+        private static void createFullTextIndex(final SQLiteDatabase db) {
+            try {
+                createFullTextIndex(db, dbTableCachesFullText, dbTableCaches, dbFullTextColumnsCaches);
+                createFullTextIndex(db, dbTableLogsFullText, dbTableLogs, dbFullTextColumnsLogs);
+            } catch (final SQLException e) {
+                Log.w("[DB] Failed to create full text index, text filters will not use it", e);
+                dropFullTextIndex(db);
+            }
+        }
+
+        private static void createFullTextIndex(final SQLiteDatabase db, final String fullTextTable, final String sourceTable, final String[] columns) {
+            final String columnList = StringUtils.join(columns, ", ");
+            final StringBuilder newValues = new StringBuilder();
+            final StringBuilder changed = new StringBuilder();
+            for (final String column : columns) {
+                newValues.append(newValues.length() > 0 ? ", " : "").append("NEW.").append(column);
+                changed.append(changed.length() > 0 ? " OR " : "").append("OLD.").append(column).append(" IS NOT NEW.").append(column);
+            }
+            db.execSQL(String.format(dbCreateFullTextTemplate, fullTextTable, sourceTable, columnList));
+            for (final String trigger : dbCreateFullTextTriggerTemplates) {
+                db.execSQL(String.format(trigger, fullTextTable, sourceTable, columnList, newValues, changed));
+            }
+            // rebuild index content, source table may have been modified by a version without triggers
+            db.execSQL("INSERT INTO " + fullTextTable + "(" + fullTextTable + ") VALUES('rebuild')");
+        }
+
+        /** drops the full text tables and their triggers. Triggers are removed explicitly, they belong to the source tables. */
+        private static void dropFullTextIndex(final SQLiteDatabase db) {
+            for (final String fullTextTable : new String[] { dbTableCachesFullText, dbTableLogsFullText }) {
+                for (final String trigger : new String[] { "_before_update", "_before_delete", "_after_update", "_after_insert" }) {
+                    db.execSQL("DROP TRIGGER IF EXISTS " + fullTextTable + trigger);
+                }
+                db.execSQL("DROP TABLE IF EXISTS " + fullTextTable);
+            }
+        }
+
+        private static boolean hasTable(final SQLiteDatabase db, final String table) {
+            try (Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?", new String[]{table})) {
+                return cursor.moveToFirst();
+            }
+        }
+
         @Override
         public void onDowngrade(final SQLiteDatabase db, final int oldVersion, final int newVersion) {
             Log.iForce("[DB] Request to downgrade database from ver. " + oldVersion + " to ver. " + newVersion + ": start");
@@ -1593,6 +1905,16 @@ public class DataStore {
                         }
                     }
 
+                    // add R*Tree spatial index for caches and waypoints (errors are handled inside, index is optional)
+                    if (oldVersion < 96) {
+                        createSpatialIndex(db);
+                    }
+
+                    // add full text index for cache descriptions, personal notes and logs (errors are handled inside, index is optional)
+                    if (oldVersion < 97) {
+                        createFullTextIndex(db);
+                    }
+
                 }
 
                 //at the very end of onUpgrade: rewrite downgradeable versions in database
@@ -1621,6 +1943,11 @@ public class DataStore {
             //get user version
             Log.iForce("[DB] Current Database Version: " + db.getVersion());
 
+            configureCheckpoints(db);
+
+            spatialIndexAvailable = hasTable(db, dbTableCachesSpatial) && hasTable(db, dbTableWaypointsSpatial);
+            fullTextIndexAvailable = hasTable(db, dbTableCachesFullText) && hasTable(db, dbTableLogsFullText);
+
             if (firstRun) {
                 sanityChecks(db);
                 // limit number of records for trailHistory
@@ -1634,6 +1961,28 @@ public class DataStore {
             }
         }
 
+        /**
+         * Set the size of the write-ahead log (in pages), after which it is automatically transferred into the database
+         * by the committing writer. 0 disables automatic checkpoints, the log is then only transferred after bulk changes
+         * (see {@link #checkpointDatabase()}) and when the database is closed.
+         */
+        private static void configureCheckpoints(final SQLiteDatabase db) {
+            if (!db.isWriteAheadLoggingEnabled()) {
+                return;
+            }
+            final int autoCheckpointPages = Settings.getDbWalAutoCheckpoint();
+            // checkpoints are done by the writing (primary) connection, which is used inside of transactions
+            db.beginTransaction();
+            try (Cursor cursor = db.rawQuery("PRAGMA wal_autocheckpoint=" + Math.max(0, autoCheckpointPages), null)) {
+                cursor.moveToFirst();
+                Log.iForce("[DB] Write-ahead logging enabled, auto checkpoint after " + cursor.getInt(0) + " pages");
+            } catch (final Exception e) {
+                Log.w("[DB] Failed to configure checkpoints", e);
+            } finally {
+                db.endTransaction();
+            }
+        }
+
         /**
          * Execute sanity checks that should be performed once per application after the database has been
          * opened.
@@ -1698,6 +2047,11 @@ public class DataStore {
             db.execSQL("DROP TABLE IF EXISTS " + dbTableRoute);
             db.execSQL("DROP TABLE IF EXISTS " + dbTableExtension);
             db.execSQL("DROP TABLE IF EXISTS " + dbTableFilters);
+            // spatial index tables must be dropped after their source tables (which also drops the triggers)
+            db.execSQL("DROP TABLE IF EXISTS " + dbTableCachesSpatial);
+            db.execSQL("DROP TABLE IF EXISTS " + dbTableWaypointsSpatial);
+            db.execSQL("DROP TABLE IF EXISTS " + dbTableCachesFullText);
+            db.execSQL("DROP TABLE IF EXISTS " + dbTableLogsFullText);
             // also delete tables which have old table names
             db.execSQL("DROP TABLE IF EXISTS cg_table_route");
             db.execSQL("DROP TABLE IF EXISTS cg_table_extension");
@@ -1731,7 +2085,7 @@ public class DataStore {
     private static long incSequence (final String sequence, final long minValue) {
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         final SQLiteStatement sequenceSelect = PreparedStatement.SEQUENCE_SELECT.getStatement();
         sequenceSelect.bindString(1, sequence);
         try {
@@ -1782,7 +2136,7 @@ public class DataStore {
             for (final File file : files) {
                 if (file.isDirectory()) {
                     final String geocode = file.getName();
-                    if (!HtmlImage.SHARED.equals(geocode)) {
+                    if (!HtmlImage.SHARED.equals(geocode) && !ImageStore.STORE_DIR_NAME.equals(geocode)) {
                         synchronized (select) {
                             select.bindString(1, geocode);
                             if (select.simpleQueryForLong() == 0) {
@@ -1939,7 +2293,7 @@ public class DataStore {
      * Save the cache for set/reset user modified coordinates
      */
     public static void saveUserModifiedCoords(final Geocache cache) {
-        database.beginTransaction();
+        beginTransaction();
 
         final ContentValues values = new ContentValues();
         try {
@@ -1971,6 +2325,22 @@ public class DataStore {
      * @param caches the caches to save in the CacheCache/DB
      */
     public static void saveCaches(final Collection<Geocache> caches, final Set<LoadFlags.SaveFlag> saveFlags) {
+        saveCaches(caches, saveFlags, null);
+    }
+
+    /**
+     * Save/store a batch of caches (e.g. from a file import) together with their logs to the CacheCache and DB.
+     * In contrast to {@link #saveCaches(Collection, Set)} all database writes of the batch are done in one single transaction.
+     * Logs are merged with the already stored logs of a cache.
+     *
+     * @param caches the caches to save in the CacheCache/DB
+     * @param logs logs to be stored, mapped by geocode
+     */
+    public static void saveCachesWithLogs(final Collection<Geocache> caches, @NonNull final Map<String, List<LogEntry>> logs) {
+        saveCaches(caches, EnumSet.of(SaveFlag.DB), logs);
+    }
+
+    private static void saveCaches(final Collection<Geocache> caches, final Set<LoadFlags.SaveFlag> saveFlags, @Nullable final Map<String, List<LogEntry>> logs) {
         if (CollectionUtils.isEmpty(caches)) {
             return;
         }
@@ -1997,6 +2367,7 @@ public class DataStore {
             for (final Geocache cacheFromDatabase : loadCaches(cachesFromDatabase, LoadFlags.LOAD_ALL_DB_ONLY)) {
                 existingCaches.put(cacheFromDatabase.getGeocode(), cacheFromDatabase);
             }
+            cLog.add("loaded:%d", existingCaches.size());
 
             final List<Geocache> toBeStored = new ArrayList<>();
             final List<Geocache> toBeUpdated = new ArrayList<>();
@@ -2025,9 +2396,14 @@ public class DataStore {
                 }
             }
 
-            for (final Geocache geocache : toBeStored) {
-                storeIntoDatabase(geocache);
+            if (logs == null) {
+                for (final Geocache geocache : toBeStored) {
+                    storeIntoDatabase(geocache);
+                }
+            } else {
+                storeIntoDatabaseWithLogs(toBeStored, logs, cLog);
             }
+            cLog.add("stored:%d", toBeStored.size());
 
             for (final Geocache geocache : toBeUpdated) {
                 updateDisabledStatus(geocache);
@@ -2036,6 +2412,80 @@ public class DataStore {
 
     }
 
+    /**
+     * stores the given caches and logs in one single transaction. Every cache is written together with its logs in a savepoint of
+     * its own, so a cache failing to be stored is rolled back completely and does not affect the other caches of the batch.
+     */
+    private static void storeIntoDatabaseWithLogs(final Collection<Geocache> caches, final Map<String, List<LogEntry>> logs, final ContextLogger cLog) {
+        init();
+        final Set<String> failedGeocodes = new HashSet<>();
+        boolean committed = false;
+        beginTransaction(cLog);
+        try {
+            final Set<String> storedGeocodes = new HashSet<>();
+            for (final Geocache cache : caches) {
+                final String geocode = cache.getGeocode();
+                storedGeocodes.add(geocode);
+                if (!runInSavepoint("store_cache", () -> {
+                    storeIntoDatabaseWithoutTransaction(cache);
+                    final List<LogEntry> cacheLogs = logs.get(geocode);
+                    if (cacheLogs != null) {
+                        saveLogsWithoutTransaction(geocode, cacheLogs, false);
+                    }
+                })) {
+                    failedGeocodes.add(geocode);
+                }
+            }
+            // logs of caches which did not need to be stored again
+            for (final Map.Entry<String, List<LogEntry>> entry : logs.entrySet()) {
+                if (!storedGeocodes.contains(entry.getKey())) {
+                    runInSavepoint("store_logs", () -> saveLogsWithoutTransaction(entry.getKey(), entry.getValue(), false));
+                }
+            }
+            database.setTransactionSuccessful();
+            committed = true;
+        } finally {
+            database.endTransaction();
+            if (!committed) {
+                for (final Geocache cache : caches) {
+                    failedGeocodes.add(cache.getGeocode());
+                }
+            }
+            // the memory cache must not hold caches which claim to be stored but were rolled back
+            for (final String geocode : failedGeocodes) {
+                cacheCache.removeCacheFromCache(geocode);
+            }
+        }
+        final List<Geocache> storedCaches = new ArrayList<>(caches.size());
+        for (final Geocache cache : caches) {
+            if (!failedGeocodes.contains(cache.getGeocode())) {
+                storedCaches.add(cache);
+            }
+        }
+        updateSuggestionIndex(storedCaches);
+        cLog.add("failed:%d", failedGeocodes.size());
+    }
+
+    /**
+     * Runs the writes for one item of a batch within a savepoint of the current transaction. If the writes fail, only their
+     * changes are rolled back and the transaction stays usable for the other items.
+     *
+     * @return false if the writes failed and were rolled back
+     */
+    private static boolean runInSavepoint(final String name, final Runnable writes) {
+        database.execSQL("SAVEPOINT " + name);
+        try {
+            writes.run();
+            database.execSQL("RELEASE " + name);
+            return true;
+        } catch (final RuntimeException e) {
+            database.execSQL("ROLLBACK TO " + name);
+            database.execSQL("RELEASE " + name);
+            Log.e("DataStore: rolled back " + name, e);
+            return false;
+        }
+    }
+
     private static boolean updateDisabledStatus(final Geocache cache) {
         cache.addStorageLocation(StorageLocation.DATABASE);
         cacheCache.putCacheInCache(cache);
@@ -2046,7 +2496,7 @@ public class DataStore {
 
         init();
         try {
-            database.beginTransaction();
+            beginTransaction();
             final int rows = database.update(dbTableCaches, values, "geocode = ?", new String[]{cache.getGeocode()});
             if (rows == 1) {
                 database.setTransactionSuccessful();
@@ -2062,6 +2512,29 @@ public class DataStore {
     }
 
     private static boolean storeIntoDatabase(final Geocache cache) {
+        init();
+
+        // try to update record else insert fresh..
+        beginTransaction();
+
+        boolean committed = false;
+        try {
+            storeIntoDatabaseWithoutTransaction(cache);
+            database.setTransactionSuccessful();
+            committed = true;
+        } catch (final Exception e) {
+            Log.e("SaveCache", e);
+        } finally {
+            database.endTransaction();
+        }
+
+        if (committed) {
+            updateSuggestionIndex(Collections.singletonList(cache));
+        }
+        return committed;
+    }
+
+    private static void storeIntoDatabaseWithoutTransaction(final Geocache cache) {
         cache.addStorageLocation(StorageLocation.DATABASE);
         cacheCache.putCacheInCache(cache);
         Log.d("Saving " + cache.toString() + " (" + cache.getLists() + ") to DB");
@@ -2121,34 +2594,32 @@ public class DataStore {
         values.put("owner_guid", cache.getOwnerGuid());
         values.put("emoji", cache.getAssignedEmoji());
 
-        init();
+        saveAttributesWithoutTransaction(cache);
+        saveWaypointsWithoutTransaction(cache);
+        saveSpoilersWithoutTransaction(cache);
+        saveLogCountsWithoutTransaction(cache);
+        saveInventoryWithoutTransaction(cache.getGeocode(), cache.getInventory());
+        saveListsWithoutTransaction(cache);
 
-        // try to update record else insert fresh..
-        database.beginTransaction();
-
-        try {
-            saveAttributesWithoutTransaction(cache);
-            saveWaypointsWithoutTransaction(cache);
-            saveSpoilersWithoutTransaction(cache);
-            saveLogCountsWithoutTransaction(cache);
-            saveInventoryWithoutTransaction(cache.getGeocode(), cache.getInventory());
-            saveListsWithoutTransaction(cache);
+        final int rows = database.update(dbTableCaches, values, "geocode = ?", new String[] { cache.getGeocode() });
+        if (rows == 0) {
+            // cache is not in the DB, insert it
+            /* long id = */
+            database.insert(dbTableCaches, null, values);
+        }
+    }
 
-            final int rows = database.update(dbTableCaches, values, "geocode = ?", new String[] { cache.getGeocode() });
-            if (rows == 0) {
-                // cache is not in the DB, insert it
-                /* long id = */
-                database.insert(dbTableCaches, null, values);
+    /**
+     * Updates the search suggestion index with caches just committed. Must not be called before the commit, as the index
+     * could not be reverted if the transaction is rolled back.
+     */
+    private static void updateSuggestionIndex(final Collection<Geocache> caches) {
+        final SearchSuggestionIndex index = suggestionIndex;
+        if (index != null) {
+            for (final Geocache cache : caches) {
+                index.put(cache.getGeocode(), cache.getName(), cache.getOwnerDisplayName(), cache.getType().id);
             }
-            database.setTransactionSuccessful();
-            return true;
-        } catch (final Exception e) {
-            Log.e("SaveCache", e);
-        } finally {
-            database.endTransaction();
         }
-
-        return false;
     }
 
     private static void saveAttributesWithoutTransaction(final Geocache cache) {
@@ -2192,24 +2663,36 @@ public class DataStore {
     }
 
     /**
-     * Persists the given {@code location} into the database.
+     * Persists the given {@code location} into the database. The location is buffered and written together with
+     * further locations, see {@link TrailPointWriter} for the bounds.
      *
      * @param location a location to save
      */
     public static void saveTrailpoint(final Location location) {
+        trailPointWriter.add(new TrailPointWriter.TrailPoint(location.getLatitude(), location.getLongitude(), location.getAltitude(), System.currentTimeMillis()));
+    }
+
+    /**
+     * Writes the buffered trail points in the background, to be called when recording the trail pauses or stops.
+     */
+    public static void flushTrailpoints() {
+        trailPointWriter.requestFlush();
+    }
+
+    private static void saveTrailpoints(@NonNull final List<TrailPointWriter.TrailPoint> points) {
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             final SQLiteStatement insertTrailpoint = PreparedStatement.INSERT_TRAILPOINT.getStatement();
-            insertTrailpoint.bindDouble(1, location.getLatitude());
-            insertTrailpoint.bindDouble(2, location.getLongitude());
-            insertTrailpoint.bindDouble(3, location.getAltitude());
-            insertTrailpoint.bindLong(4, System.currentTimeMillis());
-            insertTrailpoint.executeInsert();
+            for (final TrailPointWriter.TrailPoint point : points) {
+                insertTrailpoint.bindDouble(1, point.latitude);
+                insertTrailpoint.bindDouble(2, point.longitude);
+                insertTrailpoint.bindDouble(3, point.altitude);
+                insertTrailpoint.bindLong(4, point.timestamp);
+                insertTrailpoint.executeInsert();
+            }
             database.setTransactionSuccessful();
-        } catch (final Exception e) {
-            Log.e("Updating trailHistory db failed", e);
         } finally {
             database.endTransaction();
         }
@@ -2217,7 +2700,7 @@ public class DataStore {
 
     public static boolean saveWaypoints(final Geocache cache) {
         init();
-        database.beginTransaction();
+        beginTransaction();
         try {
             saveWaypointsWithoutTransaction(cache);
             database.setTransactionSuccessful();
@@ -2297,7 +2780,7 @@ public class DataStore {
 
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         boolean ok = false;
         try {
             final ContentValues values = createWaypointValues(geocode, waypoint);
@@ -2373,7 +2856,7 @@ public class DataStore {
     }
 
     public static void saveLogs(final String geocode, final Iterable<LogEntry> logs, final boolean removeAllExistingLogs) {
-        database.beginTransaction();
+        beginTransaction();
         try {
             saveLogsWithoutTransaction(geocode, logs, removeAllExistingLogs);
             database.setTransactionSuccessful();
@@ -2466,7 +2949,7 @@ public class DataStore {
     public static void saveTrackable(final Trackable trackable) {
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             saveInventoryWithoutTransaction(null, Collections.singletonList(trackable));
             database.setTransactionSuccessful();
@@ -2635,6 +3118,9 @@ public class DataStore {
     /**
      * Load caches.
      *
+     * Caches are loaded in batches of {@link #LOAD_CACHES_BATCH_SIZE} geocodes. For each batch every requested child table
+     * is queried only once, so the number of queries does not depend on the number of caches in a batch.
+     *
      * @return Set of loaded caches. Never null.
      */
     @NonNull
@@ -2652,90 +3138,133 @@ public class DataStore {
 
             init();
 
-            final StringBuilder query = new StringBuilder(QUERY_CACHE_DATA);
-            if (loadFlags.contains(LoadFlag.OFFLINE_LOG)) {
-                query.append(',').append(dbTableLogsOffline).append(".log");
-            }
-
-            query.append(" FROM ").append(dbTableCaches);
-            if (loadFlags.contains(LoadFlag.OFFLINE_LOG)) {
-                query.append(" LEFT OUTER JOIN ").append(dbTableLogsOffline).append(" ON ( ").append(dbTableCaches).append(".geocode == ").append(dbTableLogsOffline).append(".geocode) ");
+            final Set<Geocache> caches = new HashSet<>();
+            int queries = 0;
+            for (final List<String> batch : ListUtils.partition(new ArrayList<>(geocodes), LOAD_CACHES_BATCH_SIZE)) {
+                queries += loadCacheBatch(batch, loadFlags, caches);
             }
 
-            query.append(" WHERE ").append(dbTableCaches).append('.');
-            query.append(whereGeocodeIn(geocodes));
+            cLog.add("q:%d", queries);
+            cLog.addReturnValue("#" + caches.size());
+            return caches;
+        }
+    }
 
-            try (Cursor cursor = database.rawQuery(query.toString(), null)) {
-                final Set<Geocache> caches = new HashSet<>();
-                int logIndex = -1;
+    /**
+     * Loads one batch of caches together with the child data requested by the load flags and adds them to the given result.
+     *
+     * @return number of database queries which were necessary to load the batch
+     */
+    private static int loadCacheBatch(final Collection<String> geocodes, final EnumSet<LoadFlag> loadFlags, final Collection<Geocache> result) {
+        final StringBuilder query = new StringBuilder(QUERY_CACHE_DATA);
+        if (loadFlags.contains(LoadFlag.OFFLINE_LOG)) {
+            query.append(',').append(dbTableLogsOffline).append(".log");
+        }
 
-                while (cursor.moveToNext()) {
-                    final Geocache cache = createCacheFromDatabaseContent(cursor);
+        query.append(" FROM ").append(dbTableCaches);
+        if (loadFlags.contains(LoadFlag.OFFLINE_LOG)) {
+            query.append(" LEFT OUTER JOIN ").append(dbTableLogsOffline).append(" ON ( ").append(dbTableCaches).append(".geocode == ").append(dbTableLogsOffline).append(".geocode) ");
+        }
 
-                    if (loadFlags.contains(LoadFlag.ATTRIBUTES)) {
-                        cache.setAttributes(loadAttributes(cache.getGeocode()));
-                    }
+        query.append(" WHERE ").append(dbTableCaches).append('.');
+        query.append(whereGeocodeIn(geocodes));
 
-                    if (loadFlags.contains(LoadFlag.WAYPOINTS)) {
-                        final List<Waypoint> waypoints = loadWaypoints(cache.getGeocode());
-                        if (CollectionUtils.isNotEmpty(waypoints)) {
-                            cache.setWaypoints(waypoints, false);
-                        }
+        final Map<String, Geocache> caches = new HashMap<>();
+        try (Cursor cursor = database.rawQuery(query.toString(), null)) {
+            int logIndex = -1;
+            while (cursor.moveToNext()) {
+                final Geocache cache = createCacheFromDatabaseContent(cursor);
+                if (loadFlags.contains(LoadFlag.OFFLINE_LOG)) {
+                    if (logIndex < 0) {
+                        logIndex = cursor.getColumnIndex("log");
                     }
+                    cache.setHasLogOffline(!cursor.isNull(logIndex));
+                }
+                caches.put(cache.getGeocode(), cache);
+            }
+        }
+        int queries = 1;
+        if (caches.isEmpty()) {
+            return queries;
+        }
 
-                    if (loadFlags.contains(LoadFlag.SPOILERS)) {
-                        final List<Image> spoilers = loadSpoilers(cache.getGeocode());
-                        cache.setSpoilers(spoilers);
-                    }
+        final Set<String> loadedGeocodes = caches.keySet();
 
-                    if (loadFlags.contains(LoadFlag.LOGS)) {
-                        final Map<LogType, Integer> logCounts = loadLogCounts(cache.getGeocode());
-                        if (MapUtils.isNotEmpty(logCounts)) {
-                            cache.getLogCounts().clear();
-                            cache.getLogCounts().putAll(logCounts);
-                        }
-                    }
+        if (loadFlags.contains(LoadFlag.ATTRIBUTES)) {
+            final Map<String, List<String>> attributes = loadAttributes(loadedGeocodes);
+            queries++;
+            for (final Geocache cache : caches.values()) {
+                cache.setAttributes(attributes.get(cache.getGeocode()));
+            }
+        }
 
-                    if (loadFlags.contains(LoadFlag.INVENTORY)) {
-                        final List<Trackable> inventory = loadInventory(cache.getGeocode());
-                        if (CollectionUtils.isNotEmpty(inventory)) {
-                            cache.setInventory(inventory);
-                        }
-                    }
+        if (loadFlags.contains(LoadFlag.WAYPOINTS)) {
+            final Map<String, List<Waypoint>> waypoints = loadWaypoints(loadedGeocodes);
+            queries++;
+            for (final Map.Entry<String, List<Waypoint>> entry : waypoints.entrySet()) {
+                caches.get(entry.getKey()).setWaypoints(entry.getValue(), false);
+            }
+        }
 
-                    if (loadFlags.contains(LoadFlag.OFFLINE_LOG)) {
-                        if (logIndex < 0) {
-                            logIndex = cursor.getColumnIndex("log");
-                        }
-                        cache.setHasLogOffline(!cursor.isNull(logIndex));
-                    }
-                    cache.addStorageLocation(StorageLocation.DATABASE);
-                    cacheCache.putCacheInCache(cache);
+        if (loadFlags.contains(LoadFlag.SPOILERS)) {
+            final Map<String, List<Image>> spoilers = loadSpoilers(loadedGeocodes);
+            queries++;
+            for (final Geocache cache : caches.values()) {
+                final List<Image> cacheSpoilers = spoilers.get(cache.getGeocode());
+                cache.setSpoilers(cacheSpoilers == null ? new LinkedList<>() : cacheSpoilers);
+            }
+        }
 
-                    caches.add(cache);
+        if (loadFlags.contains(LoadFlag.LOGS)) {
+            final Map<String, List<ImmutablePair<LogType, Integer>>> logCounts = loadLogCounts(loadedGeocodes);
+            queries++;
+            for (final Map.Entry<String, List<ImmutablePair<LogType, Integer>>> entry : logCounts.entrySet()) {
+                final Map<LogType, Integer> cacheLogCounts = caches.get(entry.getKey()).getLogCounts();
+                cacheLogCounts.clear();
+                for (final ImmutablePair<LogType, Integer> logCount : entry.getValue()) {
+                    cacheLogCounts.put(logCount.left, logCount.right);
                 }
+            }
+        }
 
-                final Map<String, Set<Integer>> cacheLists = loadLists(geocodes);
-                for (final Geocache geocache : caches) {
-                    final Set<Integer> listIds = cacheLists.get(geocache.getGeocode());
-                    if (listIds != null) {
-                        geocache.setLists(listIds);
-                    }
-                }
-                cLog.addReturnValue("#" + caches.size());
-                return caches;
+        if (loadFlags.contains(LoadFlag.INVENTORY)) {
+            final Map<String, List<Trackable>> inventory = loadInventory(loadedGeocodes);
+            queries++;
+            for (final Map.Entry<String, List<Trackable>> entry : inventory.entrySet()) {
+                caches.get(entry.getKey()).setInventory(entry.getValue());
             }
         }
-    }
 
+        final Map<String, Set<Integer>> cacheLists = loadLists(loadedGeocodes);
+        queries++;
+        for (final Geocache cache : caches.values()) {
+            final Set<Integer> listIds = cacheLists.get(cache.getGeocode());
+            if (listIds != null) {
+                cache.setLists(listIds);
+            }
+            cache.addStorageLocation(StorageLocation.DATABASE);
+            cacheCache.putCacheInCache(cache);
+            result.add(cache);
+        }
+        return queries;
+    }
 
     /**
-     * Builds a where for a viewport with the size enhanced by 50%.
+     * Builds a where for a viewport with the size enhanced by 50%, using the R*Tree spatial index if it is available.
+     * The R*Tree stores 32 bit floats, so the exact coordinate comparison is kept to filter out false positives.
      */
-
     @NonNull
-    private static StringBuilder buildCoordinateWhere(final String dbTable, final Viewport viewport) {
-        return viewport.resize(1.5).sqlWhere(dbTable);
+    private static StringBuilder buildCoordinateWhere(final String dbTable, final String spatialTable, final Viewport viewport) {
+        final Viewport resized = viewport.resize(1.5);
+        if (!spatialIndexAvailable) {
+            return resized.sqlWhere(dbTable);
+        }
+        return new StringBuilder(dbTable).append("._id IN (SELECT id FROM ").append(spatialTable)
+                .append(" WHERE minLatitude <= ").append(resized.getLatitudeMax())
+                .append(" AND maxLatitude >= ").append(resized.getLatitudeMin())
+                .append(" AND minLongitude <= ").append(resized.getLongitudeMax())
+                .append(" AND maxLongitude >= ").append(resized.getLongitudeMin())
+                .append(") AND ").append(resized.sqlWhere(dbTable));
     }
 
     /**
@@ -2929,19 +3458,54 @@ public class DataStore {
         return waypoint;
     }
 
-    @Nullable
-    private static List<Image> loadSpoilers(final String geocode) {
-        if (StringUtils.isBlank(geocode)) {
-            return null;
+    /**
+     * Queries a child table of cg_caches for several geocodes at once and groups the rows by geocode.
+     * Row order within a geocode follows the given order, at most {@code limitPerGeocode} rows are kept per geocode.
+     */
+    @NonNull
+    private static <T> Map<String, List<T>> queryToGeocodeMap(@NonNull final String table,
+                                                              final String[] columns,
+                                                              final Collection<String> geocodes,
+                                                              final String orderBy,
+                                                              final int limitPerGeocode,
+                                                              final Func1<? super Cursor, ? extends T> func) {
+        final Map<String, List<T>> result = new HashMap<>();
+        if (CollectionUtils.isEmpty(geocodes)) {
+            return result;
+        }
+        init();
+        // geocode is appended as last column so that the column indexes used by func stay valid
+        final String[] columnsWithGeocode = ArrayUtils.add(columns, "geocode");
+        final int geocodeIndex = columns.length;
+        try (Cursor cursor = database.query(table, columnsWithGeocode, whereGeocodeIn(geocodes).toString(), null, null, null, orderBy)) {
+            while (cursor.moveToNext()) {
+                final String geocode = cursor.getString(geocodeIndex);
+                List<T> rows = result.get(geocode);
+                if (rows == null) {
+                    rows = new LinkedList<>();
+                    result.put(geocode, rows);
+                }
+                if (rows.size() < limitPerGeocode) {
+                    rows.add(func.call(cursor));
+                }
+            }
         }
+        return result;
+    }
 
-        return queryToColl(dbTableSpoilers,
-                new String[]{"url", "title", "description"},
-                "geocode = ?",
-                new String[]{geocode},
-                null,
-                "100",
-                new LinkedList<>(),
+    @NonNull
+    private static Map<String, List<String>> loadAttributes(final Collection<String> geocodes) {
+        return queryToGeocodeMap(dbTableAttributes, new String[]{"attribute"}, geocodes, "_id", 100, GET_STRING_0);
+    }
+
+    @NonNull
+    private static Map<String, List<Waypoint>> loadWaypoints(final Collection<String> geocodes) {
+        return queryToGeocodeMap(dbTableWaypoints, WAYPOINT_COLUMNS, geocodes, "_id", Integer.MAX_VALUE, DataStore::createWaypointFromDatabaseContent);
+    }
+
+    @NonNull
+    private static Map<String, List<Image>> loadSpoilers(final Collection<String> geocodes) {
+        return queryToGeocodeMap(dbTableSpoilers, new String[]{"url", "title", "description"}, geocodes, "_id", 100,
                 cursor -> new Image.Builder()
                         .setUrl(cursor.getString(0))
                         .setTitle(cursor.getString(1))
@@ -2949,13 +3513,26 @@ public class DataStore {
                         .build());
     }
 
+    @NonNull
+    private static Map<String, List<ImmutablePair<LogType, Integer>>> loadLogCounts(final Collection<String> geocodes) {
+        return queryToGeocodeMap(dbTableLogCount, new String[]{"type", "count"}, geocodes, null, 100,
+                cursor -> new ImmutablePair<>(LogType.getById(cursor.getInt(0)), cursor.getInt(1)));
+    }
+
+    @NonNull
+    private static Map<String, List<Trackable>> loadInventory(final Collection<String> geocodes) {
+        return queryToGeocodeMap(dbTableTrackables,
+                new String[]{"_id", "updated", "tbcode", "guid", "title", "owner", "released", "goal", "description", "log_date", "log_type", "log_guid"},
+                geocodes, "title COLLATE NOCASE ASC", 100, DataStore::createTrackableFromDatabaseContent);
+    }
+
     /**
      * deletes all but the (up to) five most recent goto history entries
      * @return true, if successful, false otherwise
      */
     public static boolean clearGotoHistory() {
         init();
-        database.beginTransaction();
+        beginTransaction();
         try {
             final String sqlGetMostRecentHistoryWaypoints = "SELECT _id FROM " + dbTableWaypoints + " WHERE geocode='" + InternalConnector.GEOCODE_HISTORY_CACHE + "' ORDER BY _id DESC LIMIT 5";
             final String sqlGetMinIdFromMostRecentHistoryWaypoints = "SELECT MIN(_id) minId FROM (" + sqlGetMostRecentHistoryWaypoints + ")";
@@ -2979,6 +3556,7 @@ public class DataStore {
      */
     @NonNull
     public static ArrayList<TrailHistoryElement> loadTrailHistory() {
+        trailPointWriter.flush();
         final ArrayList<TrailHistoryElement> temp = queryToColl(dbTableTrailHistory,
                 new String[]{"_id", "latitude", "longitude", "altitude", "timestamp"},
                 "latitude IS NOT NULL AND longitude IS NOT NULL",
@@ -2994,6 +3572,7 @@ public class DataStore {
 
     public static TrailHistoryElement[] loadTrailHistoryAsArray() {
         init();
+        trailPointWriter.flush();
         final Cursor cursor = database.query(dbTableTrailHistory, new String[]{"_id", "latitude", "longitude", "altitude", "timestamp"}, "latitude IS NOT NULL AND longitude IS NOT NULL", null, null, null, "_id ASC", null);
         final TrailHistoryElement[] result = new TrailHistoryElement[cursor.getCount()];
         int iPosition = 0;
@@ -3010,7 +3589,8 @@ public class DataStore {
 
     public static boolean clearTrailHistory() {
         init();
-        database.beginTransaction();
+        trailPointWriter.discard();
+        beginTransaction();
 
         try {
             database.delete(dbTableTrailHistory, null, null);
@@ -3051,7 +3631,7 @@ public class DataStore {
     public static void saveIndividualRoute(final Route route) {
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             database.execSQL("DELETE FROM " + dbTableRoute);
             final RouteSegment[] segments = route.getSegments();
@@ -3071,7 +3651,7 @@ public class DataStore {
     public static void saveIndividualRoute(final ArrayList<RouteItem> routeItems) {
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             database.execSQL("DELETE FROM " + dbTableRoute);
             final SQLiteStatement insertRouteItem = PreparedStatement.INSERT_ROUTEITEM.getStatement();
@@ -3100,7 +3680,7 @@ public class DataStore {
     public static void clearIndividualRoute() {
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             database.execSQL("DELETE FROM " + dbTableRoute);
             database.setTransactionSuccessful();
@@ -3200,35 +3780,6 @@ public class DataStore {
         return logCounts;
     }
 
-    @Nullable
-    private static List<Trackable> loadInventory(final String geocode) {
-        if (StringUtils.isBlank(geocode)) {
-            return null;
-        }
-
-        init();
-
-        final List<Trackable> trackables = new ArrayList<>();
-
-        final Cursor cursor = database.query(
-                dbTableTrackables,
-                new String[]{"_id", "updated", "tbcode", "guid", "title", "owner", "released", "goal", "description", "log_date", "log_type", "log_guid"},
-                "geocode = ?",
-                new String[]{geocode},
-                null,
-                null,
-                "title COLLATE NOCASE ASC",
-                "100");
-
-        while (cursor.moveToNext()) {
-            trackables.add(createTrackableFromDatabaseContent(cursor));
-        }
-
-        cursor.close();
-
-        return trackables;
-    }
-
     @Nullable
     public static Trackable loadTrackable(final String geocode) {
         if (StringUtils.isBlank(geocode)) {
@@ -3391,32 +3942,7 @@ public class DataStore {
         try (ContextLogger cLog = new ContextLogger(Log.LogLevel.DEBUG, "DataStore.loadBatchOfStoredGeocodes(coords=%s, type=%s, list=%d)",
                 String.valueOf(coords), String.valueOf(cacheType), listId)) {
 
-            final SqlBuilder sqlBuilder = new SqlBuilder(dbTableCaches, new String[]{"geocode"});
-
-            if (listId == PseudoList.HISTORY_LIST.id) {
-                sqlBuilder.addWhere(" ( visiteddate > 0 OR geocode IN (SELECT geocode FROM " + dbTableLogsOffline + ") )");
-            } else {
-                final String clId = sqlBuilder.getNewTableId();
-                sqlBuilder.addWhere(sqlBuilder.getMainTableId() + ".geocode IN (SELECT " + clId + ".geocode FROM " + dbTableCachesLists + " " + clId + " WHERE list_id " +
-                    (listId != PseudoList.ALL_LIST.id ? "=" + Math.max(listId, 1) : ">= " + StoredList.STANDARD_LIST_ID) + ")");
-            }
-
-            if (cacheType != CacheType.ALL) {
-                sqlBuilder.addWhere("type = '" + cacheType.id + "'");
-            }
-            if (filter != null && filter.getTree() != null) {
-                filter.getTree().addToSql(sqlBuilder);
-                if (!sqlBuilder.allWheresClosed()) {
-                    Log.e("SQL Where not closed in SqlBuilder '" + sqlBuilder + "' for '" + filter + "'");
-                }
-                sqlBuilder.closeAllOpenWheres();
-            }
-            if (sort != null) {
-                sort.addSortToSql(sqlBuilder, sortInverse);
-            }
-            if (coords != null) {
-                sqlBuilder.addOrder(getCoordDiffExpression(coords, null));
-            }
+            final SqlBuilder sqlBuilder = createStoredCachesSqlBuilder(new String[]{"geocode"}, coords, cacheType, listId, filter, sort, sortInverse);
             if (limit > 0) {
                 sqlBuilder.setLimit(limit);
             }
@@ -3431,6 +3957,73 @@ public class DataStore {
         }
     }
 
+    /**
+     * Loads the lightweight index of a stored list (geocode, name, type, coordinates, D/T and state flags of all
+     * caches) in the requested order, without creating any {@link Geocache} objects.
+     */
+    @NonNull
+    public static CacheListIndex loadStoredCacheListIndex(final Geopoint coords, final CacheType cacheType, final int listId, final GeocacheFilter filter, final CacheComparator sort, final boolean sortInverse) {
+        if (cacheType == null) {
+            throw new IllegalArgumentException("cacheType must not be null");
+        }
+        init();
+
+        try (ContextLogger cLog = new ContextLogger(Log.LogLevel.DEBUG, "DataStore.loadStoredCacheListIndex(coords=%s, type=%s, list=%d)",
+                String.valueOf(coords), String.valueOf(cacheType), listId)) {
+
+            final SqlBuilder sqlBuilder = createStoredCachesSqlBuilder(new String[]{"geocode", "name", "type", "latitude", "longitude", "difficulty", "terrain", "found", "disabled", "archived"},
+                coords, cacheType, listId, filter, sort, sortInverse);
+            cLog.add("Sel:" + sqlBuilder.getSql());
+
+            try (Cursor cursor = database.rawQuery(sqlBuilder.getSql(), sqlBuilder.getSqlWhereArgsArray())) {
+                final CacheListIndex index = new CacheListIndex(cursor.getCount());
+                while (cursor.moveToNext()) {
+                    final Geopoint cacheCoords = cursor.isNull(3) || cursor.isNull(4) ? null : new Geopoint(cursor.getDouble(3), cursor.getDouble(4));
+                    final int found = cursor.getInt(7);
+                    final int flags = (found == 1 ? CacheListIndex.FLAG_FOUND : 0) | (found == -1 ? CacheListIndex.FLAG_DNF : 0)
+                        | (cursor.getInt(8) == 1 ? CacheListIndex.FLAG_DISABLED : 0) | (cursor.getInt(9) == 1 ? CacheListIndex.FLAG_ARCHIVED : 0);
+                    index.add(cursor.getString(0), cursor.getString(1), CacheType.getById(cursor.getString(2)), cacheCoords, cursor.getFloat(5), cursor.getFloat(6), flags);
+                }
+                cLog.add("size:" + index.size());
+                return index;
+            }
+        } catch (final Exception e) {
+            Log.e("DataStore.loadStoredCacheListIndex", e);
+            return new CacheListIndex(0);
+        }
+    }
+
+    @NonNull
+    private static SqlBuilder createStoredCachesSqlBuilder(final String[] columns, final Geopoint coords, final CacheType cacheType, final int listId, final GeocacheFilter filter, final CacheComparator sort, final boolean sortInverse) {
+        final SqlBuilder sqlBuilder = new SqlBuilder(dbTableCaches, columns);
+
+        if (listId == PseudoList.HISTORY_LIST.id) {
+            sqlBuilder.addWhere(" ( visiteddate > 0 OR geocode IN (SELECT geocode FROM " + dbTableLogsOffline + ") )");
+        } else {
+            final String clId = sqlBuilder.getNewTableId();
+            sqlBuilder.addWhere(sqlBuilder.getMainTableId() + ".geocode IN (SELECT " + clId + ".geocode FROM " + dbTableCachesLists + " " + clId + " WHERE list_id " +
+                (listId != PseudoList.ALL_LIST.id ? "=" + Math.max(listId, 1) : ">= " + StoredList.STANDARD_LIST_ID) + ")");
+        }
+
+        if (cacheType != CacheType.ALL) {
+            sqlBuilder.addWhere("type = '" + cacheType.id + "'");
+        }
+        if (filter != null && filter.getTree() != null) {
+            filter.getTree().addToSql(sqlBuilder);
+            if (!sqlBuilder.allWheresClosed()) {
+                Log.e("SQL Where not closed in SqlBuilder '" + sqlBuilder + "' for '" + filter + "'");
+            }
+            sqlBuilder.closeAllOpenWheres();
+        }
+        if (sort != null) {
+            sort.addSortToSql(sqlBuilder, sortInverse);
+        }
+        if (coords != null) {
+            sqlBuilder.addOrder(getCoordDiffExpression(coords, null));
+        }
+        return sqlBuilder;
+    }
+
     public static String getCoordDiffExpression(@NonNull final Geopoint coords, @Nullable final String tableId) {
         final String tableExp = tableId == null ? "" : tableId + ".";
         return "(ABS(" + tableExp + "latitude - " + String.format((Locale) null, "%.6f", coords.getLatitude()) +
@@ -3503,7 +4096,7 @@ public class DataStore {
             }
 
             // viewport limitation
-            final StringBuilder selection = buildCoordinateWhere(dbTableCaches, viewport);
+            final StringBuilder selection = buildCoordinateWhere(dbTableCaches, dbTableCachesSpatial, viewport);
 
             // cacheType limitation
             String[] selectionArgs = null;
@@ -3572,6 +4165,8 @@ public class DataStore {
                 // Remove the obsolete "_others" directory where the user avatar used to be stored.
                 FileUtils.deleteDirectory(LocalStorage.getGeocacheDataDirectory("_others"));
 
+                Log.d("Database clean: evicted " + ImageStore.get().trim() + " unreferenced images");
+
                 final int version = Version.getVersionCode(context);
                 if (version > -1) {
                     Settings.setVersion(version);
@@ -3682,7 +4277,7 @@ public class DataStore {
             }
             final String geocodeList = StringUtils.join(quotedGeocodes.toArray(), ',');
             final String baseWhereClause = "geocode IN (" + geocodeList + ")";
-            database.beginTransaction();
+            beginTransaction();
             try {
                 database.delete(dbTableCaches, baseWhereClause, null);
                 database.delete(dbTableAttributes, baseWhereClause, null);
@@ -3702,6 +4297,13 @@ public class DataStore {
                 database.endTransaction();
             }
 
+            final SearchSuggestionIndex index = suggestionIndex;
+            if (index != null) {
+                for (final String geocode : geocodes) {
+                    index.remove(geocode);
+                }
+            }
+
             // Delete cache directories
             for (final String geocode : geocodes) {
                 FileUtils.deleteDirectory(LocalStorage.getGeocacheDataDirectory(geocode));
@@ -3734,7 +4336,7 @@ public class DataStore {
 
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             final SQLiteStatement setVisit = PreparedStatement.UPDATE_VISIT_DATE.getStatement();
             for (final String geocode : geocodes) {
@@ -3838,7 +4440,7 @@ public class DataStore {
 
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             final ContentValues values = new ContentValues();
             values.put("title", name);
@@ -3867,7 +4469,7 @@ public class DataStore {
 
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         int count = 0;
         try {
             final ContentValues values = new ContentValues();
@@ -3895,7 +4497,7 @@ public class DataStore {
 
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         boolean status = false;
         try {
             final int cnt = database.delete(dbTableLists, "_id = " + (listId - customListIdOffset), null);
@@ -3933,7 +4535,7 @@ public class DataStore {
 
         init();
 
-        database.beginTransaction();
+        beginTransaction();
         int count = 0;
         try {
             final ContentValues values = new ContentValues();
@@ -3965,7 +4567,7 @@ public class DataStore {
         final SQLiteStatement remove = PreparedStatement.REMOVE_FROM_LIST.getStatement();
         final SQLiteStatement add = PreparedStatement.ADD_TO_LIST.getStatement();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             for (final Geocache cache : caches) {
                 remove.bindLong(1, oldListId);
@@ -3990,7 +4592,7 @@ public class DataStore {
 
         final SQLiteStatement remove = PreparedStatement.REMOVE_FROM_LIST.getStatement();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             for (final Geocache cache : caches) {
                 remove.bindLong(1, oldListId);
@@ -4019,7 +4621,7 @@ public class DataStore {
 
         final SQLiteStatement add = PreparedStatement.ADD_TO_LIST.getStatement();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             for (final Geocache cache : caches) {
                 add.bindLong(1, listId);
@@ -4043,7 +4645,7 @@ public class DataStore {
         final SQLiteStatement add = PreparedStatement.ADD_TO_LIST.getStatement();
         final SQLiteStatement remove = PreparedStatement.REMOVE_FROM_ALL_LISTS.getStatement();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             for (final Geocache cache : caches) {
                 remove.bindString(1, cache.getGeocode());
@@ -4079,7 +4681,7 @@ public class DataStore {
 
         final SQLiteStatement add = PreparedStatement.ADD_TO_LIST.getStatement();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             for (final Geocache cache : caches) {
                 final Set<Integer> lists = cachesLists.get(cache.getGeocode());
@@ -4106,7 +4708,7 @@ public class DataStore {
         }
         final SQLiteStatement add = PreparedStatement.SET_CACHE_ICON.getStatement();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             for (final Geocache cache : caches) {
                 add.bindLong(1, newCacheIcon);
@@ -4131,7 +4733,7 @@ public class DataStore {
         }
         final SQLiteStatement add = PreparedStatement.SET_CACHE_ICON.getStatement();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             for (final Geocache cache : caches) {
                 final String geocode = cache.getGeocode();
@@ -4287,7 +4889,7 @@ public class DataStore {
 
     @NonNull
     public static Set<Waypoint> loadWaypoints(final Viewport viewport, final boolean excludeMine, final boolean excludeFound, final boolean excludeDisabled, final boolean excludeArchived, final boolean excludeOfflineLogs, final CacheType type) {
-        final StringBuilder where = buildCoordinateWhere(dbTableWaypoints, viewport);
+        final StringBuilder where = buildCoordinateWhere(dbTableWaypoints, dbTableWaypointsSpatial, viewport);
         if (excludeFound) {
             // found will contain the value -1 if cache was logged as DNF. Therefore we can't check if found == 0
             where.append(" AND ").append(dbTableCaches).append(".found != 1");
@@ -4408,7 +5010,7 @@ public class DataStore {
         final SQLiteStatement remove = PreparedStatement.REMOVE_FROM_ALL_LISTS.getStatement();
         final Map<String, Set<Integer>> oldLists = new HashMap<>();
 
-        database.beginTransaction();
+        beginTransaction();
         try {
             final Set<String> geocodes = new HashSet<>(caches.size());
             for (final Geocache cache : caches) {
@@ -4508,17 +5110,28 @@ public class DataStore {
         init();
         final SearchSuggestionCursor resultCursor = new SearchSuggestionCursor();
         try {
-            final String selectionArg = getSuggestionArgument(searchTerm);
-            findCaches(resultCursor, selectionArg);
-            findTrackables(resultCursor, selectionArg);
+            findCaches(resultCursor, searchTerm);
+            findTrackables(resultCursor, getSuggestionArgument(searchTerm));
         } catch (final Exception e) {
             Log.e("DataStore.loadBatchOfStoredGeocodes", e);
         }
         return resultCursor;
     }
 
-    private static void findCaches(final SearchSuggestionCursor resultCursor, final String selectionArg) {
-        final Cursor cursor = database.query(
+    private static void findCaches(final SearchSuggestionCursor resultCursor, final String searchTerm) {
+        final String term = StringUtils.trim(searchTerm);
+        final List<String[]> caches = SearchSuggestionIndex.canAnswer(term) ? getSuggestionIndex().findCaches(term) : queryCacheSuggestions(database, getSuggestionArgument(term));
+        for (final String[] cache : caches) {
+            resultCursor.addCache(cache[0], cache[1], cache[2]);
+        }
+    }
+
+    /**
+     * Queries geocode, name and type of the caches whose geocode, name or owner matches the selection argument.
+     */
+    @NonNull
+    static List<String[]> queryCacheSuggestions(@NonNull final SQLiteDatabase db, final String selectionArg) {
+        final Cursor cursor = db.query(
                 dbTableCaches,
                 new String[] { "geocode", "name", "type" },
                 "geocode IS NOT NULL AND geocode != '' AND (geocode LIKE ? OR name LIKE ? OR owner LIKE ?)",
@@ -4526,13 +5139,47 @@ public class DataStore {
                 null,
                 null,
                 "name");
-        while (cursor.moveToNext()) {
-            final String geocode = cursor.getString(0);
-            final String cacheName = cursor.getString(1);
-            final String type = cursor.getString(2);
-            resultCursor.addCache(geocode, cacheName, type);
+        return cursorToColl(cursor, new ArrayList<>(), c -> new String[] { c.getString(0), c.getString(1), c.getString(2) });
+    }
+
+    /**
+     * Gets the index for the search suggestions of caches, building it from the database on first use.
+     * The index is dropped when the database is closed.
+     */
+    @NonNull
+    private static SearchSuggestionIndex getSuggestionIndex() {
+        SearchSuggestionIndex index = suggestionIndex;
+        if (index == null) {
+            synchronized (DataStore.class) {
+                init();
+                index = suggestionIndex;
+                if (index == null) {
+                    index = new SearchSuggestionIndex();
+                    try (ContextLogger cLog = new ContextLogger("DataStore.getSuggestionIndex()")) {
+                        synchronized (index) {
+                            // publish the index before reading the caches, saves from now on wait for it to be filled
+                            suggestionIndex = index;
+                            fillSuggestionIndex(database, index);
+                        }
+                        cLog.add("%d caches, ~%d KB", index.size(), index.estimateHeapBytes() / 1024);
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    static void fillSuggestionIndex(@NonNull final SQLiteDatabase db, @NonNull final SearchSuggestionIndex index) {
+        final String[] columns = SearchSuggestionIndex.Column.dbColumns();
+        try (Cursor cursor = db.query(dbTableCaches, columns, null, null, null, null, null)) {
+            final String[] values = new String[columns.length];
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < columns.length; i++) {
+                    values[i] = cursor.getString(i);
+                }
+                index.put(values);
+            }
         }
-        cursor.close();
     }
 
     @NonNull
@@ -4572,21 +5219,51 @@ public class DataStore {
     public static String[] getSuggestions(final String table, final String column, final String input, final Func1<String, String[]> processor) {
 
         try {
-            final Cursor cursor = database.rawQuery("SELECT DISTINCT " + column
-                    + " FROM " + table
-                    + " WHERE " + column + " LIKE ?"
-                    + " ORDER BY " + column + " COLLATE NOCASE ASC;", new String[] { getSuggestionArgument(input) });
-            final Collection<String> coll = cursorToColl(cursor, new LinkedList<>(), GET_STRING_0);
-            if (processor == null) {
-                return coll.toArray(new String[0]);
-            }
-            return processAndSortSuggestions(coll, input, processor).toArray(new String[0]);
+            final Collection<String> coll = querySuggestions(database, table, column, getSuggestionArgument(input));
+            return processSuggestions(coll, input, processor);
         } catch (final RuntimeException e) {
             Log.e("cannot get suggestions from " + table + "->" + column + " for input '" + input + "'", e);
             return ArrayUtils.EMPTY_STRING_ARRAY;
         }
     }
 
+    /**
+     * Gets the suggestions for a column of the caches table, using the suggestion index if possible.
+     */
+    @NonNull
+    private static String[] getCacheSuggestions(final SearchSuggestionIndex.Column column, final String input, final Func1<String, String[]> processor) {
+        final String term = StringUtils.trim(input);
+        if (!SearchSuggestionIndex.canAnswer(term)) {
+            return getSuggestions(dbTableCaches, column.dbColumn, input, processor);
+        }
+        try {
+            return processSuggestions(getSuggestionIndex().getSuggestions(column, term), input, processor);
+        } catch (final RuntimeException e) {
+            Log.e("cannot get suggestions from index for " + column.dbColumn + " for input '" + input + "'", e);
+            return ArrayUtils.EMPTY_STRING_ARRAY;
+        }
+    }
+
+    /**
+     * Queries the distinct values of the column matching the selection argument.
+     */
+    @NonNull
+    static List<String> querySuggestions(@NonNull final SQLiteDatabase db, final String table, final String column, final String selectionArg) {
+        final Cursor cursor = db.rawQuery("SELECT DISTINCT " + column
+                + " FROM " + table
+                + " WHERE " + column + " LIKE ?"
+                + " ORDER BY " + column + " COLLATE NOCASE ASC;", new String[] { selectionArg });
+        return cursorToColl(cursor, new ArrayList<>(), GET_STRING_0);
+    }
+
+    @NonNull
+    private static String[] processSuggestions(final Collection<String> coll, final String input, final Func1<String, String[]> processor) {
+        if (processor == null) {
+            return coll.toArray(new String[0]);
+        }
+        return processAndSortSuggestions(coll, input, processor).toArray(new String[0]);
+    }
+
     private static List<String> processAndSortSuggestions(final Collection<String> rawList, final String input, final Func1<String, String[]> processor) {
         final String lowerInput = input.toLowerCase(Locale.getDefault());
         final Set<String> newColl = new HashSet<>();
@@ -4619,12 +5296,12 @@ public class DataStore {
 
     @NonNull
     public static String[] getSuggestionsGeocode(final String input) {
-        return getSuggestions(dbTableCaches, "geocode", input);
+        return getCacheSuggestions(SearchSuggestionIndex.Column.GEOCODE, input, null);
     }
 
     @NonNull
     public static String[] getSuggestionsKeyword(final String input) {
-        return getSuggestions(dbTableCaches, "name", input);
+        return getCacheSuggestions(SearchSuggestionIndex.Column.NAME, input, null);
     }
 
     @NonNull
@@ -4712,7 +5389,7 @@ public class DataStore {
 
 
                 init();
-                database.beginTransaction();
+                beginTransaction(cLog);
                 try {
 
                     //main entry
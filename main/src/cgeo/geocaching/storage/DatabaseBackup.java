@@ -0,0 +1,99 @@
+package cgeo.geocaching.storage;
+
+import cgeo.geocaching.utils.Log;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Creates and reads the compressed backups of the database.
+ * <p>
+ * A backup is taken from a snapshot of the database written by {@code VACUUM INTO} on a read only connection of its
+ * own. As the database uses write ahead logging, neither readers nor writers of the open database are blocked while
+ * the snapshot is written. The snapshot contains no free pages and is gzip compressed while it is copied to the backup.
+ * Backups written by older versions are plain database files, they are recognized by the missing gzip header.
+ * <p>
+ * The uncompressed snapshot is written to a temporary file first, so the backup needs up to the size of the database
+ * plus the size of the compressed backup of free space. Copying the pages of the open database file directly into the
+ * compressor would not be consistent, as committed pages may still be in the write ahead log only. If there is not
+ * enough space for the snapshot, the caller falls back to compressing the closed database file.
+ */
+final class DatabaseBackup {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private DatabaseBackup() {
+        // utility class
+    }
+
+    /**
+     * Writes a consistent snapshot of the database to the given file, which must not exist or be empty.
+     *
+     * @return {@code false} if the SQLite version does not support {@code VACUUM INTO} (before Android 11) or if
+     * there is not enough free space for the snapshot
+     */
+    static boolean writeSnapshot(@NonNull final File database, @NonNull final File snapshot) {
+        final long requiredSpace = database.length() + new File(database.getPath() + "-wal").length();
+        final File snapshotDir = snapshot.getAbsoluteFile().getParentFile();
+        if (snapshotDir != null && snapshotDir.getUsableSpace() < requiredSpace) {
+            Log.w("DatabaseBackup.writeSnapshot: not enough space for a snapshot of " + database + " in " + snapshotDir);
+            return false;
+        }
+        SQLiteDatabase db = null;
+        try {
+            db = SQLiteDatabase.openDatabase(database.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+            db.execSQL("VACUUM INTO " + DatabaseUtils.sqlEscapeString(snapshot.getPath()));
+            return true;
+        } catch (final SQLiteException e) {
+            Log.w("DatabaseBackup.writeSnapshot: no online snapshot of " + database, e);
+            return false;
+        } finally {
+            if (db != null) {
+                db.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the compressed content of the file to the stream, leaving the stream open.
+     */
+    static void compress(@NonNull final File source, @NonNull final OutputStream out) throws IOException {
+        try (InputStream in = new FileInputStream(source)) {
+            final GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(out, BUFFER_SIZE), BUFFER_SIZE);
+            IOUtils.copy(in, gzip, BUFFER_SIZE);
+            gzip.finish();
+            gzip.flush();
+        }
+    }
+
+    static boolean isCompressed(@NonNull final File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            final int first = in.read();
+            final int second = in.read();
+            return first >= 0 && second >= 0 && (first | (second << 8)) == GZIPInputStream.GZIP_MAGIC;
+        }
+    }
+
+    static void decompress(@NonNull final File source, @NonNull final File target) throws IOException {
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(source), BUFFER_SIZE), BUFFER_SIZE);
+             OutputStream out = new FileOutputStream(target)) {
+            IOUtils.copy(in, out, BUFFER_SIZE);
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package cgeo.geocaching.storage;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.io.Closeable;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 
 import org.apache.commons.io.IOUtils;
@@ -13,18 +15,48 @@ import org.apache.commons.io.IOUtils;
 /**
  * Helper to read files when only a {@link java.nio.channels.FileChannel} is available.
  *
- * Mimics the necessary parts of RandomAccessFile
+ * Mimics the necessary parts of RandomAccessFile. Optionally the file is memory-mapped: reads are then plain memory copies
+ * out of the OS page cache instead of one positional read system call (plus a wrapping ByteBuffer) each.
  */
 public class FileByteReader implements Closeable {
 
     private final FileChannel fileChannel;
+    @Nullable
+    private final MappedByteBuffer mappedBuffer;
 
     public FileByteReader(final FileChannel fileChannel) {
         this.fileChannel = fileChannel;
+        this.mappedBuffer = null;
     }
 
     public FileByteReader(final FileInputStream fis) {
+        this(fis, false);
+    }
+
+    /**
+     * @param map whether to memory-map the file. If mapping fails (or the file is too large to be mapped as a whole),
+     *            the reader silently falls back to positional reads
+     */
+    public FileByteReader(final FileInputStream fis, final boolean map) {
         this.fileChannel = fis.getChannel();
+        this.mappedBuffer = map ? map(this.fileChannel) : null;
+    }
+
+    @Nullable
+    private static MappedByteBuffer map(@NonNull final FileChannel channel) {
+        try {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public boolean isMapped() {
+        return mappedBuffer != null;
     }
 
     /**
@@ -35,7 +67,7 @@ public class FileByteReader implements Closeable {
      * @throws IOException in case anything goes wrong
      */
     public void readFully(final long startPos, final int length, @NonNull final byte[] buffer) throws IOException {
-        final int readBytes = readFile(this.fileChannel, startPos, length, buffer, 0);
+        final int readBytes = mappedBuffer != null ? readMapped(mappedBuffer, startPos, length, buffer) : readFile(this.fileChannel, startPos, length, buffer, 0);
         if (readBytes != length) {
             throw new IOException("Could not read requested number of bytes (" + buffer.length + "), read only " + readBytes + " bytges");
         }
@@ -50,6 +82,23 @@ public class FileByteReader implements Closeable {
         return channel.read(bb, startPos);
     }
 
+    private static int readMapped(@NonNull final MappedByteBuffer mapped, final long startPos, final int length, @NonNull final byte[] buffer) {
+        if (length > buffer.length) {
+            throw new IllegalArgumentException("Requested read length " + length + " will not fit in given buffer length " + buffer.length + " (offset: 0)");
+        }
+        final int limit = mapped.limit();
+        if (startPos >= limit) {
+            return -1;
+        }
+        final int readBytes = (int) Math.min(length, limit - startPos);
+        // position and bulk get have to be atomic, absolute bulk get is not available before API 34
+        synchronized (mapped) {
+            mapped.position((int) startPos);
+            mapped.get(buffer, 0, readBytes);
+        }
+        return readBytes;
+    }
+
     public long size() throws IOException {
         return this.fileChannel.size();
     }
@@ -0,0 +1,273 @@
+package cgeo.geocaching.storage;
+
+import cgeo.geocaching.utils.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Content addressed store for downloaded images.
+ * <p>
+ * The content of an image is stored only once, in a file named by the SHA-256 hash of its bytes. The file of the
+ * image in the geocache data directory of a geocode becomes a small reference file naming that hash. The reference
+ * files keep the names, modification times and saved HTTP headers of the former image files, so freshness checks and
+ * conditional requests work as before, and deleting a geocache data directory drops its references.
+ * <p>
+ * The references to each stored image are counted when the store is trimmed. Images which are no longer referenced
+ * are kept as long as the total size of unreferenced images stays within a budget, the least recently stored ones
+ * being evicted first. Referenced images are never evicted.
+ */
+public class ImageStore {
+
+    public static final String STORE_DIR_NAME = "ImageStore";
+
+    private static final String REFERENCE_MAGIC = "cgeo-image-ref:";
+    private static final int REFERENCE_MAX_LENGTH = 128;
+    private static final long UNREFERENCED_BUDGET = 20 * 1024 * 1024;
+
+    /**
+     * Images stored recently are never evicted, as their reference might not be written yet.
+     */
+    private static final long GRACE_PERIOD = TimeUnit.HOURS.toMillis(1);
+
+    @NonNull private final File dataDirectory;
+    @NonNull private final File storeDirectory;
+    private final long unreferencedBudget;
+
+    ImageStore(@NonNull final File dataDirectory, final long unreferencedBudget) {
+        this.dataDirectory = dataDirectory;
+        this.storeDirectory = new File(dataDirectory, STORE_DIR_NAME);
+        this.unreferencedBudget = unreferencedBudget;
+    }
+
+    /**
+     * Get the image store of the current geocache data directory.
+     */
+    @NonNull
+    public static ImageStore get() {
+        return new ImageStore(LocalStorage.getGeocacheDataDirectory(), UNREFERENCED_BUDGET);
+    }
+
+    /**
+     * Move the content of a freshly downloaded image into the store and replace it by a reference.
+     *
+     * @param file the downloaded image
+     * @return {@code true} if the file is now a reference to the stored content, {@code false} if it was left unchanged
+     */
+    public boolean store(@NonNull final File file) {
+        final String hash = hashContent(file);
+        if (hash == null || !storeDirectory.isDirectory() && !storeDirectory.mkdirs()) {
+            return false;
+        }
+        final long lastModified = file.lastModified();
+        final File content = new File(storeDirectory, hash);
+        // touching the existing content marks it as recently used and protects it from eviction for a while
+        if (!(content.isFile() && content.setLastModified(System.currentTimeMillis())) && !file.renameTo(content) && !copy(file, content)) {
+            return false;
+        }
+        return writeReference(file, hash, lastModified);
+    }
+
+    /**
+     * Get the file holding the content of an image saved in a geocache data directory.
+     *
+     * @param file the image file, either a reference into the store or a plain image file
+     * @return the file with the image content, which might not exist if the content has been evicted
+     */
+    @NonNull
+    public File resolve(@NonNull final File file) {
+        final String hash = readReference(file);
+        return hash != null ? new File(storeDirectory, hash) : file;
+    }
+
+    /**
+     * Check if the image file is a reference whose content is missing, e.g. after an incomplete data directory move.
+     */
+    public boolean isDangling(@NonNull final File file) {
+        final String hash = readReference(file);
+        return hash != null && !new File(storeDirectory, hash).isFile();
+    }
+
+    /**
+     * Count the references to each stored image.
+     *
+     * @return the number of references for every hash referenced from a geocache data directory
+     */
+    @NonNull
+    Map<String, Integer> countReferences() {
+        final Map<String, Integer> references = new HashMap<>();
+        final File[] directories = dataDirectory.listFiles(File::isDirectory);
+        if (directories == null) {
+            return references;
+        }
+        for (final File directory : directories) {
+            if (STORE_DIR_NAME.equals(directory.getName())) {
+                continue;
+            }
+            final File[] files = directory.listFiles(file -> file.isFile() && file.length() <= REFERENCE_MAX_LENGTH);
+            if (files == null) {
+                continue;
+            }
+            for (final File file : files) {
+                final String hash = readReference(file);
+                if (hash != null) {
+                    final Integer count = references.get(hash);
+                    references.put(hash, count == null ? 1 : count + 1);
+                }
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Evict the least recently stored unreferenced images until their total size fits into the budget.
+     *
+     * @return the number of evicted images
+     */
+    public int trim() {
+        final File[] contents = storeDirectory.listFiles(File::isFile);
+        if (contents == null || contents.length == 0) {
+            return 0;
+        }
+        final Map<String, Integer> references = countReferences();
+        final long protectedSince = System.currentTimeMillis() - GRACE_PERIOD;
+        final List<File> unreferenced = new ArrayList<>();
+        final Map<File, Long> lastModified = new HashMap<>();
+        long unreferencedSize = 0;
+        for (final File content : contents) {
+            if (!references.containsKey(content.getName())) {
+                unreferenced.add(content);
+                lastModified.put(content, content.lastModified());
+                unreferencedSize += content.length();
+            }
+        }
+        Collections.sort(unreferenced, (a, b) -> Long.compare(lastModified.get(a), lastModified.get(b)));
+        int evicted = 0;
+        for (final File content : unreferenced) {
+            if (unreferencedSize <= unreferencedBudget || lastModified.get(content) >= protectedSince) {
+                break;
+            }
+            final long size = content.length();
+            if (content.delete()) {
+                unreferencedSize -= size;
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    @Nullable
+    private static String readReference(@NonNull final File file) {
+        if (file.length() > REFERENCE_MAX_LENGTH) {
+            return null;
+        }
+        InputStream stream = null;
+        try {
+            stream = new FileInputStream(file);
+            final byte[] buffer = new byte[REFERENCE_MAX_LENGTH];
+            final int length = IOUtils.read(stream, buffer);
+            final String reference = new String(buffer, 0, length, StandardCharsets.US_ASCII);
+            return reference.startsWith(REFERENCE_MAGIC) ? StringUtils.trimToNull(reference.substring(REFERENCE_MAGIC.length())) : null;
+        } catch (final IOException ignored) {
+            return null;
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    private static boolean writeReference(@NonNull final File file, @NonNull final String hash, final long lastModified) {
+        final File tempFile = new File(file.getParentFile(), file.getName() + "-ref");
+        OutputStream stream = null;
+        try {
+            stream = new FileOutputStream(tempFile);
+            stream.write((REFERENCE_MAGIC + hash).getBytes(StandardCharsets.US_ASCII));
+            stream.close();
+            stream = null;
+            // keep the modification time, it's used to decide whether the image has to be refreshed
+            if (lastModified > 0) {
+                tempFile.setLastModified(lastModified);
+            }
+            if (tempFile.renameTo(file)) {
+                return true;
+            }
+        } catch (final IOException e) {
+            Log.w("ImageStore.writeReference", e);
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+        // the content is already in the store, unreferenced content gets evicted later
+        if (!tempFile.delete()) {
+            Log.w("ImageStore.writeReference: cannot delete " + tempFile);
+        }
+        return false;
+    }
+
+    private static boolean copy(@NonNull final File source, @NonNull final File destination) {
+        final File tempFile = new File(destination.getParentFile(), destination.getName() + "-temp");
+        InputStream input = null;
+        OutputStream output = null;
+        try {
+            input = new FileInputStream(source);
+            output = new FileOutputStream(tempFile);
+            IOUtils.copy(input, output);
+            output.close();
+            output = null;
+            return tempFile.renameTo(destination);
+        } catch (final IOException e) {
+            Log.w("ImageStore.copy", e);
+            return false;
+        } finally {
+            IOUtils.closeQuietly(input);
+            IOUtils.closeQuietly(output);
+            if (tempFile.exists() && !tempFile.delete()) {
+                Log.w("ImageStore.copy: cannot delete " + tempFile);
+            }
+        }
+    }
+
+    @Nullable
+    private static String hashContent(@NonNull final File file) {
+        if (!file.isFile() || readReference(file) != null) {
+            return null;
+        }
+        InputStream stream = null;
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            stream = new FileInputStream(file);
+            final byte[] buffer = new byte[16 * 1024];
+            int count;
+            while ((count = stream.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+            final StringBuilder hash = new StringBuilder(64);
+            for (final byte b : digest.digest()) {
+                hash.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hash.toString();
+        } catch (final IOException | NoSuchAlgorithmException e) {
+            Log.w("ImageStore.hashContent", e);
+            return null;
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package cgeo.geocaching.storage;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * In-memory trigram index over the searchable text columns of the caches table, answering the search suggestion
+ * queries without scanning the table.
+ * <p>
+ * Matching follows the SQLite expression {@code column LIKE '%term%'}: the term must be contained in the value,
+ * ignoring the case of ASCII characters only. Terms containing the LIKE wildcards {@code %} and {@code _} can't be
+ * answered by the index, see {@link #canAnswer(String)}.
+ * <p>
+ * Every distinct trigram of the (case folded) column values points to the rows containing it. A query looks up the
+ * rarest trigram of the term and checks only the rows of this trigram. Changed and removed caches leave unused rows,
+ * which are dropped by rebuilding the index once they make up half of it. The index is thread safe.
+ * <p>
+ * Only the columns of the frequent queries are held, as the index stays in memory as long as the database is open.
+ * See {@link #estimateHeapBytes()} for its size.
+ */
+final class SearchSuggestionIndex {
+
+    /** columns of the caches table held by the index */
+    enum Column {
+        GEOCODE("geocode"),
+        NAME("name"),
+        OWNER("owner"),
+        TYPE("type");
+
+        @NonNull final String dbColumn;
+
+        Column(@NonNull final String dbColumn) {
+            this.dbColumn = dbColumn;
+        }
+
+        @NonNull
+        static String[] dbColumns() {
+            final Column[] columns = values();
+            final String[] dbColumns = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                dbColumns[i] = columns[i].dbColumn;
+            }
+            return dbColumns;
+        }
+    }
+
+    /** columns searched by {@link #findCaches(String)} */
+    private static final Column[] CACHE_SEARCH_COLUMNS = { Column.GEOCODE, Column.NAME, Column.OWNER };
+
+    private static final int MIN_ROWS_FOR_REBUILD = 1000;
+
+    /** rows of the caches, {@code null} for removed rows */
+    private final List<Row> rows = new ArrayList<>();
+    private final Map<String, Integer> rowByGeocode = new HashMap<>();
+    private final Map<Long, Postings> postingsByTrigram = new HashMap<>();
+    private int removedRows = 0;
+
+    private static final class Row {
+        /** values in the order of {@link Column} */
+        @NonNull final String[] values;
+        /** case folded values, sharing the strings not containing upper case ASCII characters */
+        @NonNull final String[] foldedValues;
+
+        Row(@NonNull final String[] values) {
+            this.values = values;
+            this.foldedValues = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                foldedValues[i] = values[i] == null ? null : foldCase(values[i]);
+            }
+        }
+    }
+
+    /** ascending list of the rows containing a trigram */
+    private static final class Postings {
+        private int[] rows = new int[4];
+        private int size = 0;
+
+        void add(final int row) {
+            // rows are added in ascending order, a row containing a trigram several times is added once
+            if (size > 0 && rows[size - 1] == row) {
+                return;
+            }
+            if (size == rows.length) {
+                final int[] newRows = new int[size * 2];
+                System.arraycopy(rows, 0, newRows, 0, size);
+                rows = newRows;
+            }
+            rows[size++] = row;
+        }
+    }
+
+    /**
+     * Checks if the index can answer queries for the given term. Otherwise the database has to be queried.
+     */
+    static boolean canAnswer(@Nullable final String term) {
+        return term != null && term.indexOf('%') < 0 && term.indexOf('_') < 0;
+    }
+
+    /**
+     * Adds a cache or replaces the values of a cache, with the values in the order of {@link Column}.
+     */
+    synchronized void put(@NonNull final String... values) {
+        final String geocode = values[Column.GEOCODE.ordinal()];
+        if (StringUtils.isEmpty(geocode)) {
+            return;
+        }
+        removeRow(geocode);
+        addRow(geocode, new Row(values.clone()));
+        // a replaced cache leaves an unused row as well
+        rebuildIfNeeded();
+    }
+
+    synchronized void remove(@NonNull final String geocode) {
+        removeRow(geocode);
+        rebuildIfNeeded();
+    }
+
+    synchronized int size() {
+        return rowByGeocode.size();
+    }
+
+    /** number of rows including the unused ones, for testing */
+    synchronized int rowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Estimates the heap used by the index, assuming 16 bytes per object header, 4 bytes per reference and two bytes
+     * per character.
+     */
+    synchronized long estimateHeapBytes() {
+        long bytes = 0;
+        for (final Row row : rows) {
+            bytes += 4; // reference of the list
+            if (row == null) {
+                continue;
+            }
+            bytes += 24 + 2 * (16 + 4 * row.values.length);
+            for (int i = 0; i < row.values.length; i++) {
+                if (row.values[i] != null) {
+                    bytes += 40 + 2L * row.values[i].length();
+                    if (row.foldedValues[i] != row.values[i]) {
+                        bytes += 40 + 2L * row.foldedValues[i].length();
+                    }
+                }
+            }
+        }
+        // hash map entries: node, boxed value and table slot, the geocode strings are shared with the rows
+        bytes += 52L * rowByGeocode.size();
+        for (final Postings postings : postingsByTrigram.values()) {
+            // node, boxed trigram, table slot, postings object and its array
+            bytes += 32 + 24 + 4 + 24 + 16 + 4L * postings.rows.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Finds the caches whose geocode, name or owner contains the term.
+     *
+     * @return geocode, name and type of the caches, ordered by name
+     */
+    @NonNull
+    synchronized List<String[]> findCaches(@NonNull final String term) {
+        final List<String[]> result = new ArrayList<>();
+        for (final Row row : findRows(term, CACHE_SEARCH_COLUMNS)) {
+            result.add(new String[] { row.values[Column.GEOCODE.ordinal()], row.values[Column.NAME.ordinal()], row.values[Column.TYPE.ordinal()] });
+        }
+        // order by name, like the database does
+        Collections.sort(result, (r1, r2) -> compareNullsFirst(r1[1], r2[1]));
+        return result;
+    }
+
+    /**
+     * Gets the distinct values of the column containing the term.
+     *
+     * @return the values, ordered ignoring the case of ASCII characters
+     */
+    @NonNull
+    synchronized List<String> getSuggestions(@NonNull final Column column, @NonNull final String term) {
+        final Set<String> values = new HashSet<>();
+        for (final Row row : findRows(term, new Column[] { column })) {
+            values.add(row.values[column.ordinal()]);
+        }
+        final List<String> result = new ArrayList<>(values);
+        Collections.sort(result, (v1, v2) -> {
+            final int compared = foldCase(v1).compareTo(foldCase(v2));
+            return compared != 0 ? compared : v1.compareTo(v2);
+        });
+        return result;
+    }
+
+    @NonNull
+    private List<Row> findRows(@NonNull final String term, @NonNull final Column[] columns) {
+        final String foldedTerm = foldCase(term);
+        final List<Row> result = new ArrayList<>();
+        if (foldedTerm.length() < 3) {
+            // too short for a trigram, check all rows
+            for (final Row row : rows) {
+                if (row != null && matches(row, columns, foldedTerm)) {
+                    result.add(row);
+                }
+            }
+            return result;
+        }
+        Postings candidates = null;
+        for (int i = 0; i + 3 <= foldedTerm.length(); i++) {
+            final Postings postings = postingsByTrigram.get(trigram(foldedTerm, i));
+            if (postings == null) {
+                return result;
+            }
+            if (candidates == null || postings.size < candidates.size) {
+                candidates = postings;
+            }
+        }
+        for (int i = 0; i < candidates.size; i++) {
+            final Row row = rows.get(candidates.rows[i]);
+            if (row != null && matches(row, columns, foldedTerm)) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private static boolean matches(@NonNull final Row row, @NonNull final Column[] columns, @NonNull final String foldedTerm) {
+        for (final Column column : columns) {
+            final String value = row.foldedValues[column.ordinal()];
+            if (value != null && value.contains(foldedTerm)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void indexRow(final int rowIndex, @NonNull final Row row) {
+        for (final Column column : Column.values()) {
+            final String folded = row.foldedValues[column.ordinal()];
+            if (column == Column.TYPE || folded == null) {
+                continue;
+            }
+            for (int i = 0; i + 3 <= folded.length(); i++) {
+                final Long trigram = trigram(folded, i);
+                Postings postings = postingsByTrigram.get(trigram);
+                if (postings == null) {
+                    postings = new Postings();
+                    postingsByTrigram.put(trigram, postings);
+                }
+                postings.add(rowIndex);
+            }
+        }
+    }
+
+    private void removeRow(@NonNull final String geocode) {
+        final Integer rowIndex = rowByGeocode.remove(geocode);
+        if (rowIndex != null) {
+            rows.set(rowIndex, null);
+            removedRows++;
+        }
+    }
+
+    private void addRow(@NonNull final String geocode, @NonNull final Row row) {
+        rowByGeocode.put(geocode, rows.size());
+        indexRow(rows.size(), row);
+        rows.add(row);
+    }
+
+    private void rebuildIfNeeded() {
+        if (removedRows >= MIN_ROWS_FOR_REBUILD && removedRows * 2 >= rows.size()) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        final List<Row> liveRows = new ArrayList<>(rowByGeocode.size());
+        for (final Row row : rows) {
+            if (row != null) {
+                liveRows.add(row);
+            }
+        }
+        rows.clear();
+        rowByGeocode.clear();
+        postingsByTrigram.clear();
+        removedRows = 0;
+        for (final Row row : liveRows) {
+            addRow(row.values[Column.GEOCODE.ordinal()], row);
+        }
+    }
+
+    private static long trigram(@NonNull final String value, final int start) {
+        return ((long) value.charAt(start) << 32) | ((long) value.charAt(start + 1) << 16) | value.charAt(start + 2);
+    }
+
+    /**
+     * Converts the ASCII characters to lower case, like the case insensitive matching of SQLite.
+     */
+    @NonNull
+    static String foldCase(@NonNull final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                final char[] chars = value.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    if (chars[j] >= 'A' && chars[j] <= 'Z') {
+                        chars[j] += 'a' - 'A';
+                    }
+                }
+                return new String(chars);
+            }
+        }
+        return value;
+    }
+
+    private static int compareNullsFirst(@Nullable final String value1, @Nullable final String value2) {
+        if (value1 == null || value2 == null) {
+            return value1 == null ? (value2 == null ? 0 : -1) : 1;
+        }
+        return value1.compareTo(value2);
+    }
+}
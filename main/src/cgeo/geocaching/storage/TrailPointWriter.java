@@ -0,0 +1,164 @@
+package cgeo.geocaching.storage;
+
+import cgeo.geocaching.utils.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Buffers the points of the trail history in memory and writes them in batches, one transaction per batch instead of
+ * one per GPS fix.
+ * <p>
+ * A batch is written once {@link #MAX_BUFFERED_POINTS} points are buffered, at the latest {@link #MAX_DELAY_MILLIS}
+ * after a point was added, and whenever a flush is requested, e.g. when the map gets paused. If the process dies, at
+ * most the points of this delay, and never more than {@link #MAX_BUFFERED_POINTS} points, are lost.
+ * <p>
+ * Batches are written one after the other in the order the points were added. The points of a failed write stay
+ * buffered and are written together with the newer points by the next flush. While writes keep failing, at most
+ * {@link #MAX_PENDING_POINTS} points are kept, dropping the oldest ones.
+ */
+final class TrailPointWriter {
+
+    static final int MAX_BUFFERED_POINTS = 20;
+    static final long MAX_DELAY_MILLIS = 30_000;
+    static final int MAX_PENDING_POINTS = 5000;
+
+    static final class TrailPoint {
+        final double latitude;
+        final double longitude;
+        final double altitude;
+        final long timestamp;
+
+        TrailPoint(final double latitude, final double longitude, final double altitude, final long timestamp) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.altitude = altitude;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /** Writes a batch of points at once, throwing if the batch could not be written. */
+    interface Store {
+        void write(@NonNull List<TrailPoint> points);
+    }
+
+    @NonNull private final Store store;
+    private final int maxBufferedPoints;
+    private final long maxDelayMillis;
+    private final int maxPendingPoints;
+    @NonNull private final Scheduler scheduler;
+
+    /** held while writing a batch, so batches are written in order */
+    private final Object writeLock = new Object();
+
+    // guarded by this
+    @NonNull private List<TrailPoint> buffer = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private boolean delayedFlushScheduled = false;
+
+    TrailPointWriter(@NonNull final Store store) {
+        this(store, MAX_BUFFERED_POINTS, MAX_DELAY_MILLIS, MAX_PENDING_POINTS, Schedulers.io());
+    }
+
+    TrailPointWriter(@NonNull final Store store, final int maxBufferedPoints, final long maxDelayMillis, final int maxPendingPoints, @NonNull final Scheduler scheduler) {
+        this.store = store;
+        this.maxBufferedPoints = maxBufferedPoints;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxPendingPoints = maxPendingPoints;
+        this.scheduler = scheduler;
+    }
+
+    synchronized void add(@NonNull final TrailPoint point) {
+        buffer.add(point);
+        dropOverflow();
+        if (buffer.size() >= maxBufferedPoints) {
+            requestFlush();
+        } else {
+            scheduleDelayedFlush();
+        }
+    }
+
+    /**
+     * Writes the buffered points in the background.
+     */
+    synchronized void requestFlush() {
+        if (!flushScheduled && !buffer.isEmpty()) {
+            flushScheduled = true;
+            scheduler.scheduleDirect(this::flush);
+        }
+    }
+
+    /**
+     * Writes the buffered points on the calling thread, after waiting for a write in progress.
+     *
+     * @return {@code false} if the write failed and the points are still buffered
+     */
+    boolean flush() {
+        synchronized (writeLock) {
+            final List<TrailPoint> batch;
+            synchronized (this) {
+                flushScheduled = false;
+                if (buffer.isEmpty()) {
+                    return true;
+                }
+                batch = buffer;
+                buffer = new ArrayList<>();
+            }
+            try {
+                store.write(batch);
+                return true;
+            } catch (final RuntimeException e) {
+                Log.w("TrailPointWriter: writing " + batch.size() + " trail points failed, retrying later", e);
+                synchronized (this) {
+                    // no other batch was taken meanwhile, so the failed points are still older than all buffered ones
+                    batch.addAll(buffer);
+                    buffer = batch;
+                    dropOverflow();
+                    scheduleDelayedFlush();
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Drops the buffered points, after waiting for a write in progress.
+     */
+    void discard() {
+        synchronized (writeLock) {
+            synchronized (this) {
+                buffer.clear();
+            }
+        }
+    }
+
+    synchronized int getBufferedCount() {
+        return buffer.size();
+    }
+
+    private void scheduleDelayedFlush() {
+        if (!delayedFlushScheduled) {
+            delayedFlushScheduled = true;
+            scheduler.scheduleDirect(() -> {
+                synchronized (this) {
+                    delayedFlushScheduled = false;
+                }
+                flush();
+            }, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void dropOverflow() {
+        final int overflow = buffer.size() - maxPendingPoints;
+        if (overflow > 0) {
+            Log.w("TrailPointWriter: dropping " + overflow + " trail points which could not be written");
+            buffer.subList(0, overflow).clear();
+        }
+    }
+}
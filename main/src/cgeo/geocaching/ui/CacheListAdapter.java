@@ -4,6 +4,7 @@ import cgeo.geocaching.CacheDetailActivity;
 import cgeo.geocaching.R;
 import cgeo.geocaching.databinding.CacheslistItemBinding;
 import cgeo.geocaching.enumerations.CacheListType;
+import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.filter.IFilter;
 import cgeo.geocaching.filters.core.GeocacheFilter;
 import cgeo.geocaching.list.AbstractList;
@@ -17,6 +18,7 @@ import cgeo.geocaching.sorting.DistanceComparator;
 import cgeo.geocaching.sorting.EventDateComparator;
 import cgeo.geocaching.sorting.NameComparator;
 import cgeo.geocaching.sorting.VisitComparator;
+import cgeo.geocaching.storage.DataStore;
 import cgeo.geocaching.utils.AngleUtils;
 import cgeo.geocaching.utils.CalendarUtils;
 import cgeo.geocaching.utils.Formatter;
@@ -38,11 +40,13 @@ import android.widget.SectionIndexer;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -73,7 +77,10 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
     private String currentListTitle = "";
     private final Resources res;
     /** Resulting list of caches */
-    private final List<Geocache> list;
+    private List<Geocache> list;
+    /** list given on construction, shown unless a windowed list is set */
+    private final List<Geocache> backingList;
+    @Nullable private WindowedCacheList windowedList = null;
     private boolean eventsOnly;
     private boolean inverseSort = false;
     /**
@@ -120,6 +127,7 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
         coords = currentGeo.getCoords();
         this.res = activity.getResources();
         this.list = list;
+        this.backingList = list;
         this.cacheListType = cacheListType;
         checkSpecialSortOrder();
         buildFastScrollIndex();
@@ -127,6 +135,44 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
         DistanceComparator.updateGlobalGps(Sensors.getInstance().currentGeo().getCoords());
     }
 
+    /**
+     * Show a windowed list (already filtered and sorted by the database) instead of the list given on construction.
+     *
+     * @param windowedList the list to show, {@code null} to return to the list given on construction
+     */
+    public void setWindowedList(@Nullable final WindowedCacheList windowedList) {
+        if (this.windowedList != null && this.windowedList != windowedList) {
+            this.windowedList.dispose();
+        }
+        this.windowedList = windowedList;
+        if (windowedList != null) {
+            windowedList.setOnPageLoaded(this::notifyDataSetChanged);
+        }
+        list = windowedList != null ? windowedList : backingList;
+        originalList = null;
+        checkSpecialSortOrder();
+        notifyDataSetChanged();
+    }
+
+    public boolean isWindowed() {
+        return windowedList != null;
+    }
+
+    @Nullable
+    public WindowedCacheList getWindowedList() {
+        return windowedList;
+    }
+
+    @Override
+    public int getCount() {
+        return list.size();
+    }
+
+    @Override
+    public Geocache getItem(final int position) {
+        return list.get(position);
+    }
+
     public void setStoredLists(final List<AbstractList> storedLists) {
         this.storedLists = storedLists;
     }
@@ -193,6 +239,14 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
     }
 
     public Geocache findCacheByGeocode(final String geocode) {
+        if (windowedList != null) {
+            final int position = windowedList.indexOfGeocode(geocode);
+            if (position < 0) {
+                return null;
+            }
+            // a single cache is quickly loaded, while a placeholder misses most details
+            return windowedList.isLoaded(position) ? windowedList.get(position) : DataStore.loadCache(geocode, LoadFlags.LOAD_CACHE_OR_DB);
+        }
         for (int i = 0; i < getCount(); i++) {
             if (getItem(i).getGeocode().equalsIgnoreCase(geocode)) {
                 return getItem(i);
@@ -205,6 +259,10 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
      * Called when a new page of caches was loaded.
      */
     public void reFilter() {
+        if (windowedList != null) {
+            // windowed lists are filtered by the database
+            return;
+        }
         if (currentFilter != null || (currentGeocacheFilter != null && currentGeocacheFilter.hasFilter())) {
             // Back up the list again
             originalList = new ArrayList<>(list);
@@ -223,6 +281,13 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
             gcFilter = advancedFilter;
          }
 
+        if (windowedList != null) {
+            // windowed lists are filtered by the database, the list has to be reloaded on filter change
+            currentFilter = filter;
+            currentGeocacheFilter = gcFilter;
+            return;
+        }
+
         // Backup current caches list if it isn't backed up yet
         if (originalList == null) {
             originalList = new ArrayList<>(list);
@@ -263,6 +328,9 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
     }
 
     public int getCheckedCount() {
+        if (windowedList != null) {
+            return windowedList.getCheckedCount();
+        }
         int checked = 0;
         for (final Geocache cache : list) {
             if (cache.isStatusChecked()) {
@@ -275,7 +343,9 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
     public void setSelectMode(final boolean selectMode) {
         this.selectMode = selectMode;
 
-        if (!selectMode) {
+        if (!selectMode && windowedList != null) {
+            windowedList.setAllChecked(false);
+        } else if (!selectMode) {
             for (final Geocache cache : list) {
                 cache.setStatusChecked(false);
             }
@@ -292,8 +362,12 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
     }
 
     public void invertSelection() {
-        for (final Geocache cache : list) {
-            cache.setStatusChecked(!cache.isStatusChecked());
+        if (windowedList != null) {
+            windowedList.invertChecked();
+        } else {
+            for (final Geocache cache : list) {
+                cache.setStatusChecked(!cache.isStatusChecked());
+            }
         }
         notifyDataSetChanged();
     }
@@ -306,7 +380,7 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
         if (isSortedByDistance()) {
             lastSort = 0;
             updateSortByDistance();
-        } else {
+        } else if (windowedList == null) { // windowed lists are already sorted by the database
             getCacheComparator().sort(list, inverseSort);
         }
 
@@ -338,13 +412,19 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
         if (coords == null) {
             return;
         }
-        final List<Geocache> oldList = new ArrayList<>(list);
         DistanceComparator.updateGlobalGps(coords);
-        DistanceComparator.DISTANCE_TO_GLOBAL_GPS.sort(list, inverseSort);
+        if (windowedList != null) {
+            if (!windowedList.sortByDistance(coords, inverseSort)) {
+                return;
+            }
+        } else {
+            final List<Geocache> oldList = new ArrayList<>(list);
+            DistanceComparator.DISTANCE_TO_GLOBAL_GPS.sort(list, inverseSort);
 
-        // avoid an update if the list has not changed due to location update
-        if (list.equals(oldList)) {
-            return;
+            // avoid an update if the list has not changed due to location update
+            if (list.equals(oldList)) {
+                return;
+            }
         }
         notifyDataSetChanged();
         lastSort = System.currentTimeMillis();
@@ -626,7 +706,23 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
         return list;
     }
 
+    /**
+     * @return geocodes of all caches in the (filtered) list, without loading all caches of a windowed list
+     */
+    public Set<String> getFilteredGeocodes() {
+        if (windowedList != null) {
+            return new HashSet<>(windowedList.getGeocodes());
+        }
+        return Geocache.getGeocodes(list);
+    }
+
+    /**
+     * @throws IllegalStateException for windowed lists, whose caches must not be loaded on the UI thread, see {@link #getCheckedOrAllGeocodes()}
+     */
     public List<Geocache> getCheckedCaches() {
+        if (windowedList != null) {
+            throw new IllegalStateException("caches of a windowed list must be loaded in the background");
+        }
         final List<Geocache> result = new ArrayList<>();
         for (final Geocache cache : list) {
             if (cache.isStatusChecked()) {
@@ -636,6 +732,9 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
         return result;
     }
 
+    /**
+     * @throws IllegalStateException for windowed lists, whose caches must not be loaded on the UI thread, see {@link #getCheckedOrAllGeocodes()}
+     */
     public List<Geocache> getCheckedOrAllCaches() {
         final List<Geocache> result = getCheckedCaches();
         if (!result.isEmpty()) {
@@ -644,6 +743,22 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
         return new ArrayList<>(list);
     }
 
+    /**
+     * @return geocodes of the selected caches or of all caches in list order, without loading the caches of a windowed list
+     */
+    @NonNull
+    public List<String> getCheckedOrAllGeocodes() {
+        if (windowedList != null) {
+            final List<String> checked = windowedList.getCheckedGeocodes();
+            return checked.isEmpty() ? windowedList.getGeocodes() : checked;
+        }
+        final List<String> geocodes = new ArrayList<>();
+        for (final Geocache cache : getCheckedOrAllCaches()) {
+            geocodes.add(cache.getGeocode());
+        }
+        return geocodes;
+    }
+
     public int getCheckedOrAllCount() {
         final int checked = getCheckedCount();
         if (checked > 0) {
@@ -658,6 +773,10 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
     }
 
     private void checkEvents() {
+        if (windowedList != null) {
+            eventsOnly = windowedList.isEventsOnly();
+            return;
+        }
         eventsOnly = list.isEmpty() ? false : true;
         for (final Geocache cache : list) {
             if (!cache.isEventCache()) {
@@ -703,7 +822,9 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
         mapFirstPosition = new LinkedHashMap<>();
         final ArrayList<String> sectionList = new ArrayList<>();
         String lastComparable = null;
-        for (int x = 0; x < list.size(); x++) {
+        // sections of a windowed list would need all caches, the fast scroller falls back to proportional scrolling
+        final int indexedSize = windowedList != null ? 0 : list.size();
+        for (int x = 0; x < indexedSize; x++) {
             final String comparable = getComparable(x);
             if (!StringUtils.equals(lastComparable, comparable)) {
                 mapFirstPosition.put(comparable, x);
@@ -728,6 +849,9 @@ public class CacheListAdapter extends ArrayAdapter<Geocache> implements SectionI
     }
 
     public int getSectionForPosition(final int position) {
+        if (windowedList != null) {
+            return 0;
+        }
         final Integer section = mapSection.get(getComparable(position));
         return null == section ? 0 : section;
     }
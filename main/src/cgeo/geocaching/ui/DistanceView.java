@@ -1,5 +1,6 @@
 package cgeo.geocaching.ui;
 
+import cgeo.geocaching.location.CheapRuler;
 import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.location.Units;
 
@@ -11,6 +12,10 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.widget.AppCompatTextView;
 
 public class DistanceView extends AppCompatTextView {
+    /** all views of a list are updated with the same coordinates, so they share the ruler (UI thread only) */
+    private static CheapRuler ruler = null;
+    private static Geopoint rulerCoords = null;
+
     private Geopoint cacheCoords = null;
 
     public DistanceView(final Context context) {
@@ -33,7 +38,11 @@ public class DistanceView extends AppCompatTextView {
         if (cacheCoords == null) {
             return;
         }
-        setText(Units.getDistanceFromKilometers(coords.distanceTo(cacheCoords)));
+        if (!coords.equals(rulerCoords)) {
+            ruler = new CheapRuler(coords);
+            rulerCoords = coords;
+        }
+        setText(Units.getDistanceFromKilometers(ruler.distanceTo(cacheCoords)));
     }
 
     @SuppressLint("SetTextI18n")
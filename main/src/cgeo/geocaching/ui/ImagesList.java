@@ -9,6 +9,7 @@ import cgeo.geocaching.models.Geocache;
 import cgeo.geocaching.models.Image;
 import cgeo.geocaching.models.Waypoint;
 import cgeo.geocaching.network.HtmlImage;
+import cgeo.geocaching.storage.ImageStore;
 import cgeo.geocaching.storage.LocalStorage;
 import cgeo.geocaching.utils.AndroidRxUtils;
 import cgeo.geocaching.utils.Log;
@@ -16,7 +17,6 @@ import cgeo.geocaching.utils.Log;
 import android.app.Activity;
 import android.content.Intent;
 import android.content.res.Resources;
-import android.graphics.Bitmap;
 import android.graphics.Bitmap.CompressFormat;
 import android.graphics.Rect;
 import android.graphics.drawable.BitmapDrawable;
@@ -42,7 +42,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.util.Collection;
-import java.util.LinkedList;
 
 import com.drew.imaging.ImageMetadataReader;
 import com.drew.lang.GeoLocation;
@@ -76,8 +75,6 @@ public class ImagesList {
 
     private LayoutInflater inflater = null;
     private final Activity activity;
-    // We could use a Set here, but we will insert no duplicates, so there is no need to check for uniqueness.
-    private final Collection<Bitmap> bitmaps = new LinkedList<>();
     /**
      * map image view id to image
      */
@@ -141,8 +138,6 @@ public class ImagesList {
         final ImageView imageView = (ImageView) imageViewLayout.findViewById(R.id.map_image);
         // In case of a failed download happening fast, the imageView seems to not have been added to the layout yet
         if (image != null && imageView != null) {
-            bitmaps.add(image.getBitmap());
-
             final Rect bounds = image.getBounds();
 
             imageView.setImageResource(R.drawable.image_not_loaded);
@@ -171,7 +166,7 @@ public class ImagesList {
     @Nullable
     private Geopoint getImageLocation(final Image image) {
         try {
-            final File file = LocalStorage.getGeocacheDataFile(geocode, image.getUrl(), true, false);
+            final File file = ImageStore.get().resolve(LocalStorage.getGeocacheDataFile(geocode, image.getUrl(), true, false));
             final Metadata metadata = ImageMetadataReader.readMetadata(file);
             final Collection<GpsDirectory> gpsDirectories = metadata.getDirectoriesOfType(GpsDirectory.class);
             if (gpsDirectories == null) {
@@ -204,10 +199,7 @@ public class ImagesList {
     }
 
     private void removeAllViews() {
-        for (final Bitmap b : bitmaps) {
-            b.recycle();
-        }
-        bitmaps.clear();
+        // the bitmaps are shared through the bitmap cache and must not be recycled here
         images.clear();
         geoPoints.clear();
 
@@ -275,7 +267,7 @@ public class ImagesList {
     private void viewImageInStandardApp(final Image img, final BitmapDrawable image) {
         try {
             final Intent intent = new Intent().setAction(Intent.ACTION_VIEW);
-            final File file = img.isLocalFile() ? img.localFile() : LocalStorage.getGeocacheDataFile(geocode, img.getUrl(), true, true);
+            final File file = img.isLocalFile() ? img.localFile() : ImageStore.get().resolve(LocalStorage.getGeocacheDataFile(geocode, img.getUrl(), true, true));
             final String authority = activity.getApplicationContext().getString(R.string.file_provider_authority);
             if (file.exists()) {
                 intent.setDataAndType(
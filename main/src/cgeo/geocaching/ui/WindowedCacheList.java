@@ -0,0 +1,413 @@
+package cgeo.geocaching.ui;
+
+import cgeo.geocaching.enumerations.LoadFlags;
+import cgeo.geocaching.location.CheapRuler;
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.storage.CacheListIndex;
+import cgeo.geocaching.storage.DataStore;
+import cgeo.geocaching.utils.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Read-only cache list backed by a {@link CacheListIndex}, which loads the full caches page by page when they are
+ * accessed.
+ *
+ * Pages are loaded in the background. Until a page is loaded, its positions return placeholder caches built from the
+ * index (geocode, name, type and coordinates), the listener set by {@link #setOnPageLoaded(Runnable)} is called once the
+ * full caches are available.
+ *
+ * Only the pages of the last accessed positions are kept, older pages are evicted. Therefore a list with many thousand
+ * caches needs no more memory for {@link Geocache} objects than a small one, and opening it does not load them all.
+ * As the loaded caches may be evicted at any time, their selection state is remembered by the list itself.
+ *
+ * Must only be used from the UI thread, except for {@link #loadCaches(List)}.
+ */
+public class WindowedCacheList extends AbstractList<Geocache> {
+
+    /** stored lists with more caches than this are shown windowed */
+    public static final int MIN_WINDOWED_SIZE = 500;
+
+    static final int PAGE_SIZE = 50;
+    static final int MAX_LOADED_PAGES = 6;
+
+    private final CacheListIndex index;
+    private final Scheduler loadScheduler;
+    private final Scheduler uiScheduler;
+    /** set when the list is no longer shown, to skip the page loads still queued */
+    private volatile boolean disposed = false;
+    @Nullable private Runnable onPageLoaded = null;
+    /** index entry by list position */
+    private int[] order;
+    /** selection state by index entry */
+    private final BitSet checked = new BitSet();
+    /** pages currently showing placeholders, while their caches are loaded */
+    private final Set<Integer> pendingPages = new HashSet<>();
+    /** changed whenever the positions change, to drop pages loaded for the old positions */
+    private int generation = 0;
+
+    private final LinkedHashMap<Integer, Geocache[]> pages = new LinkedHashMap<Integer, Geocache[]>(MAX_LOADED_PAGES + 1, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Integer, Geocache[]> eldest) {
+            if (size() > MAX_LOADED_PAGES) {
+                rememberChecked(eldest.getKey(), eldest.getValue());
+                pendingPages.remove(eldest.getKey());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public WindowedCacheList(@NonNull final CacheListIndex index) {
+        this(index, Schedulers.io(), AndroidSchedulers.mainThread());
+    }
+
+    WindowedCacheList(@NonNull final CacheListIndex index, @NonNull final Scheduler loadScheduler, @NonNull final Scheduler uiScheduler) {
+        this.index = index;
+        this.loadScheduler = loadScheduler;
+        this.uiScheduler = uiScheduler;
+        order = new int[index.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+    }
+
+    @Override
+    public int size() {
+        return order.length;
+    }
+
+    @Override
+    public Geocache get(final int position) {
+        if (position < 0 || position >= order.length) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + order.length);
+        }
+        final int pageNumber = position / PAGE_SIZE;
+        Geocache[] page = pages.get(pageNumber);
+        if (page == null) {
+            page = createPlaceholderPage(pageNumber);
+            pages.put(pageNumber, page);
+            requestPage(pageNumber);
+            // the load scheduler may have completed the page already
+            page = pages.get(pageNumber);
+        }
+        return page[position - pageNumber * PAGE_SIZE];
+    }
+
+    /**
+     * @param onPageLoaded called on the UI thread whenever placeholders have been replaced by the loaded caches
+     */
+    public void setOnPageLoaded(@Nullable final Runnable onPageLoaded) {
+        this.onPageLoaded = onPageLoaded;
+    }
+
+    /**
+     * Stops all page loads in progress, e.g. when the list is replaced.
+     */
+    public void dispose() {
+        disposed = true;
+    }
+
+    /**
+     * @return {@code false} if the given position shows a placeholder while its cache is loaded
+     */
+    public boolean isLoaded(final int position) {
+        final int pageNumber = position / PAGE_SIZE;
+        return pages.containsKey(pageNumber) && !pendingPages.contains(pageNumber);
+    }
+
+    @NonNull
+    public CacheListIndex getIndex() {
+        return index;
+    }
+
+    int getLoadedPageCount() {
+        return pages.size() - pendingPages.size();
+    }
+
+    /**
+     * @return the position of the cache with the given geocode, -1 if it is not part of the list
+     */
+    public int indexOfGeocode(final String geocode) {
+        final int entry = index.indexOf(geocode);
+        if (entry < 0) {
+            return -1;
+        }
+        for (int position = 0; position < order.length; position++) {
+            if (order[position] == entry) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return geocodes of all caches in list order
+     */
+    @NonNull
+    public List<String> getGeocodes() {
+        final List<String> geocodes = new ArrayList<>(order.length);
+        for (final int entry : order) {
+            geocodes.add(index.getGeocode(entry));
+        }
+        return geocodes;
+    }
+
+    public boolean isEventsOnly() {
+        for (int entry = 0; entry < index.size(); entry++) {
+            if (!index.getType(entry).isEvent()) {
+                return false;
+            }
+        }
+        return index.size() > 0;
+    }
+
+    /**
+     * @return {@code true} if the selected caches, or all caches if none is selected, contain an event
+     */
+    public boolean containsCheckedOrAllEvents() {
+        updateChecked();
+        final boolean all = checked.isEmpty();
+        for (int entry = 0; entry < index.size(); entry++) {
+            if ((all || checked.get(entry)) && index.getType(entry).isEvent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reorder the list by distance to the given coordinates (caches without coordinates last), using the coordinates of
+     * the index only.
+     *
+     * @return {@code true} if the order has changed
+     */
+    public boolean sortByDistance(@NonNull final Geopoint coords, final boolean inverse) {
+        final CheapRuler ruler = new CheapRuler(coords);
+
+        // sort (distance, entry) pairs packed into longs to avoid boxing: non-negative floats keep their order as int bits
+        final long[] keys = new long[order.length];
+        for (int i = 0; i < keys.length; i++) {
+            final int entry = order[i];
+            final float distance;
+            if (index.hasCoords(entry)) {
+                distance = ruler.distanceTo(index.getLatitudeE6(entry), index.getLongitudeE6(entry));
+            } else {
+                distance = Float.MAX_VALUE;
+            }
+            keys[i] = ((long) Float.floatToIntBits(distance) << 32) | entry;
+        }
+        Arrays.sort(keys);
+
+        final int[] newOrder = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            newOrder[inverse ? keys.length - 1 - i : i] = (int) keys[i];
+        }
+        if (Arrays.equals(order, newOrder)) {
+            return false;
+        }
+        // positions have changed, so the loaded pages are invalid. The caches themselves are still in the CacheCache.
+        invalidatePages();
+        order = newOrder;
+        return true;
+    }
+
+    public int getCheckedCount() {
+        updateChecked();
+        return checked.cardinality();
+    }
+
+    public void setAllChecked(final boolean isChecked) {
+        if (isChecked) {
+            checked.set(0, index.size());
+        } else {
+            checked.clear();
+        }
+        for (final Geocache[] page : pages.values()) {
+            for (final Geocache cache : page) {
+                cache.setStatusChecked(isChecked);
+            }
+        }
+    }
+
+    public void invertChecked() {
+        updateChecked();
+        checked.flip(0, index.size());
+        for (final Map.Entry<Integer, Geocache[]> page : pages.entrySet()) {
+            applyChecked(page.getKey(), page.getValue());
+        }
+    }
+
+    /**
+     * @return geocodes of the selected caches in list order, without loading them
+     */
+    @NonNull
+    public List<String> getCheckedGeocodes() {
+        updateChecked();
+        final List<String> geocodes = new ArrayList<>(checked.cardinality());
+        for (final int entry : order) {
+            if (checked.get(entry)) {
+                geocodes.add(index.getGeocode(entry));
+            }
+        }
+        return geocodes;
+    }
+
+    /**
+     * Loads the caches of the given geocodes, skipping caches no longer stored. Thousands of caches take seconds to
+     * load, so this must not be called on the UI thread.
+     *
+     * @return the caches in the order of the geocodes
+     */
+    @NonNull
+    public static List<Geocache> loadCaches(@NonNull final List<String> geocodes) {
+        final List<Geocache> caches = loadInOrder(geocodes);
+        final List<Geocache> result = new ArrayList<>(caches.size());
+        for (final Geocache cache : caches) {
+            if (cache != null) {
+                result.add(cache);
+            }
+        }
+        return result;
+    }
+
+    private void requestPage(final int pageNumber) {
+        final int start = pageNumber * PAGE_SIZE;
+        final int end = Math.min(start + PAGE_SIZE, order.length);
+        final List<String> geocodes = new ArrayList<>(end - start);
+        for (int position = start; position < end; position++) {
+            geocodes.add(index.getGeocode(order[position]));
+        }
+        final int requestedGeneration = generation;
+        pendingPages.add(pageNumber);
+        loadScheduler.scheduleDirect(() -> {
+            if (disposed) {
+                return;
+            }
+            try {
+                final List<Geocache> caches = loadInOrder(geocodes);
+                uiScheduler.scheduleDirect(() -> installPage(pageNumber, requestedGeneration, caches));
+            } catch (final RuntimeException e) {
+                // the placeholders stay until the list is reloaded
+                Log.e("WindowedCacheList: loading page " + pageNumber + " failed", e);
+            }
+        });
+    }
+
+    /**
+     * replace the placeholders of a page by the loaded caches, unless the page was evicted or the positions have
+     * changed in the meantime
+     */
+    private void installPage(final int pageNumber, final int requestedGeneration, @NonNull final List<Geocache> caches) {
+        if (disposed || requestedGeneration != generation || !pendingPages.remove(pageNumber)) {
+            return;
+        }
+        final Geocache[] placeholders = pages.get(pageNumber);
+        if (placeholders == null) {
+            return;
+        }
+        // keep the selection changes done on the placeholders
+        rememberChecked(pageNumber, placeholders);
+        final Geocache[] page = new Geocache[placeholders.length];
+        for (int i = 0; i < page.length; i++) {
+            final Geocache cache = caches.get(i);
+            page[i] = cache != null ? cache : placeholders[i];
+        }
+        applyChecked(pageNumber, page);
+        pages.put(pageNumber, page);
+        if (onPageLoaded != null) {
+            onPageLoaded.run();
+        }
+    }
+
+    @NonNull
+    private Geocache[] createPlaceholderPage(final int pageNumber) {
+        final int start = pageNumber * PAGE_SIZE;
+        final Geocache[] page = new Geocache[Math.min(PAGE_SIZE, order.length - start)];
+        for (int i = 0; i < page.length; i++) {
+            page[i] = createStub(order[start + i]);
+        }
+        applyChecked(pageNumber, page);
+        return page;
+    }
+
+    /**
+     * @return the caches for the given geocodes in the same order, {@code null} for caches no longer stored
+     */
+    @NonNull
+    private static List<Geocache> loadInOrder(@NonNull final List<String> geocodes) {
+        final Set<Geocache> loaded = DataStore.loadCaches(geocodes, LoadFlags.LOAD_CACHE_OR_DB);
+        final Map<String, Geocache> byGeocode = new HashMap<>();
+        for (final Geocache cache : loaded) {
+            byGeocode.put(cache.getGeocode(), cache);
+        }
+        final List<Geocache> result = new ArrayList<>(geocodes.size());
+        for (final String geocode : geocodes) {
+            result.add(byGeocode.get(geocode));
+        }
+        return result;
+    }
+
+    /**
+     * placeholder for a cache which is not loaded yet or which was deleted after the index was loaded, the latter keeps
+     * the positions stable until the next refresh
+     */
+    @NonNull
+    private Geocache createStub(final int entry) {
+        final Geocache stub = new Geocache();
+        stub.setGeocode(index.getGeocode(entry));
+        stub.setName(index.getName(entry));
+        stub.setType(index.getType(entry));
+        stub.setCoords(index.getCoords(entry));
+        return stub;
+    }
+
+    private void applyChecked(final int pageNumber, final Geocache[] page) {
+        final int start = pageNumber * PAGE_SIZE;
+        for (int i = 0; i < page.length; i++) {
+            page[i].setStatusChecked(checked.get(order[start + i]));
+        }
+    }
+
+    private void rememberChecked(final int pageNumber, final Geocache[] page) {
+        final int start = pageNumber * PAGE_SIZE;
+        for (int i = 0; i < page.length; i++) {
+            checked.set(order[start + i], page[i].isStatusChecked());
+        }
+    }
+
+    /**
+     * take over selection changes done directly on the loaded caches
+     */
+    private void updateChecked() {
+        for (final Map.Entry<Integer, Geocache[]> page : pages.entrySet()) {
+            rememberChecked(page.getKey(), page.getValue());
+        }
+    }
+
+    private void invalidatePages() {
+        updateChecked();
+        pages.clear();
+        pendingPages.clear();
+        generation++;
+    }
+}
@@ -645,7 +645,7 @@ public class BackupUtils {
             title = activityContext.getString(R.string.init_backup_backup_failed);
 
             if (databaseResult != null) {
-                msg = activityContext.getString(R.string.init_backup_success) + "\n" + backupDir.toUserDisplayableString() + "/" + DataStore.DB_FILE_NAME_BACKUP;
+                msg = activityContext.getString(R.string.init_backup_success) + "\n" + backupDir.toUserDisplayableString() + "/" + DataStore.DB_FILE_NAME_BACKUP_COMPRESSED;
             } else {
                 msg = activityContext.getString(R.string.init_backup_failed);
             }
@@ -679,7 +679,9 @@ public class BackupUtils {
 
     @Nullable
     private static ContentStorage.FileInformation getDatabaseFile(final Folder backupDir) {
-        return ContentStorage.get().getFileInfo(backupDir, DataStore.DB_FILE_NAME_BACKUP);
+        final ContentStorage.FileInformation compressed = ContentStorage.get().getFileInfo(backupDir, DataStore.DB_FILE_NAME_BACKUP_COMPRESSED);
+        // backups of older versions are not compressed
+        return compressed != null ? compressed : ContentStorage.get().getFileInfo(backupDir, DataStore.DB_FILE_NAME_BACKUP);
     }
 
     @Nullable
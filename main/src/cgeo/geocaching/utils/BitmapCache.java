@@ -0,0 +1,63 @@
+package cgeo.geocaching.utils;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Process wide cache of decoded images, bounded by the memory used by the bitmaps.
+ * <p>
+ * Images are cached per source and target size. The version identifies the content the bitmap was decoded from, a
+ * cached bitmap is only returned for the same version.
+ */
+public final class BitmapCache {
+
+    private static final BitmapCache INSTANCE = new BitmapCache((int) (Runtime.getRuntime().maxMemory() / 1024 / 8));
+
+    private static final class Entry {
+        @NonNull final String version;
+        @NonNull final Bitmap bitmap;
+
+        Entry(@NonNull final String version, @NonNull final Bitmap bitmap) {
+            this.version = version;
+            this.bitmap = bitmap;
+        }
+    }
+
+    private final LruCache<String, Entry> cache;
+
+    private BitmapCache(final int maxKiloBytes) {
+        cache = new LruCache<String, Entry>(maxKiloBytes) {
+            @Override
+            protected int sizeOf(final String key, final Entry entry) {
+                return Math.max(1, entry.bitmap.getByteCount() / 1024);
+            }
+        };
+    }
+
+    @NonNull
+    public static BitmapCache get() {
+        return INSTANCE;
+    }
+
+    @NonNull
+    private static String key(@NonNull final String source, final int maxWidth, final int maxHeight) {
+        return maxWidth + "x" + maxHeight + ":" + source;
+    }
+
+    @Nullable
+    public Bitmap get(@NonNull final String source, final int maxWidth, final int maxHeight, @NonNull final String version) {
+        final Entry entry = cache.get(key(source, maxWidth, maxHeight));
+        return entry != null && entry.version.equals(version) && !entry.bitmap.isRecycled() ? entry.bitmap : null;
+    }
+
+    public void put(@NonNull final String source, final int maxWidth, final int maxHeight, @NonNull final String version, @NonNull final Bitmap bitmap) {
+        cache.put(key(source, maxWidth, maxHeight), new Entry(version, bitmap));
+    }
+
+    public void clear() {
+        cache.evictAll();
+    }
+}
@@ -0,0 +1,107 @@
+package cgeo.geocaching.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+/**
+ * Runs a sequence of initialization phases once, typically in the background, and lets callers wait for their end.
+ * <p>
+ * The phases run one after the other in the order they were added, on the thread of {@link #start(Scheduler)} or
+ * on the first thread calling {@link #await()}, whichever comes first. A failing phase is logged and does not stop the
+ * following phases. The duration of every phase is logged with a {@link ContextLogger}.
+ */
+public final class InitializationBarrier {
+
+    @NonNull private final String name;
+    @NonNull private final List<ImmutablePair<String, Runnable>> phases = new ArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    /** thread running the phases, a phase may call code awaiting this barrier */
+    private volatile Thread runningThread = null;
+
+    public InitializationBarrier(@NonNull final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Adds a phase, which is run after the phases added before.
+     *
+     * @throws IllegalStateException if the phases were started already
+     */
+    @NonNull
+    public synchronized InitializationBarrier addPhase(@NonNull final String phaseName, @NonNull final Runnable phase) {
+        if (started.get()) {
+            throw new IllegalStateException("InitializationBarrier '" + name + "' already started");
+        }
+        phases.add(new ImmutablePair<>(phaseName, phase));
+        return this;
+    }
+
+    /**
+     * Starts running the phases on the given scheduler, if they are not running yet.
+     */
+    public void start(@NonNull final Scheduler scheduler) {
+        if (!started.get()) {
+            scheduler.scheduleDirect(this::runPhases);
+        }
+    }
+
+    /**
+     * Waits until all phases have run, running them on the calling thread if they were not started yet.
+     * Called from a phase, this returns immediately.
+     */
+    public void await() {
+        runPhases();
+        if (Thread.currentThread() == runningThread) {
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
+    private void runPhases() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        final List<ImmutablePair<String, Runnable>> phasesToRun;
+        synchronized (this) {
+            phasesToRun = new ArrayList<>(phases);
+        }
+        runningThread = Thread.currentThread();
+        try (ContextLogger cLog = new ContextLogger(Log.LogLevel.INFO, "InitializationBarrier(%s)", name)) {
+            for (final ImmutablePair<String, Runnable> phase : phasesToRun) {
+                final long start = System.currentTimeMillis();
+                try {
+                    phase.right.run();
+                } catch (final RuntimeException e) {
+                    Log.w("InitializationBarrier(" + name + "): phase '" + phase.left + "' failed", e);
+                }
+                cLog.add("%s: %dms", phase.left, System.currentTimeMillis() - start);
+            }
+        } finally {
+            runningThread = null;
+            finished.countDown();
+        }
+    }
+}
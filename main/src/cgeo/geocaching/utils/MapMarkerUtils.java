@@ -19,6 +19,11 @@ import cgeo.geocaching.utils.builders.InsetBuilder.VERTICAL;
 import cgeo.geocaching.utils.builders.InsetsBuilder;
 
 import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.LayerDrawable;
 import android.util.Pair;
@@ -223,6 +228,61 @@ public final class MapMarkerUtils {
         return new LayerDrawable(layers);
     }
 
+    /**
+     * Obtain the count bubble drawn for a cluster of caches on the map.
+     * Return a drawable from the cache, if a bubble with the same label was already generated.
+     *
+     * @param res
+     *          the resources to use
+     * @param count
+     *          number of caches in the cluster
+     * @return
+     *          a drawable showing the (rounded) number of caches
+     */
+    @NonNull
+    public static CacheMarker getClusterMarker(final Resources res, final int count) {
+        final String label = count < 1000 ? String.valueOf(count) : (count / 1000) + "k";
+        final int hashcode = new HashCodeBuilder()
+            .append("cluster")
+            .append(label)
+            .toHashCode();
+
+        synchronized (overlaysCache) {
+            CacheMarker marker = overlaysCache.get(hashcode);
+            if (marker == null) {
+                marker = new CacheMarker(hashcode, createClusterMarker(res, label, count));
+                overlaysCache.put(hashcode, marker);
+            }
+            return marker;
+        }
+    }
+
+    @NonNull
+    private static Drawable createClusterMarker(final Resources res, final String label, final int count) {
+        final float density = res.getDisplayMetrics().density;
+        // bigger clusters get slightly bigger bubbles
+        final int size = (int) (density * (count < 10 ? 30 : count < 100 ? 36 : 42));
+        final float stroke = 2 * density;
+
+        final Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(bitmap);
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(ResourcesCompat.getColor(res, R.color.map_cluster_fill, null));
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f - stroke, paint);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(stroke);
+        paint.setColor(ResourcesCompat.getColor(res, R.color.map_cluster_stroke, null));
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f - stroke, paint);
+
+        paint.setStyle(Paint.Style.FILL);
+        paint.setTypeface(Typeface.DEFAULT_BOLD);
+        paint.setTextAlign(Paint.Align.CENTER);
+        paint.setTextSize(13 * density);
+        canvas.drawText(label, size / 2f, size / 2f - (paint.descent() + paint.ascent()) / 2, paint);
+        return new BitmapDrawable(res, bitmap);
+    }
+
     /**
      * Clear the cache of drawable items.
      */
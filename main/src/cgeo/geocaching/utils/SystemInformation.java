@@ -138,7 +138,8 @@ public final class SystemInformation {
         body.append("\n- Database: ").append(dbFile)
                 .append(" (").append(versionInfoToString(DataStore.getActualDBVersion(), DataStore.getExpectedDBVersion()))
                 .append(", Size:").append(Formatter.formatBytes(dbFile.length())).append(") on ")
-                .append(Settings.isDbOnSDCard() ? "user storage" : "system internal storage");
+                .append(Settings.isDbOnSDCard() ? "user storage" : "system internal storage")
+                .append("\n- Database locking: ").append(DataStore.getLockWaitInfo());
     }
 
     private static void appendSettings(@NonNull final StringBuilder body) {
@@ -0,0 +1,80 @@
+package cgeo.geocaching.brouter.expressions;
+
+import cgeo.geocaching.brouter.util.DefaultFilesUtils;
+import cgeo.geocaching.storage.ContentStorage;
+import cgeo.geocaching.storage.PersistableFolder;
+import cgeo.geocaching.utils.Log;
+
+import android.net.Uri;
+
+import java.util.Random;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class BExpressionProgramTest {
+
+    private static final String[] PROFILES = {"car-eco.brf", "car-fast.brf", "fastbike.brf", "moped.brf", "shortest.brf", "trekking.brf"};
+
+    private static BExpressionContextWay createWayContext(final String profile, final boolean compiled) {
+        final Uri uri = ContentStorage.get().getFileInfo(PersistableFolder.ROUTING_BASE.getFolder(), profile).uri;
+        final BExpressionMetaData meta = new BExpressionMetaData();
+        final BExpressionContextWay way = new BExpressionContextWay(0, meta); // no result cache
+        final BExpressionContextNode node = new BExpressionContextNode(0, meta);
+        node.setForeignContext(way);
+        meta.readMetaData();
+        way.parseFile(uri, "global");
+        node.parseFile(uri, "global");
+        way.setCompiled(compiled);
+        return way;
+    }
+
+    private static int[][] generateLookupData(final BExpressionContext ctx, final int count) {
+        final Random rnd = new Random(4711);
+        final int[][] data = new int[count][];
+        for (int i = 0; i < count; i++) {
+            data[i] = ctx.generateRandomValues(rnd);
+        }
+        return data;
+    }
+
+    @Test
+    public void testCompiledEqualsInterpreted() {
+        DefaultFilesUtils.checkDefaultFiles();
+        for (final String profile : PROFILES) {
+            final BExpressionContextWay compiled = createWayContext(profile, true);
+            final BExpressionContextWay interpreted = createWayContext(profile, false);
+            for (final int[] lookupData : generateLookupData(compiled, 5000)) {
+                compiled.evaluate(lookupData);
+                interpreted.evaluate(lookupData);
+                compiled.assertAllVariablesEqual(interpreted); // throws on mismatch
+            }
+        }
+    }
+
+    /**
+     * throughput per way description of compiled vs. interpreted evaluation (see log output)
+     */
+    @Test
+    public void testEvaluationBenchmark() {
+        DefaultFilesUtils.checkDefaultFiles();
+        final int rounds = 50000;
+        for (final String profile : PROFILES) {
+            final long[] nanos = new long[2];
+            for (int mode = 0; mode < 2; mode++) {
+                final BExpressionContextWay ctx = createWayContext(profile, mode == 0);
+                final int[][] data = generateLookupData(ctx, 1000);
+                for (int i = 0; i < rounds; i++) { // warm up
+                    ctx.evaluate(data[i % data.length]);
+                }
+                final long start = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    ctx.evaluate(data[i % data.length]);
+                }
+                nanos[mode] = System.nanoTime() - start;
+            }
+            Log.i("BExpressionProgramTest: " + profile + " compiled=" + nanos[0] / rounds + "ns interpreted=" + nanos[1] / rounds + "ns per way description");
+            assertThat(nanos[0]).isPositive();
+        }
+    }
+}
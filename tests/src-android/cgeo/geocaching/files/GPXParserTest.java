@@ -22,8 +22,10 @@ import cgeo.geocaching.utils.SynchronizedDateFormat;
 
 import androidx.annotation.RawRes;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -35,6 +37,7 @@ import java.util.Locale;
 import java.util.Set;
 
 import org.apache.commons.compress.utils.IOUtils;
+import org.xml.sax.SAXException;
 import static org.assertj.core.api.Java6Assertions.assertThat;
 
 public class GPXParserTest extends AbstractResourceInstrumentationTestCase {
@@ -303,6 +306,20 @@ public class GPXParserTest extends AbstractResourceInstrumentationTestCase {
         return new ArrayList<>(DataStore.loadCaches(result, LoadFlags.LOAD_ALL_DB_ONLY));
     }
 
+    public void testTruncatedFileReportsParseError() throws Exception {
+        final String content = getFileContent(R.raw.gc31j2h);
+        final InputStream truncated = new ByteArrayInputStream(content.substring(0, content.length() / 2).getBytes(StandardCharsets.UTF_8));
+        try {
+            new GPX10Parser(getTemporaryListId()).parse(truncated, null);
+            fail("truncated file must not be parsed");
+        } catch (final ParserException e) {
+            // the failure of the XML parser, not of stopping the import writer
+            assertThat(e.getCause()).isInstanceOf(SAXException.class);
+        }
+        // the writer of the failed import is stopped, the next import works
+        assertThat(readGPX10(R.raw.gc31j2h)).hasSize(1);
+    }
+
     public void testSelfmadeGPXWithoutGeocodes() throws Exception {
         final List<Geocache> caches = readGPX11(R.raw.no_connector);
         assertThat(caches).hasSize(13);
@@ -0,0 +1,123 @@
+package cgeo.geocaching.filters.core;
+
+import cgeo.geocaching.enumerations.CacheType;
+import cgeo.geocaching.models.Geocache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class CompiledGeocacheFilterTest {
+
+    private static TypeGeocacheFilter typeFilter(final CacheType... types) {
+        final TypeGeocacheFilter filter = (TypeGeocacheFilter) GeocacheFilterType.TYPE.create();
+        filter.setValues(Arrays.asList(types));
+        return filter;
+    }
+
+    private static StringGeocacheFilter stringFilter(final GeocacheFilterType type, final String text) {
+        final StringGeocacheFilter filter = (StringGeocacheFilter) type.create();
+        filter.getStringFilter().setTextValue(text);
+        return filter;
+    }
+
+    private static <T extends LogicalGeocacheFilter> T logical(final T filter, final IGeocacheFilter... children) {
+        for (IGeocacheFilter child : children) {
+            filter.addChild(child);
+        }
+        return filter;
+    }
+
+    private static Geocache createCache(final CacheType type, final String name, final String description) {
+        final Geocache cache = new Geocache();
+        cache.setType(type);
+        cache.setName(name);
+        cache.setDescription(description);
+        cache.setShortDescription("");
+        cache.setHint("");
+        cache.setLocation("");
+        return cache;
+    }
+
+    private static List<Geocache> createCaches() {
+        final List<Geocache> caches = new ArrayList<>();
+        for (CacheType type : Arrays.asList(CacheType.TRADITIONAL, CacheType.MULTI, CacheType.MYSTERY)) {
+            caches.add(createCache(type, "Bridge", "under the bridge"));
+            caches.add(createCache(type, "Tower", "on top of the tower"));
+            caches.add(createCache(type, null, "nameless bridge"));
+        }
+        return caches;
+    }
+
+    private static int toResult(final Boolean result) {
+        return result == null ? CompiledGeocacheFilter.INCONCLUSIVE : (result ? CompiledGeocacheFilter.TRUE : CompiledGeocacheFilter.FALSE);
+    }
+
+    private static void assertSameResults(final IGeocacheFilter tree) {
+        final CompiledGeocacheFilter compiled = CompiledGeocacheFilter.compile(tree);
+        for (Geocache cache : createCaches()) {
+            assertThat(compiled.test(cache)).as("result for " + cache.getType() + "/" + cache.getName()).isEqualTo(toResult(tree.filter(cache)));
+        }
+    }
+
+    @Test
+    public void testCheapFiltersFirstInAnd() {
+        final IGeocacheFilter description = stringFilter(GeocacheFilterType.DESCRIPTION, "bridge");
+        final IGeocacheFilter name = stringFilter(GeocacheFilterType.NAME, "bridge");
+        final IGeocacheFilter type = typeFilter(CacheType.MULTI);
+        final CompiledGeocacheFilter compiled = CompiledGeocacheFilter.compile(logical(new AndGeocacheFilter(), description, name, type));
+        assertThat(compiled.getEvaluationOrder()).containsExactly(type, name, description);
+    }
+
+    @Test
+    public void testNonFilteringChildren() {
+        final IGeocacheFilter name = stringFilter(GeocacheFilterType.NAME, "bridge");
+        final IGeocacheFilter all = typeFilter();
+        assertThat(CompiledGeocacheFilter.compile(logical(new AndGeocacheFilter(), all, name)).getEvaluationOrder()).containsExactly(name, all);
+        assertThat(CompiledGeocacheFilter.compile(logical(new OrGeocacheFilter(), name, all)).getEvaluationOrder()).containsExactly(all, name);
+    }
+
+    @Test
+    public void testNestedFiltersAreFlattened() {
+        final IGeocacheFilter description = stringFilter(GeocacheFilterType.DESCRIPTION, "bridge");
+        final IGeocacheFilter name = stringFilter(GeocacheFilterType.NAME, "bridge");
+        final IGeocacheFilter type = typeFilter(CacheType.MULTI);
+        final IGeocacheFilter tree = logical(new AndGeocacheFilter(), description, logical(new AndGeocacheFilter(), name, type));
+        assertThat(CompiledGeocacheFilter.compile(tree).getEvaluationOrder()).containsExactly(type, name, description);
+    }
+
+    @Test
+    public void testSameResultsAsTree() {
+        final IGeocacheFilter description = stringFilter(GeocacheFilterType.DESCRIPTION, "bridge");
+        final IGeocacheFilter name = stringFilter(GeocacheFilterType.NAME, "bridge");
+        final IGeocacheFilter type = typeFilter(CacheType.MULTI, CacheType.MYSTERY);
+
+        assertSameResults(logical(new AndGeocacheFilter(), description, name, type));
+        assertSameResults(logical(new OrGeocacheFilter(), description, name, type));
+        assertSameResults(logical(new NotGeocacheFilter(), logical(new OrGeocacheFilter(), name, type)));
+        assertSameResults(logical(new OrGeocacheFilter(), logical(new AndGeocacheFilter(), name, type), logical(new NotGeocacheFilter(), description)));
+        assertSameResults(new AndGeocacheFilter());
+        assertSameResults(new OrGeocacheFilter());
+        assertSameResults(new NotGeocacheFilter());
+    }
+
+    @Test
+    public void testInconclusive() {
+        final IGeocacheFilter name = stringFilter(GeocacheFilterType.NAME, "bridge");
+        final Geocache nameless = createCache(CacheType.MULTI, null, "nameless bridge");
+        assertThat(CompiledGeocacheFilter.compile(name).test(nameless)).isEqualTo(CompiledGeocacheFilter.INCONCLUSIVE);
+        assertThat(CompiledGeocacheFilter.compile(logical(new AndGeocacheFilter(), name, typeFilter(CacheType.MULTI))).test(nameless)).isEqualTo(CompiledGeocacheFilter.INCONCLUSIVE);
+        assertThat(CompiledGeocacheFilter.compile(logical(new AndGeocacheFilter(), name, typeFilter(CacheType.TRADITIONAL))).test(nameless)).isEqualTo(CompiledGeocacheFilter.FALSE);
+        assertThat(CompiledGeocacheFilter.compile(logical(new OrGeocacheFilter(), name, typeFilter(CacheType.MULTI))).test(nameless)).isEqualTo(CompiledGeocacheFilter.TRUE);
+    }
+
+    @Test
+    public void testGeocacheFilterUsesInconclusiveFlag() {
+        final Geocache nameless = createCache(CacheType.MULTI, null, "nameless bridge");
+        assertThat(GeocacheFilter.createFromConfig("[inconclusive=true]name").filter(nameless)).isTrue();
+        assertThat(GeocacheFilter.createFromConfig("[inconclusive=false]name").filter(nameless)).isFalse();
+    }
+}
@@ -0,0 +1,43 @@
+package cgeo.geocaching.filters.core;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class StringFilterTest {
+
+    private static StringFilter wordFilter(final String text) {
+        final StringFilter filter = new StringFilter();
+        filter.setFilterType(StringFilter.StringFilterType.CONTAINS_WORDS);
+        filter.setTextValue(text);
+        return filter;
+    }
+
+    @Test
+    public void getWords() {
+        assertThat(StringFilter.getWords(null)).isEmpty();
+        assertThat(StringFilter.getWords(" -- ")).isEmpty();
+        assertThat(StringFilter.getWords("A <b>nice</b> Café, 2nd-stage")).containsExactly("a", "b", "nice", "b", "cafe", "2nd", "stage");
+    }
+
+    @Test
+    public void containsWords() {
+        final String value = "A nice <b>Cache</b> near the Lakeside Café";
+        assertThat(wordFilter("cache").matches(value)).isTrue();
+        assertThat(wordFilter("LAKE cache").matches(value)).isTrue();
+        assertThat(wordFilter("cafe").matches(value)).isTrue();
+        assertThat(wordFilter("café near").matches(value)).isTrue();
+        assertThat(wordFilter("ache").matches(value)).isFalse();
+        assertThat(wordFilter("cache river").matches(value)).isFalse();
+        // no words: does not restrict
+        assertThat(wordFilter("!!").matches(value)).isTrue();
+    }
+
+    @Test
+    public void likeFallbackForContainsWords() {
+        assertThat(wordFilter("Cache lake").getRawLikeSqlExpression("description"))
+            .isEqualTo("LOWER(description) LIKE '%cache%' ESCAPE '\\' AND LOWER(description) LIKE '%lake%' ESCAPE '\\'");
+        // the column can't be normalized in SQL, so neither are the words
+        assertThat(wordFilter("Café").getRawLikeSqlExpression("log"))
+            .isEqualTo("LOWER(log) LIKE '%café%' ESCAPE '\\'");
+    }
+}
@@ -0,0 +1,76 @@
+package cgeo.geocaching.maps;
+
+import cgeo.geocaching.enumerations.CacheType;
+import cgeo.geocaching.enumerations.WaypointType;
+import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.models.Waypoint;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class MapUtilsTest {
+
+    private static final int WAYPOINTS_PER_CACHE = 500;
+
+    private static Set<Waypoint> createWaypoints(final String... geocodes) {
+        final Set<Waypoint> waypoints = new HashSet<>();
+        for (String geocode : geocodes) {
+            for (int i = 0; i < WAYPOINTS_PER_CACHE; i++) {
+                final Waypoint waypoint = new Waypoint("Stage " + i, WaypointType.STAGE, false);
+                waypoint.setGeocode(geocode);
+                waypoints.add(waypoint);
+            }
+        }
+        return waypoints;
+    }
+
+    private static Geocache createCache(final String geocode) {
+        final Geocache cache = new Geocache();
+        cache.setGeocode(geocode);
+        cache.setType(CacheType.TRADITIONAL);
+        return cache;
+    }
+
+    @Test
+    public void testCachesAreLoadedOnce() {
+        final Set<Waypoint> waypoints = createWaypoints("GC1", "GC2", "GC3", "GC4");
+        final List<Set<String>> loads = new ArrayList<>();
+
+        // GC4 is unknown, its waypoints have to be removed
+        MapUtils.filter(waypoints, true, geocodes -> {
+            loads.add(new HashSet<>(geocodes));
+            final List<Geocache> caches = new ArrayList<>();
+            for (String geocode : geocodes) {
+                if (!"GC4".equals(geocode)) {
+                    caches.add(createCache(geocode));
+                }
+            }
+            return caches;
+        });
+
+        assertThat(loads).hasSize(1);
+        assertThat(loads.get(0)).containsOnly("GC1", "GC2", "GC3", "GC4");
+        // the waypoints of the known caches are all kept
+        assertThat(waypoints).hasSize(3 * WAYPOINTS_PER_CACHE);
+        final Set<String> remainingGeocodes = new HashSet<>();
+        for (Waypoint waypoint : waypoints) {
+            remainingGeocodes.add(waypoint.getGeocode());
+        }
+        assertThat(remainingGeocodes).containsOnly("GC1", "GC2", "GC3");
+    }
+
+    @Test
+    public void testNoLoadWithoutWaypoints() {
+        final List<Set<String>> loads = new ArrayList<>();
+        MapUtils.filter(new HashSet<>(), true, geocodes -> {
+            loads.add(geocodes);
+            return new ArrayList<>();
+        });
+        assertThat(loads).isEmpty();
+    }
+}
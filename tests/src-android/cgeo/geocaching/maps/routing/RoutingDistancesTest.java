@@ -0,0 +1,95 @@
+package cgeo.geocaching.maps.routing;
+
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.settings.Settings;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the distances of the one-to-many search with the tracks of single target searches. Needs the internal
+ * routing service and the routing tile of the test area, the tests are skipped otherwise.
+ */
+public class RoutingDistancesTest {
+
+    /** a few caches in the city centre of Munich, mostly in the middle of longer way segments */
+    private static final Geopoint[] POINTS = {
+        new Geopoint(48.13743, 11.57549),
+        new Geopoint(48.13910, 11.56605),
+        new Geopoint(48.14236, 11.57783),
+        new Geopoint(48.13298, 11.58252),
+        new Geopoint(48.13515, 11.56986),
+        new Geopoint(48.14553, 11.56470)
+    };
+
+    private RoutingMode routingMode;
+    private boolean useInternalRouting;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        routingMode = Settings.getRoutingMode();
+        useInternalRouting = Settings.useInternalRouting();
+        Settings.setRoutingMode(RoutingMode.WALK);
+        Settings.setUseInternalRouting(true);
+        Routing.connect();
+        for (int i = 0; i < 100 && !Routing.isConnected(); i++) {
+            Thread.sleep(100);
+        }
+        assumeTrue("routing service not connected", Routing.isConnected());
+    }
+
+    @After
+    public void tearDown() {
+        Routing.disconnect();
+        Settings.setRoutingMode(routingMode);
+        Settings.setUseInternalRouting(useInternalRouting);
+    }
+
+    /**
+     * @return length in kilometers of the track of a single target search
+     */
+    private static float getTrackLength(final Geopoint start, final Geopoint destination) {
+        final Geopoint[] track = Routing.getTrackNoCaching(start, destination);
+        assumeTrue("no routing data for the test area", track.length > 2);
+        float length = 0;
+        for (int i = 1; i < track.length; i++) {
+            length += track[i - 1].distanceTo(track[i]);
+        }
+        return length;
+    }
+
+    private static void assertSameDistance(final float distance, final float trackLength, final String description) {
+        // the searches may choose different routes of (almost) the same cost
+        assertThat(distance).as(description).isBetween(trackLength * 0.95f - 0.02f, trackLength * 1.05f + 0.02f);
+    }
+
+    @Test
+    public void testOneToManyEqualsSingleTargets() {
+        final Geopoint[] targets = new Geopoint[POINTS.length - 1];
+        System.arraycopy(POINTS, 1, targets, 0, targets.length);
+        final float[] distances = Routing.getDistances(POINTS[0], targets);
+        assertThat(distances).isNotNull();
+
+        for (int i = 0; i < targets.length; i++) {
+            assertSameDistance(distances[i], getTrackLength(POINTS[0], targets[i]), "target " + i);
+        }
+    }
+
+    @Test
+    public void testMatrixEqualsSingleTargets() {
+        final float[][] matrix = Routing.getDistanceMatrix(POINTS);
+        assertThat(matrix).isNotNull();
+
+        for (int i = 0; i < POINTS.length; i++) {
+            assertThat(matrix[i][i]).isEqualTo(0f);
+            for (int j = 0; j < POINTS.length; j++) {
+                if (i != j) {
+                    assertSameDistance(matrix[i][j], getTrackLength(POINTS[i], POINTS[j]), "from " + i + " to " + j);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package cgeo.geocaching.storage;
+
+import cgeo.geocaching.enumerations.CacheType;
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.location.Viewport;
+import cgeo.geocaching.models.Geocache;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class CacheCacheTest {
+
+    private static Geocache createCache(final String geocode, final Geopoint coords, final CacheType type) {
+        final Geocache cache = new Geocache();
+        cache.setGeocode(geocode);
+        cache.setCoords(coords);
+        cache.setType(type);
+        return cache;
+    }
+
+    @Test
+    public void testGetInViewport() {
+        final CacheCache cacheCache = new CacheCache(100);
+        cacheCache.putCacheInCache(createCache("GC1", new Geopoint(52.0, 9.0), CacheType.TRADITIONAL));
+        cacheCache.putCacheInCache(createCache("GC2", new Geopoint(52.01, 9.01), CacheType.MULTI));
+        cacheCache.putCacheInCache(createCache("GC3", new Geopoint(-33.9, -70.6), CacheType.TRADITIONAL));
+        cacheCache.putCacheInCache(createCache("GC4", null, CacheType.TRADITIONAL));
+
+        final Viewport viewport = new Viewport(new Geopoint(51.99, 8.99), new Geopoint(52.02, 9.02));
+        assertThat(cacheCache.getInViewport(viewport, CacheType.ALL)).containsOnly("GC1", "GC2");
+        assertThat(cacheCache.getInViewport(viewport, CacheType.TRADITIONAL)).containsOnly("GC1");
+
+        // negative coordinates, viewport covering several cells
+        assertThat(cacheCache.getInViewport(new Viewport(new Geopoint(-34.5, -71.5), new Geopoint(-33.5, -70.5)), CacheType.ALL)).containsOnly("GC3");
+        // whole world
+        assertThat(cacheCache.getInViewport(new Viewport(new Geopoint(-90, -180), new Geopoint(90, 180)), CacheType.ALL)).containsOnly("GC1", "GC2", "GC3");
+    }
+
+    @Test
+    public void testIndexFollowsUpdatesAndRemoval() {
+        final CacheCache cacheCache = new CacheCache(100);
+        final Viewport viewport = new Viewport(new Geopoint(51.99, 8.99), new Geopoint(52.02, 9.02));
+        cacheCache.putCacheInCache(createCache("GC1", new Geopoint(52.0, 9.0), CacheType.TRADITIONAL));
+        assertThat(cacheCache.getInViewport(viewport, CacheType.ALL)).containsOnly("GC1");
+
+        // moved by replacing the cache
+        cacheCache.putCacheInCache(createCache("GC1", new Geopoint(48.0, 11.0), CacheType.TRADITIONAL));
+        assertThat(cacheCache.getInViewport(viewport, CacheType.ALL)).isEmpty();
+        assertThat(cacheCache.getInViewport(new Viewport(new Geopoint(47.9, 10.9), new Geopoint(48.1, 11.1)), CacheType.ALL)).containsOnly("GC1");
+
+        cacheCache.removeCacheFromCache("GC1");
+        assertThat(cacheCache.getInViewport(new Viewport(new Geopoint(-90, -180), new Geopoint(90, 180)), CacheType.ALL)).isEmpty();
+    }
+
+    @Test
+    public void testEvictedCachesLeaveIndex() {
+        final CacheCache cacheCache = new CacheCache(10);
+        for (int i = 0; i < 20; i++) {
+            cacheCache.putCacheInCache(createCache("GC" + i, new Geopoint(52.0 + i * 0.1, 9.0), CacheType.TRADITIONAL));
+        }
+        final Set<String> expected = new HashSet<>();
+        for (int i = 10; i < 20; i++) {
+            expected.add("GC" + i);
+        }
+        assertThat(cacheCache.getInViewport(new Viewport(new Geopoint(-90, -180), new Geopoint(90, 180)), CacheType.ALL)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        final Random random = new Random(42);
+        final CacheCache cacheCache = new CacheCache(2000);
+        final Geocache[] caches = new Geocache[2000];
+        for (int i = 0; i < caches.length; i++) {
+            caches[i] = createCache("GC" + i, new Geopoint(50 + random.nextDouble() * 4, 7 + random.nextDouble() * 6), CacheType.TRADITIONAL);
+            cacheCache.putCacheInCache(caches[i]);
+        }
+        for (int i = 0; i < 50; i++) {
+            final Geopoint corner = new Geopoint(50 + random.nextDouble() * 4, 7 + random.nextDouble() * 6);
+            final Viewport viewport = new Viewport(corner, new Geopoint(corner.getLatitude() + random.nextDouble(), corner.getLongitude() + random.nextDouble()));
+            final Set<String> expected = new HashSet<>();
+            for (final Geocache cache : caches) {
+                if (viewport.contains(cache)) {
+                    expected.add(cache.getGeocode());
+                }
+            }
+            assertThat(cacheCache.getInViewport(viewport, CacheType.ALL)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testCapacityForMemoryBudget() {
+        assertThat(CacheCache.getCapacityForMemoryBudget(0)).isEqualTo(500);
+        assertThat(CacheCache.getCapacityForMemoryBudget(32 * 1024 * 1024)).isEqualTo(1638);
+        assertThat(CacheCache.getCapacityForMemoryBudget(Long.MAX_VALUE)).isEqualTo(5000);
+    }
+}
@@ -7,6 +7,13 @@ import cgeo.geocaching.connector.gc.Tile;
 import cgeo.geocaching.enumerations.CacheType;
 import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.enumerations.LoadFlags.SaveFlag;
+import cgeo.geocaching.enumerations.WaypointType;
+import cgeo.geocaching.filters.core.DescriptionGeocacheFilter;
+import cgeo.geocaching.filters.core.GeocacheFilter;
+import cgeo.geocaching.filters.core.IGeocacheFilter;
+import cgeo.geocaching.filters.core.LogEntryGeocacheFilter;
+import cgeo.geocaching.filters.core.PersonalNoteGeocacheFilter;
+import cgeo.geocaching.filters.core.StringFilter;
 import cgeo.geocaching.list.PseudoList;
 import cgeo.geocaching.list.StoredList;
 import cgeo.geocaching.location.Geopoint;
@@ -19,6 +26,7 @@ import cgeo.geocaching.log.ReportProblemType;
 import cgeo.geocaching.models.Geocache;
 import cgeo.geocaching.models.Image;
 import cgeo.geocaching.models.Trackable;
+import cgeo.geocaching.models.Waypoint;
 import static cgeo.geocaching.enumerations.LoadFlags.REMOVE_ALL;
 
 import java.util.ArrayList;
@@ -124,6 +132,31 @@ public class DataStoreTest extends CGeoTestCase {
         }
     }
 
+    // Check that viewport queries find stored caches (through the spatial index if available) and follow coordinate changes
+    public static void testLoadStoredInViewport() {
+        final Geocache cache = new Geocache();
+        cache.setGeocode(ARTIFICIAL_GEOCODE + "-V");
+        cache.setDetailed(true);
+        cache.setCoords(new Geopoint(49.5, 8.5));
+        cache.getLists().add(StoredList.STANDARD_LIST_ID);
+        final Viewport viewport = new Viewport(new Geopoint(49, 8), new Geopoint(50, 9));
+        final Viewport otherViewport = new Viewport(new Geopoint(-1, -2), new Geopoint(3, 4));
+
+        try {
+            DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
+            assertThat(DataStore.loadStoredInViewport(viewport, CacheType.ALL).getGeocodes()).contains(cache.getGeocode());
+            assertThat(DataStore.loadStoredInViewport(otherViewport, CacheType.ALL).getGeocodes()).doesNotContain(cache.getGeocode());
+
+            cache.setCoords(new Geopoint(1, 1));
+            DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
+            assertThat(DataStore.loadStoredInViewport(viewport, CacheType.ALL).getGeocodes()).doesNotContain(cache.getGeocode());
+            assertThat(DataStore.loadStoredInViewport(otherViewport, CacheType.ALL).getGeocodes()).contains(cache.getGeocode());
+        } finally {
+            DataStore.removeCache(cache.getGeocode(), REMOVE_ALL);
+        }
+        assertThat(DataStore.loadStoredInViewport(otherViewport, CacheType.ALL).getGeocodes()).doesNotContain(cache.getGeocode());
+    }
+
     // Check that saving a cache and trackable without logs works (see #2199)
     public static void testSaveWithoutLogs() {
 
@@ -149,6 +182,122 @@ public class DataStoreTest extends CGeoTestCase {
         }
     }
 
+    // Readers must see either the state before or after a concurrent write transaction, and must not fail
+    public static void testReadDuringWriteTransaction() throws InterruptedException {
+        assertThat(DataStore.getLockWaitInfo()).startsWith("WAL");
+
+        final List<Geocache> caches = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final Geocache cache = new Geocache();
+            cache.setGeocode(ARTIFICIAL_GEOCODE + "-WAL" + i);
+            cache.setDetailed(true);
+            caches.add(cache);
+        }
+        final int countBefore = DataStore.getAllCachesCount();
+        try {
+            final Thread writer = new Thread(() -> DataStore.saveCachesWithLogs(caches, Collections.emptyMap()));
+            writer.start();
+            while (writer.isAlive()) {
+                assertThat(DataStore.getAllCachesCount()).isIn(countBefore, countBefore + caches.size());
+            }
+            writer.join();
+            assertThat(DataStore.getAllCachesCount()).isEqualTo(countBefore + caches.size());
+            DataStore.checkpointDatabase();
+        } finally {
+            DataStore.removeCaches(Geocache.getGeocodes(caches), REMOVE_ALL);
+        }
+    }
+
+    // Check that child data loaded in batches is assigned to the correct caches
+    public static void testLoadCachesBatched() {
+        final Set<String> geocodes = new HashSet<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                final Geocache cache = new Geocache();
+                cache.setGeocode(ARTIFICIAL_GEOCODE + "-B" + i);
+                cache.setDetailed(true);
+                cache.setAttributes(Collections.singletonList("attribute" + i));
+                final List<Waypoint> waypoints = new ArrayList<>();
+                for (int w = 0; w <= i; w++) {
+                    waypoints.add(new Waypoint("wp" + i + "-" + w, WaypointType.STAGE, false));
+                }
+                cache.setWaypoints(waypoints, false);
+                DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
+                geocodes.add(cache.getGeocode());
+            }
+
+            final Set<Geocache> loaded = DataStore.loadCaches(geocodes, LoadFlags.LOAD_ALL_DB_ONLY);
+            assertThat(loaded).hasSize(3);
+            for (final Geocache cache : loaded) {
+                final String index = StringUtils.substringAfterLast(cache.getGeocode(), "-B");
+                assertThat(cache.getAttributes()).containsExactly("attribute" + index);
+                assertThat(cache.getWaypoints()).hasSize(Integer.parseInt(index) + 1);
+                for (final Waypoint waypoint : cache.getWaypoints()) {
+                    assertThat(waypoint.getName()).startsWith("wp" + index + "-");
+                }
+            }
+        } finally {
+            DataStore.removeCaches(geocodes, REMOVE_ALL);
+        }
+    }
+
+    // Check that word searches in descriptions, personal notes and logs use an up-to-date full text index
+    public static void testFullTextFilter() {
+        final Geocache cache = new Geocache();
+        cache.setGeocode(ARTIFICIAL_GEOCODE + "-F");
+        cache.setDetailed(true);
+        cache.setDescription("A nice <b>Cache</b> near the Lakeside Café");
+        cache.setPersonalNote("bring a torch");
+        cache.getLists().add(StoredList.STANDARD_LIST_ID);
+
+        try {
+            DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
+            DataStore.saveLogs(cache.getGeocode(), Collections.singletonList(new LogEntry.Builder().setAuthor("Lake Walker").setLog("Found it after a long hike")
+                    .setLogType(LogType.FOUND_IT).setDate(new Date().getTime()).build()), true);
+
+            assertThat(loadByFilter(descriptionFilter("cache lake"))).contains(cache.getGeocode());
+            assertThat(loadByFilter(descriptionFilter("CAFE near"))).contains(cache.getGeocode());
+            assertThat(loadByFilter(descriptionFilter("ache"))).doesNotContain(cache.getGeocode());
+            assertThat(loadByFilter(personalNoteFilter("torch"))).contains(cache.getGeocode());
+            assertThat(loadByFilter(logTextFilter("long hike"))).contains(cache.getGeocode());
+            assertThat(loadByFilter(logTextFilter("short"))).doesNotContain(cache.getGeocode());
+
+            // index follows updates
+            cache.setPersonalNote("bring a flashlight");
+            DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
+            assertThat(loadByFilter(personalNoteFilter("torch"))).doesNotContain(cache.getGeocode());
+            assertThat(loadByFilter(personalNoteFilter("flash"))).contains(cache.getGeocode());
+        } finally {
+            DataStore.removeCache(cache.getGeocode(), REMOVE_ALL);
+        }
+        assertThat(loadByFilter(descriptionFilter("lakeside"))).doesNotContain(cache.getGeocode());
+    }
+
+    private static Set<String> loadByFilter(final IGeocacheFilter filter) {
+        return DataStore.getBatchOfStoredCaches(null, CacheType.ALL, PseudoList.ALL_LIST.id, new GeocacheFilter(null, false, false, filter), null, false, -1).getGeocodes();
+    }
+
+    private static IGeocacheFilter descriptionFilter(final String words) {
+        final DescriptionGeocacheFilter filter = new DescriptionGeocacheFilter();
+        filter.getStringFilter().setFilterType(StringFilter.StringFilterType.CONTAINS_WORDS);
+        filter.getStringFilter().setTextValue(words);
+        return filter;
+    }
+
+    private static IGeocacheFilter personalNoteFilter(final String words) {
+        final PersonalNoteGeocacheFilter filter = new PersonalNoteGeocacheFilter();
+        filter.getStringFilter().setFilterType(StringFilter.StringFilterType.CONTAINS_WORDS);
+        filter.getStringFilter().setTextValue(words);
+        return filter;
+    }
+
+    private static IGeocacheFilter logTextFilter(final String words) {
+        final LogEntryGeocacheFilter filter = new LogEntryGeocacheFilter();
+        filter.setLogTextWordSearch(true);
+        filter.setLogText(words);
+        return filter;
+    }
+
     // Check that loading a cache by case insensitive geo code works correctly (see #3139)
     public static void testGeocodeCaseInsensitive() {
 
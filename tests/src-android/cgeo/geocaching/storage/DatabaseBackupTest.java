@@ -0,0 +1,156 @@
+package cgeo.geocaching.storage;
+
+import cgeo.geocaching.utils.FileUtils;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class DatabaseBackupTest {
+
+    private static final int CACHES = 20_000;
+    private static final int LOGS_PER_CACHE = 3;
+    private static final int DB_VERSION = 42;
+
+    private File directory;
+    private File sourceFile;
+    private SQLiteDatabase source;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("backup", "test");
+        assertThat(directory.delete()).isTrue();
+        assertThat(directory.mkdirs()).isTrue();
+        sourceFile = new File(directory, "source");
+        source = SQLiteDatabase.openOrCreateDatabase(sourceFile, null);
+        source.enableWriteAheadLogging();
+        source.setVersion(DB_VERSION);
+        source.execSQL("CREATE TABLE caches (_id INTEGER PRIMARY KEY AUTOINCREMENT, geocode TEXT UNIQUE NOT NULL, name TEXT, latitude DOUBLE, detailed INTEGER)");
+        source.execSQL("CREATE TABLE logs (_id INTEGER PRIMARY KEY AUTOINCREMENT, geocode TEXT NOT NULL, log TEXT)");
+        source.execSQL("CREATE INDEX in_logs_geo ON logs (geocode)");
+        source.beginTransaction();
+        try {
+            for (int i = 0; i < CACHES; i++) {
+                final String geocode = "GC" + Integer.toString(i, 36).toUpperCase();
+                source.execSQL("INSERT INTO caches (geocode, name, latitude, detailed) VALUES (?, ?, ?, ?)", new Object[] { geocode, i % 11 == 0 ? null : "Cache " + i, i / 1000.0, i % 2 });
+                for (int j = 0; j < LOGS_PER_CACHE; j++) {
+                    source.execSQL("INSERT INTO logs (geocode, log) VALUES (?, ?)", new Object[] { geocode, "Found it, thanks for cache " + i + " and log " + j });
+                }
+            }
+            source.setTransactionSuccessful();
+        } finally {
+            source.endTransaction();
+        }
+        // leave holes in the pages of the source, which the snapshot does not contain
+        source.execSQL("DELETE FROM logs WHERE _id % 7 = 0");
+    }
+
+    @After
+    public void tearDown() {
+        source.close();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private File backupAndRestore() throws IOException {
+        final File snapshot = new File(directory, "snapshot");
+        assumeTrue("VACUUM INTO not supported", DatabaseBackup.writeSnapshot(sourceFile, snapshot));
+
+        final File backup = new File(directory, "backup.gz");
+        try (OutputStream out = new FileOutputStream(backup)) {
+            DatabaseBackup.compress(snapshot, out);
+        }
+        assertThat(DatabaseBackup.isCompressed(backup)).isTrue();
+        assertThat(backup.length()).isLessThan(snapshot.length());
+
+        final File restored = new File(directory, "restored");
+        DatabaseBackup.decompress(backup, restored);
+        assertThat(DatabaseBackup.isCompressed(restored)).isFalse();
+        return restored;
+    }
+
+    /** row count and checksum of the content of every table and the definitions of the schema */
+    private static Map<String, String> summarize(final SQLiteDatabase db) {
+        final Map<String, String> summary = new LinkedHashMap<>();
+        summary.put("version", String.valueOf(db.getVersion()));
+        final List<String> tables = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT type, name, sql FROM sqlite_master ORDER BY name", null)) {
+            while (cursor.moveToNext()) {
+                summary.put(cursor.getString(0) + " " + cursor.getString(1), cursor.getString(2));
+                if ("table".equals(cursor.getString(0))) {
+                    tables.add(cursor.getString(1));
+                }
+            }
+        }
+        for (String table : tables) {
+            final CRC32 checksum = new CRC32();
+            try (Cursor cursor = db.rawQuery("SELECT * FROM " + table + " ORDER BY rowid", null)) {
+                while (cursor.moveToNext()) {
+                    for (int column = 0; column < cursor.getColumnCount(); column++) {
+                        checksum.update((cursor.isNull(column) ? "\0" : cursor.getString(column) + "\1").getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                summary.put("rows " + table, cursor.getCount() + " / " + checksum.getValue());
+            }
+        }
+        return summary;
+    }
+
+    @Test
+    public void testRestoredBackupEqualsSource() throws IOException {
+        final File restored = backupAndRestore();
+        final SQLiteDatabase restoredDb = SQLiteDatabase.openDatabase(restored.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            final Map<String, String> expected = summarize(source);
+            assertThat(expected.get("rows caches")).startsWith(CACHES + " / ");
+            assertThat(summarize(restoredDb)).isEqualTo(expected);
+        } finally {
+            restoredDb.close();
+        }
+    }
+
+    @Test
+    public void testBackupDoesNotBlockWriters() throws IOException {
+        final Map<String, String> committed = summarize(source);
+        // the snapshot is written while the source is in the middle of a write transaction
+        source.beginTransaction();
+        final File restored;
+        try {
+            source.execSQL("DELETE FROM caches WHERE detailed = 0");
+            restored = backupAndRestore();
+            source.execSQL("UPDATE logs SET log = 'changed'");
+            source.setTransactionSuccessful();
+        } finally {
+            source.endTransaction();
+        }
+        assertThat(DatabaseUtils.queryNumEntries(source, "caches")).isEqualTo(CACHES / 2);
+
+        final SQLiteDatabase restoredDb = SQLiteDatabase.openDatabase(restored.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            assertThat(summarize(restoredDb)).isEqualTo(committed);
+        } finally {
+            restoredDb.close();
+        }
+    }
+
+    @Test
+    public void testUncompressedBackupIsRecognized() throws IOException {
+        assertThat(DatabaseBackup.isCompressed(sourceFile)).isFalse();
+    }
+}
@@ -0,0 +1,146 @@
+package cgeo.geocaching.storage;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class SearchSuggestionIndexTest {
+
+    private static final int CORPUS_SIZE = 100_000;
+
+    private static final String[] WORDS = { "Bridge", "tower", "LAKE", "forest", "Mühle", "Straße", "Öde", "old", "Mill", "view" };
+    private static final String[] OWNERS = { "Alice", "bob", "CAROL", "dave_the_cacher", "Éric", null };
+    private static final String[] TERMS = { "bri", "BRIDGE", "ridge To", "gc1a", "GC2", "mü", "MÜHLE", "straße", "STRASSE", "d br", "éri",
+        "_the", "alice", "xyz", "ge", "a", "mill view" };
+
+    private SQLiteDatabase database;
+    private SearchSuggestionIndex index;
+
+    @Before
+    public void setUp() {
+        database = SQLiteDatabase.create(null);
+        database.execSQL("CREATE TABLE cg_caches (_id INTEGER PRIMARY KEY AUTOINCREMENT, geocode TEXT UNIQUE NOT NULL, name TEXT, owner TEXT, owner_real TEXT, location TEXT, type TEXT)");
+        final SQLiteStatement insert = database.compileStatement("INSERT INTO cg_caches (geocode, name, owner, type) VALUES (?, ?, ?, ?)");
+        database.beginTransaction();
+        try {
+            for (int i = 0; i < CORPUS_SIZE; i++) {
+                final String[] values = createRow(i, "");
+                insert.clearBindings();
+                for (int column = 0; column < values.length; column++) {
+                    if (values[column] != null) {
+                        insert.bindString(column + 1, values[column]);
+                    }
+                }
+                insert.executeInsert();
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+        index = new SearchSuggestionIndex();
+        DataStore.fillSuggestionIndex(database, index);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    /** values in the order of {@link SearchSuggestionIndex.Column} */
+    private static String[] createRow(final int i, final String suffix) {
+        final String name = i % 97 == 0 ? null : WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + suffix;
+        return new String[] { "GC" + Integer.toString(i, 36).toUpperCase(), name, OWNERS[i % OWNERS.length], i % 3 == 0 ? "traditional" : "multi" };
+    }
+
+    private void assertSameResultsAsDatabase() {
+        assertThat(index.size()).isEqualTo(CORPUS_SIZE);
+        for (String term : TERMS) {
+            assertThat(SearchSuggestionIndex.canAnswer(term)).as(term).isEqualTo(!term.contains("_"));
+            if (!SearchSuggestionIndex.canAnswer(term)) {
+                continue;
+            }
+            final String selectionArg = "%" + term + "%";
+            assertThat(toSet(index.findCaches(term))).as("caches for '" + term + "'").isEqualTo(toSet(DataStore.queryCacheSuggestions(database, selectionArg)));
+            for (SearchSuggestionIndex.Column column : SearchSuggestionIndex.Column.values()) {
+                if (column != SearchSuggestionIndex.Column.TYPE) {
+                    assertThat(new HashSet<>(index.getSuggestions(column, term))).as(column + " for '" + term + "'")
+                        .isEqualTo(new HashSet<>(DataStore.querySuggestions(database, "cg_caches", column.dbColumn, selectionArg)));
+                }
+            }
+        }
+    }
+
+    private static Set<String> toSet(final List<String[]> rows) {
+        final Set<String> set = new HashSet<>();
+        for (String[] row : rows) {
+            set.add(Arrays.toString(row));
+        }
+        return set;
+    }
+
+    @Test
+    public void testSameResultsAsDatabase() {
+        assertSameResultsAsDatabase();
+    }
+
+    @Test
+    public void testSameResultsAfterChanges() {
+        // rename a third of the caches and replace some others, like saving and removing them in the data store would do
+        for (int i = 0; i < CORPUS_SIZE; i += 3) {
+            final String[] values = createRow(i, " Ridge");
+            database.execSQL("UPDATE cg_caches SET name = ? WHERE geocode = ?", new Object[] { values[1], values[0] });
+            index.put(values);
+        }
+        for (int i = 1; i < CORPUS_SIZE; i += 5) {
+            final String geocode = createRow(i, "")[0];
+            database.execSQL("DELETE FROM cg_caches WHERE geocode = ?", new Object[] { geocode });
+            index.remove(geocode);
+            final String[] values = createRow(i, " Mill");
+            database.execSQL("INSERT INTO cg_caches (geocode, name, owner, type) VALUES (?, ?, ?, ?)", values);
+            index.put(values);
+        }
+        assertSameResultsAsDatabase();
+    }
+
+    @Test
+    public void testRebuildAfterRepeatedSaves() {
+        // saving the same caches again and again must not let the unused rows grow without limit
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < CORPUS_SIZE; i += 2) {
+                index.put(createRow(i, " Round" + round));
+            }
+        }
+        assertThat(index.size()).isEqualTo(CORPUS_SIZE);
+        assertThat(index.rowCount()).isLessThan(2 * CORPUS_SIZE);
+        int renamed = 0;
+        for (int i = 0; i < CORPUS_SIZE; i += 2) {
+            if (createRow(i, "")[1] != null) {
+                renamed++;
+            }
+        }
+        assertThat(index.findCaches("round4")).hasSize(renamed);
+        assertThat(index.findCaches("round3")).isEmpty();
+    }
+
+    @Test
+    public void testHeapEstimate() {
+        // about 0.6 KB per cache for the test corpus, mostly taken by the postings of the trigrams
+        assertThat(index.estimateHeapBytes()).isBetween(200L * CORPUS_SIZE, 2048L * CORPUS_SIZE);
+    }
+
+    @Test
+    public void testSortOrder() {
+        final List<String> names = index.getSuggestions(SearchSuggestionIndex.Column.NAME, "lake");
+        assertThat(names).isNotEmpty();
+        assertThat(names).isEqualTo(DataStore.querySuggestions(database, "cg_caches", "name", "%lake%"));
+    }
+}
@@ -0,0 +1,161 @@
+package cgeo.geocaching.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class TrailPointWriterTest {
+
+    private static final int MAX_BUFFERED = 5;
+    private static final long DELAY = 1000;
+    private static final int MAX_PENDING = 12;
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final List<List<TrailPointWriter.TrailPoint>> batches = new ArrayList<>();
+    private int failingWrites = 0;
+
+    private final TrailPointWriter writer = new TrailPointWriter(points -> {
+        if (failingWrites > 0) {
+            failingWrites--;
+            throw new IllegalStateException("database not available");
+        }
+        batches.add(new ArrayList<>(points));
+    }, MAX_BUFFERED, DELAY, MAX_PENDING, scheduler);
+
+    private int nextTimestamp = 0;
+
+    private void addPoints(final int count) {
+        for (int i = 0; i < count; i++) {
+            writer.add(new TrailPointWriter.TrailPoint(48.0, 11.0, 0.0, nextTimestamp++));
+        }
+    }
+
+    private void advance(final long millis) {
+        scheduler.advanceTimeBy(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private List<Long> writtenTimestamps() {
+        final List<Long> timestamps = new ArrayList<>();
+        for (List<TrailPointWriter.TrailPoint> batch : batches) {
+            for (TrailPointWriter.TrailPoint point : batch) {
+                timestamps.add(point.timestamp);
+            }
+        }
+        return timestamps;
+    }
+
+    private static List<Long> range(final int from, final int to) {
+        final List<Long> values = new ArrayList<>();
+        for (long value = from; value < to; value++) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    @Test
+    public void testWritesWhenBufferIsFull() {
+        addPoints(MAX_BUFFERED - 1);
+        scheduler.triggerActions();
+        assertThat(batches).isEmpty();
+
+        addPoints(1);
+        scheduler.triggerActions();
+        assertThat(batches).hasSize(1);
+        assertThat(writtenTimestamps()).isEqualTo(range(0, MAX_BUFFERED));
+        assertThat(writer.getBufferedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testWritesAfterDelay() {
+        addPoints(2);
+        advance(DELAY - 1);
+        assertThat(batches).isEmpty();
+
+        advance(1);
+        assertThat(batches).hasSize(1);
+        assertThat(writtenTimestamps()).isEqualTo(range(0, 2));
+
+        // the delay starts again with the next point
+        advance(DELAY / 2);
+        addPoints(1);
+        advance(DELAY - 1);
+        assertThat(batches).hasSize(1);
+        advance(1);
+        assertThat(writtenTimestamps()).isEqualTo(range(0, 3));
+    }
+
+    @Test
+    public void testBufferedPointsAreBounded() {
+        for (int i = 0; i < 10 * MAX_BUFFERED; i++) {
+            addPoints(1);
+            scheduler.triggerActions();
+            assertThat(writer.getBufferedCount()).isLessThan(MAX_BUFFERED);
+        }
+        assertThat(writtenTimestamps()).isEqualTo(range(0, 10 * MAX_BUFFERED));
+    }
+
+    @Test
+    public void testFlushKeepsOrder() {
+        addPoints(3);
+        writer.requestFlush();
+        addPoints(MAX_BUFFERED + 2);
+        assertThat(writer.flush()).isTrue();
+        addPoints(1);
+        scheduler.triggerActions();
+        assertThat(writer.flush()).isTrue();
+        advance(10 * DELAY);
+
+        assertThat(writtenTimestamps()).isEqualTo(range(0, MAX_BUFFERED + 6));
+        for (List<TrailPointWriter.TrailPoint> batch : batches) {
+            assertThat(batch).isNotEmpty();
+        }
+    }
+
+    @Test
+    public void testFailedPointsAreWrittenLater() {
+        failingWrites = 1;
+        addPoints(MAX_BUFFERED);
+        scheduler.triggerActions();
+        assertThat(batches).isEmpty();
+        assertThat(writer.getBufferedCount()).isEqualTo(MAX_BUFFERED);
+
+        // the failed points are retried after the delay, even without further points
+        advance(DELAY);
+        assertThat(writtenTimestamps()).isEqualTo(range(0, MAX_BUFFERED));
+
+        // failed points are written before the points added meanwhile
+        failingWrites = 1;
+        addPoints(MAX_BUFFERED);
+        scheduler.triggerActions();
+        addPoints(2);
+        scheduler.triggerActions();
+        assertThat(writtenTimestamps()).isEqualTo(range(0, 2 * MAX_BUFFERED + 2));
+        assertThat(writer.getBufferedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPendingPointsAreBoundedWhileWritesFail() {
+        failingWrites = Integer.MAX_VALUE;
+        addPoints(3 * MAX_PENDING);
+        scheduler.triggerActions();
+        assertThat(writer.getBufferedCount()).isEqualTo(MAX_PENDING);
+
+        // the newest points are kept
+        failingWrites = 0;
+        assertThat(writer.flush()).isTrue();
+        assertThat(writtenTimestamps()).isEqualTo(range(2 * MAX_PENDING, 3 * MAX_PENDING));
+    }
+
+    @Test
+    public void testDiscard() {
+        addPoints(MAX_BUFFERED - 1);
+        writer.discard();
+        advance(10 * DELAY);
+        assertThat(batches).isEmpty();
+        assertThat(writer.getBufferedCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,195 @@
+package cgeo.geocaching.ui;
+
+import cgeo.CGeoTestCase;
+import cgeo.geocaching.enumerations.CacheType;
+import cgeo.geocaching.enumerations.LoadFlags.SaveFlag;
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.sorting.NameComparator;
+import cgeo.geocaching.storage.CacheListIndex;
+import cgeo.geocaching.storage.DataStore;
+import static cgeo.geocaching.enumerations.LoadFlags.REMOVE_ALL;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class WindowedCacheListTest extends CGeoTestCase {
+
+    private static final int CACHE_COUNT = 320;
+
+    private static String getGeocode(final int i) {
+        return String.format(Locale.US, "TEST-W%03d", i);
+    }
+
+    /**
+     * stores caches on a new list: names in reverse order of the geocodes, distances to (52, 9) increasing with the geocodes
+     */
+    private static int createList(final Set<String> geocodes) {
+        final int listId = DataStore.createList("WindowedCacheListTest");
+        for (int i = 0; i < CACHE_COUNT; i++) {
+            final Geocache cache = new Geocache();
+            cache.setGeocode(getGeocode(i));
+            cache.setName(String.format(Locale.US, "windowed %03d", CACHE_COUNT - i));
+            cache.setType(i == 0 ? CacheType.MULTI : CacheType.TRADITIONAL);
+            cache.setCoords(new Geopoint(52.0 + 0.001 * i, 9.0));
+            cache.setDetailed(true);
+            cache.getLists().add(listId);
+            DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
+            geocodes.add(cache.getGeocode());
+        }
+        return listId;
+    }
+
+    /** list loading its pages synchronously */
+    private static WindowedCacheList createWindowedList(final CacheListIndex index) {
+        return new WindowedCacheList(index, Schedulers.trampoline(), Schedulers.trampoline());
+    }
+
+    private static WindowedCacheList createWindowedList(final int listId) {
+        return createWindowedList(DataStore.loadStoredCacheListIndex(null, CacheType.ALL, listId, null, NameComparator.INSTANCE, false));
+    }
+
+    public static void testIndexAndPaging() {
+        final Set<String> geocodes = new HashSet<>();
+        final int listId = createList(geocodes);
+        try {
+            final CacheListIndex index = DataStore.loadStoredCacheListIndex(null, CacheType.ALL, listId, null, NameComparator.INSTANCE, false);
+            assertThat(index.size()).isEqualTo(CACHE_COUNT);
+            assertThat(index.getGeocode(0)).isEqualTo(getGeocode(CACHE_COUNT - 1));
+            assertThat(index.getType(CACHE_COUNT - 1)).isEqualTo(CacheType.MULTI);
+            assertThat(index.getCoords(CACHE_COUNT - 1)).isEqualTo(new Geopoint(52.0, 9.0));
+
+            final WindowedCacheList list = createWindowedList(index);
+            assertThat(list).hasSize(CACHE_COUNT);
+            assertThat(list.getLoadedPageCount()).isEqualTo(0);
+            assertThat(list.isEventsOnly()).isFalse();
+
+            for (int position = 0; position < list.size(); position++) {
+                assertThat(list.get(position).getGeocode()).isEqualTo(getGeocode(CACHE_COUNT - 1 - position));
+                assertThat(list.getLoadedPageCount()).isLessThanOrEqualTo(WindowedCacheList.MAX_LOADED_PAGES);
+            }
+            assertThat(list.indexOfGeocode(getGeocode(5))).isEqualTo(CACHE_COUNT - 1 - 5);
+            assertThat(list.indexOfGeocode("TEST-UNKNOWN")).isEqualTo(-1);
+        } finally {
+            DataStore.removeCaches(geocodes, REMOVE_ALL);
+            DataStore.removeList(listId);
+        }
+    }
+
+    public static void testSelectionSurvivesEviction() {
+        final Set<String> geocodes = new HashSet<>();
+        final int listId = createList(geocodes);
+        try {
+            final WindowedCacheList list = createWindowedList(listId);
+            list.get(1).setStatusChecked(true);
+            list.get(CACHE_COUNT - 1).setStatusChecked(true);
+            // page through the whole list to evict the first page
+            for (final Geocache cache : list) {
+                assertThat(cache).isNotNull();
+            }
+            assertThat(list.getCheckedCount()).isEqualTo(2);
+            assertThat(list.get(1).isStatusChecked()).isTrue();
+            assertThat(list.get(2).isStatusChecked()).isFalse();
+
+            final List<String> checkedGeocodes = list.getCheckedGeocodes();
+            assertThat(checkedGeocodes).containsExactly(getGeocode(CACHE_COUNT - 2), getGeocode(0));
+            final List<Geocache> checked = WindowedCacheList.loadCaches(checkedGeocodes);
+            assertThat(checked).hasSize(2);
+            assertThat(checked.get(0).getGeocode()).isEqualTo(getGeocode(CACHE_COUNT - 2));
+            assertThat(checked.get(1).getGeocode()).isEqualTo(getGeocode(0));
+
+            list.invertChecked();
+            assertThat(list.getCheckedCount()).isEqualTo(CACHE_COUNT - 2);
+            assertThat(list.get(1).isStatusChecked()).isFalse();
+
+            list.setAllChecked(false);
+            assertThat(list.getCheckedCount()).isEqualTo(0);
+        } finally {
+            DataStore.removeCaches(geocodes, REMOVE_ALL);
+            DataStore.removeList(listId);
+        }
+    }
+
+    public static void testSortByDistance() {
+        final Set<String> geocodes = new HashSet<>();
+        final int listId = createList(geocodes);
+        try {
+            final WindowedCacheList list = createWindowedList(listId);
+            list.get(0).setStatusChecked(true);
+
+            assertThat(list.sortByDistance(new Geopoint(52.0, 9.0), false)).isTrue();
+            assertThat(list.getLoadedPageCount()).isEqualTo(0);
+            for (int position = 0; position < list.size(); position++) {
+                assertThat(list.get(position).getGeocode()).isEqualTo(getGeocode(position));
+            }
+            // selection is kept with the cache, not with the position
+            assertThat(list.get(CACHE_COUNT - 1).isStatusChecked()).isTrue();
+            // unchanged order
+            assertThat(list.sortByDistance(new Geopoint(51.9, 9.0), false)).isFalse();
+
+            assertThat(list.sortByDistance(new Geopoint(52.0, 9.0), true)).isTrue();
+            assertThat(list.get(0).getGeocode()).isEqualTo(getGeocode(CACHE_COUNT - 1));
+        } finally {
+            DataStore.removeCaches(geocodes, REMOVE_ALL);
+            DataStore.removeList(listId);
+        }
+    }
+
+    public static void testPlaceholdersUntilLoaded() {
+        final Set<String> geocodes = new HashSet<>();
+        final int listId = createList(geocodes);
+        try {
+            final TestScheduler scheduler = new TestScheduler();
+            final WindowedCacheList list = new WindowedCacheList(DataStore.loadStoredCacheListIndex(null, CacheType.ALL, listId, null, NameComparator.INSTANCE, false), scheduler, scheduler);
+            final AtomicInteger loadedPages = new AtomicInteger();
+            list.setOnPageLoaded(loadedPages::incrementAndGet);
+
+            // placeholder from the index, nothing loaded on the calling thread
+            final Geocache placeholder = list.get(CACHE_COUNT - 1);
+            assertThat(list.isLoaded(CACHE_COUNT - 1)).isFalse();
+            assertThat(list.getLoadedPageCount()).isEqualTo(0);
+            assertThat(placeholder.getGeocode()).isEqualTo(getGeocode(0));
+            assertThat(placeholder.getName()).isEqualTo(String.format(Locale.US, "windowed %03d", CACHE_COUNT));
+            assertThat(placeholder.getType()).isEqualTo(CacheType.MULTI);
+            assertThat(placeholder.getCoords()).isEqualTo(new Geopoint(52.0, 9.0));
+            assertThat(placeholder.isDetailed()).isFalse();
+            // selection on the placeholder is kept when it is replaced
+            placeholder.setStatusChecked(true);
+
+            scheduler.triggerActions();
+            assertThat(loadedPages.get()).isEqualTo(1);
+            assertThat(list.isLoaded(CACHE_COUNT - 1)).isTrue();
+            final Geocache loaded = list.get(CACHE_COUNT - 1);
+            assertThat(loaded).isNotSameAs(placeholder);
+            assertThat(loaded.getGeocode()).isEqualTo(getGeocode(0));
+            assertThat(loaded.isDetailed()).isTrue();
+            assertThat(loaded.isStatusChecked()).isTrue();
+            assertThat(list.getCheckedCount()).isEqualTo(1);
+
+            // pages loaded for positions which have changed in the meantime are dropped
+            list.get(0);
+            assertThat(list.sortByDistance(new Geopoint(52.0, 9.0), false)).isTrue();
+            scheduler.triggerActions();
+            assertThat(loadedPages.get()).isEqualTo(1);
+            assertThat(list.getLoadedPageCount()).isEqualTo(0);
+
+            // nothing is installed after the list was disposed
+            list.get(0);
+            list.dispose();
+            scheduler.triggerActions();
+            assertThat(loadedPages.get()).isEqualTo(1);
+            assertThat(list.isLoaded(0)).isFalse();
+        } finally {
+            DataStore.removeCaches(geocodes, REMOVE_ALL);
+            DataStore.removeList(listId);
+        }
+    }
+}
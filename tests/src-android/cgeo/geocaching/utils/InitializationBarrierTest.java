@@ -0,0 +1,136 @@
+package cgeo.geocaching.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.fail;
+
+public class InitializationBarrierTest {
+
+    private static final int THREADS = 16;
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    private Runnable record(final String event) {
+        return () -> events.add(event);
+    }
+
+    @Test
+    public void testPhasesRunInOrder() {
+        final InitializationBarrier barrier = new InitializationBarrier("test")
+            .addPhase("database", record("database"))
+            .addPhase("lists", record("lists"))
+            .addPhase("connectors", record("connectors"));
+        assertThat(barrier.isFinished()).isFalse();
+
+        barrier.start(Schedulers.newThread());
+        barrier.await();
+        assertThat(barrier.isFinished()).isTrue();
+        assertThat(events).containsExactly("database", "lists", "connectors");
+
+        // phases run once only
+        barrier.start(Schedulers.newThread());
+        barrier.await();
+        assertThat(events).containsExactly("database", "lists", "connectors");
+    }
+
+    @Test
+    public void testAwaitRunsPhasesIfNotStarted() {
+        final InitializationBarrier barrier = new InitializationBarrier("test")
+            .addPhase("database", () -> events.add(Thread.currentThread().getName()));
+        barrier.await();
+        assertThat(events).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void testConcurrentAwait() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        final InitializationBarrier barrier = new InitializationBarrier("test")
+            .addPhase("slow", () -> {
+                runs.incrementAndGet();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                events.add("slow");
+            })
+            .addPhase("fast", record("fast"));
+
+        final CyclicBarrier allWaiting = new CyclicBarrier(THREADS + 1);
+        final List<String> observed = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    allWaiting.await();
+                } catch (final Exception e) {
+                    fail("threads not started", e);
+                }
+                barrier.await();
+                // every caller sees the results of all phases
+                observed.add(barrier.isFinished() + " " + events);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        barrier.start(Schedulers.newThread());
+        try {
+            allWaiting.await();
+        } catch (final Exception e) {
+            fail("threads not started", e);
+        }
+        Thread.sleep(100);
+        assertThat(observed).isEmpty();
+
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(observed).hasSize(THREADS);
+        assertThat(new ArrayList<>(observed)).containsOnly("true [slow, fast]");
+    }
+
+    @Test
+    public void testAwaitFromPhase() {
+        final InitializationBarrier[] barrier = new InitializationBarrier[1];
+        barrier[0] = new InitializationBarrier("test")
+            .addPhase("database", () -> {
+                // e.g. code of a later phase called from an earlier phase
+                barrier[0].await();
+                events.add("database");
+            })
+            .addPhase("lists", record("lists"));
+        barrier[0].await();
+        assertThat(events).containsExactly("database", "lists");
+    }
+
+    @Test
+    public void testFailingPhaseDoesNotStopLaterPhases() {
+        final InitializationBarrier barrier = new InitializationBarrier("test")
+            .addPhase("database", () -> {
+                throw new IllegalStateException("database not available");
+            })
+            .addPhase("lists", record("lists"));
+        barrier.await();
+        assertThat(barrier.isFinished()).isTrue();
+        assertThat(events).containsExactly("lists");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoPhasesAfterStart() {
+        final InitializationBarrier barrier = new InitializationBarrier("test").addPhase("database", record("database"));
+        barrier.await();
+        barrier.addPhase("lists", record("lists"));
+    }
+}
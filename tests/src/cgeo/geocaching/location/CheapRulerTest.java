@@ -0,0 +1,66 @@
+package cgeo.geocaching.location;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class CheapRulerTest {
+
+    private static void assertCloseToGeodesic(final Geopoint origin, final Geopoint point, final double relativeError) {
+        final double exact = origin.distanceTo(point);
+        assertThat((double) new CheapRuler(origin).distanceTo(point)).isEqualTo(exact, offset(exact * relativeError + 1e-6));
+    }
+
+    @Test
+    public void testSamePoint() {
+        final Geopoint point = new Geopoint(48.1, 11.6);
+        assertThat(new CheapRuler(point).distanceTo(point)).isEqualTo(0.0f);
+    }
+
+    @Test
+    public void testShortDistances() {
+        for (int latitude = -75; latitude <= 75; latitude += 5) {
+            final Geopoint origin = new Geopoint(latitude + 0.123, 7.89);
+            for (int bearing = 0; bearing < 360; bearing += 30) {
+                assertCloseToGeodesic(origin, origin.project(bearing, 0.05), 1e-3);
+                assertCloseToGeodesic(origin, origin.project(bearing, 3), 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void testLongDistances() {
+        for (int latitude = -75; latitude <= 75; latitude += 5) {
+            final Geopoint origin = new Geopoint(latitude + 0.456, -12.34);
+            for (int bearing = 0; bearing < 360; bearing += 30) {
+                assertCloseToGeodesic(origin, origin.project(bearing, 250), 2e-3);
+            }
+        }
+    }
+
+    @Test
+    public void testFarPointsUseGeodesic() {
+        final Geopoint origin = new Geopoint(48.1, 11.6);
+        final Geopoint point = new Geopoint(-33.9, 151.2);
+        assertThat(new CheapRuler(origin).distanceTo(point)).isEqualTo(origin.distanceTo(point));
+    }
+
+    @Test
+    public void testDateLine() {
+        final Geopoint origin = new Geopoint(-17.7, 179.99);
+        assertCloseToGeodesic(origin, new Geopoint(-17.7, -179.99), 1e-3);
+        assertCloseToGeodesic(new Geopoint(-17.7, -179.99), origin, 1e-3);
+    }
+
+    @Test
+    public void testPoles() {
+        final Geopoint north = new Geopoint(89.99, 0);
+        assertThat(new CheapRuler(north).distanceTo(new Geopoint(89.98, 10))).isEqualTo(north.distanceTo(new Geopoint(89.98, 10)));
+        final Geopoint south = new Geopoint(-79.99, 0);
+        assertThat(new CheapRuler(south).distanceTo(new Geopoint(-80.01, 1))).isEqualTo(south.distanceTo(new Geopoint(-80.01, 1)));
+        // beyond 75 degrees of latitude of either point
+        final Geopoint origin = new Geopoint(74.9, 20);
+        assertThat(new CheapRuler(origin).distanceTo(new Geopoint(75.1, 21))).isEqualTo(origin.distanceTo(new Geopoint(75.1, 21)));
+        assertThat(new CheapRuler(new Geopoint(75.1, 21)).distanceTo(origin)).isEqualTo(new Geopoint(75.1, 21).distanceTo(origin));
+    }
+}
@@ -22,6 +22,14 @@ public class GeopointTest {
         assertThat(gp.getLongitude()).isEqualTo(9.65185, offset(1e-4));
     }
 
+    @Test
+    public void testCreationFromE6() {
+        final Geopoint gp = Geopoint.forE6(48200000, -3500001);
+        assertThat(gp.getLatitudeE6()).isEqualTo(48200000);
+        assertThat(gp.getLongitudeE6()).isEqualTo(-3500001);
+        assertThat(gp).isEqualTo(new Geopoint(48.2, -3.500001));
+    }
+
     @Test
     public void testCreationAtLimit() {
         // No exception should be raised.
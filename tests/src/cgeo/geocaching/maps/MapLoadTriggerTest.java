@@ -0,0 +1,74 @@
+package cgeo.geocaching.maps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class MapLoadTriggerTest {
+
+    private static final long DELAY = 250;
+
+    private final TestScheduler timerScheduler = new TestScheduler();
+    private final TestScheduler actionScheduler = new TestScheduler();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private MapLoadTrigger createTrigger() {
+        return new MapLoadTrigger(runs::incrementAndGet, DELAY, timerScheduler, actionScheduler);
+    }
+
+    private void advance(final long millis) {
+        timerScheduler.advanceTimeBy(millis, TimeUnit.MILLISECONDS);
+        actionScheduler.triggerActions();
+    }
+
+    @Test
+    public void testNoRunWithoutRequests() {
+        createTrigger();
+        advance(TimeUnit.MINUTES.toMillis(10));
+        assertThat(runs.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void testRequestsAreDebounced() {
+        final MapLoadTrigger trigger = createTrigger();
+        // a continuous map move
+        for (int i = 0; i < 20; i++) {
+            trigger.request();
+            advance(DELAY / 5);
+        }
+        assertThat(runs.get()).isEqualTo(0);
+
+        advance(DELAY);
+        assertThat(runs.get()).isEqualTo(1);
+
+        advance(TimeUnit.MINUTES.toMillis(10));
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRequestsDuringLoadAreCoalesced() {
+        final MapLoadTrigger trigger = createTrigger();
+        // three separate moves while the action scheduler is busy
+        for (int i = 0; i < 3; i++) {
+            trigger.request();
+            timerScheduler.advanceTimeBy(2 * DELAY, TimeUnit.MILLISECONDS);
+        }
+        actionScheduler.triggerActions();
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDispose() {
+        final MapLoadTrigger trigger = createTrigger();
+        trigger.request();
+        trigger.dispose();
+        assertThat(trigger.isDisposed()).isTrue();
+        advance(DELAY);
+        trigger.request();
+        advance(DELAY);
+        assertThat(runs.get()).isEqualTo(0);
+    }
+}
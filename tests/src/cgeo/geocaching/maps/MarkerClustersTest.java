@@ -0,0 +1,137 @@
+package cgeo.geocaching.maps;
+
+import cgeo.geocaching.location.Geopoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.fail;
+
+public class MarkerClustersTest {
+
+    private static final int CLUSTER_ZOOM = 14;
+
+    private final Map<String, Geopoint> coords = new HashMap<>();
+
+    private MarkerClusters<String> createClusters() {
+        return new MarkerClusters<>(CLUSTER_ZOOM, MarkerClusters.DEFAULT_CELL_BITS, coords::get);
+    }
+
+    private static List<String> getClusterIds(final MarkerClusters<String> clusters, final int zoom) {
+        final List<String> ids = new ArrayList<>();
+        for (final MarkerClusters.Cluster<String> cluster : clusters.getClusters(zoom)) {
+            ids.add(cluster.getId() + "@" + cluster.getCenter());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static int getTotalCount(final MarkerClusters<String> clusters, final int zoom) {
+        int count = 0;
+        for (final MarkerClusters.Cluster<String> cluster : clusters.getClusters(zoom)) {
+            count += cluster.getCount();
+        }
+        return count;
+    }
+
+    @Test
+    public void testNearbyItemsSplitWhenZoomingIn() {
+        coords.put("A", new Geopoint(52.0, 9.0));
+        coords.put("B", new Geopoint(52.02, 9.02)); // ~2.6km away
+        coords.put("C", new Geopoint(48.0, 11.0));
+        final MarkerClusters<String> clusters = createClusters();
+        assertThat(clusters.update(coords.keySet())).isTrue();
+        assertThat(clusters.size()).isEqualTo(3);
+
+        // world view: A, B and C in the same 64 pixel cell
+        assertThat(clusters.getClusters(0)).hasSize(1);
+        assertThat(clusters.getClusters(0).get(0).getCount()).isEqualTo(3);
+        assertThat(clusters.getClusters(0).get(0).getSingleItem()).isNull();
+
+        // region view: A and B together, C alone
+        final List<MarkerClusters.Cluster<String>> regional = clusters.getClusters(8);
+        assertThat(regional).hasSize(2);
+        for (final MarkerClusters.Cluster<String> cluster : regional) {
+            if (cluster.getCount() == 2) {
+                assertThat(cluster.getItems()).containsOnly("A", "B");
+                assertThat(cluster.getCenter().distanceTo(new Geopoint(52.01, 9.01))).isLessThan(0.01f);
+            } else {
+                assertThat(cluster.getSingleItem()).isEqualTo("C");
+            }
+        }
+
+        // last clustered level: all alone
+        assertThat(clusters.getClusters(CLUSTER_ZOOM - 1)).hasSize(3);
+        assertThat(clusters.isClustered(CLUSTER_ZOOM)).isFalse();
+        try {
+            clusters.getClusters(CLUSTER_ZOOM);
+            fail("zoom level must not be clustered");
+        } catch (final IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testInvalidCoordinatesAreIgnored() {
+        coords.put("A", new Geopoint(52.0, 9.0));
+        final MarkerClusters<String> clusters = createClusters();
+        assertThat(clusters.add("A")).isTrue();
+        assertThat(clusters.add("A")).isFalse();
+        assertThat(clusters.add("unknown")).isFalse();
+        assertThat(clusters.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchFullBuild() {
+        final Random random = new Random(42);
+        final List<String> items = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            final String item = "GC" + i;
+            items.add(item);
+            coords.put(item, new Geopoint(50.0 + random.nextDouble() * 4, 7.0 + random.nextDouble() * 6));
+        }
+        final MarkerClusters<String> incremental = createClusters();
+        incremental.update(items.subList(0, 1500));
+
+        // remove some, add others, move some
+        final List<String> current = new ArrayList<>(items.subList(500, 2000));
+        for (int i = 600; i < 700; i++) {
+            coords.put("GC" + i, new Geopoint(50.0 + random.nextDouble() * 4, 7.0 + random.nextDouble() * 6));
+        }
+        assertThat(incremental.update(current)).isTrue();
+        assertThat(incremental.update(current)).isFalse();
+        incremental.remove("GC1999");
+        current.remove("GC1999");
+
+        final MarkerClusters<String> full = createClusters();
+        full.update(current);
+
+        assertThat(incremental.size()).isEqualTo(current.size());
+        for (int zoom = 0; zoom < CLUSTER_ZOOM; zoom++) {
+            assertThat(getTotalCount(incremental, zoom)).isEqualTo(current.size());
+            assertThat(getClusterIds(incremental, zoom)).isEqualTo(getClusterIds(full, zoom));
+            // each zoom level has at least as many clusters as the one before
+            if (zoom > 0) {
+                assertThat(incremental.getClusters(zoom).size()).isGreaterThanOrEqualTo(incremental.getClusters(zoom - 1).size());
+            }
+        }
+
+        incremental.clear();
+        assertThat(incremental.size()).isEqualTo(0);
+        assertThat(incremental.getClusters(5)).isEmpty();
+    }
+
+    @Test
+    public void testClusteringDisabled() {
+        final MarkerClusters<String> clusters = new MarkerClusters<>(0, MarkerClusters.DEFAULT_CELL_BITS, coords::get);
+        for (int zoom = -1; zoom < 22; zoom++) {
+            assertThat(clusters.isClustered(zoom)).isFalse();
+        }
+    }
+}
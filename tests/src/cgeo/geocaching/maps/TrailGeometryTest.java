@@ -0,0 +1,122 @@
+package cgeo.geocaching.maps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class TrailGeometryTest {
+
+    /** map size for which one pixel equals 4096 world units */
+    private static final long MAP_SIZE = WorldCoordinates.WORLD_SIZE >> 12;
+
+    private static final class TestPositions implements TrailGeometry.Positions {
+        private final List<int[]> points = new ArrayList<>();
+        private int first = 0;
+
+        void add(final int x, final int y, final boolean connected) {
+            points.add(new int[]{x, y, connected ? 1 : 0});
+        }
+
+        @Override
+        public int getFirstIndex() {
+            return first;
+        }
+
+        @Override
+        public int getEndIndex() {
+            return points.size();
+        }
+
+        @Override
+        public int getWorldX(final int index) {
+            return points.get(index)[0];
+        }
+
+        @Override
+        public int getWorldY(final int index) {
+            return points.get(index)[1];
+        }
+
+        @Override
+        public boolean isConnected(final int index) {
+            return index > first && points.get(index)[2] == 1;
+        }
+    }
+
+    private static List<String> traverse(final TrailGeometry geometry, final long mapSize) {
+        final List<String> visited = new ArrayList<>();
+        geometry.traverse(mapSize, (index, newLine) -> visited.add((newLine ? "M" : "L") + index));
+        return visited;
+    }
+
+    @Test
+    public void testStraightLineIsSimplified() {
+        final TestPositions positions = new TestPositions();
+        for (int i = 0; i < 200; i++) {
+            positions.add(100000 + i * 10000, 100000 + (i % 2) * 100, i > 0);
+        }
+        final TrailGeometry geometry = new TrailGeometry(positions);
+        final List<String> visited = traverse(geometry, MAP_SIZE);
+
+        // three chunks reduced to their end points, the recent positions unchanged
+        assertThat(visited.subList(0, 7)).containsExactly("M0", "L63", "L64", "L127", "L128", "L191", "L192");
+        assertThat(visited).hasSize(7 + 7);
+        assertThat(visited.get(visited.size() - 1)).isEqualTo("L199");
+
+        // at a high zoom level the zigzag of 100 world units must be visible
+        assertThat(traverse(geometry, WorldCoordinates.WORLD_SIZE << 2)).hasSize(200);
+    }
+
+    @Test
+    public void testCornersAreKept() {
+        final TestPositions positions = new TestPositions();
+        for (int i = 0; i < 40; i++) {
+            positions.add(100000 + i * 10000, 100000, i > 0);
+        }
+        for (int i = 1; i <= 40; i++) {
+            positions.add(100000 + 39 * 10000, 100000 + i * 10000, true);
+        }
+        final TrailGeometry geometry = new TrailGeometry(positions);
+        assertThat(traverse(geometry, MAP_SIZE).subList(0, 3)).containsExactly("M0", "L39", "L63");
+    }
+
+    @Test
+    public void testGapsAreNotConnected() {
+        final TestPositions positions = new TestPositions();
+        for (int i = 0; i < 100; i++) {
+            positions.add(100000 + i * 10000, 100000, i > 0 && i != 30);
+        }
+        final TrailGeometry geometry = new TrailGeometry(positions);
+        assertThat(traverse(geometry, MAP_SIZE).subList(0, 5)).containsExactly("M0", "L29", "M30", "L63", "L64");
+    }
+
+    @Test
+    public void testTrimmedHistory() {
+        final TestPositions positions = new TestPositions();
+        for (int i = 0; i < 100; i++) {
+            positions.add(100000 + i * 10000, 100000, i > 0);
+        }
+        final TrailGeometry geometry = new TrailGeometry(positions);
+        assertThat(traverse(geometry, MAP_SIZE)).startsWith("M0", "L63");
+
+        positions.first = 10;
+        assertThat(traverse(geometry, MAP_SIZE)).startsWith("M10", "L63", "L64");
+
+        positions.first = positions.getEndIndex();
+        assertThat(traverse(geometry, MAP_SIZE)).isEmpty();
+    }
+
+    @Test
+    public void testClipping() {
+        final TestPositions positions = new TestPositions();
+        for (int i = 0; i < 10; i++) {
+            positions.add(100000 + i * 10000, 100000, i > 0);
+        }
+        final TrailGeometry geometry = new TrailGeometry(positions);
+        final List<String> visited = new ArrayList<>();
+        geometry.traverse(MAP_SIZE, 135000, 0, 155000, 200000, (index, newLine) -> visited.add((newLine ? "M" : "L") + index));
+        assertThat(visited).containsExactly("M3", "L4", "L5", "L6");
+    }
+}
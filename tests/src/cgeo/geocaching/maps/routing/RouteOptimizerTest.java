@@ -0,0 +1,199 @@
+package cgeo.geocaching.maps.routing;
+
+import cgeo.geocaching.location.Geopoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class RouteOptimizerTest {
+
+    private static List<Geopoint> randomPoints(final int count, final long seed) {
+        final Random random = new Random(seed);
+        final List<Geopoint> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // roughly 15 x 10 km around Hannover
+            points.add(new Geopoint(52.3 + random.nextDouble() * 0.1, 9.7 + random.nextDouble() * 0.2));
+        }
+        return points;
+    }
+
+    private static void assertValidOrder(final int[] order, final int size) {
+        assertThat(order).hasSize(size);
+        if (size > 0) {
+            assertThat(order[0]).isEqualTo(0);
+        }
+        final int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < size; i++) {
+            assertThat(sorted[i]).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void testEmptyAndSinglePoint() {
+        assertThat(new RouteOptimizer(RouteOptimizer.straightLine(Collections.emptyList()), 100).optimize()).isEmpty();
+        assertThat(new RouteOptimizer(RouteOptimizer.straightLine(Collections.singletonList(new Geopoint(52, 9))), 100).optimize()).containsExactly(0);
+    }
+
+    @Test
+    public void testPointsOnLine() {
+        final List<Geopoint> points = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            points.add(new Geopoint(52.0, 9.0 + 0.01 * i));
+        }
+        // keep the start, shuffle the rest
+        final List<Geopoint> shuffled = new ArrayList<>(points.subList(1, points.size()));
+        Collections.shuffle(shuffled, new Random(42));
+        shuffled.add(0, points.get(0));
+
+        final RouteOptimizer optimizer = new RouteOptimizer(RouteOptimizer.straightLine(shuffled), 1000);
+        final int[] order = optimizer.optimize();
+
+        assertValidOrder(order, shuffled.size());
+        assertThat(optimizer.getCost(order)).isEqualTo(points.get(0).distanceTo(points.get(points.size() - 1)), offset(0.01f));
+    }
+
+    @Test
+    public void testStartInTheMiddleWithOpenEnd() {
+        // points on a line, starting at 2: visiting the nearer side first is shorter (7 instead of 8)
+        final float[] positions = { 2, 5, 0, 3, 1 };
+        final float[][] costs = new float[positions.length][positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            for (int j = 0; j < positions.length; j++) {
+                costs[i][j] = Math.abs(positions[i] - positions[j]);
+            }
+        }
+        final RouteOptimizer optimizer = new RouteOptimizer(RouteOptimizer.fromArray(costs), 1000);
+        final int[] order = optimizer.optimize();
+        assertThat(order).containsExactly(0, 4, 2, 3, 1);
+        assertThat(optimizer.getCost(order)).isEqualTo(7f);
+    }
+
+    @Test
+    public void testImprovesNearestNeighbour() {
+        for (long seed = 1; seed <= 10; seed++) {
+            final List<Geopoint> points = randomPoints(40, seed);
+            final RouteOptimizer optimizer = new RouteOptimizer(RouteOptimizer.straightLine(points), 1000);
+            final float nearestNeighbourCost = optimizer.getCost(optimizer.nearestNeighbour());
+            final int[] order = optimizer.optimize();
+
+            assertValidOrder(order, points.size());
+            assertThat(optimizer.getCost(order)).isLessThanOrEqualTo(nearestNeighbourCost);
+        }
+    }
+
+    /**
+     * exact cost of the shortest open path starting at point 0 (Held-Karp), only feasible for a few points
+     */
+    private static float optimalCost(final RouteOptimizer.CostMatrix costs) {
+        final int n = costs.size();
+        final float[][] best = new float[1 << n][n];
+        for (float[] row : best) {
+            Arrays.fill(row, Float.MAX_VALUE);
+        }
+        best[1][0] = 0;
+        for (int visited = 1; visited < 1 << n; visited += 2) {
+            for (int last = 0; last < n; last++) {
+                if (best[visited][last] == Float.MAX_VALUE) {
+                    continue;
+                }
+                for (int next = 1; next < n; next++) {
+                    if ((visited & (1 << next)) == 0) {
+                        final int extended = visited | (1 << next);
+                        best[extended][next] = Math.min(best[extended][next], best[visited][last] + costs.getCost(last, next));
+                    }
+                }
+            }
+        }
+        float result = Float.MAX_VALUE;
+        for (float cost : best[(1 << n) - 1]) {
+            result = Math.min(result, cost);
+        }
+        return result;
+    }
+
+    /**
+     * cost of the minimum spanning tree, a lower bound of the cost of every path visiting all points
+     */
+    private static float minimumSpanningTreeCost(final RouteOptimizer.CostMatrix costs) {
+        final int n = costs.size();
+        final boolean[] inTree = new boolean[n];
+        final float[] distance = new float[n];
+        Arrays.fill(distance, Float.MAX_VALUE);
+        distance[0] = 0;
+        float total = 0;
+        for (int added = 0; added < n; added++) {
+            int nearest = -1;
+            for (int i = 0; i < n; i++) {
+                if (!inTree[i] && (nearest < 0 || distance[i] < distance[nearest])) {
+                    nearest = i;
+                }
+            }
+            inTree[nearest] = true;
+            total += distance[nearest];
+            for (int i = 0; i < n; i++) {
+                if (!inTree[i]) {
+                    distance[i] = Math.min(distance[i], costs.getCost(nearest, i));
+                }
+            }
+        }
+        return total;
+    }
+
+    @Test
+    public void testCloseToOptimum() {
+        for (long seed = 1; seed <= 20; seed++) {
+            final RouteOptimizer.CostMatrix costs = RouteOptimizer.straightLine(randomPoints(12, seed));
+            final RouteOptimizer optimizer = new RouteOptimizer(costs, 5000);
+            final int[] order = optimizer.optimize();
+
+            assertValidOrder(order, costs.size());
+            // 2-opt and Or-opt are within a few percent of the optimum for such small sets
+            assertThat(optimizer.getCost(order)).as("seed " + seed).isLessThanOrEqualTo(optimalCost(costs) * 1.1f);
+        }
+    }
+
+    @Test
+    public void testBenchmarkSyntheticPointSets() {
+        for (final int size : new int[] { 20, 60, 150 }) {
+            final List<Geopoint> points = randomPoints(size, size);
+            final long start = System.currentTimeMillis();
+            final RouteOptimizer.CostMatrix costs = RouteOptimizer.straightLine(points);
+            final RouteOptimizer optimizer = new RouteOptimizer(costs, 5000);
+            final float nearestNeighbourCost = optimizer.getCost(optimizer.nearestNeighbour());
+            final int[] order = optimizer.optimize();
+            final long duration = System.currentTimeMillis() - start;
+
+            assertValidOrder(order, size);
+            final float cost = optimizer.getCost(order);
+            final float lowerBound = minimumSpanningTreeCost(costs);
+            assertThat(cost).isLessThanOrEqualTo(nearestNeighbourCost);
+            // random points in the plane: the optimal path is about 5-15% longer than the spanning tree
+            assertThat(cost).as("%d points, optimized in %d ms", size, duration).isLessThanOrEqualTo(lowerBound * 1.25f);
+        }
+    }
+
+    @Test
+    public void testOptimizeItemsKeepsStartAndMovesItemsWithoutPoint() {
+        // items are the positions on a line, null for items without a point
+        final List<Integer> items = Arrays.asList(2, 5, null, 0, 3, null, 1);
+        final List<Integer> sorted = RouteOptimizer.optimizeItems(items, position -> position == null ? null : new Geopoint(52.0, 9.0 + 0.01 * position),
+                RouteOptimizer::straightLine, 1000);
+        assertThat(sorted).containsExactly(2, 1, 0, 3, 5, null, null);
+    }
+
+    @Test
+    public void testOptimizeItemsWithoutStartPoint() {
+        final List<Integer> items = Arrays.asList(null, 5, 0, 3);
+        assertThat(RouteOptimizer.optimizeItems(items, position -> position == null ? null : new Geopoint(52.0, 9.0 + 0.01 * position),
+                RouteOptimizer::straightLine, 1000)).isNull();
+        assertThat(RouteOptimizer.optimizeItems(Collections.<Integer>emptyList(), position -> null, RouteOptimizer::straightLine, 1000)).isEmpty();
+    }
+}
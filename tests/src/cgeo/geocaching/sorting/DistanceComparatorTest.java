@@ -8,6 +8,8 @@ import java.util.Collections;
 import java.util.List;
 
 import org.junit.Test;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Java6Assertions.assertThat;
 
 public class DistanceComparatorTest {
 
@@ -24,4 +26,42 @@ public class DistanceComparatorTest {
         Collections.sort(caches, new DistanceComparator(Geopoint.ZERO));
     }
 
+    private static Geocache createCache(final String geocode, final Geopoint coords) {
+        final Geocache cache = new Geocache();
+        cache.setGeocode(geocode);
+        cache.setCoords(coords);
+        return cache;
+    }
+
+    private static List<String> geocodes(final List<Geocache> caches) {
+        final List<String> geocodes = new ArrayList<>();
+        for (final Geocache cache : caches) {
+            geocodes.add(cache.getGeocode());
+        }
+        return geocodes;
+    }
+
+    @Test
+    public void testSort() {
+        final Geopoint origin = new Geopoint(48.1, 11.6);
+        final List<Geocache> caches = new ArrayList<>();
+        caches.add(createCache("GC5", origin.project(10, 40)));
+        caches.add(createCache("GC1", origin.project(200, 0.5)));
+        caches.add(createCache("GC6", null));
+        caches.add(createCache("GC3", origin.project(90, 2)));
+        caches.add(createCache("GC7", null));
+        caches.add(createCache("GC4", origin.project(300, 2.1)));
+        caches.add(createCache("GC2", origin.project(0, 0.51)));
+        caches.add(createCache("GC8", origin.project(45, 900)));
+
+        final DistanceComparator comparator = new DistanceComparator(origin);
+        comparator.sort(caches, false);
+        assertThat(geocodes(caches)).containsExactly("GC1", "GC2", "GC3", "GC4", "GC5", "GC8", "GC6", "GC7");
+        assertThat((double) caches.get(0).getDistance()).isEqualTo(0.5, offset(0.001));
+        assertThat((double) caches.get(5).getDistance()).isEqualTo(900, offset(0.01));
+
+        comparator.sort(caches, true);
+        assertThat(geocodes(caches)).containsExactly("GC6", "GC7", "GC8", "GC5", "GC4", "GC3", "GC2", "GC1");
+    }
+
 }
@@ -43,6 +43,47 @@ public class FileByteReaderTest {
         assertThat(buffer).isEqualTo(new byte[]{5, 6, 7, 8, 9, 10, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
     }
 
+    @Test
+    public void mapped() throws IOException {
+        final byte[] buffer = new byte[10];
+
+        final File testFile = createTestFile(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        final FileByteReader fbr = new FileByteReader(new FileInputStream(testFile), true);
+        assertThat(fbr.isMapped()).isTrue();
+        assertThat(fbr.size()).isEqualTo(10);
+
+        fbr.readFully(0, 5, buffer);
+        assertThat(buffer).isEqualTo(new byte[]{1, 2, 3, 4, 5, 0, 0, 0, 0, 0});
+
+        fbr.readFully(4, 5, buffer);
+        assertThat(buffer).isEqualTo(new byte[]{5, 6, 7, 8, 9, 0, 0, 0, 0, 0});
+        fbr.close();
+    }
+
+    @Test
+    public void mappedOverthelimit() throws IOException {
+        final byte[] buffer = new byte[20];
+
+        final File testFile = createTestFile(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        final FileByteReader fbr = new FileByteReader(new FileInputStream(testFile), true);
+
+        try {
+            fbr.readFully(4, 20, buffer);
+            fail("Expected IOException because we read more data than available in file");
+        } catch (IOException ioe) {
+            //expected!
+        }
+        assertThat(buffer).isEqualTo(new byte[]{5, 6, 7, 8, 9, 10, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+
+        try {
+            fbr.readFully(10, 1, buffer);
+            fail("Expected IOException because we read behind the end of the file");
+        } catch (IOException ioe) {
+            //expected!
+        }
+        fbr.close();
+    }
+
     private static File createTestFile(final byte[] data) throws IOException {
         final File newFile = File.createTempFile("cgeo-test-" + System.currentTimeMillis(), ".txt");
         IOUtils.write(data, new FileOutputStream(newFile, false));
@@ -0,0 +1,158 @@
+package cgeo.geocaching.storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class ImageStoreTest {
+
+    private static final byte[] AVATAR = createContent(1000, 1);
+    private static final byte[] SPOILER = createContent(2000, 2);
+
+    private File dataDirectory;
+    private ImageStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        dataDirectory = File.createTempFile("imagestore", null);
+        assertThat(dataDirectory.delete()).isTrue();
+        assertThat(dataDirectory.mkdirs()).isTrue();
+        store = new ImageStore(dataDirectory, 1500);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dataDirectory);
+    }
+
+    private static byte[] createContent(final int size, final int seed) {
+        final byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * seed);
+        }
+        return content;
+    }
+
+    private File createImage(final String geocode, final String name, final byte[] content) throws IOException {
+        final File directory = new File(dataDirectory, geocode);
+        directory.mkdirs();
+        final File file = new File(directory, name);
+        final FileOutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(content);
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+        return file;
+    }
+
+    private File[] storedContents() {
+        final File[] contents = new File(dataDirectory, ImageStore.STORE_DIR_NAME).listFiles();
+        return contents != null ? contents : new File[0];
+    }
+
+    private void makeOld(final File file) {
+        assertThat(file.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2))).isTrue();
+    }
+
+    @Test
+    public void testIdenticalContentIsStoredOnce() throws IOException {
+        final File first = createImage("GC1", "avatar.jpg", AVATAR);
+        final File second = createImage("GC2", "avatar.jpg", AVATAR);
+        final File spoiler = createImage("GC2", "spoiler.jpg", SPOILER);
+        assertThat(store.store(first)).isTrue();
+        assertThat(store.store(second)).isTrue();
+        assertThat(store.store(spoiler)).isTrue();
+
+        assertThat(storedContents()).hasSize(2);
+        assertThat(first.length()).isLessThan(AVATAR.length);
+        assertThat(store.resolve(first)).isEqualTo(store.resolve(second));
+        assertThat(FileUtils.readFileToByteArray(store.resolve(first))).isEqualTo(AVATAR);
+        assertThat(FileUtils.readFileToByteArray(store.resolve(spoiler))).isEqualTo(SPOILER);
+
+        assertThat(store.countReferences()).hasSize(2);
+        assertThat(store.countReferences().get(store.resolve(first).getName())).isEqualTo(2);
+    }
+
+    @Test
+    public void testStoringKeepsModificationTime() throws IOException {
+        final File file = createImage("GC1", "avatar.jpg", AVATAR);
+        makeOld(file);
+        final long lastModified = file.lastModified();
+        assertThat(store.store(file)).isTrue();
+        assertThat(file.lastModified()).isEqualTo(lastModified);
+    }
+
+    @Test
+    public void testPlainFilesResolveToThemselves() throws IOException {
+        final File file = createImage("GC1", "legacy.jpg", AVATAR);
+        assertThat(store.resolve(file)).isEqualTo(file);
+        assertThat(store.isDangling(file)).isFalse();
+    }
+
+    @Test
+    public void testStoringTwiceDoesNothing() throws IOException {
+        final File file = createImage("GC1", "avatar.jpg", AVATAR);
+        assertThat(store.store(file)).isTrue();
+        assertThat(store.store(file)).isFalse();
+        assertThat(FileUtils.readFileToByteArray(store.resolve(file))).isEqualTo(AVATAR);
+    }
+
+    @Test
+    public void testReferencedContentIsNotEvicted() throws IOException {
+        final File avatar = createImage("GC1", "avatar.jpg", AVATAR);
+        final File spoiler = createImage("GC1", "spoiler.jpg", SPOILER);
+        store.store(avatar);
+        store.store(spoiler);
+        for (final File content : storedContents()) {
+            makeOld(content);
+        }
+        assertThat(store.trim()).isEqualTo(0);
+        assertThat(storedContents()).hasSize(2);
+    }
+
+    @Test
+    public void testUnreferencedContentIsEvictedBeyondBudget() throws IOException {
+        final File avatar = createImage("GC1", "avatar.jpg", AVATAR);
+        final File spoiler = createImage("GC2", "spoiler.jpg", SPOILER);
+        store.store(avatar);
+        store.store(spoiler);
+        final File avatarContent = store.resolve(avatar);
+        final File spoilerContent = store.resolve(spoiler);
+        makeOld(avatarContent);
+        makeOld(spoilerContent);
+        assertThat(spoilerContent.setLastModified(avatarContent.lastModified() - 1000)).isTrue();
+
+        // removing the cache directories drops the references, the least recently stored content goes first
+        FileUtils.deleteDirectory(new File(dataDirectory, "GC1"));
+        FileUtils.deleteDirectory(new File(dataDirectory, "GC2"));
+        assertThat(store.trim()).isEqualTo(1);
+        assertThat(storedContents()).containsExactly(avatarContent);
+    }
+
+    @Test
+    public void testRecentContentIsNotEvicted() throws IOException {
+        final File spoiler = createImage("GC1", "spoiler.jpg", SPOILER);
+        store.store(spoiler);
+        FileUtils.deleteDirectory(new File(dataDirectory, "GC1"));
+        assertThat(store.trim()).isEqualTo(0);
+        assertThat(storedContents()).hasSize(1);
+    }
+
+    @Test
+    public void testDanglingReference() throws IOException {
+        final File avatar = createImage("GC1", "avatar.jpg", AVATAR);
+        store.store(avatar);
+        assertThat(store.isDangling(avatar)).isFalse();
+        assertThat(store.resolve(avatar).delete()).isTrue();
+        assertThat(store.isDangling(avatar)).isTrue();
+    }
+}